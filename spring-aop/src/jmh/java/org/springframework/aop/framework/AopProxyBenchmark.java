@@ -0,0 +1,156 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.NameMatchMethodPointcut;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Benchmark for invocations through JDK and CGLIB proxies with several
+ * advisors, comparing regular proxies with frozen proxies for a static target
+ * which resolve their interceptor chains upfront. Also compares the chain
+ * lookups in isolation: the method cache of {@link AdvisedSupport} used by
+ * regular proxies versus the plain method map of frozen JDK proxies.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AopProxyBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"jdk", "cglib"})
+		public String proxyType;
+
+		@Param({"false", "true"})
+		public boolean frozen;
+
+		@Param({"1", "6"})
+		public int advisorCount;
+
+		public Service service;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			ProxyFactory proxyFactory = new ProxyFactory(new DefaultService());
+			proxyFactory.setProxyTargetClass("cglib".equals(this.proxyType));
+			for (int i = 0; i < this.advisorCount; i++) {
+				NameMatchMethodPointcut pointcut = new NameMatchMethodPointcut();
+				pointcut.addMethodName("handle");
+				proxyFactory.addAdvisor(new DefaultPointcutAdvisor(pointcut, new PassThroughInterceptor()));
+			}
+			proxyFactory.setFrozen(this.frozen);
+			this.service = (Service) proxyFactory.getProxy();
+		}
+	}
+
+	@Benchmark
+	public Object advisedMethod(BenchmarkState state) {
+		return state.service.handle("value");
+	}
+
+	@Benchmark
+	public Object unadvisedMethod(BenchmarkState state) {
+		return state.service.describe("value");
+	}
+
+	@Benchmark
+	public List<Object> methodCacheChainLookup(ChainLookupState state) {
+		return state.advised.getInterceptorsAndDynamicInterceptionAdvice(state.method, DefaultService.class);
+	}
+
+	@Benchmark
+	public List<Object> fixedChainLookup(ChainLookupState state) {
+		return state.fixedChains.get(state.method);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ChainLookupState {
+
+		public AdvisedSupport advised;
+
+		public Map<Method, List<Object>> fixedChains;
+
+		public Method method;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.advised = new AdvisedSupport(Service.class);
+			this.advised.setTarget(new DefaultService());
+			NameMatchMethodPointcut pointcut = new NameMatchMethodPointcut();
+			pointcut.addMethodName("handle");
+			this.advised.addAdvisor(new DefaultPointcutAdvisor(pointcut, new PassThroughInterceptor()));
+			this.fixedChains = new HashMap<>();
+			for (Method method : Service.class.getMethods()) {
+				this.fixedChains.put(method,
+						this.advised.getInterceptorsAndDynamicInterceptionAdvice(method, DefaultService.class));
+			}
+			this.method = ReflectionUtils.findMethod(Service.class, "handle", Object.class);
+		}
+	}
+
+
+	public interface Service {
+
+		Object handle(Object value);
+
+		Object describe(Object value);
+	}
+
+
+	public static class DefaultService implements Service {
+
+		@Override
+		public Object handle(Object value) {
+			return value;
+		}
+
+		@Override
+		public Object describe(Object value) {
+			return value;
+		}
+	}
+
+
+	private static class PassThroughInterceptor implements MethodInterceptor {
+
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			return invocation.proceed();
+		}
+	}
+
+}
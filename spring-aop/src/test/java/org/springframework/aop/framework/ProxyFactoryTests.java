@@ -33,6 +33,7 @@ import org.springframework.aop.interceptor.DebugInterceptor;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.aop.support.DefaultIntroductionAdvisor;
 import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.NameMatchMethodPointcut;
 import org.springframework.aop.testfixture.advice.CountingBeforeAdvice;
 import org.springframework.aop.testfixture.interceptor.NopInterceptor;
 import org.springframework.aop.testfixture.interceptor.TimestampIntroductionInterceptor;
@@ -380,6 +381,30 @@ public class ProxyFactoryTests {
 		assertThat(proxy.getName()).isEqualTo("tb");
 	}
 
+	@Test
+	public void testFrozenInterfaceProxyWithStaticTarget() {
+		TestBean target = new TestBean("tb");
+		ProxyFactory pf = new ProxyFactory(target);
+		NopInterceptor nop = new NopInterceptor();
+		pf.addAdvisor(new DefaultPointcutAdvisor(new NameMatchMethodPointcut().addMethodName("getName"), nop));
+		pf.setFrozen(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+		assertThat(AopUtils.isJdkDynamicProxy(proxy)).isTrue();
+
+		assertThat(proxy.getName()).isEqualTo("tb");
+		proxy.setAge(42);
+		assertThat(proxy.getAge()).isEqualTo(42);
+		assertThat(nop.getCount()).isEqualTo(1);
+		assertThat(proxy.toString()).isEqualTo(target.toString());
+
+		pf.setFrozen(false);
+		CountingBeforeAdvice cba = new CountingBeforeAdvice();
+		pf.addAdvice(cba);
+		assertThat(proxy.getName()).isEqualTo("tb");
+		assertThat(nop.getCount()).isEqualTo(2);
+		assertThat(cba.getCalls()).isEqualTo(1);
+	}
+
 
 	@Order(2)
 	public static class A implements Runnable {
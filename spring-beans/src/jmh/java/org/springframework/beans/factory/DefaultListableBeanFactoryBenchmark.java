@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.beans.factory;
 
+import java.util.function.Supplier;
+
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
@@ -30,6 +32,7 @@ import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.testfixture.beans.LifecycleBean;
 import org.springframework.beans.testfixture.beans.TestBean;
+import org.springframework.core.ResolvableType;
 
 /**
  * Benchmark for retrieving various bean types from the {@link DefaultListableBeanFactory}.
@@ -133,6 +136,43 @@ public class DefaultListableBeanFactoryBenchmark {
 		return state.beanFactory.getBean(B.class);
 	}
 
+	@State(Scope.Benchmark)
+	public static class TypeLookupManyBeansState extends Shared {
+
+		@Param({"100", "3000"})
+		public int beanCount;
+
+		public RootBeanDefinition changingDefinition = new RootBeanDefinition(A.class);
+
+		@Setup
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			for (int i = 0; i < this.beanCount; i++) {
+				this.beanFactory.registerBeanDefinition("a" + i, new RootBeanDefinition(A.class));
+			}
+			this.beanFactory.registerBeanDefinition("b", new RootBeanDefinition(B.class));
+			this.beanFactory.registerBeanDefinition("changing", this.changingDefinition);
+			this.beanFactory.freezeConfiguration();
+		}
+	}
+
+	@Benchmark
+	public Object beanNamesForTypeManyBeans(TypeLookupManyBeansState state) {
+		return state.beanFactory.getBeanNamesForType(B.class);
+	}
+
+	@Benchmark
+	public Object beanNamesForTypeManyBeansAfterRegistration(TypeLookupManyBeansState state) {
+		// Re-registering a bean definition used to invalidate all by-type mappings
+		state.beanFactory.registerBeanDefinition("changing", state.changingDefinition);
+		return state.beanFactory.getBeanNamesForType(B.class);
+	}
+
+	@Benchmark
+	public Object beanNamesForGenericTypeManyBeans(TypeLookupManyBeansState state) {
+		return state.beanFactory.getBeanNamesForType(ResolvableType.forClassWithGenerics(Supplier.class, B.class));
+	}
+
 	static class A {
 	}
 
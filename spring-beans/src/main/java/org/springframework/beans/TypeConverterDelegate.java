@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -137,24 +137,41 @@ class TypeConverterDelegate {
         // No custom editor but custom ConversionService specified?
         ConversionService conversionService = this.propertyEditorRegistry.getConversionService();
         if (editor == null && conversionService != null && newValue != null && typeDescriptor != null) {
-            // newValue 装饰成 TypeDescriptor
-            TypeDescriptor sourceTypeDesc = TypeDescriptor.forObject(newValue);
-            /**
-             * 通过值类型 和 要赋值的对象 类型，判断是否可以转换。
-             *
-             * 其实就是遍历 ConversionService 的属性 {@link GenericConversionService.Converters} 找到合适的 GenericConverter
-             * {@link GenericConversionService.Converters#find(TypeDescriptor, TypeDescriptor)}
-             *      {@link GenericConversionService.Converters#getRegisteredConverter(TypeDescriptor, TypeDescriptor, GenericConverter.ConvertiblePair)}
-             * */
-            if (conversionService.canConvert(sourceTypeDesc, typeDescriptor)) {
-                try {
-                    /**
-                     * 使用 conversionService 装换值类型，就是使用 GenericConverter 来转换
-                     * */
-                    return (T) conversionService.convert(newValue, sourceTypeDesc, typeDescriptor);
-                } catch (ConversionFailedException ex) {
-                    // fallback to default conversion logic below
-                    conversionAttemptEx = ex;
+            if (conversionService instanceof GenericConversionService &&
+                    ((GenericConversionService) conversionService).supportsConversionHandles()) {
+                // 只查找一次 GenericConverter，同时用于判断是否可以转换以及转换；子类可能重写了 canConvert/convert，那就走下面的逻辑
+                // Resolve the converter once for both the canConvert check and the actual conversion,
+                // unless a subclass may have overridden canConvert/convert
+                GenericConversionService.ConversionHandle handle = ((GenericConversionService) conversionService)
+                        .getConversionHandle(TypeDescriptor.valueOf(newValue.getClass()), typeDescriptor);
+                if (handle.canConvert()) {
+                    try {
+                        return (T) handle.convert(newValue);
+                    } catch (ConversionFailedException ex) {
+                        // fallback to default conversion logic below
+                        conversionAttemptEx = ex;
+                    }
+                }
+            } else {
+                // newValue 装饰成 TypeDescriptor
+                TypeDescriptor sourceTypeDesc = TypeDescriptor.forObject(newValue);
+                /**
+                 * 通过值类型 和 要赋值的对象 类型，判断是否可以转换。
+                 *
+                 * 其实就是遍历 ConversionService 的属性 {@link GenericConversionService.Converters} 找到合适的 GenericConverter
+                 * {@link GenericConversionService.Converters#find(TypeDescriptor, TypeDescriptor)}
+                 *      {@link GenericConversionService.Converters#getRegisteredConverter(TypeDescriptor, TypeDescriptor, GenericConverter.ConvertiblePair)}
+                 * */
+                if (conversionService.canConvert(sourceTypeDesc, typeDescriptor)) {
+                    try {
+                        /**
+                         * 使用 conversionService 装换值类型，就是使用 GenericConverter 来转换
+                         * */
+                        return (T) conversionService.convert(newValue, sourceTypeDesc, typeDescriptor);
+                    } catch (ConversionFailedException ex) {
+                        // fallback to default conversion logic below
+                        conversionAttemptEx = ex;
+                    }
                 }
             }
         }
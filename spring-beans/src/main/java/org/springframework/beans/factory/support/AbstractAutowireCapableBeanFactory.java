@@ -22,6 +22,7 @@ import org.springframework.beans.factory.*;
 import org.springframework.beans.factory.annotation.AutowiredAnnotationBeanPostProcessor;
 import org.springframework.beans.factory.config.*;
 import org.springframework.core.*;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.lang.Nullable;
 import org.springframework.util.*;
 import org.springframework.util.ReflectionUtils.MethodCallback;
@@ -412,7 +413,13 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
              * 调用我们的bean的后置处理器的 BeanPostProcessor#postProcessBeforeInitialization @PostConstruct 注解的方法
              * @see cn.haitaoss.javaconfig.beanpostprocessor.MyInstantiationAwareBeanPostProcessor#postProcessBeforeInitialization(Object, String)
              * */
-            Object current = processor.postProcessBeforeInitialization(result, beanName);
+            Object current;
+            StartupStep postProcess = startPostProcessStep(processor, beanName, "before-initialization");
+            try {
+                current = processor.postProcessBeforeInitialization(result, beanName);
+            } finally {
+                postProcess.end();
+            }
             // 若有一个返回nul1那么直接返回 上一个
             if (current == null) {
                 return result;
@@ -440,7 +447,13 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
              *  在这里实现的是 BeanPostProcessor接口的 postProcessAfterInitialization 来生成我们的代理对象
              * @see cn.haitaoss.javaconfig.beanpostprocessor.MyInstantiationAwareBeanPostProcessor#postProcessAfterInitialization(Object, String)
              * */
-            Object current = processor.postProcessAfterInitialization(result, beanName);
+            Object current;
+            StartupStep postProcess = startPostProcessStep(processor, beanName, "after-initialization");
+            try {
+                current = processor.postProcessAfterInitialization(result, beanName);
+            } finally {
+                postProcess.end();
+            }
             // 若只有有一个返回null 那么直接上一个 result
             if (current == null) {
                 return result;
@@ -599,7 +612,13 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
              * 创建bean实例化使用合适的实例化策略来创建新的实例：工厂方法、构造函数自动注入、简单初始化。
              * 该方法很复杂也很重要
              */
-            instanceWrapper = createBeanInstance(beanName, mbd, args);
+            StartupStep createInstance = getApplicationStartup().start("spring.beans.create-instance")
+                    .tag("beanName", beanName);
+            try {
+                instanceWrapper = createBeanInstance(beanName, mbd, args);
+            } finally {
+                createInstance.end();
+            }
         }
         // 从 beanWrapper中获取我们的早期对象
         Object bean = instanceWrapper.getWrappedInstance();
@@ -662,9 +681,19 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
         Object exposedObject = bean;
         try {
             // TODOHAITAO 填充bean，就是依赖注入或者给属性设置值
-            populateBean(beanName, mbd, instanceWrapper); // getBean()
+            StartupStep populate = getApplicationStartup().start("spring.beans.populate").tag("beanName", beanName);
+            try {
+                populateBean(beanName, mbd, instanceWrapper); // getBean()
+            } finally {
+                populate.end();
+            }
             // TODOHAITAO 进行对象初始化操作（在这里可能生成代理对象）
-            exposedObject = initializeBean(beanName, exposedObject, mbd);
+            StartupStep initialize = getApplicationStartup().start("spring.beans.initialize").tag("beanName", beanName);
+            try {
+                exposedObject = initializeBean(beanName, exposedObject, mbd);
+            } finally {
+                initialize.end();
+            }
         } catch (Throwable ex) {
             if (ex instanceof BeanCreationException && beanName.equals(((BeanCreationException) ex).getBeanName())) {
                 throw (BeanCreationException) ex;
@@ -1229,10 +1258,31 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
      */
     protected void applyMergedBeanDefinitionPostProcessors(RootBeanDefinition mbd, Class<?> beanType, String beanName) {
         for (MergedBeanDefinitionPostProcessor processor : getBeanPostProcessorCache().mergedDefinition) {
-            processor.postProcessMergedBeanDefinition(mbd, beanType, beanName);
+            StartupStep postProcess = startPostProcessStep(processor, beanName, "merged-bean-definition");
+            try {
+                processor.postProcessMergedBeanDefinition(mbd, beanType, beanName);
+            } finally {
+                postProcess.end();
+            }
         }
     }
 
+    /**
+     * Start a {@link StartupStep} for the invocation of the given post-processor,
+     * attributing the time spent to the post-processor as well as to the bean.
+     * @param postProcessor the post-processor about to be invoked
+     * @param beanName the name of the bean being processed
+     * @param phase the callback of the post-processor about to be invoked
+     * @return the started step, to be ended once the post-processor returned
+     * @since 5.3.11
+     */
+    private StartupStep startPostProcessStep(Object postProcessor, String beanName, String phase) {
+        return getApplicationStartup().start("spring.beans.post-process")
+                .tag("postProcessor", postProcessor.getClass().getName())
+                .tag("beanName", beanName)
+                .tag("phase", phase);
+    }
+
     /**
      * Apply before-instantiation post-processors, resolving whether there is a
      * before-instantiation shortcut for the specified bean.
@@ -1700,7 +1750,13 @@ public abstract class AbstractAutowireCapableBeanFactory extends AbstractBeanFac
                  * TODOHAITAO 后置处理器的【第六次】InstantiationAwareBeanPostProcessor#postProcessProperties
                  * 进行字段和方法的依赖注入{@link cn.haitaoss.javaconfig.beanpostprocessor.MyInstantiationAwareBeanPostProcessor#postProcessProperties(PropertyValues, Object, String)}
                  */
-                PropertyValues pvsToUse = bp.postProcessProperties(pvs, bw.getWrappedInstance(), beanName);
+                PropertyValues pvsToUse;
+                StartupStep postProcess = startPostProcessStep(bp, beanName, "properties");
+                try {
+                    pvsToUse = bp.postProcessProperties(pvs, bw.getWrappedInstance(), beanName);
+                } finally {
+                    postProcess.end();
+                }
                 if (pvsToUse == null) {
                     if (filteredPds == null) {
                         filteredPds = filterPropertyDescriptorsForDependencyCheck(bw, mbd.allowCaching);
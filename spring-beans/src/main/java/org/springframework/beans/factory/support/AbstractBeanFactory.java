@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -1681,10 +1681,17 @@ public abstract class AbstractBeanFactory extends FactoryBeanRegistrySupport imp
             if (mbd.hasBeanClass()) {
                 return mbd.getBeanClass();
             }
-            if (System.getSecurityManager() != null) {
-                return AccessController.doPrivileged((PrivilegedExceptionAction<Class<?>>) () -> doResolveBeanClass(mbd, typesToMatch), getAccessControlContext());
-            } else {
-                return doResolveBeanClass(mbd, typesToMatch);
+            StartupStep classLoad = this.applicationStartup.start("spring.beans.class-load")
+                    .tag("beanName", beanName)
+                    .tag("className", String.valueOf(mbd.getBeanClassName()));
+            try {
+                if (System.getSecurityManager() != null) {
+                    return AccessController.doPrivileged((PrivilegedExceptionAction<Class<?>>) () -> doResolveBeanClass(mbd, typesToMatch), getAccessControlContext());
+                } else {
+                    return doResolveBeanClass(mbd, typesToMatch);
+                }
+            } finally {
+                classLoad.end();
             }
         } catch (PrivilegedActionException pae) {
             ClassNotFoundException ex = (ClassNotFoundException) pae.getException();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -103,6 +103,12 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
      */
     private static final Map<String, Reference<DefaultListableBeanFactory>> serializableFactories = new ConcurrentHashMap<>(8);
 
+    /**
+     * Maximum number of bean changes to re-match on by-type lookups,
+     * beyond which the by-type caches get cleared completely.
+     */
+    private static final int MAX_BY_TYPE_CHANGES = 256;
+
     /**
      * Optional id for this factory, for serialization purposes.
      */
@@ -157,7 +163,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
      * {@link DefaultListableBeanFactory#getBeanNamesForType(Class, boolean, boolean)}
      * Map of singleton and non-singleton bean names, keyed by dependency type.
      */
-    private final Map<Class<?>, String[]> allBeanNamesByType = new ConcurrentHashMap<>(64);
+    private final Map<Class<?>, CachedBeanNamesForType> allBeanNamesByType = new ConcurrentHashMap<>(64);
 
     /**
      * 这个是用来缓存依赖注入信息的，提高相同类型依赖的查找时间。
@@ -166,7 +172,30 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
      * {@link DefaultListableBeanFactory#getBeanNamesForType(Class, boolean, boolean)}
      * Map of singleton-only bean names, keyed by dependency type.
      */
-    private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
+    private final Map<Class<?>, CachedBeanNamesForType> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
+
+    /**
+     * 记录缓存之后发生变化的beanName，按类型查找时只需要重新匹配这些bean，而不是清空整个缓存
+     * Names of beans whose registration changed since the by-type caches were populated,
+     * starting at change number {@link #byTypeChangeOffset}.
+     */
+    private final List<String> byTypeChangedBeanNames = new ArrayList<>();
+
+    /**
+     * Change number of the first entry in {@link #byTypeChangedBeanNames}.
+     */
+    private int byTypeChangeOffset;
+
+    /**
+     * Total number of bean changes recorded for the by-type caches.
+     */
+    private volatile int byTypeChangeCount;
+
+    /**
+     * Whether all singletons are being destroyed, with individual changes
+     * not worth recording for the by-type caches.
+     */
+    private volatile boolean destroyingSingletons;
 
     /**
      * List of bean definition names, in registration order.
@@ -567,24 +596,79 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
          * allBeanNamesByType：缓存的是单例bean和非单例bean的信息
          * singletonBeanNamesByType：缓存的是单例bean的信息
          * */
-        Map<Class<?>, String[]> cache = (includeNonSingletons ? this.allBeanNamesByType : this.singletonBeanNamesByType);
+        Map<Class<?>, CachedBeanNamesForType> cache =
+                (includeNonSingletons ? this.allBeanNamesByType : this.singletonBeanNamesByType);
+        int changeCount = this.byTypeChangeCount;
         // 缓存中有，就返回
-        String[] resolvedBeanNames = cache.get(type);
-        if (resolvedBeanNames != null) {
-            return resolvedBeanNames;
+        CachedBeanNamesForType cachedBeanNames = cache.get(type);
+        if (cachedBeanNames != null) {
+            if (cachedBeanNames.changeCount == changeCount) {
+                return cachedBeanNames.beanNames;
+            }
+            // 缓存之后有bean发生了变化，只重新匹配变化了的bean
+            // Only re-match the beans that changed since the names have been cached
+            if (isUnaffectedByChanges(cachedBeanNames, type, includeNonSingletons, changeCount)) {
+                cache.put(type, new CachedBeanNamesForType(cachedBeanNames.beanNames, changeCount));
+                return cachedBeanNames.beanNames;
+            }
         }
         /**
          * 看到 do 说明要开始做事情的了
          * */
-        resolvedBeanNames = doGetBeanNamesForType(ResolvableType.forRawClass(type), includeNonSingletons, true);
+        String[] resolvedBeanNames = doGetBeanNamesForType(ResolvableType.forRawClass(type), includeNonSingletons, true);
         // 是安全缓存。就是看看这个类型 是不是 `getBeanClassLoader()` 可以加载的
         if (ClassUtils.isCacheSafe(type, getBeanClassLoader())) {
             // 存到缓存中
-            cache.put(type, resolvedBeanNames);
+            cache.put(type, new CachedBeanNamesForType(resolvedBeanNames, changeCount));
         }
         return resolvedBeanNames;
     }
 
+    /**
+     * Check whether the given cached bean names are still accurate, re-matching
+     * each bean that changed since they have been cached against the given type.
+     * @param cachedBeanNames the cached bean names for the given type
+     * @param type the type that the names have been cached for
+     * @param includeNonSingletons whether the names include non-singletons
+     * @param changeCount the current number of bean changes
+     * @return {@code true} if every changed bean matches as before (or not at all)
+     */
+    private boolean isUnaffectedByChanges(CachedBeanNamesForType cachedBeanNames, Class<?> type,
+            boolean includeNonSingletons, int changeCount) {
+
+        List<String> changedBeanNames;
+        synchronized (this.byTypeChangedBeanNames) {
+            int from = cachedBeanNames.changeCount - this.byTypeChangeOffset;
+            int to = changeCount - this.byTypeChangeOffset;
+            if (from < 0 || to > this.byTypeChangedBeanNames.size()) {
+                return false;
+            }
+            changedBeanNames = new ArrayList<>(this.byTypeChangedBeanNames.subList(from, to));
+        }
+        ResolvableType resolvableType = ResolvableType.forRawClass(type);
+        for (String beanName : changedBeanNames) {
+            String matchedName = null;
+            if (containsBeanDefinition(beanName)) {
+                if (!isAlias(beanName)) {
+                    matchedName = matchBeanDefinitionForType(beanName, resolvableType, includeNonSingletons, true);
+                }
+            } else if (this.manualSingletonNames.contains(beanName)) {
+                matchedName = matchManualSingletonForType(beanName, resolvableType, includeNonSingletons);
+            }
+            String cachedName = null;
+            for (String candidate : cachedBeanNames.beanNames) {
+                if (candidate.equals(beanName) || candidate.equals(FACTORY_BEAN_PREFIX + beanName)) {
+                    cachedName = candidate;
+                    break;
+                }
+            }
+            if (!ObjectUtils.nullSafeEquals(matchedName, cachedName)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * 根据类型找到beanName集合
      * @param type  查到的类型
@@ -603,63 +687,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
             // beanName 不是别名
             // Only consider bean as eligible if the bean name is not defined as alias for some other bean.
             if (!isAlias(beanName)) {
-                try {
-                    RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
-                    // 不是抽象的 且 ( 允许孵化初始化 || 设置了beanClass || 不是懒加载 || ...)
-                    // Only check bean definition if it is complete.
-                    if (!mbd.isAbstract() && (allowEagerInit
-                            || (mbd.hasBeanClass() || !mbd.isLazyInit() || isAllowEagerClassLoading())
-                            && !requiresEagerInitForType(mbd.getFactoryBeanName()))) {
-                        // 是不是 FactoryBean(只是推断而已，不会创建出bean的)
-                        boolean isFactoryBean = isFactoryBean(beanName, mbd);
-                        BeanDefinitionHolder dbd = mbd.getDecoratedDefinition();
-                        boolean matchFound = false;
-                        // 允许 FactoryBean的初始化
-                        boolean allowFactoryBeanInit = (allowEagerInit || containsSingleton(beanName));
-                        boolean isNonLazyDecorated = (dbd != null && !mbd.isLazyInit());
-                        // 不是 FactoryBean
-                        if (!isFactoryBean) {
-                            if (includeNonSingletons || isSingleton(beanName, mbd, dbd)) {
-                                /**
-                                 * 就是看看容器中有没有类型匹配的bean
-                                 * */
-                                matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
-                            }
-                        } else {
-                            /**
-                             * isSingleton 可能会触发FactoryBean的创建，当 beanName是 {@link FactoryBean#getObject()} 这个的时候，
-                             * 需要创建出 FactoryBean 才能知道是不是单例的 {@link FactoryBean#isSingleton()}
-                             * */
-                            if (includeNonSingletons || isNonLazyDecorated || (allowFactoryBeanInit
-                                    && isSingleton(beanName, mbd, dbd))) {
-                                /**
-                                 * 匹配的是这个类型{@link FactoryBean#getObject()}
-                                 * */
-                                matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
-                            }
-                            if (!matchFound) {
-                                // 匹配 FactoryBean 实例本身
-                                // In case of FactoryBean, try to match FactoryBean instance itself next.
-                                beanName = FACTORY_BEAN_PREFIX + beanName;
-                                matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
-                            }
-                        }
-                        if (matchFound) {
-                            // 找到类型匹配的bean，就记录起来
-                            result.add(beanName);
-                        }
-                    }
-                } catch (CannotLoadBeanClassException | BeanDefinitionStoreException ex) {
-                    if (allowEagerInit) {
-                        throw ex;
-                    }
-                    // Probably a placeholder: let's ignore it for type matching purposes.
-                    LogMessage message = (ex instanceof CannotLoadBeanClassException ? LogMessage.format("Ignoring bean class loading failure for bean '%s'", beanName) : LogMessage.format("Ignoring unresolvable metadata in bean definition '%s'", beanName));
-                    logger.trace(message, ex);
-                    // Register exception, in case the bean was accidentally unresolvable.
-                    onSuppressedException(ex);
-                } catch (NoSuchBeanDefinitionException ex) {
-                    // Bean definition got removed while we were iterating -> ignore.
+                String matchedName = matchBeanDefinitionForType(beanName, type, includeNonSingletons, allowEagerInit);
+                if (matchedName != null) {
+                    // 找到类型匹配的bean，就记录起来
+                    result.add(matchedName);
                 }
             }
         }
@@ -670,28 +701,117 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
          * */
         // Check manually registered singletons too.
         for (String beanName : this.manualSingletonNames) {
-            try {
-                // In case of FactoryBean, match object created by FactoryBean.
-                if (isFactoryBean(beanName)) {
-                    if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
-                        result.add(beanName);
-                        // Match found for this bean: do not match FactoryBean itself anymore.
-                        continue;
+            String matchedName = matchManualSingletonForType(beanName, type, includeNonSingletons);
+            if (matchedName != null) {
+                result.add(matchedName);
+            }
+        }
+
+        return StringUtils.toStringArray(result);
+    }
+
+    /**
+     * Match the given bean definition against the given type.
+     * @param beanName the name of the bean definition (not an alias)
+     * @param type the type to match against
+     * @param includeNonSingletons whether to match non-singletons as well
+     * @param allowEagerInit whether to initialize FactoryBeans etc for type checking
+     * @return the matching bean name (with a factory prefix for a matching
+     * FactoryBean itself), or {@code null} if the bean does not match
+     */
+    @Nullable
+    private String matchBeanDefinitionForType(String beanName, ResolvableType type,
+            boolean includeNonSingletons, boolean allowEagerInit) {
+
+        try {
+            RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+            // 不是抽象的 且 ( 允许孵化初始化 || 设置了beanClass || 不是懒加载 || ...)
+            // Only check bean definition if it is complete.
+            if (!mbd.isAbstract() && (allowEagerInit
+                    || (mbd.hasBeanClass() || !mbd.isLazyInit() || isAllowEagerClassLoading())
+                    && !requiresEagerInitForType(mbd.getFactoryBeanName()))) {
+                // 是不是 FactoryBean(只是推断而已，不会创建出bean的)
+                boolean isFactoryBean = isFactoryBean(beanName, mbd);
+                BeanDefinitionHolder dbd = mbd.getDecoratedDefinition();
+                boolean matchFound = false;
+                // 允许 FactoryBean的初始化
+                boolean allowFactoryBeanInit = (allowEagerInit || containsSingleton(beanName));
+                boolean isNonLazyDecorated = (dbd != null && !mbd.isLazyInit());
+                // 不是 FactoryBean
+                if (!isFactoryBean) {
+                    if (includeNonSingletons || isSingleton(beanName, mbd, dbd)) {
+                        /**
+                         * 就是看看容器中有没有类型匹配的bean
+                         * */
+                        matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+                    }
+                } else {
+                    /**
+                     * isSingleton 可能会触发FactoryBean的创建，当 beanName是 {@link FactoryBean#getObject()} 这个的时候，
+                     * 需要创建出 FactoryBean 才能知道是不是单例的 {@link FactoryBean#isSingleton()}
+                     * */
+                    if (includeNonSingletons || isNonLazyDecorated || (allowFactoryBeanInit
+                            && isSingleton(beanName, mbd, dbd))) {
+                        /**
+                         * 匹配的是这个类型{@link FactoryBean#getObject()}
+                         * */
+                        matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
+                    }
+                    if (!matchFound) {
+                        // 匹配 FactoryBean 实例本身
+                        // In case of FactoryBean, try to match FactoryBean instance itself next.
+                        beanName = FACTORY_BEAN_PREFIX + beanName;
+                        matchFound = isTypeMatch(beanName, type, allowFactoryBeanInit);
                     }
-                    // In case of FactoryBean, try to match FactoryBean itself next.
-                    beanName = FACTORY_BEAN_PREFIX + beanName;
                 }
-                // Match raw bean instance (might be raw FactoryBean).
-                if (isTypeMatch(beanName, type)) {
-                    result.add(beanName);
+                if (matchFound) {
+                    return beanName;
                 }
-            } catch (NoSuchBeanDefinitionException ex) {
-                // Shouldn't happen - probably a result of circular reference resolution...
-                logger.trace(LogMessage.format("Failed to check manually registered singleton with name '%s'", beanName), ex);
             }
+        } catch (CannotLoadBeanClassException | BeanDefinitionStoreException ex) {
+            if (allowEagerInit) {
+                throw ex;
+            }
+            // Probably a placeholder: let's ignore it for type matching purposes.
+            LogMessage message = (ex instanceof CannotLoadBeanClassException ? LogMessage.format("Ignoring bean class loading failure for bean '%s'", beanName) : LogMessage.format("Ignoring unresolvable metadata in bean definition '%s'", beanName));
+            logger.trace(message, ex);
+            // Register exception, in case the bean was accidentally unresolvable.
+            onSuppressedException(ex);
+        } catch (NoSuchBeanDefinitionException ex) {
+            // Bean definition got removed while we were iterating -> ignore.
         }
+        return null;
+    }
 
-        return StringUtils.toStringArray(result);
+    /**
+     * Match the given manually registered singleton against the given type.
+     * @param beanName the name of the singleton
+     * @param type the type to match against
+     * @param includeNonSingletons whether to match non-singleton FactoryBean objects as well
+     * @return the matching bean name (with a factory prefix for a matching
+     * FactoryBean itself), or {@code null} if the singleton does not match
+     */
+    @Nullable
+    private String matchManualSingletonForType(String beanName, ResolvableType type, boolean includeNonSingletons) {
+        try {
+            // In case of FactoryBean, match object created by FactoryBean.
+            if (isFactoryBean(beanName)) {
+                if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
+                    // Match found for this bean: do not match FactoryBean itself anymore.
+                    return beanName;
+                }
+                // In case of FactoryBean, try to match FactoryBean itself next.
+                beanName = FACTORY_BEAN_PREFIX + beanName;
+            }
+            // Match raw bean instance (might be raw FactoryBean).
+            if (isTypeMatch(beanName, type)) {
+                return beanName;
+            }
+        } catch (NoSuchBeanDefinitionException ex) {
+            // Shouldn't happen - probably a result of circular reference resolution...
+            logger.trace(LogMessage.format("Failed to check manually registered singleton with name '%s'", beanName), ex);
+        }
+        return null;
     }
 
     private boolean isSingleton(String beanName, RootBeanDefinition mbd, @Nullable BeanDefinitionHolder dbd) {
@@ -1127,9 +1247,13 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
         }
 
         if (existingDefinition != null || containsSingleton(beanName)) {
+            if (existingDefinition == null) {
+                // A former manual singleton moves to the bean definition order
+                clearByTypeCache();
+            }
             resetBeanDefinition(beanName);
         } else if (isConfigurationFrozen()) {
-            clearByTypeCache();
+            markBeanChangedForType(beanName);
         }
     }
 
@@ -1159,6 +1283,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
         this.frozenBeanDefinitionNames = null;
 
         resetBeanDefinition(beanName);
+        clearByTypeCache();
     }
 
     /**
@@ -1223,12 +1348,20 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
     public void registerSingleton(String beanName, Object singletonObject) throws IllegalStateException {
         super.registerSingleton(beanName, singletonObject);
         updateManualSingletonNames(set -> set.add(beanName), set -> !this.beanDefinitionMap.containsKey(beanName));
-        clearByTypeCache();
+        markBeanChangedForType(beanName);
     }
 
     @Override
     public void destroySingletons() {
-        super.destroySingletons();
+        // 整体销毁时不逐个记录变化，避免每次 destroySingleton 都遍历所有 BeanDefinition
+        // Clear the by-type caches once rather than recording each destroyed bean
+        this.destroyingSingletons = true;
+        try {
+            clearByTypeCache();
+            super.destroySingletons();
+        } finally {
+            this.destroyingSingletons = false;
+        }
         updateManualSingletonNames(Set::clear, set -> !set.isEmpty());
         clearByTypeCache();
     }
@@ -1236,8 +1369,13 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
     @Override
     public void destroySingleton(String beanName) {
         super.destroySingleton(beanName);
-        removeManualSingletonName(beanName);
-        clearByTypeCache();
+        if (this.manualSingletonNames.contains(beanName)) {
+            // Removing a manual singleton affects the order of the remaining ones
+            removeManualSingletonName(beanName);
+            clearByTypeCache();
+        } else {
+            markBeanChangedForType(beanName);
+        }
     }
 
     private void removeManualSingletonName(String beanName) {
@@ -1269,12 +1407,57 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
         }
     }
 
+    /**
+     * Record a change of the given bean for the by-type mappings, to be re-matched
+     * on the next by-type lookup. Also records the beans that refer to the given
+     * bean as their factory bean or parent, since their type may depend on it.
+     * @param beanName the name of the bean that changed
+     * @see #isUnaffectedByChanges
+     */
+    private void markBeanChangedForType(String beanName) {
+        if (this.destroyingSingletons || !isConfigurationFrozen() ||
+                (this.allBeanNamesByType.isEmpty() && this.singletonBeanNamesByType.isEmpty())) {
+            // Nothing to update, just invalidate by-type lookups in progress
+            clearByTypeCache();
+            return;
+        }
+        Set<String> changedBeanNames = new LinkedHashSet<>();
+        collectBeanNamesChangedForType(beanName, changedBeanNames);
+        synchronized (this.byTypeChangedBeanNames) {
+            if (this.byTypeChangedBeanNames.size() + changedBeanNames.size() > MAX_BY_TYPE_CHANGES) {
+                clearByTypeCache();
+            } else {
+                this.byTypeChangedBeanNames.addAll(changedBeanNames);
+                this.byTypeChangeCount += changedBeanNames.size();
+            }
+        }
+    }
+
+    private void collectBeanNamesChangedForType(String beanName, Set<String> changedBeanNames) {
+        if (!changedBeanNames.add(beanName)) {
+            return;
+        }
+        for (String bdName : this.beanDefinitionNames) {
+            BeanDefinition bd = this.beanDefinitionMap.get(bdName);
+            // Ensure bd is non-null due to potential concurrent modification of beanDefinitionMap.
+            if (bd != null && (beanName.equals(bd.getFactoryBeanName()) || beanName.equals(bd.getParentName()))) {
+                collectBeanNamesChangedForType(bdName, changedBeanNames);
+            }
+        }
+    }
+
     /**
      * Remove any assumptions about by-type mappings.
      */
     private void clearByTypeCache() {
-        this.allBeanNamesByType.clear();
-        this.singletonBeanNamesByType.clear();
+        synchronized (this.byTypeChangedBeanNames) {
+            this.allBeanNamesByType.clear();
+            this.singletonBeanNamesByType.clear();
+            // Entries cached before this point cannot be updated incrementally anymore
+            this.byTypeChangedBeanNames.clear();
+            this.byTypeChangeOffset = this.byTypeChangeCount + 1;
+            this.byTypeChangeCount = this.byTypeChangeOffset;
+        }
     }
 
 
@@ -2216,6 +2399,23 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
     }
 
 
+    /**
+     * Bean names cached for a specific type, along with the number of bean
+     * changes that had been recorded when they were determined.
+     */
+    private static final class CachedBeanNamesForType {
+
+        final String[] beanNames;
+
+        final int changeCount;
+
+        CachedBeanNamesForType(String[] beanNames, int changeCount) {
+            this.beanNames = beanNames;
+            this.changeCount = changeCount;
+        }
+    }
+
+
     /**
      * A dependency descriptor for a multi-element declaration with nested elements.
      */
@@ -433,6 +433,20 @@ abstract class AbstractPropertyAccessorTests {
 		assertThat(target.listOfMaps.get(0).get("luckyNumber")).isEqualTo("9");
 	}
 
+	@Test
+	void setPropertyWithOverriddenConversionService() {
+		TestBean target = new TestBean();
+		AbstractPropertyAccessor accessor = createAccessor(target);
+		accessor.setConversionService(new DefaultConversionService() {
+			@Override
+			public Object convert(@Nullable Object source, @Nullable TypeDescriptor sourceType, TypeDescriptor targetType) {
+				return (targetType.getType() == int.class ? 42 : super.convert(source, sourceType, targetType));
+			}
+		});
+		accessor.setPropertyValue("age", "9");
+		assertThat(target.getAge()).isEqualTo(42);
+	}
+
 
 	@Test
 	void setEmptyPropertyValues() {
@@ -26,6 +26,7 @@ import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -89,6 +90,7 @@ import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.core.convert.support.GenericConversionService;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.core.metrics.ProfilingApplicationStartup;
 import org.springframework.core.testfixture.io.SerializationTestUtils;
 import org.springframework.core.testfixture.security.TestPrincipal;
 import org.springframework.lang.Nullable;
@@ -1443,6 +1445,79 @@ class DefaultListableBeanFactoryTests {
 		assertThat(bean.getBeanName()).isEqualTo("bd1");
 	}
 
+	@Test
+	void getBeanNamesForTypeWithChangesAgainstFrozen() {
+		lbf.registerBeanDefinition("bd1", new RootBeanDefinition(TestBean.class));
+		lbf.freezeConfiguration();
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("bd1");
+
+		lbf.registerBeanDefinition("other", new RootBeanDefinition(NestedTestBean.class));
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("bd1");
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class)).containsExactly("other");
+
+		lbf.registerBeanDefinition("bd2", new RootBeanDefinition(DerivedTestBean.class));
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("bd1", "bd2");
+
+		lbf.registerSingleton("manual", new TestBean());
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("bd1", "bd2", "manual");
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class)).containsExactly("other");
+
+		lbf.registerBeanDefinition("bd1", new RootBeanDefinition(NestedTestBean.class));
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("bd2", "manual");
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class)).containsExactly("bd1", "other");
+
+		lbf.destroySingleton("manual");
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("bd2");
+
+		lbf.removeBeanDefinition("bd2");
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).isEmpty();
+		assertThat(lbf.getBeanNamesForType(NestedTestBean.class)).containsExactly("bd1", "other");
+	}
+
+	@Test
+	void beanCreationStepsWithProfilingApplicationStartup() {
+		ProfilingApplicationStartup startup = new ProfilingApplicationStartup();
+		lbf.setApplicationStartup(startup);
+		RootBeanDefinition bd = new RootBeanDefinition(TestBean.class);
+		bd.getPropertyValues().add("spouse", new RuntimeBeanReference("spouse"));
+		lbf.registerBeanDefinition("test", bd);
+		lbf.registerBeanDefinition("spouse", new RootBeanDefinition(TestBean.class.getName()));
+		lbf.addBeanPostProcessor(new BeanPostProcessor() {
+			@Override
+			public Object postProcessBeforeInitialization(Object bean, String beanName) {
+				return bean;
+			}
+		});
+		lbf.getBean("test");
+
+		String postProcessor = "spring.beans.post-process[" + lbf.getBeanPostProcessors().get(0).getClass().getName() + "]";
+		assertThat(startup.getRecordedSteps()).extracting(ProfilingApplicationStartup.RecordedStep::getStack)
+				.contains("spring.beans.instantiate[test];spring.beans.create-instance[test]",
+						"spring.beans.instantiate[test];spring.beans.populate[test];spring.beans.instantiate[spouse]",
+						"spring.beans.instantiate[test];spring.beans.populate[test];spring.beans.instantiate[spouse];" +
+								"spring.beans.class-load[spouse]",
+						"spring.beans.instantiate[test];spring.beans.initialize[test];" + postProcessor,
+						"spring.beans.instantiate[test]");
+	}
+
+	@Test
+	void getBeanNamesForTypeWhileDestroyingSingletons() {
+		lbf.registerBeanDefinition("bd1", new RootBeanDefinition(TestBean.class));
+		lbf.registerBeanDefinition("bd2", new RootBeanDefinition(DerivedTestBean.class));
+		List<String[]> namesOnDestroy = new ArrayList<>();
+		lbf.registerBeanDefinition("disposable", new RootBeanDefinition(DisposableBean.class,
+				() -> () -> namesOnDestroy.add(lbf.getBeanNamesForType(TestBean.class))));
+		lbf.freezeConfiguration();
+		lbf.preInstantiateSingletons();
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("bd1", "bd2");
+
+		lbf.destroySingletons();
+		assertThat(namesOnDestroy).hasSize(1);
+		assertThat(namesOnDestroy.get(0)).containsExactly("bd1", "bd2");
+		assertThat(lbf.getBeanNamesForType(TestBean.class)).containsExactly("bd1", "bd2");
+		assertThat(lbf.getBeanNamesForType(DisposableBean.class)).containsExactly("disposable");
+	}
+
 	@Test
 	void getBeanByTypeDefinedInParent() {
 		DefaultListableBeanFactory parent = new DefaultListableBeanFactory();
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * Benchmark for {@code publishEvent} throughput through an application context,
+ * for plain {@link ApplicationEvent} subclasses as well as payload events.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ApplicationContextEventBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"1", "10"})
+		public int listenerCount;
+
+		public GenericApplicationContext context;
+
+		public DomainEvent event;
+
+		public DomainPayload payload;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.context = new GenericApplicationContext();
+			for (int i = 0; i < this.listenerCount; i++) {
+				this.context.registerBean("domainListener" + i, DomainEventListener.class);
+				this.context.registerBean("otherListener" + i, OtherEventListener.class);
+			}
+			this.context.refresh();
+			this.event = new DomainEvent(this);
+			this.payload = new DomainPayload();
+		}
+
+		@TearDown(Level.Trial)
+		public void teardown() {
+			this.context.close();
+		}
+	}
+
+	@Benchmark
+	public void publishApplicationEvent(BenchmarkState state) {
+		state.context.publishEvent(state.event);
+	}
+
+	@Benchmark
+	public void publishNewApplicationEvent(BenchmarkState state) {
+		state.context.publishEvent(new DomainEvent(state));
+	}
+
+	@Benchmark
+	public void publishPayloadEvent(BenchmarkState state) {
+		state.context.publishEvent(state.payload);
+	}
+
+
+	@SuppressWarnings("serial")
+	public static class DomainEvent extends ApplicationEvent {
+
+		public DomainEvent(Object source) {
+			super(source);
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	public static class OtherEvent extends ApplicationEvent {
+
+		public OtherEvent(Object source) {
+			super(source);
+		}
+	}
+
+
+	public static class DomainPayload {
+	}
+
+
+	public static class DomainEventListener implements ApplicationListener<DomainEvent> {
+
+		public int count;
+
+		@Override
+		public void onApplicationEvent(DomainEvent event) {
+			this.count++;
+		}
+	}
+
+
+	public static class OtherEventListener implements ApplicationListener<OtherEvent> {
+
+		@Override
+		public void onApplicationEvent(OtherEvent event) {
+			throw new IllegalStateException("Unexpected event: " + event);
+		}
+	}
+
+}
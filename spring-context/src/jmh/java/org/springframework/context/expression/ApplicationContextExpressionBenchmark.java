@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.context.expression;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -31,7 +32,8 @@ import org.springframework.beans.testfixture.beans.TestBean;
 import org.springframework.context.support.GenericApplicationContext;
 
 /**
- * Benchmark for application context expressions resolution during prototype bean creation.
+ * Benchmark for application context expressions resolution during prototype bean creation,
+ * interpreted as well as compiled after a number of evaluations.
  * @author Brian Clozel
  */
 @BenchmarkMode(Mode.Throughput)
@@ -40,6 +42,12 @@ public class ApplicationContextExpressionBenchmark {
 	@State(Scope.Benchmark)
 	public static class BenchmarkState {
 
+		/**
+		 * Number of evaluations after which an expression gets compiled, 0 for interpreted only.
+		 */
+		@Param({"0", "10"})
+		public int compilationThreshold;
+
 		public GenericApplicationContext context;
 
 		@Setup
@@ -53,6 +61,9 @@ public class ApplicationContextExpressionBenchmark {
 			rbd.getPropertyValues().add("country", "#{systemProperties.country}");
 			this.context.registerBeanDefinition("test", rbd);
 			this.context.refresh();
+			StandardBeanExpressionResolver resolver = new StandardBeanExpressionResolver(this.context.getClassLoader());
+			resolver.setCompilationThreshold(this.compilationThreshold);
+			this.context.getBeanFactory().setBeanExpressionResolver(resolver);
 		}
 
 		@TearDown
@@ -33,6 +33,7 @@ import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
 import org.springframework.beans.factory.support.BeanNameGenerator;
+import org.springframework.cglib.core.GeneratedClassCache;
 import org.springframework.context.ApplicationStartupAware;
 import org.springframework.context.EnvironmentAware;
 import org.springframework.context.ResourceLoaderAware;
@@ -481,6 +482,10 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
 
         // 这里就是遍历所有的 full配置类，使用cglib生成代理类的class
         ConfigurationClassEnhancer enhancer = new ConfigurationClassEnhancer();
+        // 开启了生成类缓存时，记录从缓存加载和重新生成的类数量
+        GeneratedClassCache classCache = GeneratedClassCache.getInstance();
+        long classCacheHits = (classCache != null ? classCache.getHitCount() : 0);
+        long classCacheMisses = (classCache != null ? classCache.getMissCount() : 0);
         for (Map.Entry<String, AbstractBeanDefinition> entry : configBeanDefs.entrySet()) {
             AbstractBeanDefinition beanDef = entry.getValue();
             // If a @Configuration class gets proxied, always proxy the target class
@@ -500,6 +505,10 @@ public class ConfigurationClassPostProcessor implements BeanDefinitionRegistryPo
                 beanDef.setBeanClass(enhancedClass);
             }
         }
+        if (classCache != null) {
+            enhanceConfigClasses.tag("classCacheHits", String.valueOf(classCache.getHitCount() - classCacheHits));
+            enhanceConfigClasses.tag("classCacheMisses", String.valueOf(classCache.getMissCount() - classCacheMisses));
+        }
         enhanceConfigClasses.tag("classCount", () -> String.valueOf(configBeanDefs.keySet()
                         .size()))
                 .end();
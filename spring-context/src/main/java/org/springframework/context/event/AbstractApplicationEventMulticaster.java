@@ -106,11 +106,13 @@ public abstract class AbstractApplicationEventMulticaster
 			// Explicitly remove target for a proxy, if registered already,
 			// in order to avoid double invocations of the same listener.
 			Object singletonTarget = AopProxyUtils.getSingletonTarget(listener);
-			if (singletonTarget instanceof ApplicationListener) {
-				this.defaultRetriever.applicationListeners.remove(singletonTarget);
+			if (singletonTarget instanceof ApplicationListener &&
+					this.defaultRetriever.applicationListeners.remove(singletonTarget)) {
+				evictRetrieversContaining((ApplicationListener<?>) singletonTarget);
+			}
+			if (this.defaultRetriever.applicationListeners.add(listener)) {
+				evictRetrieversSupporting(listener);
 			}
-			this.defaultRetriever.applicationListeners.add(listener);
-			this.retrieverCache.clear();
 		}
 	}
 
@@ -125,8 +127,9 @@ public abstract class AbstractApplicationEventMulticaster
 	@Override
 	public void removeApplicationListener(ApplicationListener<?> listener) {
 		synchronized (this.defaultRetriever) {
-			this.defaultRetriever.applicationListeners.remove(listener);
-			this.retrieverCache.clear();
+			if (this.defaultRetriever.applicationListeners.remove(listener)) {
+				evictRetrieversContaining(listener);
+			}
 		}
 	}
 
@@ -164,6 +167,34 @@ public abstract class AbstractApplicationEventMulticaster
 	}
 
 
+	/**
+	 * Evict all cached retrievers for event types that the given newly added
+	 * listener supports, keeping the pre-filtered entries for all other event
+	 * types intact. Needs to be called within the registration lock.
+	 * @param listener the listener that has just been added
+	 * @see #supportsEvent(ApplicationListener, ResolvableType, Class)
+	 */
+	private void evictRetrieversSupporting(ApplicationListener<?> listener) {
+		if (!this.retrieverCache.isEmpty()) {
+			this.retrieverCache.keySet().removeIf(
+					cacheKey -> supportsEvent(listener, cacheKey.eventType, cacheKey.sourceType));
+		}
+	}
+
+	/**
+	 * Evict all cached retrievers that contain the given listener which has
+	 * just been removed, as well as all retrievers that are still in the
+	 * process of being populated (possibly from a stale listener snapshot).
+	 * Needs to be called within the registration lock.
+	 * @param listener the listener that has just been removed
+	 */
+	private void evictRetrieversContaining(ApplicationListener<?> listener) {
+		if (!this.retrieverCache.isEmpty()) {
+			this.retrieverCache.values().removeIf(retriever -> retriever.mayContain(listener));
+		}
+	}
+
+
 	/**
 	 * Return a Collection containing all ApplicationListeners.
 	 * @return a Collection of ApplicationListeners
@@ -448,6 +479,16 @@ public abstract class AbstractApplicationEventMulticaster
 		@Nullable
 		public volatile Set<String> applicationListenerBeans;
 
+		/**
+		 * Determine whether this retriever may hold the given listener instance,
+		 * also returning {@code true} if it has not been fully populated yet.
+		 */
+		public boolean mayContain(ApplicationListener<?> listener) {
+			Set<ApplicationListener<?>> applicationListeners = this.applicationListeners;
+			return (applicationListeners == null || this.applicationListenerBeans == null ||
+					applicationListeners.contains(listener));
+		}
+
 		@Nullable
 		public Collection<ApplicationListener<?>> getApplicationListeners() {
 			Set<ApplicationListener<?>> applicationListeners = this.applicationListeners;
@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.StringJoiner;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -38,12 +39,14 @@ import org.springframework.context.ApplicationEvent;
 import org.springframework.context.PayloadApplicationEvent;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.DirectMethodInvoker;
 import org.springframework.core.Ordered;
 import org.springframework.core.ReactiveAdapter;
 import org.springframework.core.ReactiveAdapterRegistry;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -62,6 +65,9 @@ import org.springframework.util.concurrent.ListenableFuture;
  * to define any arbitrary event type. If a condition is defined, it is
  * evaluated prior to invoking the underlying method.
  *
+ * <p>Methods annotated with {@link AsyncEventListener} are invoked through
+ * a dedicated {@link AsyncEventDispatcher}, optionally with batches of events.
+ *
  * @author Stephane Nicoll
  * @author Juergen Hoeller
  * @author Sam Brannen
@@ -93,6 +99,17 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 	@Nullable
 	private volatile String listenerId;
 
+	@Nullable
+	private final AsyncEventListener asyncListener;
+
+	private final boolean batchListener;
+
+	@Nullable
+	private volatile AsyncEventDispatcher<Object[]> asyncDispatcher;
+
+	@Nullable
+	private volatile DirectMethodInvoker methodInvoker;
+
 	@Nullable
 	private ApplicationContext applicationContext;
 
@@ -114,19 +131,32 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 		this.methodKey = new AnnotatedElementKey(this.targetMethod, targetClass);
 
 		EventListener ann = AnnotatedElementUtils.findMergedAnnotation(this.targetMethod, EventListener.class);
-		this.declaredEventTypes = resolveDeclaredEventTypes(method, ann);
+		this.asyncListener = AnnotatedElementUtils.findMergedAnnotation(this.targetMethod, AsyncEventListener.class);
+		this.batchListener = (this.asyncListener != null && this.asyncListener.batchSize() > 1);
+		this.declaredEventTypes = resolveDeclaredEventTypes(method, ann, this.batchListener);
 		this.condition = (ann != null ? ann.condition() : null);
+		if (this.batchListener && StringUtils.hasText(this.condition)) {
+			throw new IllegalStateException(
+					"A condition is not supported for batching event listener method: " + method);
+		}
 		this.order = resolveOrder(this.targetMethod);
 		String id = (ann != null ? ann.id() : "");
 		this.listenerId = (!id.isEmpty() ? id : null);
 	}
 
-	private static List<ResolvableType> resolveDeclaredEventTypes(Method method, @Nullable EventListener ann) {
+	private static List<ResolvableType> resolveDeclaredEventTypes(
+			Method method, @Nullable EventListener ann, boolean batchListener) {
+
 		int count = method.getParameterCount();
 		if (count > 1) {
 			throw new IllegalStateException(
 					"Maximum one parameter is allowed for event listener method: " + method);
 		}
+		if (batchListener && (count == 0 || method.getParameterTypes()[0] != List.class ||
+				ResolvableType.forMethodParameter(method, 0).getGeneric().resolve() == null)) {
+			throw new IllegalStateException(
+					"A List parameter is mandatory for batching event listener method: " + method);
+		}
 
 		if (ann != null) {
 			Class<?>[] classes = ann.classes();
@@ -143,7 +173,8 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 			throw new IllegalStateException(
 					"Event parameter is mandatory for event listener method: " + method);
 		}
-		return Collections.singletonList(ResolvableType.forMethodParameter(method, 0));
+		ResolvableType parameterType = ResolvableType.forMethodParameter(method, 0);
+		return Collections.singletonList(batchListener ? parameterType.asCollection().getGeneric() : parameterType);
 	}
 
 	private static int resolveOrder(Method method) {
@@ -163,11 +194,22 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 
 	@Override
 	public void onApplicationEvent(ApplicationEvent event) {
+		if (this.asyncListener != null && event instanceof ContextClosedEvent &&
+				((ContextClosedEvent) event).getApplicationContext() == this.applicationContext) {
+			AsyncEventDispatcher<Object[]> dispatcher = this.asyncDispatcher;
+			if (dispatcher != null) {
+				dispatcher.stop();
+			}
+		}
 		processEvent(event);
 	}
 
 	@Override
 	public boolean supportsEventType(ResolvableType eventType) {
+		if (this.asyncListener != null && ContextClosedEvent.class.isAssignableFrom(eventType.toClass())) {
+			// Stop the dispatcher on shutdown, see onApplicationEvent
+			return true;
+		}
 		for (ResolvableType declaredEventType : this.declaredEventTypes) {
 			if (declaredEventType.isAssignableFrom(eventType)) {
 				return true;
@@ -222,20 +264,93 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 	/**
 	 * Process the specified {@link ApplicationEvent}, checking if the condition
 	 * matches and handling a non-null result, if any.
+	 * <p>For an {@link AsyncEventListener}, the method gets invoked later on
+	 * through the {@link #getAsyncDispatcher() dispatcher} of this listener,
+	 * which is stopped once the application context gets closed.
 	 */
 	public void processEvent(ApplicationEvent event) {
 		Object[] args = resolveArguments(event);
 		if (shouldHandle(event, args)) {
-			Object result = doInvoke(args);
-			if (result != null) {
-				handleResult(result);
+			if (this.asyncListener != null) {
+				obtainAsyncDispatcher(this.asyncListener).enqueue(args);
 			}
 			else {
-				logger.trace("No result object given - no result to handle");
+				invokeAndHandleResult(args);
 			}
 		}
 	}
 
+	private void invokeAndHandleResult(Object[] args) {
+		Object result = doInvoke(args);
+		if (result != null) {
+			handleResult(result);
+		}
+		else {
+			logger.trace("No result object given - no result to handle");
+		}
+	}
+
+	private AsyncEventDispatcher<Object[]> obtainAsyncDispatcher(AsyncEventListener ann) {
+		AsyncEventDispatcher<Object[]> dispatcher = this.asyncDispatcher;
+		if (dispatcher == null) {
+			synchronized (this) {
+				dispatcher = this.asyncDispatcher;
+				if (dispatcher == null) {
+					dispatcher = new AsyncEventDispatcher<>(resolveAsyncExecutor(ann), ann.capacity(),
+							ann.batchSize(), ann.maxLatency(), ann.overflowPolicy(),
+							this::processBatch, this::handleAsyncError);
+					this.asyncDispatcher = dispatcher;
+				}
+			}
+		}
+		return dispatcher;
+	}
+
+	/**
+	 * Determine the {@link Executor} to drain the queue of an
+	 * {@link AsyncEventListener} with.
+	 * <p>The default implementation looks up the bean specified through
+	 * {@link AsyncEventListener#executor()}, falling back to a new
+	 * {@link SimpleAsyncTaskExecutor} for this listener.
+	 * @param ann the async listener annotation on the target method
+	 * @since 5.3.11
+	 */
+	protected Executor resolveAsyncExecutor(AsyncEventListener ann) {
+		if (StringUtils.hasText(ann.executor())) {
+			Assert.notNull(this.applicationContext, "ApplicationContext must not be null");
+			return this.applicationContext.getBean(ann.executor(), Executor.class);
+		}
+		return new SimpleAsyncTaskExecutor(ClassUtils.getShortName(this.targetMethod.getDeclaringClass()) +
+				"." + this.targetMethod.getName() + "-");
+	}
+
+	private void processBatch(List<Object[]> batch) {
+		if (this.batchListener) {
+			List<Object> events = new ArrayList<>(batch.size());
+			for (Object[] args : batch) {
+				events.add(args[0]);
+			}
+			invokeAndHandleResult(new Object[] {events});
+		}
+		else {
+			for (Object[] args : batch) {
+				invokeAndHandleResult(args);
+			}
+		}
+	}
+
+	/**
+	 * Return the dispatcher of this listener, exposing its queue depth and
+	 * delivery statistics.
+	 * @return the dispatcher, or {@code null} if the target method is not an
+	 * {@link AsyncEventListener} or has not received any event yet
+	 * @since 5.3.11
+	 */
+	@Nullable
+	public AsyncEventDispatcher<?> getAsyncDispatcher() {
+		return this.asyncDispatcher;
+	}
+
 	/**
 	 * Resolve the method arguments to use for the specified {@link ApplicationEvent}.
 	 * <p>These arguments will be used to invoke the method handled by this instance.
@@ -339,9 +454,8 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 			return null;
 		}
 
-		ReflectionUtils.makeAccessible(this.method);
 		try {
-			return this.method.invoke(bean, args);
+			return getMethodInvoker().invoke(bean, args);
 		}
 		catch (IllegalArgumentException ex) {
 			assertTargetBean(this.method, bean, args);
@@ -390,6 +504,16 @@ public class ApplicationListenerMethodAdapter implements GenericApplicationListe
 		return this.condition;
 	}
 
+	private DirectMethodInvoker getMethodInvoker() {
+		DirectMethodInvoker invoker = this.methodInvoker;
+		if (invoker == null) {
+			ReflectionUtils.makeAccessible(this.method);
+			invoker = DirectMethodInvoker.forMethod(this.method);
+			this.methodInvoker = invoker;
+		}
+		return invoker;
+	}
+
 	/**
 	 * Add additional details such as the bean type and method signature to
 	 * the given error message.
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.context.event.AsyncEventListener.OverflowPolicy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.Assert;
+
+/**
+ * Bounded, batching queue that decouples the delivery of events to a single
+ * listener from their publication.
+ *
+ * <p>Queued elements are drained by at most one task at a time on the given
+ * {@link Executor}, in batches of up to {@code batchSize} elements, preserving
+ * the order in which they were {@linkplain #enqueue enqueued}. Also exposes
+ * queue depth and delivery statistics for monitoring purposes.
+ *
+ * <p>Once {@linkplain #stop() stopped}, queued and subsequently enqueued
+ * elements are discarded rather than delivered.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @param <T> the type of queued elements
+ * @see AsyncEventListener
+ */
+public class AsyncEventDispatcher<T> {
+
+	private final BlockingQueue<T> queue;
+
+	private final Executor executor;
+
+	private final int batchSize;
+
+	private final long maxLatencyNanos;
+
+	private final OverflowPolicy overflowPolicy;
+
+	private final Consumer<List<T>> consumer;
+
+	private final Consumer<Throwable> errorHandler;
+
+	private final AtomicBoolean draining = new AtomicBoolean();
+
+	private volatile boolean stopped;
+
+	private final AtomicLong deliveredCount = new AtomicLong();
+
+	private final AtomicLong batchCount = new AtomicLong();
+
+	private final AtomicLong discardedCount = new AtomicLong();
+
+
+	/**
+	 * Create a new {@code AsyncEventDispatcher}.
+	 * @param executor the executor to drain the queue with
+	 * @param capacity the maximum number of queued elements
+	 * @param batchSize the maximum number of elements per batch
+	 * @param maxLatency the maximum time in milliseconds to wait for an incomplete batch to fill up
+	 * @param overflowPolicy the policy to apply once the queue is full
+	 * @param consumer the consumer of each batch
+	 * @param errorHandler the handler for exceptions thrown by the consumer
+	 */
+	public AsyncEventDispatcher(Executor executor, int capacity, int batchSize, long maxLatency,
+			OverflowPolicy overflowPolicy, Consumer<List<T>> consumer, Consumer<Throwable> errorHandler) {
+
+		Assert.notNull(executor, "Executor must not be null");
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+		Assert.isTrue(maxLatency >= 0, "Max latency must not be negative");
+		Assert.notNull(overflowPolicy, "OverflowPolicy must not be null");
+		Assert.notNull(consumer, "Consumer must not be null");
+		Assert.notNull(errorHandler, "Error handler must not be null");
+		this.queue = new ArrayBlockingQueue<>(capacity);
+		this.executor = executor;
+		this.batchSize = batchSize;
+		this.maxLatencyNanos = TimeUnit.MILLISECONDS.toNanos(maxLatency);
+		this.overflowPolicy = overflowPolicy;
+		this.consumer = consumer;
+		this.errorHandler = errorHandler;
+	}
+
+
+	/**
+	 * Queue the given element for delivery, applying the configured
+	 * {@link OverflowPolicy} if the queue is full.
+	 * <p>The element is discarded if this dispatcher has been {@linkplain #stop() stopped}.
+	 * @param element the element to deliver
+	 * @throws TaskRejectedException if the queue is full and the policy is
+	 * {@link OverflowPolicy#ABORT}, or if the executor rejected the drain task
+	 */
+	public void enqueue(T element) {
+		if (this.stopped) {
+			this.discardedCount.incrementAndGet();
+			return;
+		}
+		if (!this.queue.offer(element)) {
+			switch (this.overflowPolicy) {
+				case BLOCK:
+					try {
+						this.queue.put(element);
+					}
+					catch (InterruptedException ex) {
+						Thread.currentThread().interrupt();
+						this.discardedCount.incrementAndGet();
+					}
+					break;
+				case DISCARD:
+					this.discardedCount.incrementAndGet();
+					break;
+				case DISCARD_OLDEST:
+					while (!this.queue.offer(element)) {
+						if (this.queue.poll() != null) {
+							this.discardedCount.incrementAndGet();
+						}
+					}
+					break;
+				case ABORT:
+					throw new TaskRejectedException("Event queue capacity of " +
+							(this.queue.size() + this.queue.remainingCapacity()) + " exceeded");
+			}
+		}
+		if (this.stopped) {
+			// Stopped while we were queueing: do not leave anything behind
+			discardQueued();
+			return;
+		}
+		scheduleDrain();
+	}
+
+	/**
+	 * Stop this dispatcher, discarding all queued elements and any element
+	 * enqueued from now on. A batch that is being delivered already is not
+	 * affected.
+	 */
+	public void stop() {
+		this.stopped = true;
+		discardQueued();
+	}
+
+	/**
+	 * Return whether this dispatcher has been {@linkplain #stop() stopped}.
+	 */
+	public boolean isStopped() {
+		return this.stopped;
+	}
+
+	private void discardQueued() {
+		int count = 0;
+		while (this.queue.poll() != null) {
+			count++;
+		}
+		this.discardedCount.addAndGet(count);
+	}
+
+	private void scheduleDrain() {
+		if (!this.queue.isEmpty() && this.draining.compareAndSet(false, true)) {
+			try {
+				this.executor.execute(this::drain);
+			}
+			catch (RuntimeException ex) {
+				this.draining.set(false);
+				throw new TaskRejectedException("Executor [" + this.executor + "] did not accept drain task", ex);
+			}
+		}
+	}
+
+	private void drain() {
+		try {
+			T first;
+			while (!this.stopped && (first = this.queue.poll()) != null) {
+				List<T> batch = new ArrayList<>(Math.min(this.batchSize, this.queue.size() + 1));
+				batch.add(first);
+				this.queue.drainTo(batch, this.batchSize - 1);
+				if (batch.size() < this.batchSize && this.maxLatencyNanos > 0) {
+					awaitBatch(batch);
+				}
+				if (this.stopped) {
+					this.discardedCount.addAndGet(batch.size());
+					break;
+				}
+				deliver(batch);
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		finally {
+			this.draining.set(false);
+		}
+		// Pick up elements that got queued while we were about to finish
+		scheduleDrain();
+	}
+
+	private void awaitBatch(List<T> batch) throws InterruptedException {
+		long deadline = System.nanoTime() + this.maxLatencyNanos;
+		while (batch.size() < this.batchSize) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0) {
+				return;
+			}
+			T next = this.queue.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next == null) {
+				return;
+			}
+			batch.add(next);
+			this.queue.drainTo(batch, this.batchSize - batch.size());
+		}
+	}
+
+	private void deliver(List<T> batch) {
+		try {
+			this.consumer.accept(batch);
+		}
+		catch (Throwable ex) {
+			this.errorHandler.accept(ex);
+		}
+		finally {
+			this.deliveredCount.addAndGet(batch.size());
+			this.batchCount.incrementAndGet();
+		}
+	}
+
+
+	/**
+	 * Return the number of elements currently waiting in the queue.
+	 */
+	public int getQueueSize() {
+		return this.queue.size();
+	}
+
+	/**
+	 * Return the number of elements that can still be queued without
+	 * triggering the {@link OverflowPolicy}.
+	 */
+	public int getRemainingCapacity() {
+		return this.queue.remainingCapacity();
+	}
+
+	/**
+	 * Return the total number of elements handed to the consumer so far.
+	 */
+	public long getDeliveredCount() {
+		return this.deliveredCount.get();
+	}
+
+	/**
+	 * Return the total number of batches handed to the consumer so far.
+	 */
+	public long getBatchCount() {
+		return this.batchCount.get();
+	}
+
+	/**
+	 * Return the total number of elements discarded due to a full queue
+	 * or due to this dispatcher having been stopped.
+	 */
+	public long getDiscardedCount() {
+		return this.discardedCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "AsyncEventDispatcher [queueSize=" + getQueueSize() + ", stopped=" + isStopped() +
+				", delivered=" + getDeliveredCount() +
+				", batches=" + getBatchCount() + ", discarded=" + getDiscardedCount() + "]";
+	}
+
+}
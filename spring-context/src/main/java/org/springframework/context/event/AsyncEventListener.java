@@ -0,0 +1,157 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.core.annotation.AliasFor;
+
+/**
+ * An {@link EventListener} that is invoked asynchronously through its own
+ * bounded queue, decoupling publishers from slow listeners.
+ *
+ * <p>Each annotated method gets a dedicated {@link AsyncEventDispatcher} which
+ * accepts events up to the configured {@link #capacity} and drains them on the
+ * specified {@link #executor}, with at most one drain task per listener at any
+ * time. Events are therefore delivered in publication order, and a slow
+ * listener neither blocks other listeners nor spawns an unbounded number of
+ * tasks. The {@link #overflowPolicy} determines what happens to publishers
+ * once the queue is full.
+ *
+ * <p>If a {@link #batchSize} greater than 1 is specified, the annotated method
+ * must declare a single {@link java.util.List} parameter whose element type
+ * reflects the event type to listen to, and receives up to {@code batchSize}
+ * events per invocation. {@link #maxLatency} allows for waiting for further
+ * events before delivering an incomplete batch. A {@link #condition} is not
+ * supported for such batching listeners.
+ *
+ * <p>The {@link #condition} is evaluated in the publishing thread for each
+ * individual event, before the event gets queued. Exceptions thrown by the
+ * listener method are not propagated to the publisher but rather handed to
+ * {@link ApplicationListenerMethodAdapter#handleAsyncError}. Events still
+ * queued when the application context is closed are discarded, as are events
+ * published from then on.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see AsyncEventDispatcher
+ * @see ApplicationListenerMethodAdapter#getAsyncDispatcher()
+ */
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@EventListener
+public @interface AsyncEventListener {
+
+	/**
+	 * Alias for {@link #classes}.
+	 */
+	@AliasFor(annotation = EventListener.class, attribute = "classes")
+	Class<?>[] value() default {};
+
+	/**
+	 * The event classes that this listener handles.
+	 * @see EventListener#classes
+	 */
+	@AliasFor(annotation = EventListener.class, attribute = "classes")
+	Class<?>[] classes() default {};
+
+	/**
+	 * Spring Expression Language (SpEL) attribute used for making the event
+	 * handling conditional, evaluated before the event is queued.
+	 * <p>The default is {@code ""}, meaning the event is always handled.
+	 * Not supported in combination with a {@link #batchSize} greater than 1.
+	 * @see EventListener#condition
+	 */
+	@AliasFor(annotation = EventListener.class, attribute = "condition")
+	String condition() default "";
+
+	/**
+	 * An optional identifier for the listener, defaulting to the fully-qualified
+	 * signature of the declaring method (e.g. "mypackage.MyClass.myMethod()").
+	 * @see EventListener#id
+	 */
+	@AliasFor(annotation = EventListener.class, attribute = "id")
+	String id() default "";
+
+	/**
+	 * The name of the {@link java.util.concurrent.Executor} bean to drain the
+	 * queue of this listener with.
+	 * <p>By default, a {@link org.springframework.core.task.SimpleAsyncTaskExecutor}
+	 * is used, starting a new thread whenever events arrive for an idle listener.
+	 */
+	String executor() default "";
+
+	/**
+	 * The maximum number of events that may be queued for this listener.
+	 */
+	int capacity() default 1000;
+
+	/**
+	 * The maximum number of events to deliver per invocation of the listener method.
+	 * <p>The default is 1, delivering events one at a time. Any higher value
+	 * requires the listener method to accept a {@link java.util.List} of events.
+	 */
+	int batchSize() default 1;
+
+	/**
+	 * The maximum time in milliseconds to wait for further events before
+	 * delivering an incomplete batch.
+	 * <p>The default is 0, delivering whatever is available right away.
+	 * Only applicable in combination with a {@link #batchSize} greater than 1.
+	 */
+	long maxLatency() default 0;
+
+	/**
+	 * The policy to apply when an event is published while the queue of this
+	 * listener is full.
+	 * <p>The default is {@link OverflowPolicy#BLOCK}, pushing back on publishers.
+	 */
+	OverflowPolicy overflowPolicy() default OverflowPolicy.BLOCK;
+
+
+	/**
+	 * Enumeration of the policies for events that do not fit into a full queue.
+	 */
+	enum OverflowPolicy {
+
+		/**
+		 * Block the publisher until the listener has made room in its queue.
+		 */
+		BLOCK,
+
+		/**
+		 * Discard the new event.
+		 */
+		DISCARD,
+
+		/**
+		 * Discard the oldest queued event in favor of the new event.
+		 */
+		DISCARD_OLDEST,
+
+		/**
+		 * Reject the event with a {@link org.springframework.core.task.TaskRejectedException}.
+		 */
+		ABORT
+	}
+
+}
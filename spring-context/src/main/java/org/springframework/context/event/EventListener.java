@@ -74,6 +74,9 @@ import org.springframework.core.annotation.AliasFor;
  * to publish the event manually.</li>
  * </ul>
  *
+ * <p>Alternatively, use {@link AsyncEventListener @AsyncEventListener} for a listener
+ * with its own bounded queue, optionally receiving events in batches.
+ *
  * <h3>Ordering Listeners</h3>
  * <p>It is also possible to define the order in which listeners for a
  * certain event are to be invoked. To do so, add Spring's common
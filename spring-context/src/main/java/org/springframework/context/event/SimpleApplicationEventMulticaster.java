@@ -16,6 +16,7 @@
 
 package org.springframework.context.event;
 
+import java.util.Map;
 import java.util.concurrent.Executor;
 
 import org.apache.commons.logging.Log;
@@ -26,7 +27,9 @@ import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.PayloadApplicationEvent;
 import org.springframework.core.ResolvableType;
+import org.springframework.core.ResolvableTypeProvider;
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ErrorHandler;
 
 /**
@@ -59,6 +62,9 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	@Nullable
 	private volatile Log lazyLogger;
 
+	/** Default event types, keyed by event class, for events not exposing a ResolvableType themselves. */
+	private final Map<Class<?>, ResolvableType> defaultEventTypeCache = new ConcurrentReferenceHashMap<>(64);
+
 
 	/**
 	 * Create a new SimpleApplicationEventMulticaster.
@@ -146,7 +152,11 @@ public class SimpleApplicationEventMulticaster extends AbstractApplicationEventM
 	}
 
 	private ResolvableType resolveDefaultEventType(ApplicationEvent event) {
-		return ResolvableType.forInstance(event);
+		if (event instanceof ResolvableTypeProvider) {
+			return ResolvableType.forInstance(event);
+		}
+		// Plain event class: reuse the same ResolvableType instance for every publication
+		return this.defaultEventTypeCache.computeIfAbsent(event.getClass(), ResolvableType::forClass);
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,13 @@
 
 package org.springframework.context.expression;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.beans.factory.config.BeanExpressionContext;
 import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.PropertyAccessor;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
+import org.springframework.expression.spel.CompilablePropertyAccessor;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -32,7 +34,7 @@ import org.springframework.util.Assert;
  * @author Andy Clement
  * @since 3.0
  */
-public class BeanExpressionContextAccessor implements PropertyAccessor {
+public class BeanExpressionContextAccessor implements CompilablePropertyAccessor {
 
 	@Override
 	public boolean canRead(EvaluationContext context, @Nullable Object target, String name) throws AccessException {
@@ -62,4 +64,26 @@ public class BeanExpressionContextAccessor implements PropertyAccessor {
 		return new Class<?>[] {BeanExpressionContext.class};
 	}
 
+	@Override
+	public boolean isCompilable() {
+		return true;
+	}
+
+	@Override
+	public Class<?> getPropertyType() {
+		return Object.class;
+	}
+
+	@Override
+	public void generateCode(String propertyName, MethodVisitor mv, CodeFlow cf) {
+		String descriptor = cf.lastDescriptor();
+		if (descriptor == null) {
+			cf.loadTarget(mv);
+		}
+		CodeFlow.insertCheckCast(mv, "Lorg/springframework/beans/factory/config/BeanExpressionContext");
+		mv.visitLdcInsn(propertyName);
+		mv.visitMethodInsn(INVOKEVIRTUAL, "org/springframework/beans/factory/config/BeanExpressionContext",
+				"getObject", "(Ljava/lang/String;)Ljava/lang/Object;", false);
+	}
+
 }
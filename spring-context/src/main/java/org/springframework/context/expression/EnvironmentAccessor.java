@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,13 @@
 
 package org.springframework.context.expression;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.core.env.Environment;
 import org.springframework.expression.AccessException;
 import org.springframework.expression.EvaluationContext;
-import org.springframework.expression.PropertyAccessor;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
+import org.springframework.expression.spel.CompilablePropertyAccessor;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
@@ -31,7 +33,7 @@ import org.springframework.util.Assert;
  * @author Chris Beams
  * @since 3.1
  */
-public class EnvironmentAccessor implements PropertyAccessor {
+public class EnvironmentAccessor implements CompilablePropertyAccessor {
 
 	@Override
 	public Class<?>[] getSpecificTargetClasses() {
@@ -73,4 +75,26 @@ public class EnvironmentAccessor implements PropertyAccessor {
 			throws AccessException {
 	}
 
+	@Override
+	public boolean isCompilable() {
+		return true;
+	}
+
+	@Override
+	public Class<?> getPropertyType() {
+		return String.class;
+	}
+
+	@Override
+	public void generateCode(String propertyName, MethodVisitor mv, CodeFlow cf) {
+		String descriptor = cf.lastDescriptor();
+		if (descriptor == null) {
+			cf.loadTarget(mv);
+		}
+		CodeFlow.insertCheckCast(mv, "Lorg/springframework/core/env/Environment");
+		mv.visitLdcInsn(propertyName);
+		mv.visitMethodInsn(INVOKEINTERFACE, "org/springframework/core/env/Environment",
+				"getProperty", "(Ljava/lang/String;)Ljava/lang/String;", true);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,16 +16,24 @@
 
 package org.springframework.context.expression;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanExpressionException;
 import org.springframework.beans.factory.config.BeanExpressionContext;
 import org.springframework.beans.factory.config.BeanExpressionResolver;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
 import org.springframework.expression.ParserContext;
 import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.common.CompositeStringExpression;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
 import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.expression.spel.support.StandardTypeConverter;
@@ -34,8 +42,13 @@ import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Standard implementation of the
@@ -46,6 +59,10 @@ import java.util.concurrent.ConcurrentHashMap;
  * predefined variables with their common bean name, including standard context
  * beans such as "environment", "systemProperties" and "systemEnvironment".
  *
+ * <p>Parsed expressions are cached, along with a count of their evaluations
+ * (see {@link #getEvaluationCounts()}). As of 5.3.11, frequently evaluated
+ * expressions may be compiled on demand, see {@link #setCompilationThreshold}.
+ *
  * @author Juergen Hoeller
  * @since 3.0
  * @see BeanExpressionContext#getBeanFactory()
@@ -61,6 +78,8 @@ public class StandardBeanExpressionResolver implements BeanExpressionResolver {
     /** Default expression suffix: "}". */
     public static final String DEFAULT_EXPRESSION_SUFFIX = "}";
 
+    private static final Log logger = LogFactory.getLog(StandardBeanExpressionResolver.class);
+
 
     private String expressionPrefix = DEFAULT_EXPRESSION_PREFIX;
 
@@ -68,7 +87,9 @@ public class StandardBeanExpressionResolver implements BeanExpressionResolver {
 
     private ExpressionParser expressionParser;
 
-    private final Map<String, Expression> expressionCache = new ConcurrentHashMap<>(256);
+    private int compilationThreshold = 0;
+
+    private final Map<String, CachedExpression> expressionCache = new ConcurrentHashMap<>(256);
 
     private final Map<BeanExpressionContext, StandardEvaluationContext> evaluationCache = new ConcurrentHashMap<>(8);
 
@@ -137,6 +158,49 @@ public class StandardBeanExpressionResolver implements BeanExpressionResolver {
         this.expressionParser = expressionParser;
     }
 
+    /**
+     * Set the number of evaluations after which a cached SpEL expression gets
+     * compiled, independent of the globally configured
+     * {@link org.springframework.expression.spel.SpelCompilerMode}.
+     * <p>Like in {@code MIXED} compiler mode, an expression reverts to
+     * interpreted evaluation if its compiled form fails at a later point,
+     * e.g. due to a change in the types of the objects involved. Compilation
+     * is attempted again on subsequent evaluations if it failed or had to be
+     * reverted, up to a limit of 100 failed attempts per expression.
+     * <p>The default is 0, not compiling any expressions here.
+     * @since 5.3.11
+     * @see SpelExpression#compileExpression()
+     */
+    public void setCompilationThreshold(int compilationThreshold) {
+        Assert.isTrue(compilationThreshold >= 0, "Compilation threshold must not be negative");
+        this.compilationThreshold = compilationThreshold;
+    }
+
+    /**
+     * Return the number of evaluations per cached expression string,
+     * ordered from the most frequently evaluated one, e.g. for identifying
+     * hot {@code @Value} expressions.
+     * @since 5.3.11
+     * @see #setCompilationThreshold
+     */
+    public Map<String, Long> getEvaluationCounts() {
+        List<Map.Entry<String, CachedExpression>> entries = new ArrayList<>(this.expressionCache.entrySet());
+        entries.sort((entry1, entry2) -> Long.compare(entry2.getValue().getEvaluationCount(), entry1.getValue().getEvaluationCount()));
+        Map<String, Long> counts = new LinkedHashMap<>(entries.size());
+        for (Map.Entry<String, CachedExpression> entry : entries) {
+            counts.put(entry.getKey(), entry.getValue().getEvaluationCount());
+        }
+        return counts;
+    }
+
+    /**
+     * Determine whether the given expression string is currently compiled.
+     */
+    boolean isCompiled(String value) {
+        CachedExpression expr = this.expressionCache.get(value);
+        return (expr != null && expr.isCompiled());
+    }
+
 
     @Override
     @Nullable
@@ -145,7 +209,7 @@ public class StandardBeanExpressionResolver implements BeanExpressionResolver {
             return value;
         }
         try {
-            Expression expr = this.expressionCache.get(value);
+            CachedExpression expr = this.expressionCache.get(value);
             if (expr == null) {
                 /**
                  * 缓存没有，就开始解析
@@ -154,7 +218,7 @@ public class StandardBeanExpressionResolver implements BeanExpressionResolver {
                  * "#{a}"  解析的结果是 "a"
                  * ---> SpEl Expression
                  * */
-                expr = this.expressionParser.parseExpression(value, this.beanExpressionParserContext);
+                expr = new CachedExpression(this.expressionParser.parseExpression(value, this.beanExpressionParserContext));
                 this.expressionCache.put(value, expr);
             }
             StandardEvaluationContext sec = this.evaluationCache.get(evalContext);
@@ -188,8 +252,8 @@ public class StandardBeanExpressionResolver implements BeanExpressionResolver {
                 customizeEvaluationContext(sec);
                 this.evaluationCache.put(evalContext, sec);
             }
-            // 拿到结果
-            return expr.getValue(sec);
+            // 拿到结果，达到阈值后编译表达式
+            return expr.getValue(sec, this.compilationThreshold);
         } catch (Throwable ex) {
             throw new BeanExpressionException("Expression parsing failed", ex);
         }
@@ -202,4 +266,90 @@ public class StandardBeanExpressionResolver implements BeanExpressionResolver {
     protected void customizeEvaluationContext(StandardEvaluationContext evalContext) {
     }
 
+
+    /**
+     * A cached expression along with its evaluation count.
+     */
+    private static final class CachedExpression {
+
+        /** Same limit as for SpelCompilerMode.MIXED, see SpelExpression. */
+        private static final int FAILED_ATTEMPTS_THRESHOLD = 100;
+
+        private final Expression expression;
+
+        private final AtomicLong evaluationCount = new AtomicLong();
+
+        private final AtomicInteger failedAttempts = new AtomicInteger();
+
+        private volatile boolean compiled;
+
+        CachedExpression(Expression expression) {
+            this.expression = expression;
+        }
+
+        @Nullable
+        Object getValue(EvaluationContext context, int compilationThreshold) {
+            Object result;
+            try {
+                result = this.expression.getValue(context);
+            } catch (SpelEvaluationException ex) {
+                if (ex.getMessageCode() != SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION) {
+                    throw ex;
+                }
+                // Revert to interpreted evaluation, as in SpelCompilerMode.MIXED
+                this.compiled = false;
+                this.failedAttempts.incrementAndGet();
+                for (SpelExpression spelExpression : getSpelExpressions()) {
+                    spelExpression.revertToInterpreted();
+                }
+                result = this.expression.getValue(context);
+            }
+            long count = this.evaluationCount.incrementAndGet();
+            if (!this.compiled && compilationThreshold > 0 && count >= compilationThreshold &&
+                    this.failedAttempts.get() < FAILED_ATTEMPTS_THRESHOLD) {
+                compile();
+            }
+            return result;
+        }
+
+        private void compile() {
+            // Already compiled parts return true right away
+            boolean compiled = true;
+            for (SpelExpression spelExpression : getSpelExpressions()) {
+                compiled &= spelExpression.compileExpression();
+            }
+            this.compiled = compiled;
+            if (!compiled) {
+                // E.g. not all types known yet: try again on the next evaluation
+                this.failedAttempts.incrementAndGet();
+            }
+            else if (logger.isDebugEnabled()) {
+                logger.debug("Compiled expression [" + this.expression.getExpressionString() +
+                        "] after " + this.evaluationCount.get() + " evaluations");
+            }
+        }
+
+        private List<SpelExpression> getSpelExpressions() {
+            List<SpelExpression> spelExpressions = new ArrayList<>();
+            if (this.expression instanceof SpelExpression) {
+                spelExpressions.add((SpelExpression) this.expression);
+            } else if (this.expression instanceof CompositeStringExpression) {
+                for (Expression part : ((CompositeStringExpression) this.expression).getExpressions()) {
+                    if (part instanceof SpelExpression) {
+                        spelExpressions.add((SpelExpression) part);
+                    }
+                }
+            }
+            return spelExpressions;
+        }
+
+        long getEvaluationCount() {
+            return this.evaluationCount.get();
+        }
+
+        boolean isCompiled() {
+            return this.compiled;
+        }
+    }
+
 }
@@ -25,6 +25,7 @@ import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.config.*;
 import org.springframework.beans.factory.support.*;
 import org.springframework.beans.support.ResourceEditorRegistrar;
+import org.springframework.cglib.core.GeneratedClassCache;
 import org.springframework.context.*;
 import org.springframework.context.event.*;
 import org.springframework.context.expression.StandardBeanExpressionResolver;
@@ -702,6 +703,10 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader i
                 // Reset common introspection caches in Spring's core, since we
                 // might not ever need metadata for singleton beans anymore...
                 resetCommonCaches();
+                GeneratedClassCache classCache = GeneratedClassCache.getInstance();
+                if (classCache != null) {
+                    contextRefresh.tag("cglibClassCache", classCache::toString);
+                }
                 contextRefresh.end();
             }
         }
@@ -212,6 +212,32 @@ public class ApplicationContextEventTests extends AbstractApplicationEventListen
 		assertThat(listener1.seenEvents.size()).isEqualTo(2);
 	}
 
+	@Test
+	public void listenersAddedAndRemovedAfterMulticast() {
+		MyOrderedListener3 listener1 = new MyOrderedListener3();
+		MyOrderedListener4 listener2 = new MyOrderedListener4(listener1);
+
+		SimpleApplicationEventMulticaster smc = new SimpleApplicationEventMulticaster();
+		smc.addApplicationListener(listener1);
+		smc.multicastEvent(new MyEvent(this));
+		smc.multicastEvent(new MyOtherEvent(this));
+		assertThat(smc.retrieverCache).hasSize(2);
+
+		// Only the MyEvent entry is affected by a MyEvent listener
+		smc.addApplicationListener(listener2);
+		assertThat(smc.retrieverCache).hasSize(1);
+		MyEvent event = new MyEvent(this);
+		smc.multicastEvent(event);
+		assertThat(listener1.seenEvents).contains(event);
+
+		smc.removeApplicationListener(listener1);
+		assertThat(smc.retrieverCache).isEmpty();
+		MyOtherEvent otherEvent = new MyOtherEvent(this);
+		smc.multicastEvent(otherEvent);
+		assertThat(listener1.seenEvents).doesNotContain(otherEvent);
+		assertThat(listener1.seenEvents).hasSize(3);
+	}
+
 	@Test
 	@SuppressWarnings("unchecked")
 	public void proxiedListeners() {
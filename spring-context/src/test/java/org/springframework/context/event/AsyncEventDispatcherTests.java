@@ -0,0 +1,281 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.event;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.AsyncEventListener.OverflowPolicy;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link AsyncEventDispatcher} and {@link AsyncEventListener}.
+ *
+ * @author agent
+ */
+class AsyncEventDispatcherTests {
+
+	private final List<List<String>> batches = new ArrayList<>();
+
+	private final List<Throwable> errors = new ArrayList<>();
+
+	private final List<Runnable> tasks = new CopyOnWriteArrayList<>();
+
+
+	@Test
+	void deliversInOrderWithSyncExecutor() {
+		AsyncEventDispatcher<String> dispatcher = createDispatcher(new SyncTaskExecutor(), 10, 1, OverflowPolicy.BLOCK);
+		dispatcher.enqueue("a");
+		dispatcher.enqueue("b");
+		assertThat(this.batches).containsExactly(Arrays.asList("a"), Arrays.asList("b"));
+		assertThat(dispatcher.getDeliveredCount()).isEqualTo(2);
+		assertThat(dispatcher.getQueueSize()).isZero();
+	}
+
+	@Test
+	void schedulesSingleDrainTaskAndBatches() {
+		AsyncEventDispatcher<String> dispatcher = createDispatcher(this.tasks::add, 10, 2, OverflowPolicy.BLOCK);
+		dispatcher.enqueue("a");
+		dispatcher.enqueue("b");
+		dispatcher.enqueue("c");
+		assertThat(this.tasks).hasSize(1);
+		assertThat(dispatcher.getQueueSize()).isEqualTo(3);
+
+		this.tasks.remove(0).run();
+		assertThat(this.batches).containsExactly(Arrays.asList("a", "b"), Arrays.asList("c"));
+		assertThat(dispatcher.getBatchCount()).isEqualTo(2);
+		assertThat(this.tasks).isEmpty();
+	}
+
+	@Test
+	void discardWhenFull() {
+		AsyncEventDispatcher<String> dispatcher = createDispatcher(this.tasks::add, 1, 1, OverflowPolicy.DISCARD);
+		dispatcher.enqueue("a");
+		dispatcher.enqueue("b");
+		this.tasks.remove(0).run();
+		assertThat(this.batches).containsExactly(Arrays.asList("a"));
+		assertThat(dispatcher.getDiscardedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void discardOldestWhenFull() {
+		AsyncEventDispatcher<String> dispatcher = createDispatcher(this.tasks::add, 1, 1, OverflowPolicy.DISCARD_OLDEST);
+		dispatcher.enqueue("a");
+		dispatcher.enqueue("b");
+		this.tasks.remove(0).run();
+		assertThat(this.batches).containsExactly(Arrays.asList("b"));
+		assertThat(dispatcher.getDiscardedCount()).isEqualTo(1);
+	}
+
+	@Test
+	void blockWhenFull() throws InterruptedException {
+		AsyncEventDispatcher<String> dispatcher = createDispatcher(this.tasks::add, 1, 1, OverflowPolicy.BLOCK);
+		dispatcher.enqueue("a");
+		Thread publisher = new Thread(() -> dispatcher.enqueue("b"));
+		publisher.start();
+		while (publisher.getState() != Thread.State.WAITING) {
+			Thread.sleep(1);
+		}
+		assertThat(this.batches).isEmpty();
+
+		this.tasks.remove(0).run();
+		publisher.join(2000);
+		assertThat(publisher.isAlive()).isFalse();
+		while (!this.tasks.isEmpty()) {
+			this.tasks.remove(0).run();
+		}
+		assertThat(this.batches).containsExactly(Arrays.asList("a"), Arrays.asList("b"));
+		assertThat(dispatcher.getDiscardedCount()).isZero();
+	}
+
+	@Test
+	void abortWhenFull() {
+		AsyncEventDispatcher<String> dispatcher = createDispatcher(this.tasks::add, 1, 1, OverflowPolicy.ABORT);
+		dispatcher.enqueue("a");
+		assertThatExceptionOfType(TaskRejectedException.class).isThrownBy(() -> dispatcher.enqueue("b"));
+	}
+
+	@Test
+	void stopDiscardsQueuedAndNewElements() {
+		AsyncEventDispatcher<String> dispatcher = createDispatcher(this.tasks::add, 10, 1, OverflowPolicy.BLOCK);
+		dispatcher.enqueue("a");
+		dispatcher.enqueue("b");
+		dispatcher.stop();
+		assertThat(dispatcher.isStopped()).isTrue();
+		assertThat(dispatcher.getQueueSize()).isZero();
+
+		this.tasks.remove(0).run();
+		dispatcher.enqueue("c");
+		assertThat(this.batches).isEmpty();
+		assertThat(this.tasks).isEmpty();
+		assertThat(dispatcher.getDiscardedCount()).isEqualTo(3);
+	}
+
+	@Test
+	void consumerErrorIsHandled() {
+		AsyncEventDispatcher<String> dispatcher = new AsyncEventDispatcher<>(new SyncTaskExecutor(), 10, 1, 0,
+				OverflowPolicy.BLOCK, batch -> {
+					throw new IllegalStateException("test");
+				}, this.errors::add);
+		dispatcher.enqueue("a");
+		dispatcher.enqueue("b");
+		assertThat(this.errors).hasSize(2);
+		assertThat(dispatcher.getDeliveredCount()).isEqualTo(2);
+	}
+
+	@Test
+	void batchingEventListener() throws InterruptedException {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(BatchingConfig.class);
+		BatchingListener listener = context.getBean(BatchingListener.class);
+		for (int i = 0; i < 5; i++) {
+			context.publishEvent("event" + i);
+		}
+		context.publishEvent(42);
+		assertThat(listener.latch.await(2, TimeUnit.SECONDS)).isTrue();
+		List<String> received = new ArrayList<>();
+		listener.batches.forEach(received::addAll);
+		assertThat(received).containsExactly("event0", "event1", "event2", "event3", "event4");
+		assertThat(listener.batches).allSatisfy(batch -> assertThat(batch).hasSizeLessThanOrEqualTo(2));
+		context.close();
+	}
+
+	@Test
+	void contextCloseStopsDispatcher() {
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext(DeferredConfig.class);
+		DeferredListener listener = context.getBean(DeferredListener.class);
+		List<Runnable> tasks = context.getBean(DeferredConfig.class).tasks;
+		context.publishEvent("event");
+		assertThat(tasks).hasSize(1);
+
+		context.close();
+		tasks.forEach(Runnable::run);
+		assertThat(listener.events).isEmpty();
+	}
+
+	@Test
+	void batchingEventListenerRequiresListParameter() {
+		Method method = ReflectionUtils.findMethod(InvalidBatchingListener.class, "handle", Collection.class);
+		assertThatIllegalStateException().isThrownBy(() ->
+				new ApplicationListenerMethodAdapter("listener", InvalidBatchingListener.class, method));
+		Method rawMethod = ReflectionUtils.findMethod(InvalidBatchingListener.class, "handleRaw", List.class);
+		assertThatIllegalStateException().isThrownBy(() ->
+				new ApplicationListenerMethodAdapter("listener", InvalidBatchingListener.class, rawMethod));
+	}
+
+	@Test
+	void batchingEventListenerDoesNotSupportCondition() {
+		Method method = ReflectionUtils.findMethod(InvalidBatchingListener.class, "handleConditionally", List.class);
+		assertThatIllegalStateException().isThrownBy(() ->
+				new ApplicationListenerMethodAdapter("listener", InvalidBatchingListener.class, method));
+	}
+
+
+	private AsyncEventDispatcher<String> createDispatcher(
+			Executor executor, int capacity, int batchSize, OverflowPolicy policy) {
+
+		return new AsyncEventDispatcher<>(executor, capacity, batchSize, 0, policy,
+				batch -> this.batches.add(new ArrayList<>(batch)), this.errors::add);
+	}
+
+
+	@Configuration
+	static class BatchingConfig {
+
+		@Bean
+		BatchingListener batchingListener() {
+			return new BatchingListener();
+		}
+	}
+
+
+	static class BatchingListener {
+
+		final List<List<String>> batches = new CopyOnWriteArrayList<>();
+
+		final CountDownLatch latch = new CountDownLatch(5);
+
+		@AsyncEventListener(batchSize = 2, maxLatency = 10)
+		public void handle(List<String> events) {
+			this.batches.add(events);
+			events.forEach(event -> this.latch.countDown());
+		}
+	}
+
+
+	@Configuration
+	static class DeferredConfig {
+
+		final List<Runnable> tasks = new ArrayList<>();
+
+		@Bean
+		Executor deferredExecutor() {
+			return this.tasks::add;
+		}
+
+		@Bean
+		DeferredListener deferredListener() {
+			return new DeferredListener();
+		}
+	}
+
+
+	static class DeferredListener {
+
+		final List<String> events = new ArrayList<>();
+
+		@AsyncEventListener(executor = "deferredExecutor")
+		public void handle(String event) {
+			this.events.add(event);
+		}
+	}
+
+
+	@SuppressWarnings("rawtypes")
+	static class InvalidBatchingListener {
+
+		@AsyncEventListener(batchSize = 2)
+		public void handle(Collection<String> events) {
+		}
+
+		@AsyncEventListener(batchSize = 2)
+		public void handleRaw(List events) {
+		}
+
+		@AsyncEventListener(batchSize = 2, condition = "true")
+		public void handleConditionally(List<String> events) {
+		}
+	}
+
+}
@@ -35,9 +35,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanExpressionContext;
 import org.springframework.beans.factory.config.Scope;
 import org.springframework.beans.factory.config.TypedStringValue;
 import org.springframework.beans.factory.support.AutowireCandidateQualifier;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.beans.factory.support.GenericBeanDefinition;
 import org.springframework.beans.factory.support.RootBeanDefinition;
 import org.springframework.beans.testfixture.beans.TestBean;
@@ -53,6 +55,7 @@ import org.springframework.core.testfixture.io.SerializationTestUtils;
 import org.springframework.util.FileCopyUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 
 /**
  * @author Juergen Hoeller
@@ -237,6 +240,60 @@ class ApplicationContextExpressionTests {
 		}
 	}
 
+	@Test
+	void expressionCompilationAfterThreshold() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.registerSingleton("value", "abc");
+		StandardBeanExpressionResolver resolver = new StandardBeanExpressionResolver();
+		resolver.setCompilationThreshold(2);
+		BeanExpressionContext context = new BeanExpressionContext(bf, null);
+		for (int i = 0; i < 3; i++) {
+			assertThat(resolver.evaluate("#{value.length()}", context)).isEqualTo(3);
+			assertThat(resolver.evaluate("-#{value}-", context)).isEqualTo("-abc-");
+		}
+
+		// Compiled form not applicable to a different type: reverting to interpreted evaluation
+		bf.destroySingleton("value");
+		bf.registerSingleton("value", new StringBuilder("abcd"));
+		assertThat(resolver.evaluate("#{value.length()}", context)).isEqualTo(4);
+		assertThat(resolver.evaluate("-#{value}-", context)).isEqualTo("-abcd-");
+		assertThat(resolver.getEvaluationCounts()).containsOnly(
+				entry("#{value.length()}", 4L), entry("-#{value}-", 4L));
+	}
+
+	@Test
+	void expressionCompilationRetriedAfterThreshold() {
+		DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+		bf.registerSingleton("value", "abc");
+		StandardBeanExpressionResolver resolver = new StandardBeanExpressionResolver();
+		resolver.setCompilationThreshold(2);
+		BeanExpressionContext context = new BeanExpressionContext(bf, null);
+		String expression = "#{value.length() > 2 ? 'long' : value.toUpperCase()}";
+		for (int i = 0; i < 3; i++) {
+			assertThat(resolver.evaluate(expression, context)).isEqualTo("long");
+		}
+		// Exit type of the else branch not known yet
+		assertThat(resolver.isCompiled(expression)).isFalse();
+
+		bf.destroySingleton("value");
+		bf.registerSingleton("value", "a");
+		assertThat(resolver.evaluate(expression, context)).isEqualTo("A");
+		assertThat(resolver.isCompiled(expression)).isTrue();
+
+		bf.destroySingleton("value");
+		bf.registerSingleton("value", "abc");
+		for (int i = 0; i < 2; i++) {
+			assertThat(resolver.evaluate("#{value.length()}", context)).isEqualTo(3);
+		}
+		assertThat(resolver.isCompiled("#{value.length()}")).isTrue();
+
+		// Compiled form not applicable to a different type: compiled again after reverting
+		bf.destroySingleton("value");
+		bf.registerSingleton("value", new StringBuilder("abcd"));
+		assertThat(resolver.evaluate("#{value.length()}", context)).isEqualTo(4);
+		assertThat(resolver.isCompiled("#{value.length()}")).isTrue();
+	}
+
 	@Test
 	void systemPropertiesSecurityManager() {
 		AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext();
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for the per-call cost of {@link DirectMethodInvoker} compared to
+ * reflective invocation, for a single method as well as for several methods
+ * invoked from the same call site (like handler methods of different controllers).
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DirectMethodInvokerBenchmark {
+
+	@Benchmark
+	public void reflection(BenchmarkState state, Blackhole bh) throws Exception {
+		bh.consume(state.methods[0].invoke(state.target, state.args));
+	}
+
+	@Benchmark
+	public void directInvoker(BenchmarkState state, Blackhole bh) throws Exception {
+		bh.consume(state.invokers[0].invoke(state.target, state.args));
+	}
+
+	@Benchmark
+	public void reflectionMultipleMethods(BenchmarkState state, Blackhole bh) throws Exception {
+		for (Method method : state.methods) {
+			bh.consume(method.invoke(state.target, state.args));
+		}
+	}
+
+	@Benchmark
+	public void directInvokerMultipleMethods(BenchmarkState state, Blackhole bh) throws Exception {
+		for (DirectMethodInvoker invoker : state.invokers) {
+			bh.consume(invoker.invoke(state.target, state.args));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public Handler target = new Handler();
+
+		public Object[] args = new Object[] {42L, "name"};
+
+		public Method[] methods;
+
+		public DirectMethodInvoker[] invokers;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.methods = new Method[] {
+					Handler.class.getMethod("user", long.class, String.class),
+					Handler.class.getMethod("order", long.class, String.class),
+					Handler.class.getMethod("item", long.class, String.class)};
+			this.invokers = new DirectMethodInvoker[this.methods.length];
+			for (int i = 0; i < this.methods.length; i++) {
+				this.invokers[i] = DirectMethodInvoker.forMethod(this.methods[i]);
+			}
+		}
+	}
+
+
+	public static class Handler {
+
+		public String user(long id, String format) {
+			return format;
+		}
+
+		public String order(long id, String format) {
+			return format;
+		}
+
+		public Object item(long id, String format) {
+			return id;
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link ResolvableType} creation and resolution, following the
+ * call patterns of event dispatching, bean type matching and codec selection.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ResolvableTypeBenchmark {
+
+	@Benchmark
+	public void forClassResolveGenerics(BenchmarkState state, Blackhole bh) {
+		ResolvableType type = ResolvableType.forClass(state.eventClass);
+		bh.consume(type.resolve());
+		bh.consume(type.getGenerics());
+	}
+
+	@Benchmark
+	public void forClassAsSuperType(BenchmarkState state, Blackhole bh) {
+		bh.consume(ResolvableType.forClass(state.listenerClass).as(Listener.class).getGeneric().resolve());
+	}
+
+	@Benchmark
+	public void forInstanceIsAssignableFrom(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.declaredEventType.isAssignableFrom(ResolvableType.forInstance(state.event)));
+	}
+
+	@Benchmark
+	public void forFieldResolveGeneric(BenchmarkState state, Blackhole bh) {
+		bh.consume(ResolvableType.forField(state.field).resolveGeneric(1, 0));
+	}
+
+	@Benchmark
+	public void forMethodParameterResolveGeneric(BenchmarkState state, Blackhole bh) {
+		bh.consume(ResolvableType.forMethodParameter(state.method, 0).resolveGeneric(0));
+	}
+
+	@Benchmark
+	public void forTypeGetGenerics(BenchmarkState state, Blackhole bh) {
+		bh.consume(ResolvableType.forType(state.genericType).getGenerics());
+	}
+
+	@Benchmark
+	public void forClassWithGenericsIsAssignableFrom(BenchmarkState state, Blackhole bh) {
+		bh.consume(state.elementType.isAssignableFrom(ResolvableType.forClass(state.eventClass)));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public Class<?> eventClass = TestEvent.class;
+
+		public Class<?> listenerClass = TestListener.class;
+
+		public Object event = new TestEvent();
+
+		public ResolvableType declaredEventType;
+
+		public ResolvableType elementType;
+
+		public Field field;
+
+		public Method method;
+
+		public Type genericType;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.declaredEventType = ResolvableType.forClass(TestListener.class).as(Listener.class).getGeneric();
+			this.elementType = ResolvableType.forClassWithGenerics(BaseEvent.class, String.class);
+			this.field = Holder.class.getField("map");
+			this.method = Holder.class.getMethod("handle", List.class);
+			this.genericType = this.field.getGenericType();
+		}
+	}
+
+
+	public interface Listener<E> {
+
+		void onEvent(E event);
+	}
+
+
+	public static class BaseEvent<T> {
+	}
+
+
+	public static class TestEvent extends BaseEvent<String> {
+	}
+
+
+	public static class TestListener implements Listener<TestEvent> {
+
+		@Override
+		public void onEvent(TestEvent event) {
+		}
+	}
+
+
+	public static class Holder {
+
+		public Map<String, List<Integer>> map;
+
+		public void handle(List<String> values) {
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -59,16 +59,57 @@ public class GenericConversionServiceBenchmark {
 		bh.consume(target);
 	}
 
+	@Benchmark
+	public void convertListOfStringToListOfIntegerWithConversionHandle(ListBenchmarkState state, Blackhole bh) {
+		bh.consume(state.conversionHandle.convert(state.source));
+	}
+
 	@State(Scope.Benchmark)
 	public static class ListBenchmarkState extends BenchmarkState {
 
 		List<String> source;
 
+		GenericConversionService.ConversionHandle conversionHandle;
+
 		@Setup(Level.Trial)
 		public void setup() throws Exception {
 			this.source = IntStream.rangeClosed(1, collectionSize).mapToObj(String::valueOf).collect(Collectors.toList());
 			List<Integer> target = new ArrayList<>();
 			this.targetTypeDesc = TypeDescriptor.forObject(target);
+			this.conversionHandle = this.conversionService.getConversionHandle(
+					TypeDescriptor.forObject(this.source), this.targetTypeDesc);
+		}
+	}
+
+	@Benchmark
+	public void convertStringToIntegerWithConversionService(ScalarBenchmarkState state, Blackhole bh) {
+		bh.consume(state.conversionService.convert(state.source, Integer.class));
+	}
+
+	@Benchmark
+	public void convertStringToIntegerWithTypeDescriptors(ScalarBenchmarkState state, Blackhole bh) {
+		bh.consume(state.conversionService.convert(
+				state.source, TypeDescriptor.forObject(state.source), TypeDescriptor.valueOf(Integer.class)));
+	}
+
+	@Benchmark
+	public void convertStringToIntegerWithConversionHandle(ScalarBenchmarkState state, Blackhole bh) {
+		bh.consume(state.conversionHandle.convert(state.source));
+	}
+
+	@State(Scope.Benchmark)
+	public static class ScalarBenchmarkState {
+
+		DefaultConversionService conversionService = new DefaultConversionService();
+
+		String source = "42";
+
+		GenericConversionService.ConversionHandle conversionHandle;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.conversionHandle = this.conversionService.getConversionHandle(
+					TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Integer.class));
 		}
 	}
 
@@ -177,6 +177,43 @@ abstract public class AbstractClassGenerator<T> implements ClassGenerator {
 		return namingPolicy.getClassName(namePrefix, source.name, key, nameTestPredicate);
 	}
 
+	// SPRING PATCH BEGIN
+	/**
+	 * Reserve the name of a class that has been defined in the ClassLoader of this
+	 * generator without going through the naming policy, e.g. bytecode from the
+	 * {@link GeneratedClassCache}, so that the name is not chosen for another class.
+	 * @param className the fully-qualified class name
+	 */
+	void reserveClassName(String className) {
+		ClassLoader loader = getClassLoader();
+		ClassLoaderData data = obtainClassLoaderData(loader);
+		synchronized (loader) {
+			data.reserveName(className);
+		}
+	}
+
+	/**
+	 * Switch to a new name for the class to generate, derived from the current one
+	 * but neither reserved in the ClassLoader of this generator nor matching the
+	 * given predicate.
+	 * @param nameTestPredicate the predicate for names that are taken otherwise
+	 */
+	void renameClass(Predicate nameTestPredicate) {
+		ClassLoader loader = getClassLoader();
+		ClassLoaderData data = obtainClassLoaderData(loader);
+		synchronized (loader) {
+			String base = getClassName();
+			String attempt = base;
+			int index = 2;
+			while (data.getUniqueNamePredicate().evaluate(attempt) || nameTestPredicate.evaluate(attempt)) {
+				attempt = base + "_" + index++;
+			}
+			data.reserveName(attempt);
+			setClassName(attempt);
+		}
+	}
+	// SPRING PATCH END
+
 	/**
 	 * Set the <code>ClassLoader</code> in which the class will be generated.
 	 * Concrete subclasses of <code>AbstractClassGenerator</code> (such as <code>Enhancer</code>)
@@ -301,20 +338,9 @@ abstract public class AbstractClassGenerator<T> implements ClassGenerator {
 	protected Object create(Object key) {
 		try {
 			ClassLoader loader = getClassLoader();
-			Map<ClassLoader, ClassLoaderData> cache = CACHE;
-			ClassLoaderData data = cache.get(loader);
-			if (data == null) {
-				synchronized (AbstractClassGenerator.class) {
-					cache = CACHE;
-					data = cache.get(loader);
-					if (data == null) {
-						Map<ClassLoader, ClassLoaderData> newCache = new WeakHashMap<ClassLoader, ClassLoaderData>(cache);
-						data = new ClassLoaderData(loader);
-						newCache.put(loader, data);
-						CACHE = newCache;
-					}
-				}
-			}
+			// SPRING PATCH BEGIN
+			ClassLoaderData data = obtainClassLoaderData(loader);
+			// SPRING PATCH END
 			this.key = key;
 			Object obj = data.get(this, getUseCache());
 			if (obj instanceof Class) {
@@ -330,6 +356,26 @@ abstract public class AbstractClassGenerator<T> implements ClassGenerator {
 		}
 	}
 
+	// SPRING PATCH BEGIN
+	private static ClassLoaderData obtainClassLoaderData(ClassLoader loader) {
+		Map<ClassLoader, ClassLoaderData> cache = CACHE;
+		ClassLoaderData data = cache.get(loader);
+		if (data == null) {
+			synchronized (AbstractClassGenerator.class) {
+				cache = CACHE;
+				data = cache.get(loader);
+				if (data == null) {
+					Map<ClassLoader, ClassLoaderData> newCache = new WeakHashMap<ClassLoader, ClassLoaderData>(cache);
+					data = new ClassLoaderData(loader);
+					newCache.put(loader, data);
+					CACHE = newCache;
+				}
+			}
+		}
+		return data;
+	}
+	// SPRING PATCH END
+
 	protected Class generate(ClassLoaderData data) {
 		Class gen;
 		Object save = CURRENT.get();
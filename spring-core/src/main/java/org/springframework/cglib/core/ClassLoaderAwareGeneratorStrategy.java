@@ -16,12 +16,17 @@
 
 package org.springframework.cglib.core;
 
+import org.springframework.cglib.proxy.Enhancer;
+
 /**
  * CGLIB GeneratorStrategy variant which exposes the application ClassLoader
  * as current thread context ClassLoader for the time of class generation.
  * The ASM ClassWriter in Spring's ASM variant will pick it up when doing
  * common superclass resolution.
  *
+ * <p>As of 5.3.11, also reuses the bytecode of {@link Enhancer} classes from
+ * the {@link GeneratedClassCache}, if activated.
+ *
  * @author Juergen Hoeller
  * @since 5.2
  */
@@ -35,6 +40,14 @@ public class ClassLoaderAwareGeneratorStrategy extends DefaultGeneratorStrategy
 
 	@Override
 	public byte[] generate(ClassGenerator cg) throws Exception {
+		GeneratedClassCache classCache = GeneratedClassCache.getInstance();
+		if (classCache != null && cg instanceof Enhancer) {
+			return classCache.getBytecode((Enhancer) cg, getClass(), () -> doGenerate(cg));
+		}
+		return doGenerate(cg);
+	}
+
+	private byte[] doGenerate(ClassGenerator cg) throws Exception {
 		if (this.classLoader == null) {
 			return super.generate(cg);
 		}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cglib.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.core.SpringProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * File system cache for the bytecode of classes generated by an {@link Enhancer},
+ * activated through the {@value #CACHE_LOCATION_PROPERTY_NAME} system property
+ * (or {@link SpringProperties} entry) pointing to a directory.
+ *
+ * <p>Generated classes are stored under a hash of the
+ * {@linkplain Enhancer#getConfigurationDescription() Enhancer configuration},
+ * e.g. during a build or training run, and their bytecode is reused on subsequent
+ * startups instead of generating it again. This also allows for the resulting
+ * classes to be part of a class data sharing archive. If the configuration
+ * changed, e.g. because the proxied class or its advice changed, the hash does
+ * not match and the class is generated (and stored) again.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see ClassLoaderAwareGeneratorStrategy
+ */
+public final class GeneratedClassCache {
+
+	/**
+	 * System property that points to the directory to store generated classes
+	 * in and to load them from: {@value}.
+	 */
+	public static final String CACHE_LOCATION_PROPERTY_NAME = "spring.cglib.cache.location";
+
+	private static final String CLASS_FILE_SUFFIX = ".class";
+
+	private static final Log logger = LogFactory.getLog(GeneratedClassCache.class);
+
+	@Nullable
+	private static final GeneratedClassCache instance;
+
+	static {
+		String location = SpringProperties.getProperty(CACHE_LOCATION_PROPERTY_NAME);
+		instance = (StringUtils.hasText(location) ? new GeneratedClassCache(Paths.get(location.trim())) : null);
+	}
+
+
+	private final Path directory;
+
+	private final Map<ClassLoader, Set<String>> loadedClassNames = Collections.synchronizedMap(new WeakHashMap<>());
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong generationNanos = new AtomicLong();
+
+
+	GeneratedClassCache(Path directory) {
+		this.directory = directory;
+	}
+
+
+	/**
+	 * Return the cache instance, or {@code null} if no
+	 * {@value #CACHE_LOCATION_PROPERTY_NAME} has been specified.
+	 */
+	@Nullable
+	public static GeneratedClassCache getInstance() {
+		return instance;
+	}
+
+
+	/**
+	 * Return the bytecode for the class to be generated by the given
+	 * {@link Enhancer}, either from the cache or from the given generator.
+	 * @param enhancer the Enhancer that is about to define the class
+	 * @param strategyType the type of generator strategy in use, which
+	 * may apply further transformations to the generated class
+	 * @param generator the callback for actually generating the bytecode
+	 * @return the bytecode of the class
+	 * @throws Exception if thrown by the generator
+	 */
+	public byte[] getBytecode(Enhancer enhancer, Class<?> strategyType, Callable<byte[]> generator) throws Exception {
+		long start = System.nanoTime();
+		String hash = DigestUtils.md5DigestAsHex(
+				(enhancer.getConfigurationDescription() + '\n' + strategyType.getName()).getBytes(StandardCharsets.UTF_8));
+		Path file = this.directory.resolve(hash + CLASS_FILE_SUFFIX);
+		try {
+			ClassLoader classLoader = enhancer.getClassLoader();
+			byte[] cached = readIfUsable(file, classLoader);
+			if (cached != null) {
+				this.hitCount.incrementAndGet();
+				// The naming policy does not know about the name from a previous run
+				((AbstractClassGenerator) enhancer).reserveClassName(new ClassReader(cached).getClassName().replace('/', '.'));
+				return cached;
+			}
+			byte[] generated = generator.call();
+			this.missCount.incrementAndGet();
+			String className = new ClassReader(generated).getClassName();
+			while (!registerClassName(classLoader, className)) {
+				// Name taken by a class from this cache: generate again under a new name
+				((AbstractClassGenerator) enhancer).renameClass(name -> isRegistered(classLoader, ((String) name).replace('.', '/')));
+				generated = generator.call();
+				String newClassName = new ClassReader(generated).getClassName();
+				if (newClassName.equals(className)) {
+					throw new IllegalStateException("Generated class name " + className + " is already in use");
+				}
+				className = newClassName;
+			}
+			write(file, generated);
+			return generated;
+		}
+		finally {
+			this.generationNanos.addAndGet(System.nanoTime() - start);
+		}
+	}
+
+	@Nullable
+	private byte[] readIfUsable(Path file, @Nullable ClassLoader classLoader) {
+		if (!Files.isReadable(file)) {
+			return null;
+		}
+		try {
+			byte[] bytes = Files.readAllBytes(file);
+			String className = new ClassReader(bytes).getClassName();
+			// A class of that name may only be defined once per ClassLoader,
+			// e.g. when the Enhancer does not use its class cache.
+			return (registerClassName(classLoader, className) ? bytes : null);
+		}
+		catch (IOException | RuntimeException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Ignoring unusable generated class file " + file, ex);
+			}
+			return null;
+		}
+	}
+
+	private boolean registerClassName(@Nullable ClassLoader classLoader, String className) {
+		if (classLoader == null) {
+			return true;
+		}
+		Set<String> classNames = this.loadedClassNames.computeIfAbsent(classLoader, key -> new HashSet<>());
+		synchronized (classNames) {
+			return classNames.add(className);
+		}
+	}
+
+	private boolean isRegistered(@Nullable ClassLoader classLoader, String className) {
+		Set<String> classNames = (classLoader != null ? this.loadedClassNames.get(classLoader) : null);
+		if (classNames == null) {
+			return false;
+		}
+		synchronized (classNames) {
+			return classNames.contains(className);
+		}
+	}
+
+	private void write(Path file, byte[] bytes) {
+		try {
+			Files.createDirectories(this.directory);
+			Path tempFile = Files.createTempFile(this.directory, null, CLASS_FILE_SUFFIX);
+			Files.write(tempFile, bytes);
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to store generated class file " + file, ex);
+			}
+		}
+	}
+
+
+	/**
+	 * Return the number of classes loaded from the cache.
+	 */
+	public long getHitCount() {
+		return this.hitCount.get();
+	}
+
+	/**
+	 * Return the number of classes that had to be generated.
+	 */
+	public long getMissCount() {
+		return this.missCount.get();
+	}
+
+	/**
+	 * Return the total time in nanoseconds spent on obtaining class bytecode,
+	 * whether from the cache or through generation.
+	 */
+	public long getGenerationTime() {
+		return this.generationNanos.get();
+	}
+
+	@Override
+	public String toString() {
+		return "GeneratedClassCache [" + this.directory + "]: hits=" + getHitCount() + ", misses=" + getMissCount();
+	}
+
+}
@@ -763,6 +763,48 @@ public class Enhancer extends AbstractClassGenerator {
 			throw new IllegalArgumentException("No visible constructors in " + sc);
 	}
 
+	// SPRING PATCH BEGIN
+	/**
+	 * Describe everything that the generated class depends on: superclass,
+	 * interfaces, callback types, the visible constructors and the callback
+	 * chosen by the filter for every method. Unlike the cache key, this
+	 * description is stable across JVM runs, as long as the involved classes
+	 * and the filter decisions stay the same.
+	 * @return the configuration description
+	 */
+	public String getConfigurationDescription() {
+		Class sc = (superclass == null) ? Object.class : superclass;
+		StringBuilder sb = new StringBuilder(sc.getName());
+		if (interfaces != null) {
+			for (Class ifc : interfaces) {
+				sb.append(',').append(ifc.getName());
+			}
+		}
+		sb.append(';').append(useFactory).append(',').append(interceptDuringConstruction)
+				.append(',').append(serialVersionUID).append(',').append(currentData != null);
+		if (callbackTypes != null) {
+			for (Type callbackType : callbackTypes) {
+				sb.append(';').append(callbackType.getDescriptor());
+			}
+		}
+		List constructors = new ArrayList(Arrays.asList(sc.getDeclaredConstructors()));
+		filterConstructors(sc, constructors);
+		for (Object constructor : constructors) {
+			sb.append("\n<init>").append(Type.getConstructorDescriptor((Constructor) constructor));
+		}
+		List methods = new ArrayList();
+		getMethods(sc, interfaces, methods, new ArrayList(), new HashSet());
+		CallbackFilter filterToUse = (filter != null ? filter : ALL_ZERO);
+		for (Object candidate : methods) {
+			Method method = (Method) candidate;
+			sb.append('\n').append(method.getDeclaringClass().getName()).append('.').append(method.getName())
+					.append(Type.getMethodDescriptor(method)).append(':').append(method.getModifiers())
+					.append("->").append(filterToUse.accept(method));
+		}
+		return sb.toString();
+	}
+	// SPRING PATCH END
+
 	/**
 	 * This method should not be called in regular flow.
 	 * Technically speaking {@link #wrapCachedClass(Class)} uses {@link Enhancer.EnhancerFactoryData} as a cache value,
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Strategy for invoking a specific {@link Method}, with the same semantics
+ * as {@link Method#invoke(Object, Object...)}: exceptions thrown by the method
+ * are wrapped in an {@link InvocationTargetException}, and an invalid target or
+ * invalid arguments lead to an {@link IllegalArgumentException}.
+ *
+ * <p>Invokers obtained through {@link #forMethod(Method)} call public methods
+ * of public classes through a generated class that invokes the method directly,
+ * saving the overhead of reflective invocation for frequently called methods
+ * such as handler methods and event listener methods. Other methods are invoked
+ * reflectively. Class generation can be switched off through the
+ * {@value #IGNORE_GENERATION_PROPERTY_NAME} system property.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see Method#invoke(Object, Object...)
+ */
+@FunctionalInterface
+public interface DirectMethodInvoker {
+
+	/**
+	 * System property that instructs Spring to invoke methods reflectively
+	 * instead of generating invoker classes: "spring.invoker.generation.ignore".
+	 * <p>The default is "false". Consider switching this flag to "true"
+	 * in environments that do not allow for defining classes at runtime.
+	 * @see org.springframework.core.SpringProperties
+	 */
+	String IGNORE_GENERATION_PROPERTY_NAME = "spring.invoker.generation.ignore";
+
+
+	/**
+	 * Invoke the method on the given target with the given arguments.
+	 * @param target the target to invoke the method on ({@code null} for static methods)
+	 * @param args the arguments for the method invocation
+	 * @return the value returned by the method, or {@code null} for void methods
+	 * @throws IllegalAccessException if the method is not accessible
+	 * @throws IllegalArgumentException if the target is not an instance of the
+	 * declaring class of the method, or if the arguments do not match the parameters
+	 * @throws InvocationTargetException if the method threw an exception
+	 */
+	@Nullable
+	Object invoke(@Nullable Object target, @Nullable Object... args)
+			throws IllegalAccessException, InvocationTargetException;
+
+
+	/**
+	 * Return a {@code DirectMethodInvoker} for the given method, generating
+	 * an invoker class on first use where possible. Generated invokers are
+	 * cached per method.
+	 * <p>Otherwise, the returned invoker calls the given {@code Method} instance
+	 * through reflection. Note that a non-public method therefore needs to be
+	 * {@linkplain org.springframework.util.ReflectionUtils#makeAccessible(Method) made accessible}
+	 * in order to be invoked.
+	 * @param method the method to invoke
+	 * @return the invoker for the method (never {@code null})
+	 */
+	static DirectMethodInvoker forMethod(Method method) {
+		return MethodInvokerGenerator.getInvoker(method);
+	}
+
+}
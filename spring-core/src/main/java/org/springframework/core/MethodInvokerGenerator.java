@@ -0,0 +1,474 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Creates and caches {@link DirectMethodInvoker} instances, generating a class
+ * per method that casts the arguments to the parameter types and calls the
+ * method directly. Such a class can only be generated if the method and its
+ * parameter types are public and, on JDK 9+, exported by their modules, since
+ * it is defined in a child ClassLoader of the ClassLoader of the declaring class.
+ *
+ * <p>The generated code falls back to reflective invocation whenever the
+ * target or the arguments do not match the declared types, so that the
+ * exceptions and argument conversions of {@link Method#invoke} apply.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see DirectMethodInvoker#forMethod
+ */
+final class MethodInvokerGenerator implements Opcodes {
+
+	private static final int CLASSES_DEFINED_LIMIT = 100;
+
+	private static final String CLASS_NAME_SEPARATOR = "$$SpringInvoker$$";
+
+	private static final String INVOKER_TYPE = Type.getInternalName(DirectMethodInvoker.class);
+
+	private static final String METHOD_TYPE = Type.getInternalName(Method.class);
+
+	private static final String INVOKE_DESCRIPTOR = "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+
+	private static final boolean shouldIgnoreGeneration =
+			SpringProperties.getFlag(DirectMethodInvoker.IGNORE_GENERATION_PROPERTY_NAME);
+
+	private static final Log logger = LogFactory.getLog(MethodInvokerGenerator.class);
+
+	// Class.getModule() and Module.isExported(String) on JDK 9+, accessed reflectively
+	@Nullable
+	private static final Method getModuleMethod = ClassUtils.getMethodIfAvailable(Class.class, "getModule");
+
+	@Nullable
+	private static final Method isExportedMethod = (getModuleMethod != null ?
+			ClassUtils.getMethodIfAvailable(getModuleMethod.getReturnType(), "isExported", String.class) : null);
+
+	private static final Map<Method, DirectMethodInvoker> invokerCache = new ConcurrentReferenceHashMap<>(256);
+
+	// A generator is created for each ClassLoader, managing a child ClassLoader
+	// of that ClassLoader which defines the generated invoker classes.
+	private static final Map<ClassLoader, MethodInvokerGenerator> generators = new ConcurrentReferenceHashMap<>();
+
+
+	// The child ClassLoader used to define the generated invoker classes
+	private volatile ChildClassLoader childClassLoader;
+
+	// Counter suffix for generated classes within this generator instance
+	private final AtomicInteger suffixId = new AtomicInteger();
+
+
+	private MethodInvokerGenerator(ClassLoader classLoader) {
+		this.childClassLoader = new ChildClassLoader(classLoader);
+	}
+
+
+	/**
+	 * Return the invoker for the given method, generating it on first access.
+	 * <p>A reflective invoker from the cache is only returned for the very
+	 * same {@code Method} instance, since it depends on the accessible flag
+	 * of that instance.
+	 * @see DirectMethodInvoker#forMethod
+	 */
+	static DirectMethodInvoker getInvoker(Method method) {
+		DirectMethodInvoker invoker = invokerCache.get(method);
+		if (invoker == null) {
+			invoker = createInvoker(method);
+			DirectMethodInvoker existing = invokerCache.putIfAbsent(method, invoker);
+			if (existing != null) {
+				invoker = existing;
+			}
+		}
+		if (invoker instanceof ReflectiveMethodInvoker && ((ReflectiveMethodInvoker) invoker).method != method) {
+			invoker = new ReflectiveMethodInvoker(method);
+		}
+		return invoker;
+	}
+
+	private static DirectMethodInvoker createInvoker(Method method) {
+		ClassLoader classLoader = method.getDeclaringClass().getClassLoader();
+		if (!shouldIgnoreGeneration && classLoader != null && isGenerationPossible(method, classLoader)) {
+			try {
+				return getGenerator(classLoader).generateInvoker(method);
+			}
+			catch (Throwable ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to generate invoker for " + method + " - using reflection instead", ex);
+				}
+			}
+		}
+		return new ReflectiveMethodInvoker(method);
+	}
+
+	private static boolean isGenerationPossible(Method method, ClassLoader classLoader) {
+		if (!Modifier.isPublic(method.getModifiers()) || method.getDeclaringClass().getName().startsWith("java.") ||
+				!isPublicAndVisible(method.getDeclaringClass(), classLoader) ||
+				!ClassUtils.isVisible(DirectMethodInvoker.class, classLoader)) {
+			return false;
+		}
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			if (!isPublicAndVisible(parameterType, classLoader)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isPublicAndVisible(Class<?> type, ClassLoader classLoader) {
+		Class<?> typeToCheck = type;
+		while (typeToCheck.isArray()) {
+			typeToCheck = typeToCheck.getComponentType();
+		}
+		if (typeToCheck.isPrimitive()) {
+			return true;
+		}
+		for (Class<?> current = typeToCheck; current != null; current = current.getEnclosingClass()) {
+			if (!Modifier.isPublic(current.getModifiers())) {
+				return false;
+			}
+		}
+		return (ClassUtils.isVisible(typeToCheck, classLoader) && isExported(typeToCheck));
+	}
+
+	/**
+	 * Determine whether the package of the given class is exported by its module
+	 * on JDK 9+, since the generated class (in an unnamed module) would otherwise
+	 * fail with an {@link IllegalAccessError} when linking against it.
+	 */
+	private static boolean isExported(Class<?> type) {
+		if (getModuleMethod == null || isExportedMethod == null) {
+			return true;
+		}
+		try {
+			Object module = getModuleMethod.invoke(type);
+			return Boolean.TRUE.equals(isExportedMethod.invoke(module, ClassUtils.getPackageName(type)));
+		}
+		catch (Throwable ex) {
+			return false;
+		}
+	}
+
+	private static MethodInvokerGenerator getGenerator(ClassLoader classLoader) {
+		// Quick check for existing generator without lock contention
+		MethodInvokerGenerator generator = generators.get(classLoader);
+		if (generator == null) {
+			// Full lock now since we're creating a child ClassLoader
+			synchronized (generators) {
+				generator = generators.get(classLoader);
+				if (generator == null) {
+					generator = new MethodInvokerGenerator(classLoader);
+					generators.put(classLoader, generator);
+				}
+			}
+		}
+		return generator;
+	}
+
+
+	private DirectMethodInvoker generateInvoker(Method method) throws Exception {
+		String className = method.getDeclaringClass().getName() + CLASS_NAME_SEPARATOR +
+				method.getName() + "$$" + this.suffixId.incrementAndGet();
+		ChildClassLoader classLoader = getChildClassLoader();
+		byte[] bytes = generateInvokerClass(className.replace('.', '/'), method, classLoader);
+		Class<?> invokerClass = classLoader.defineClass(className, bytes);
+		return (DirectMethodInvoker) invokerClass.getConstructor(Method.class).newInstance(method);
+	}
+
+	/**
+	 * Return the child ClassLoader to define the next invoker class with.
+	 * Makes sure that a ClassLoader does not anchor too many invoker classes
+	 * in memory, since invokers for methods that got evicted from the cache
+	 * are generated again.
+	 */
+	private ChildClassLoader getChildClassLoader() {
+		ChildClassLoader ccl = this.childClassLoader;
+		if (ccl.getClassesDefinedCount() >= CLASSES_DEFINED_LIMIT) {
+			synchronized (this) {
+				ChildClassLoader currentCcl = this.childClassLoader;
+				if (ccl == currentCcl) {
+					// Still the same ClassLoader that needs to be replaced...
+					ccl = new ChildClassLoader(ccl.getParent());
+					this.childClassLoader = ccl;
+				}
+				else {
+					// Already replaced by some other thread, let's pick it up.
+					ccl = currentCcl;
+				}
+			}
+		}
+		return ccl;
+	}
+
+	/**
+	 * Generate a class equivalent to the following, for a method
+	 * {@code String handle(long id, String name)} of class {@code Target}:
+	 * <pre class="code">
+	 * public final class Target$$SpringInvoker$$handle$$1 implements DirectMethodInvoker {
+	 *     private final Method method;
+	 *     public Target$$SpringInvoker$$handle$$1(Method method) {
+	 *         this.method = method;
+	 *     }
+	 *     public Object invoke(Object target, Object... args) throws ... {
+	 *         if (target != null &amp;&amp; args != null &amp;&amp; args.length == 2) {
+	 *             Target t; long a0; String a1;
+	 *             try {
+	 *                 t = (Target) target; a0 = ((Long) args[0]).longValue(); a1 = (String) args[1];
+	 *             }
+	 *             catch (RuntimeException ex) {
+	 *                 return this.method.invoke(target, args);
+	 *             }
+	 *             try {
+	 *                 return t.handle(a0, a1);
+	 *             }
+	 *             catch (Throwable ex) {
+	 *                 throw new InvocationTargetException(ex);
+	 *             }
+	 *         }
+	 *         return this.method.invoke(target, args);
+	 *     }
+	 * }
+	 * </pre>
+	 */
+	private static byte[] generateInvokerClass(String className, Method method, ClassLoader classLoader) {
+		Class<?> declaringClass = method.getDeclaringClass();
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		boolean isStatic = Modifier.isStatic(method.getModifiers());
+		boolean isInterface = declaringClass.isInterface();
+
+		ClassWriter cw = new InvokerClassWriter(classLoader);
+		cw.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, "java/lang/Object", new String[] {INVOKER_TYPE});
+		cw.visitField(ACC_PRIVATE | ACC_FINAL, "method", "L" + METHOD_TYPE + ";", null, null).visitEnd();
+
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "(L" + METHOD_TYPE + ";)V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitFieldInsn(PUTFIELD, className, "method", "L" + METHOD_TYPE + ";");
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		mv = cw.visitMethod(ACC_PUBLIC | ACC_VARARGS, "invoke", INVOKE_DESCRIPTOR, null,
+				new String[] {"java/lang/IllegalAccessException", "java/lang/reflect/InvocationTargetException"});
+		mv.visitCode();
+		Label argumentsStart = new Label();
+		Label argumentsEnd = new Label();
+		Label argumentsFailure = new Label();
+		Label callEnd = new Label();
+		Label callFailure = new Label();
+		Label reflectiveCall = new Label();
+		mv.visitTryCatchBlock(argumentsStart, argumentsEnd, argumentsFailure, "java/lang/RuntimeException");
+		mv.visitTryCatchBlock(argumentsEnd, callEnd, callFailure, "java/lang/Throwable");
+
+		// Leave null targets and argument count mismatches to reflection
+		if (!isStatic) {
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitJumpInsn(IFNULL, reflectiveCall);
+		}
+		if (parameterTypes.length == 0) {
+			Label argumentsChecked = new Label();
+			mv.visitVarInsn(ALOAD, 2);
+			mv.visitJumpInsn(IFNULL, argumentsChecked);
+			mv.visitVarInsn(ALOAD, 2);
+			mv.visitInsn(ARRAYLENGTH);
+			mv.visitJumpInsn(IFNE, reflectiveCall);
+			mv.visitLabel(argumentsChecked);
+		}
+		else {
+			mv.visitVarInsn(ALOAD, 2);
+			mv.visitJumpInsn(IFNULL, reflectiveCall);
+			mv.visitVarInsn(ALOAD, 2);
+			mv.visitInsn(ARRAYLENGTH);
+			mv.visitLdcInsn(parameterTypes.length);
+			mv.visitJumpInsn(IF_ICMPNE, reflectiveCall);
+		}
+
+		// Cast target and arguments, leaving mismatches to reflection
+		mv.visitLabel(argumentsStart);
+		if (!isStatic) {
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(declaringClass));
+		}
+		for (int i = 0; i < parameterTypes.length; i++) {
+			mv.visitVarInsn(ALOAD, 2);
+			mv.visitLdcInsn(i);
+			mv.visitInsn(AALOAD);
+			insertArgumentConversion(mv, parameterTypes[i]);
+		}
+		mv.visitLabel(argumentsEnd);
+
+		// Call the method, wrapping any exception like reflection does
+		String owner = Type.getInternalName(declaringClass);
+		String descriptor = Type.getMethodDescriptor(method);
+		if (isStatic) {
+			mv.visitMethodInsn(INVOKESTATIC, owner, method.getName(), descriptor, isInterface);
+		}
+		else if (isInterface) {
+			mv.visitMethodInsn(INVOKEINTERFACE, owner, method.getName(), descriptor, true);
+		}
+		else {
+			mv.visitMethodInsn(INVOKEVIRTUAL, owner, method.getName(), descriptor, false);
+		}
+		mv.visitLabel(callEnd);
+		insertReturnValueBoxing(mv, method.getReturnType());
+		mv.visitInsn(ARETURN);
+
+		mv.visitLabel(argumentsFailure);
+		mv.visitInsn(POP);
+		mv.visitJumpInsn(GOTO, reflectiveCall);
+
+		mv.visitLabel(callFailure);
+		mv.visitTypeInsn(NEW, "java/lang/reflect/InvocationTargetException");
+		mv.visitInsn(DUP_X1);
+		mv.visitInsn(SWAP);
+		mv.visitMethodInsn(INVOKESPECIAL, "java/lang/reflect/InvocationTargetException",
+				"<init>", "(Ljava/lang/Throwable;)V", false);
+		mv.visitInsn(ATHROW);
+
+		mv.visitLabel(reflectiveCall);
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitFieldInsn(GETFIELD, className, "method", "L" + METHOD_TYPE + ";");
+		mv.visitVarInsn(ALOAD, 1);
+		mv.visitVarInsn(ALOAD, 2);
+		mv.visitMethodInsn(INVOKEVIRTUAL, METHOD_TYPE, "invoke", INVOKE_DESCRIPTOR, false);
+		mv.visitInsn(ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static void insertArgumentConversion(MethodVisitor mv, Class<?> parameterType) {
+		if (parameterType.isPrimitive()) {
+			// Exact wrapper types only: widening conversions go through reflection
+			Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(parameterType);
+			String wrapperName = Type.getInternalName(wrapperType);
+			mv.visitTypeInsn(CHECKCAST, wrapperName);
+			mv.visitMethodInsn(INVOKEVIRTUAL, wrapperName, parameterType.getName() + "Value",
+					"()" + Type.getDescriptor(parameterType), false);
+		}
+		else if (parameterType != Object.class) {
+			mv.visitTypeInsn(CHECKCAST, Type.getInternalName(parameterType));
+		}
+	}
+
+	private static void insertReturnValueBoxing(MethodVisitor mv, Class<?> returnType) {
+		if (returnType == void.class) {
+			mv.visitInsn(ACONST_NULL);
+		}
+		else if (returnType.isPrimitive()) {
+			Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(returnType);
+			String wrapperName = Type.getInternalName(wrapperType);
+			mv.visitMethodInsn(INVOKESTATIC, wrapperName, "valueOf",
+					"(" + Type.getDescriptor(returnType) + ")L" + wrapperName + ";", false);
+		}
+	}
+
+
+	/**
+	 * {@link DirectMethodInvoker} for methods that cannot be called through
+	 * a generated class, using {@link Method#invoke} as-is on the caller's
+	 * {@code Method} instance.
+	 */
+	private static final class ReflectiveMethodInvoker implements DirectMethodInvoker {
+
+		private final Method method;
+
+		ReflectiveMethodInvoker(Method method) {
+			this.method = method;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(@Nullable Object target, @Nullable Object... args)
+				throws IllegalAccessException, InvocationTargetException {
+
+			return this.method.invoke(target, args);
+		}
+
+		@Override
+		public String toString() {
+			return "ReflectiveMethodInvoker for " + this.method;
+		}
+	}
+
+
+	/**
+	 * A ChildClassLoader will load the generated invoker classes.
+	 */
+	private static class ChildClassLoader extends URLClassLoader {
+
+		private static final URL[] NO_URLS = new URL[0];
+
+		private final AtomicInteger classesDefinedCount = new AtomicInteger(0);
+
+		public ChildClassLoader(@Nullable ClassLoader classLoader) {
+			super(NO_URLS, classLoader);
+		}
+
+		public Class<?> defineClass(String name, byte[] bytes) {
+			Class<?> clazz = super.defineClass(name, bytes, 0, bytes.length);
+			this.classesDefinedCount.incrementAndGet();
+			return clazz;
+		}
+
+		public int getClassesDefinedCount() {
+			return this.classesDefinedCount.get();
+		}
+	}
+
+
+	/**
+	 * An ASM ClassWriter extension bound to the ClassLoader of the invoker class.
+	 */
+	private static class InvokerClassWriter extends ClassWriter {
+
+		private final ClassLoader classLoader;
+
+		public InvokerClassWriter(ClassLoader classLoader) {
+			super(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES);
+			this.classLoader = classLoader;
+		}
+
+		@Override
+		protected ClassLoader getClassLoader() {
+			return this.classLoader;
+		}
+	}
+
+}
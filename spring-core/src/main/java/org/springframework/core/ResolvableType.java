@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -78,6 +78,14 @@ public class ResolvableType implements Serializable {
     private static final ConcurrentReferenceHashMap<ResolvableType, ResolvableType> cache =
             new ConcurrentReferenceHashMap<>(256);
 
+    /**
+     * Canonical {@code ResolvableType} instances for plain {@link Class} references,
+     * sharing their lazily resolved super type, interfaces and generics.
+     * @since 5.3.11
+     */
+    private static final ConcurrentReferenceHashMap<Class<?>, ResolvableType> classCache =
+            new ConcurrentReferenceHashMap<>(256);
+
 
     /**
      * The underlying Java type being managed.
@@ -120,6 +128,13 @@ public class ResolvableType implements Serializable {
     @Nullable
     private volatile ResolvableType[] generics;
 
+    /**
+     * Results of {@link #isAssignableFrom(ResolvableType)} against plain classes,
+     * only used for plain class references themselves.
+     */
+    @Nullable
+    private transient volatile Map<Class<?>, Boolean> assignableFromCache;
+
 
     /**
      * Private constructor used to create a new {@link ResolvableType} for cache key purposes,
@@ -262,9 +277,34 @@ public class ResolvableType implements Serializable {
      * {@code ResolvableType}; {@code false} otherwise
      */
     public boolean isAssignableFrom(ResolvableType other) {
+        Assert.notNull(other, "ResolvableType must not be null");
+        if (isPlainClass() && other.isPlainClass()) {
+            // Assignability between plain classes does not depend on any variable resolution
+            Map<Class<?>, Boolean> assignableFromCache = this.assignableFromCache;
+            if (assignableFromCache == null) {
+                assignableFromCache = new ConcurrentReferenceHashMap<>(16);
+                this.assignableFromCache = assignableFromCache;
+            }
+            Class<?> otherClass = (Class<?>) other.type;
+            Boolean assignable = assignableFromCache.get(otherClass);
+            if (assignable == null) {
+                assignable = isAssignableFrom(other, null);
+                assignableFromCache.put(otherClass, assignable);
+            }
+            return assignable;
+        }
         return isAssignableFrom(other, null);
     }
 
+    /**
+     * Determine whether this type is a straight {@link Class} wrapper, as returned
+     * by {@link #forClass(Class)}, without any provider or variable resolver.
+     */
+    private boolean isPlainClass() {
+        return (this.type instanceof Class && this.typeProvider == null && this.variableResolver == null &&
+                this.componentType == null && getClass() == ResolvableType.class);
+    }
+
     private boolean isAssignableFrom(ResolvableType other, @Nullable Map<Type, Type> matchedBefore) {
         Assert.notNull(other, "ResolvableType must not be null");
 
@@ -1000,7 +1040,16 @@ public class ResolvableType implements Serializable {
      * @see #forClassWithGenerics(Class, Class...)
      */
     public static ResolvableType forClass(@Nullable Class<?> clazz) {
-        return new ResolvableType(clazz);
+        Class<?> key = (clazz != null ? clazz : Object.class);
+        ResolvableType resolvableType = classCache.get(key);
+        if (resolvableType == null) {
+            resolvableType = new ResolvableType(key);
+            ResolvableType existing = classCache.putIfAbsent(key, resolvableType);
+            if (existing != null) {
+                resolvableType = existing;
+            }
+        }
+        return resolvableType;
     }
 
     /**
@@ -1420,8 +1469,11 @@ public class ResolvableType implements Serializable {
         }
 
         // For simple Class references, build the wrapper right away -
-        // no expensive resolution necessary, so not worth caching...
+        // no expensive resolution necessary, so only share the plain ones...
         if (type instanceof Class) {
+            if (typeProvider == null && variableResolver == null) {
+                return forClass((Class<?>) type);
+            }
             return new ResolvableType(type, typeProvider, variableResolver, (ResolvableType) null);
         }
 
@@ -1435,6 +1487,11 @@ public class ResolvableType implements Serializable {
             cachedType = new ResolvableType(type, typeProvider, variableResolver, resultType.hash);
             cache.put(cachedType, cachedType);
         }
+        if (typeProvider == null) {
+            // Without a type provider, the source of an equal type is the same as well:
+            // share the cached instance along with its lazily resolved generics etc.
+            return cachedType;
+        }
         resultType.resolved = cachedType.resolved;
         return resultType;
     }
@@ -1445,6 +1502,7 @@ public class ResolvableType implements Serializable {
      */
     public static void clearCache() {
         cache.clear();
+        classCache.clear();
         SerializableTypeWrapper.cache.clear();
     }
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -32,6 +32,7 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Base {@link ConversionService} implementation suitable for use in most environments.
@@ -63,6 +64,25 @@ public class GenericConversionService implements ConfigurableConversionService {
 
     private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
 
+    /**
+     * Conversion handles for {@link #convert(Object, Class)}: target type to source type to handle.
+     */
+    private final Map<Class<?>, Map<Class<?>, ConversionHandle>> classConversionHandles = new ConcurrentReferenceHashMap<>(64);
+
+    /**
+     * Incremented whenever the converter cache gets invalidated, letting
+     * {@link ConversionHandle ConversionHandles} resolve their converter again.
+     */
+    private final AtomicInteger converterCacheVersion = new AtomicInteger();
+
+    /**
+     * Whether {@link #convert(Object, Class)} may use the conversion handles:
+     * only if {@link #convert(Object, TypeDescriptor, TypeDescriptor)} cannot
+     * have been overridden, i.e. for the plain and the default variant.
+     */
+    private final boolean conversionHandlesApplicable =
+            (getClass() == GenericConversionService.class || getClass() == DefaultConversionService.class);
+
 
     // ConverterRegistry implementation
 
@@ -156,7 +176,15 @@ public class GenericConversionService implements ConfigurableConversionService {
     @Nullable
     public <T> T convert(@Nullable Object source, Class<T> targetType) {
         Assert.notNull(targetType, "Target type to convert to cannot be null");
-        return (T) convert(source, TypeDescriptor.forObject(source), TypeDescriptor.valueOf(targetType));
+        if (source == null) {
+            return (T) convert(null, null, TypeDescriptor.valueOf(targetType));
+        }
+        if (!this.conversionHandlesApplicable) {
+            return (T) convert(source, TypeDescriptor.forObject(source), TypeDescriptor.valueOf(targetType));
+        }
+        // Fast path: reuse the pre-resolved converter for the given pair of classes,
+        // avoiding the creation of type descriptors and cache keys for every call
+        return (T) getConversionHandle(source.getClass(), targetType).convert(source);
     }
 
     @Override
@@ -197,6 +225,67 @@ public class GenericConversionService implements ConfigurableConversionService {
         return convert(source, TypeDescriptor.forObject(source), targetType);
     }
 
+    /**
+     * Return a reusable handle for converting objects of the given source type
+     * to the given target type.
+     * <p>The handle resolves the converter for the given pair of types once,
+     * rather than looking it up for every conversion. Callers that repeatedly
+     * convert between the same types may hold on to the handle accordingly.
+     * It remains valid if converters get added or removed later on.
+     * Handles for plain classes, i.e. types without annotations or generics,
+     * are shared with {@link #convert(Object, Class)}.
+     * <p>Note that handles do not go through {@link #canConvert(TypeDescriptor, TypeDescriptor)}
+     * and {@link #convert(Object, TypeDescriptor, TypeDescriptor)}; check
+     * {@link #supportsConversionHandles()} first.
+     * @param sourceType context about the source type to convert from
+     * @param targetType context about the target type to convert to
+     * @return the conversion handle (never {@code null})
+     * @since 5.3.11
+     * @see ConversionHandle#canConvert()
+     * @see ConversionHandle#convert(Object)
+     */
+    public ConversionHandle getConversionHandle(TypeDescriptor sourceType, TypeDescriptor targetType) {
+        Assert.notNull(sourceType, "Source type to convert from cannot be null");
+        Assert.notNull(targetType, "Target type to convert to cannot be null");
+        if (isPlainType(sourceType) && isPlainType(targetType)) {
+            return getConversionHandle(sourceType.getType(), targetType.getType());
+        }
+        return new ConversionHandle(this, sourceType, targetType);
+    }
+
+    /**
+     * Return whether {@link #getConversionHandle conversion handles} are
+     * equivalent to {@link #canConvert(TypeDescriptor, TypeDescriptor)} and
+     * {@link #convert(Object, TypeDescriptor, TypeDescriptor)} for this service,
+     * which is only guaranteed if those methods cannot have been overridden,
+     * i.e. for {@code GenericConversionService} and {@link DefaultConversionService}
+     * themselves. Otherwise, callers should use those methods instead.
+     * @since 5.3.11
+     */
+    public boolean supportsConversionHandles() {
+        return this.conversionHandlesApplicable;
+    }
+
+    private ConversionHandle getConversionHandle(Class<?> sourceClass, Class<?> targetClass) {
+        Map<Class<?>, ConversionHandle> handles =
+                this.classConversionHandles.computeIfAbsent(targetClass, key -> new ConcurrentReferenceHashMap<>(16));
+        ConversionHandle handle = handles.get(sourceClass);
+        if (handle == null) {
+            handle = new ConversionHandle(this, TypeDescriptor.valueOf(sourceClass), TypeDescriptor.valueOf(targetClass));
+            handles.put(sourceClass, handle);
+        }
+        return handle;
+    }
+
+    /**
+     * Whether the given type descriptor is equivalent to the one for its plain
+     * class, not carrying any annotations or generics for converters to consider.
+     */
+    private static boolean isPlainType(TypeDescriptor typeDescriptor) {
+        return (typeDescriptor.getAnnotations().length == 0 &&
+                typeDescriptor.getResolvableType().getType() == typeDescriptor.getType());
+    }
+
     @Override
     public String toString() {
         return this.converters.toString();
@@ -289,6 +378,7 @@ public class GenericConversionService implements ConfigurableConversionService {
 
     private void invalidateCache() {
         this.converterCache.clear();
+        this.converterCacheVersion.incrementAndGet();
     }
 
     @Nullable
@@ -689,6 +779,111 @@ public class GenericConversionService implements ConfigurableConversionService {
     }
 
 
+    /**
+     * Pre-resolved conversion from a specific source type to a specific target type,
+     * as returned by {@link #getConversionHandle(TypeDescriptor, TypeDescriptor)}.
+     * @since 5.3.11
+     */
+    public static final class ConversionHandle {
+
+        private final GenericConversionService conversionService;
+
+        private final TypeDescriptor sourceType;
+
+        private final TypeDescriptor targetType;
+
+        @Nullable
+        private volatile ResolvedConverter resolvedConverter;
+
+        private ConversionHandle(GenericConversionService conversionService,
+                TypeDescriptor sourceType, TypeDescriptor targetType) {
+
+            this.conversionService = conversionService;
+            this.sourceType = sourceType;
+            this.targetType = targetType;
+        }
+
+        /**
+         * Return the source type to convert from.
+         */
+        public TypeDescriptor getSourceType() {
+            return this.sourceType;
+        }
+
+        /**
+         * Return the target type to convert to.
+         */
+        public TypeDescriptor getTargetType() {
+            return this.targetType;
+        }
+
+        /**
+         * Return whether objects of the source type can be converted to the target type.
+         * @see GenericConversionService#canConvert(TypeDescriptor, TypeDescriptor)
+         */
+        public boolean canConvert() {
+            return (getConverter() != null);
+        }
+
+        /**
+         * Convert the given source object to the target type.
+         * @param source the source object to convert (may be {@code null})
+         * @return the converted object, an instance of the target type
+         * @throws ConversionException if a conversion exception occurred
+         * @throws IllegalArgumentException if the source object is not an
+         * instance of the source type
+         * @see GenericConversionService#convert(Object, TypeDescriptor, TypeDescriptor)
+         */
+        @Nullable
+        public Object convert(@Nullable Object source) {
+            if (source != null && !this.sourceType.getObjectType().isInstance(source)) {
+                throw new IllegalArgumentException("Source to convert from must be an instance of [" +
+                        this.sourceType + "]; instead it was a [" + source.getClass().getName() + "]");
+            }
+            GenericConverter converter = getConverter();
+            if (converter != null) {
+                Object result = ConversionUtils.invokeConverter(converter, source, this.sourceType, this.targetType);
+                return this.conversionService.handleResult(this.sourceType, this.targetType, result);
+            }
+            return this.conversionService.handleConverterNotFound(source, this.sourceType, this.targetType);
+        }
+
+        @Nullable
+        private GenericConverter getConverter() {
+            int version = this.conversionService.converterCacheVersion.get();
+            ResolvedConverter resolvedConverter = this.resolvedConverter;
+            if (resolvedConverter == null || resolvedConverter.version != version) {
+                resolvedConverter = new ResolvedConverter(
+                        this.conversionService.getConverter(this.sourceType, this.targetType), version);
+                this.resolvedConverter = resolvedConverter;
+            }
+            return resolvedConverter.converter;
+        }
+
+        @Override
+        public String toString() {
+            return this.sourceType + " -> " + this.targetType;
+        }
+    }
+
+
+    /**
+     * A converter (or {@code null} if none) as resolved for a given version of the converter cache.
+     */
+    private static final class ResolvedConverter {
+
+        @Nullable
+        final GenericConverter converter;
+
+        final int version;
+
+        ResolvedConverter(@Nullable GenericConverter converter, int version) {
+            this.converter = converter;
+            this.version = version;
+        }
+    }
+
+
     /**
      * Internal converter that performs no operation.
      */
@@ -30,6 +30,7 @@ import java.nio.channels.WritableByteChannel;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -832,15 +833,24 @@ public abstract class DataBufferUtils {
 
 	/**
 	 * Implementation of {@link Matcher} that uses the Knuth-Morris-Pratt algorithm.
+	 * <p>When matching against a whole {@link DataBuffer}, only the bytes that
+	 * may complete a partial match from the previous buffer are matched one at
+	 * a time. The remainder of the buffer is searched with the
+	 * Boyer-Moore-Horspool algorithm, which skips ahead by up to the length of
+	 * the delimiter on a mismatch.
 	 * @see <a href="https://www.nayuki.io/page/knuth-morris-pratt-string-matching">Knuth-Morris-Pratt string matching</a>
+	 * @see <a href="https://en.wikipedia.org/wiki/Boyer%E2%80%93Moore%E2%80%93Horspool_algorithm">Boyer-Moore-Horspool algorithm</a>
 	 */
 	private static class KnuthMorrisPrattMatcher extends AbstractNestedMatcher {
 
 		private final int[] table;
 
+		private final int[] skipTable;
+
 		public KnuthMorrisPrattMatcher(byte[] delimiter) {
 			super(delimiter);
 			this.table = longestSuffixPrefixTable(delimiter);
+			this.skipTable = badCharacterSkipTable(delimiter);
 		}
 
 		private static int[] longestSuffixPrefixTable(byte[] delimiter) {
@@ -859,6 +869,89 @@ public abstract class DataBufferUtils {
 			return result;
 		}
 
+		private static int[] badCharacterSkipTable(byte[] delimiter) {
+			int[] result = new int[256];
+			Arrays.fill(result, delimiter.length);
+			for (int i = 0; i < delimiter.length - 1; i++) {
+				result[delimiter[i] & 0xFF] = delimiter.length - 1 - i;
+			}
+			return result;
+		}
+
+		@Override
+		public int match(DataBuffer dataBuffer) {
+			int readPosition = dataBuffer.readPosition();
+			int writePosition = dataBuffer.writePosition();
+			if (getMatches() > 0) {
+				// A match ending within the first delimiter-length bytes may start in the previous buffer
+				int end = Math.min(writePosition, readPosition + delimiter().length - 1);
+				for (int pos = readPosition; pos < end; pos++) {
+					if (match(dataBuffer.getByte(pos))) {
+						reset();
+						return pos;
+					}
+				}
+				if (end == writePosition) {
+					return -1;
+				}
+			}
+			ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
+			int offset = byteBuffer.position();
+			int length = writePosition - readPosition;
+			int index = indexOfEnd(byteBuffer, offset, length);
+			if (index != -1) {
+				reset();
+				return readPosition + index;
+			}
+			setMatches(partialMatchAtEnd(byteBuffer, offset, length));
+			return -1;
+		}
+
+		/**
+		 * Find the first occurrence of the delimiter within the given range,
+		 * and return the index of its last byte relative to {@code offset},
+		 * or {@code -1} if not found.
+		 */
+		private int indexOfEnd(ByteBuffer byteBuffer, int offset, int length) {
+			byte[] delimiter = delimiter();
+			int last = delimiter.length - 1;
+			int max = offset + length - delimiter.length;
+			int start = offset;
+			while (start <= max) {
+				byte b = byteBuffer.get(start + last);
+				if (b == delimiter[last]) {
+					int i = last - 1;
+					while (i >= 0 && byteBuffer.get(start + i) == delimiter[i]) {
+						i--;
+					}
+					if (i < 0) {
+						return start - offset + last;
+					}
+				}
+				start += this.skipTable[b & 0xFF];
+			}
+			return -1;
+		}
+
+		/**
+		 * Return the length of the longest delimiter prefix that the given
+		 * range ends with, i.e. the partial match to continue in the next buffer.
+		 */
+		private int partialMatchAtEnd(ByteBuffer byteBuffer, int offset, int length) {
+			byte[] delimiter = delimiter();
+			for (int count = Math.min(delimiter.length - 1, length); count > 0; count--) {
+				int start = offset + length - count;
+				int i = 0;
+				while (i < count && byteBuffer.get(start + i) == delimiter[i]) {
+					i++;
+				}
+				if (i == count) {
+					return count;
+				}
+			}
+			return 0;
+		}
+
 		@Override
 		public boolean match(byte b) {
 			while (getMatches() > 0 && b != delimiter()[getMatches()]) {
@@ -0,0 +1,430 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ApplicationStartup} implementation that keeps the timing of ended
+ * {@link StartupStep steps} in memory, for finding the steps (typically beans)
+ * that dominate the startup time of an application.
+ *
+ * <p>Steps are nested per thread: the parent of a step is the step most recently
+ * started (and not ended yet) on the same thread. Each recorded step provides its
+ * total duration as well as its self time, i.e. the duration minus the duration
+ * of its nested steps. With a bean factory, this covers the instantiation, property
+ * population and initialization of each bean, the time spent in each
+ * {@code BeanPostProcessor} and the loading of bean classes, with the creation of
+ * dependencies nested within the step of the bean that depends on them.
+ *
+ * <p>The recorded steps can be exported in the collapsed stack format that common
+ * flame graph tools consume, through {@link #writeCollapsedStacks(Writer)}. Steps may
+ * also be passed on to another {@code ApplicationStartup}, e.g. to additionally
+ * record them as Java Flight Recorder events:
+ * <pre class="code">
+ * ProfilingApplicationStartup startup =
+ *     new ProfilingApplicationStartup(100000, new FlightRecorderApplicationStartup());
+ * context.setApplicationStartup(startup);
+ * context.refresh();
+ * startup.writeCollapsedStacks(writer);
+ * </pre>
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see org.springframework.core.metrics.jfr.FlightRecorderApplicationStartup
+ */
+public class ProfilingApplicationStartup implements ApplicationStartup {
+
+	/**
+	 * The default maximum number of steps to record.
+	 */
+	public static final int DEFAULT_CAPACITY = 100000;
+
+
+	private final int capacity;
+
+	@Nullable
+	private final ApplicationStartup delegate;
+
+	private final AtomicLong currentSequenceId = new AtomicLong();
+
+	private final ThreadLocal<Deque<ProfilingStartupStep>> currentSteps = ThreadLocal.withInitial(ArrayDeque::new);
+
+	private final Queue<RecordedStep> recordedSteps = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger recordedCount = new AtomicInteger();
+
+	private final AtomicLong droppedCount = new AtomicLong();
+
+
+	/**
+	 * Create a new {@code ProfilingApplicationStartup} with the default capacity.
+	 * @see #DEFAULT_CAPACITY
+	 */
+	public ProfilingApplicationStartup() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a new {@code ProfilingApplicationStartup}.
+	 * @param capacity the maximum number of steps to record
+	 */
+	public ProfilingApplicationStartup(int capacity) {
+		this(capacity, null);
+	}
+
+	/**
+	 * Create a new {@code ProfilingApplicationStartup} that also passes
+	 * all steps on to the given {@code ApplicationStartup}.
+	 * @param capacity the maximum number of steps to record
+	 * @param delegate the {@code ApplicationStartup} to pass steps on to,
+	 * e.g. a {@link org.springframework.core.metrics.jfr.FlightRecorderApplicationStartup}
+	 */
+	public ProfilingApplicationStartup(int capacity, @Nullable ApplicationStartup delegate) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.capacity = capacity;
+		this.delegate = delegate;
+	}
+
+
+	@Override
+	public StartupStep start(String name) {
+		Deque<ProfilingStartupStep> steps = this.currentSteps.get();
+		StartupStep delegateStep = (this.delegate != null ? this.delegate.start(name) : null);
+		ProfilingStartupStep step = new ProfilingStartupStep(this.currentSequenceId.incrementAndGet(), name,
+				steps.peekFirst(), delegateStep, steps);
+		steps.offerFirst(step);
+		return step;
+	}
+
+	private void record(RecordedStep step) {
+		if (this.recordedCount.incrementAndGet() <= this.capacity) {
+			this.recordedSteps.add(step);
+		}
+		else {
+			this.recordedCount.decrementAndGet();
+			this.droppedCount.incrementAndGet();
+		}
+	}
+
+
+	/**
+	 * Return the steps recorded so far, in the order in which they ended.
+	 */
+	public List<RecordedStep> getRecordedSteps() {
+		return Collections.unmodifiableList(new ArrayList<>(this.recordedSteps));
+	}
+
+	/**
+	 * Return the number of ended steps that have not been recorded
+	 * since the capacity had been reached.
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount.get();
+	}
+
+	/**
+	 * Discard all steps recorded so far.
+	 */
+	public void clear() {
+		this.recordedSteps.clear();
+		this.recordedCount.set(0);
+		this.droppedCount.set(0);
+	}
+
+	/**
+	 * Write the self time of the recorded steps in microseconds, aggregated per
+	 * stack of nested steps, in the collapsed stack format: one line per stack,
+	 * with the {@linkplain RecordedStep#getLabel() labels} of the steps from the
+	 * outermost to the innermost separated by {@code ';'}, followed by a space
+	 * and the self time.
+	 * @param writer the writer to write the stacks to (not closed afterwards)
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeCollapsedStacks(Writer writer) throws IOException {
+		Map<String, Long> selfTimes = new LinkedHashMap<>();
+		for (RecordedStep step : this.recordedSteps) {
+			selfTimes.merge(step.getStack(), step.getSelfTime() / 1000, Long::sum);
+		}
+		for (Map.Entry<String, Long> entry : selfTimes.entrySet()) {
+			if (entry.getValue() > 0) {
+				writer.write(entry.getKey());
+				writer.write(' ');
+				writer.write(Long.toString(entry.getValue()));
+				writer.write('\n');
+			}
+		}
+		writer.flush();
+	}
+
+
+	/**
+	 * A step that ended and got recorded.
+	 */
+	public static final class RecordedStep {
+
+		private final long id;
+
+		@Nullable
+		private final Long parentId;
+
+		private final String name;
+
+		private final Map<String, String> tags;
+
+		private final String stack;
+
+		private final long duration;
+
+		private final long selfTime;
+
+		RecordedStep(long id, @Nullable Long parentId, String name, Map<String, String> tags,
+				String stack, long duration, long selfTime) {
+
+			this.id = id;
+			this.parentId = parentId;
+			this.name = name;
+			this.tags = tags;
+			this.stack = stack;
+			this.duration = duration;
+			this.selfTime = selfTime;
+		}
+
+		/**
+		 * Return the id of the step.
+		 */
+		public long getId() {
+			return this.id;
+		}
+
+		/**
+		 * Return the id of the parent step, if any.
+		 */
+		@Nullable
+		public Long getParentId() {
+			return this.parentId;
+		}
+
+		/**
+		 * Return the name of the step.
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Return the tags of the step, in the order in which they were added.
+		 */
+		public Map<String, String> getTags() {
+			return this.tags;
+		}
+
+		/**
+		 * Return the label of the step in a stack: its name, followed by the value
+		 * of its first tag in brackets, e.g. {@code spring.beans.populate[myBean]}.
+		 */
+		public String getLabel() {
+			return label(this.name, this.tags);
+		}
+
+		/**
+		 * Return the labels of this step and its parent steps, from the
+		 * outermost to this step, separated by {@code ';'}.
+		 */
+		public String getStack() {
+			return this.stack;
+		}
+
+		/**
+		 * Return the duration of the step in nanoseconds.
+		 */
+		public long getDuration() {
+			return this.duration;
+		}
+
+		/**
+		 * Return the duration of the step in nanoseconds,
+		 * excluding the duration of its nested steps.
+		 */
+		public long getSelfTime() {
+			return this.selfTime;
+		}
+
+		@Override
+		public String toString() {
+			return getLabel() + ": " + this.duration / 1000 + "us (self " + this.selfTime / 1000 + "us)";
+		}
+
+		static String label(String name, Map<String, String> tags) {
+			Iterator<String> values = tags.values().iterator();
+			return (values.hasNext() ? sanitize(name) + '[' + sanitize(values.next()) + ']' : sanitize(name));
+		}
+
+		private static String sanitize(String value) {
+			// Separators of the collapsed stack format
+			return value.replace(';', ':').replace(' ', '_').replace('\n', '_');
+		}
+	}
+
+
+	/**
+	 * {@link StartupStep} implementation measuring its own time.
+	 */
+	private class ProfilingStartupStep implements StartupStep {
+
+		private final long id;
+
+		private final String name;
+
+		@Nullable
+		private final ProfilingStartupStep parent;
+
+		@Nullable
+		private final StartupStep delegateStep;
+
+		private final Deque<ProfilingStartupStep> threadSteps;
+
+		private final Map<String, String> tags = new LinkedHashMap<>(4);
+
+		private final long startTime;
+
+		private long childTime;
+
+		@Nullable
+		private String stack;
+
+		private boolean ended;
+
+		ProfilingStartupStep(long id, String name, @Nullable ProfilingStartupStep parent,
+				@Nullable StartupStep delegateStep, Deque<ProfilingStartupStep> threadSteps) {
+
+			this.id = id;
+			this.name = name;
+			this.parent = parent;
+			this.delegateStep = delegateStep;
+			this.threadSteps = threadSteps;
+			this.startTime = System.nanoTime();
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		@Nullable
+		public Long getParentId() {
+			return (this.parent != null ? this.parent.id : null);
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			Assert.state(!this.ended, "StartupStep has already ended.");
+			this.tags.put(key, value);
+			if (this.delegateStep != null) {
+				this.delegateStep.tag(key, value);
+			}
+			return this;
+		}
+
+		@Override
+		public StartupStep tag(String key, Supplier<String> value) {
+			return tag(key, value.get());
+		}
+
+		@Override
+		public Tags getTags() {
+			List<Tag> tags = new ArrayList<>(this.tags.size());
+			this.tags.forEach((key, value) -> tags.add(new ProfilingTag(key, value)));
+			return tags::iterator;
+		}
+
+		@Override
+		public void end() {
+			if (this.ended) {
+				return;
+			}
+			this.ended = true;
+			long duration = System.nanoTime() - this.startTime;
+			this.threadSteps.removeFirstOccurrence(this);
+			if (this.parent != null) {
+				this.parent.childTime += duration;
+			}
+			if (this.delegateStep != null) {
+				this.delegateStep.end();
+			}
+			record(new RecordedStep(this.id, getParentId(), this.name, Collections.unmodifiableMap(this.tags),
+					getStack(), duration, Math.max(duration - this.childTime, 0)));
+		}
+
+		private String getStack() {
+			String stack = this.stack;
+			if (stack == null) {
+				String label = RecordedStep.label(this.name, this.tags);
+				stack = (this.parent != null ? this.parent.getStack() + ';' + label : label);
+				this.stack = stack;
+			}
+			return stack;
+		}
+	}
+
+
+	private static class ProfilingTag implements StartupStep.Tag {
+
+		private final String key;
+
+		private final String value;
+
+		ProfilingTag(String key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public String getValue() {
+			return this.value;
+		}
+	}
+
+}
@@ -51,10 +51,11 @@ public class FlightRecorderApplicationStartup implements ApplicationStartup {
 
 	@Override
 	public StartupStep start(String name) {
+		Long parentId = this.currentSteps.getFirst();
 		long sequenceId = this.currentSequenceId.incrementAndGet();
 		this.currentSteps.offerFirst(sequenceId);
 		return new FlightRecorderStartupStep(sequenceId, name,
-				this.currentSteps.getFirst(), committedStep -> this.currentSteps.removeFirstOccurrence(sequenceId));
+				parentId, committedStep -> this.currentSteps.removeFirstOccurrence(sequenceId));
 	}
 
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cglib.core;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Opcodes;
+import org.springframework.cglib.proxy.Enhancer;
+import org.springframework.cglib.proxy.NoOp;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link GeneratedClassCache}.
+ *
+ * @author agent
+ */
+class GeneratedClassCacheTests {
+
+	private static final AtomicInteger testCount = new AtomicInteger();
+
+
+	// Unique per test, since CGLIB reserves class names per ClassLoader
+	private final String className = Sample.class.getName() + "$$Test" + testCount.incrementAndGet();
+
+	private final AtomicInteger generationCount = new AtomicInteger();
+
+
+	@Test
+	void reusesBytecodeAcrossInstances(@TempDir Path directory) throws Exception {
+		byte[] generated = new GeneratedClassCache(directory).getBytecode(
+				createEnhancer(), ClassLoaderAwareGeneratorStrategy.class, this::generate);
+		assertThat(directory).isDirectoryContaining("glob:**.class");
+
+		GeneratedClassCache cache = new GeneratedClassCache(directory);
+		byte[] cached = cache.getBytecode(createEnhancer(), ClassLoaderAwareGeneratorStrategy.class, this::generate);
+		assertThat(cached).isEqualTo(generated);
+		assertThat(this.generationCount).hasValue(1);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(cache.getMissCount()).isZero();
+	}
+
+	@Test
+	void generatesOnConfigurationMismatch(@TempDir Path directory) throws Exception {
+		new GeneratedClassCache(directory).getBytecode(
+				createEnhancer(), ClassLoaderAwareGeneratorStrategy.class, this::generate);
+
+		Enhancer enhancer = createEnhancer();
+		enhancer.setInterfaces(new Class<?>[] {Runnable.class});
+		GeneratedClassCache cache = new GeneratedClassCache(directory);
+		cache.getBytecode(enhancer, ClassLoaderAwareGeneratorStrategy.class, this::generate);
+		cache.getBytecode(createEnhancer(), DefaultGeneratorStrategy.class, this::generate);
+		assertThat(this.generationCount).hasValue(3);
+		assertThat(cache.getMissCount()).isEqualTo(2);
+	}
+
+	@Test
+	void generatesUnderNewNameIfClassNameAlreadyUsed(@TempDir Path directory) throws Exception {
+		new GeneratedClassCache(directory).getBytecode(
+				createEnhancer(), ClassLoaderAwareGeneratorStrategy.class, this::generate);
+
+		GeneratedClassCache cache = new GeneratedClassCache(directory);
+		byte[] cached = cache.getBytecode(createEnhancer(), ClassLoaderAwareGeneratorStrategy.class, this::generate);
+		Enhancer enhancer = createEnhancer();
+		byte[] generated = cache.getBytecode(enhancer, ClassLoaderAwareGeneratorStrategy.class, () -> generate(enhancer));
+		assertThat(this.generationCount).hasValue(3);
+		assertThat(cache.getHitCount()).isEqualTo(1);
+		assertThat(className(cached)).isEqualTo(this.className);
+		assertThat(className(generated)).isEqualTo(this.className + "_2");
+	}
+
+	@Test
+	void reservesNameOfCachedClass(@TempDir Path directory) throws Exception {
+		new GeneratedClassCache(directory).getBytecode(
+				createEnhancer(), ClassLoaderAwareGeneratorStrategy.class, this::generate);
+
+		GeneratedClassCache cache = new GeneratedClassCache(directory);
+		cache.getBytecode(createEnhancer(), ClassLoaderAwareGeneratorStrategy.class, this::generate);
+		Enhancer enhancer = createEnhancer();
+		((AbstractClassGenerator) enhancer).renameClass(name -> false);
+		assertThat(enhancer.getClassName()).isEqualTo(this.className + "_2");
+	}
+
+
+	private Enhancer createEnhancer() {
+		Enhancer enhancer = new Enhancer();
+		enhancer.setSuperclass(Sample.class);
+		enhancer.setCallbackType(NoOp.class);
+		Field field = ReflectionUtils.findField(AbstractClassGenerator.class, "className");
+		ReflectionUtils.makeAccessible(field);
+		ReflectionUtils.setField(field, enhancer, this.className);
+		return enhancer;
+	}
+
+	private byte[] generate() {
+		return generate(createEnhancer());
+	}
+
+	private byte[] generate(Enhancer enhancer) {
+		this.generationCount.incrementAndGet();
+		ClassWriter cw = new ClassWriter(0);
+		cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, enhancer.getClassName().replace('.', '/'), null,
+				Sample.class.getName().replace('.', '/'), null);
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private static String className(byte[] bytecode) {
+		return new ClassReader(bytecode).getClassName().replace('/', '.');
+	}
+
+
+	public static class Sample {
+
+		public String getName() {
+			return "sample";
+		}
+	}
+
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests for {@link DirectMethodInvoker}.
+ *
+ * @author agent
+ */
+class DirectMethodInvokerTests {
+
+	private final TestBean bean = new TestBean();
+
+
+	@Test
+	void invokeGenerated() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method(TestBean.class, "handle", long.class, String.class));
+		assertGenerated(invoker);
+		assertThat(invoker.invoke(this.bean, 42L, "name")).isEqualTo("name-42");
+	}
+
+	@Test
+	void invokeCached() throws Exception {
+		Method method = method(TestBean.class, "handle", long.class, String.class);
+		assertThat(DirectMethodInvoker.forMethod(method)).isSameAs(DirectMethodInvoker.forMethod(method));
+	}
+
+	@Test
+	void invokeWithWideningConversion() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method(TestBean.class, "handle", long.class, String.class));
+		assertThat(invoker.invoke(this.bean, 42, "name")).isEqualTo("name-42");
+	}
+
+	@Test
+	void invokeWithPrimitiveReturnValue() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method(TestBean.class, "count"));
+		assertGenerated(invoker);
+		assertThat(invoker.invoke(this.bean)).isEqualTo(3);
+		assertThat(invoker.invoke(this.bean, (Object[]) null)).isEqualTo(3);
+	}
+
+	@Test
+	void invokeVoidMethod() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method(TestBean.class, "reset", int[].class));
+		assertGenerated(invoker);
+		assertThat(invoker.invoke(this.bean, (Object) new int[] {1})).isNull();
+		assertThat(this.bean.values).containsExactly(1);
+	}
+
+	@Test
+	void invokeStaticMethod() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method(TestBean.class, "twice", int.class));
+		assertGenerated(invoker);
+		assertThat(invoker.invoke(null, 21)).isEqualTo(42);
+	}
+
+	@Test
+	void invokeInterfaceMethod() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method(TestInterface.class, "greet", String.class));
+		assertGenerated(invoker);
+		assertThat(invoker.invoke(this.bean, "Juergen")).isEqualTo("Hello Juergen");
+	}
+
+	@Test
+	void invokeNonPublicClass() throws Exception {
+		Method method = method(NonPublicBean.class, "name");
+		ReflectionUtils.makeAccessible(method);
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method);
+		assertThat(invoker.getClass().getName()).doesNotContain("$$SpringInvoker$$");
+		assertThat(invoker.invoke(new NonPublicBean())).isEqualTo("nonPublic");
+	}
+
+	@Test
+	void invokeMethodMadeAccessible() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(PrivateBean.class.getDeclaredMethod("secret"));
+		assertThatExceptionOfType(IllegalAccessException.class).isThrownBy(() -> invoker.invoke(new PrivateBean()));
+
+		Method method = PrivateBean.class.getDeclaredMethod("secret");
+		ReflectionUtils.makeAccessible(method);
+		assertThat(DirectMethodInvoker.forMethod(method).invoke(new PrivateBean())).isEqualTo("secret");
+	}
+
+	@Test
+	void invokeClassInNonExportedPackage() throws Exception {
+		Class<?> clazz;
+		try {
+			clazz = Class.forName("com.sun.tools.javac.util.StringUtils");
+		}
+		catch (ClassNotFoundException ex) {
+			clazz = null;
+		}
+		assumeTrue(clazz != null && ClassUtils.hasMethod(Class.class, "getModule"), "JDK 9+ with jdk.compiler module");
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method(clazz, "toLowerCase", String.class));
+		assertThat(invoker.getClass().getName()).doesNotContain("$$SpringInvoker$$");
+		assertThatExceptionOfType(IllegalAccessException.class).isThrownBy(() -> invoker.invoke(null, "ABC"));
+	}
+
+	@Test
+	void invokeWithException() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method(TestBean.class, "fail", String.class));
+		assertGenerated(invoker);
+		assertThatThrownBy(() -> invoker.invoke(this.bean, "failure"))
+				.isInstanceOf(InvocationTargetException.class)
+				.extracting(ex -> ((InvocationTargetException) ex).getTargetException())
+				.isInstanceOf(IOException.class);
+	}
+
+	@Test
+	void invokeWithInvalidArguments() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method(TestBean.class, "handle", long.class, String.class));
+		assertThatIllegalArgumentException().isThrownBy(() -> invoker.invoke(this.bean, "42", "name"));
+		assertThatIllegalArgumentException().isThrownBy(() -> invoker.invoke(this.bean, null, "name"));
+		assertThatIllegalArgumentException().isThrownBy(() -> invoker.invoke(this.bean, 42L));
+		assertThatIllegalArgumentException().isThrownBy(() -> invoker.invoke(this.bean, (Object[]) null));
+	}
+
+	@Test
+	void invokeWithInvalidTarget() throws Exception {
+		DirectMethodInvoker invoker = DirectMethodInvoker.forMethod(method(TestBean.class, "handle", long.class, String.class));
+		assertThatIllegalArgumentException().isThrownBy(() -> invoker.invoke("bean", 42L, "name"));
+		assertThatNullPointerException().isThrownBy(() -> invoker.invoke(null, 42L, "name"));
+	}
+
+
+	private static Method method(Class<?> clazz, String name, Class<?>... parameterTypes) throws Exception {
+		return clazz.getMethod(name, parameterTypes);
+	}
+
+	private static void assertGenerated(DirectMethodInvoker invoker) {
+		assertThat(invoker.getClass().getName()).contains("$$SpringInvoker$$");
+	}
+
+
+	public interface TestInterface {
+
+		default String greet(String name) {
+			return "Hello " + name;
+		}
+	}
+
+
+	public static class TestBean implements TestInterface {
+
+		int[] values;
+
+		public String handle(long id, String name) {
+			return name + "-" + id;
+		}
+
+		public int count() {
+			return 3;
+		}
+
+		public void reset(int[] values) {
+			this.values = values;
+		}
+
+		public void fail(String message) throws IOException {
+			throw new IOException(message);
+		}
+
+		public static int twice(int value) {
+			return value * 2;
+		}
+	}
+
+
+	static class NonPublicBean {
+
+		public String name() {
+			return "nonPublic";
+		}
+	}
+
+
+	static class PrivateBean {
+
+		private String secret() {
+			return "secret";
+		}
+	}
+
+}
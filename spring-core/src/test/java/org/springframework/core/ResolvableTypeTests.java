@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -116,6 +116,39 @@ class ResolvableTypeTests {
 		assertThat(type.isAssignableFrom(String.class)).isTrue();
 	}
 
+	@Test
+	void forClassReturnsSharedInstance() throws Exception {
+		ResolvableType type = ResolvableType.forClass(ExtendsList.class);
+		assertThat(ResolvableType.forClass(ExtendsList.class)).isSameAs(type);
+		assertThat(ResolvableType.forType(ExtendsList.class)).isSameAs(type);
+		assertThat(ResolvableType.forClass(null)).isSameAs(ResolvableType.forClass(Object.class));
+		assertThat(type.getSuperType()).isSameAs(ResolvableType.forClass(ExtendsList.class).getSuperType());
+
+		ResolvableType.clearCache();
+		assertThat(ResolvableType.forClass(ExtendsList.class)).isNotSameAs(type).isEqualTo(type);
+	}
+
+	@Test
+	void forClassAssignableFromRepeatedly() throws Exception {
+		ResolvableType type = ResolvableType.forClass(List.class);
+		for (int i = 0; i < 2; i++) {
+			assertThat(type.isAssignableFrom(ExtendsList.class)).isTrue();
+			assertThat(type.isAssignableFrom(ResolvableType.forClass(ArrayList.class))).isTrue();
+			assertThat(type.isAssignableFrom(Set.class)).isFalse();
+			assertThat(ResolvableType.forClass(ExtendsList.class).isAssignableFrom(List.class)).isFalse();
+			assertThat(ResolvableType.forClass(Integer.class).isAssignableFrom(int.class)).isTrue();
+		}
+	}
+
+	@Test
+	void forTypeWithoutProviderReturnsSharedInstance() throws Exception {
+		Type listType = Fields.class.getField("stringList").getGenericType();
+		ResolvableType type = ResolvableType.forType(listType);
+		assertThat(ResolvableType.forType(listType)).isSameAs(type);
+		assertThat(ResolvableType.forType(listType).getGenerics()).isSameAs(type.getGenerics());
+		assertThat(ResolvableType.forField(Fields.class.getField("stringList")).getSource()).isInstanceOf(Field.class);
+	}
+
 	@Test
 	void forRawClass() throws Exception {
 		ResolvableType type = ResolvableType.forRawClass(ExtendsList.class);
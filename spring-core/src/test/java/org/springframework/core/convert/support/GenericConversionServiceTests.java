@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -576,10 +576,89 @@ class GenericConversionServiceTests {
 		assertThat(conversionService.convert("test", TypeDescriptor.valueOf(String.class), new TypeDescriptor(getClass().getField("integerCollection")))).isEqualTo(Collections.singleton("testX"));
 	}
 
+	@Test
+	void conversionHandle() {
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		GenericConversionService.ConversionHandle handle = conversionService.getConversionHandle(
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Integer.class));
+
+		assertThat(handle.canConvert()).isTrue();
+		assertThat(handle.convert("3")).isEqualTo(3);
+		assertThat(handle.convert("4")).isEqualTo(4);
+		assertThat(handle.convert(null)).isNull();
+		assertThatIllegalArgumentException().isThrownBy(() -> handle.convert(3L));
+	}
+
+	@Test
+	void conversionHandleWithoutConverter() {
+		GenericConversionService.ConversionHandle handle = conversionService.getConversionHandle(
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Integer.class));
+
+		assertThat(handle.canConvert()).isFalse();
+		assertThatExceptionOfType(ConverterNotFoundException.class).isThrownBy(() -> handle.convert("3"));
+	}
+
+	@Test
+	void conversionHandleAfterConverterChanges() {
+		GenericConversionService.ConversionHandle handle = conversionService.getConversionHandle(
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Color.class));
+		assertThat(handle.canConvert()).isFalse();
+
+		conversionService.addConverter(new ColorConverter());
+		assertThat(handle.canConvert()).isTrue();
+		assertThat(handle.convert("#000000")).isEqualTo(Color.BLACK);
+
+		conversionService.removeConvertible(String.class, Color.class);
+		assertThat(handle.canConvert()).isFalse();
+	}
+
+	@Test
+	void conversionHandleSharedForPlainTypes() throws Exception {
+		GenericConversionService.ConversionHandle handle = conversionService.getConversionHandle(
+				TypeDescriptor.valueOf(String.class), TypeDescriptor.valueOf(Color.class));
+		assertThat(conversionService.getConversionHandle(TypeDescriptor.valueOf(String.class),
+				new TypeDescriptor(getClass().getField("plainColor")))).isSameAs(handle);
+		assertThat(conversionService.getConversionHandle(TypeDescriptor.valueOf(String.class),
+				new TypeDescriptor(getClass().getField("activeColor")))).isNotSameAs(handle);
+		assertThat(conversionService.getConversionHandle(TypeDescriptor.valueOf(String.class),
+				new TypeDescriptor(getClass().getField("stringCollection")))).isNotSameAs(
+				conversionService.getConversionHandle(TypeDescriptor.valueOf(String.class),
+						new TypeDescriptor(getClass().getField("stringCollection"))));
+	}
+
+	@Test
+	void convertToClassAfterConverterChanges() {
+		assertThatExceptionOfType(ConverterNotFoundException.class).isThrownBy(() ->
+				conversionService.convert("3", Integer.class));
+
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		assertThat(conversionService.convert("3", Integer.class)).isEqualTo(3);
+		assertThat(conversionService.convert("4", int.class)).isEqualTo(4);
+		assertThat(conversionService.convert(null, Integer.class)).isNull();
+	}
+
+	@Test
+	void convertToClassWithOverriddenConvert() {
+		GenericConversionService conversionService = new GenericConversionService() {
+			@Override
+			@Nullable
+			public Object convert(@Nullable Object source, @Nullable TypeDescriptor sourceType, TypeDescriptor targetType) {
+				return (targetType.getType() == Integer.class ? 42 : super.convert(source, sourceType, targetType));
+			}
+		};
+		conversionService.addConverterFactory(new StringToNumberConverterFactory());
+		assertThat(conversionService.convert("3", Integer.class)).isEqualTo(42);
+		assertThat(conversionService.convert("3", Long.class)).isEqualTo(3L);
+		assertThat(conversionService.supportsConversionHandles()).isFalse();
+		assertThat(new DefaultConversionService().supportsConversionHandles()).isTrue();
+	}
+
 
 	@ExampleAnnotation(active = true)
 	public String annotatedString;
 
+	public Color plainColor;
+
 	@ExampleAnnotation(active = true)
 	public Color activeColor;
 
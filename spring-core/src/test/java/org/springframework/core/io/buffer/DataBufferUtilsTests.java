@@ -940,6 +940,33 @@ class DataBufferUtilsTests extends AbstractDataBufferAllocatingTests {
 		release(foo);
 	}
 
+	@ParameterizedDataBufferAllocatingTest
+	void matcherDelimiterAcrossBuffers(String displayName, DataBufferFactory bufferFactory) {
+		super.bufferFactory = bufferFactory;
+
+		String content = "foo\r\n-\r\n--bar\r\n--boundary\r\nbaz";
+		byte[] delims = "\r\n--boundary".getBytes(StandardCharsets.UTF_8);
+		int expected = content.indexOf("\r\n--boundary") + delims.length - 1;
+
+		for (int i = 1; i < content.length(); i++) {
+			DataBuffer first = stringBuffer(content.substring(0, i));
+			DataBuffer second = stringBuffer(content.substring(i));
+
+			DataBufferUtils.Matcher matcher = DataBufferUtils.matcher(delims);
+			int endIndex = matcher.match(first);
+			if (expected < i) {
+				assertThat(endIndex).isEqualTo(expected);
+			}
+			else {
+				assertThat(endIndex).isEqualTo(-1);
+				endIndex = matcher.match(second);
+				assertThat(endIndex).isEqualTo(expected - i);
+			}
+
+			release(first, second);
+		}
+	}
+
 
 	private static class ZeroDemandSubscriber extends BaseSubscriber<DataBuffer> {
 
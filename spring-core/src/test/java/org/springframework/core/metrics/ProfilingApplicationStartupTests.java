@@ -0,0 +1,190 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.core.metrics.ProfilingApplicationStartup.RecordedStep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link ProfilingApplicationStartup}.
+ *
+ * @author agent
+ */
+class ProfilingApplicationStartupTests {
+
+	@Test
+	void nestedSteps() {
+		ProfilingApplicationStartup startup = new ProfilingApplicationStartup();
+		StartupStep outer = startup.start("spring.beans.instantiate").tag("beanName", "outer");
+		StartupStep inner = startup.start("spring.beans.instantiate").tag("beanName", "inner");
+		assertThat(outer.getParentId()).isNull();
+		assertThat(inner.getParentId()).isEqualTo(outer.getId());
+		inner.end();
+		StartupStep sibling = startup.start("spring.beans.populate").tag("beanName", "outer");
+		assertThat(sibling.getParentId()).isEqualTo(outer.getId());
+		sibling.end();
+		outer.end();
+
+		List<RecordedStep> steps = startup.getRecordedSteps();
+		assertThat(steps).extracting(RecordedStep::getStack).containsExactly(
+				"spring.beans.instantiate[outer];spring.beans.instantiate[inner]",
+				"spring.beans.instantiate[outer];spring.beans.populate[outer]",
+				"spring.beans.instantiate[outer]");
+		assertThat(steps.get(0).getParentId()).isEqualTo(outer.getId());
+		assertThat(steps.get(2).getTags()).containsEntry("beanName", "outer");
+		RecordedStep outerStep = steps.get(2);
+		assertThat(outerStep.getSelfTime()).isEqualTo(
+				outerStep.getDuration() - steps.get(0).getDuration() - steps.get(1).getDuration());
+	}
+
+	@Test
+	void stepsOnDifferentThreads() throws Exception {
+		ProfilingApplicationStartup startup = new ProfilingApplicationStartup();
+		StartupStep outer = startup.start("outer");
+		List<StartupStep> other = new ArrayList<>();
+		Thread thread = new Thread(() -> {
+			StartupStep step = startup.start("other");
+			other.add(step);
+			step.end();
+		});
+		thread.start();
+		thread.join();
+		outer.end();
+		assertThat(other.get(0).getParentId()).isNull();
+		assertThat(startup.getRecordedSteps()).extracting(RecordedStep::getStack).containsExactly("other", "outer");
+	}
+
+	@Test
+	void endTwice() {
+		ProfilingApplicationStartup startup = new ProfilingApplicationStartup();
+		StartupStep step = startup.start("step");
+		step.end();
+		step.end();
+		assertThat(startup.getRecordedSteps()).hasSize(1);
+		assertThatIllegalStateException().isThrownBy(() -> step.tag("key", "value"));
+	}
+
+	@Test
+	void capacity() {
+		ProfilingApplicationStartup startup = new ProfilingApplicationStartup(2);
+		for (int i = 0; i < 5; i++) {
+			startup.start("step").end();
+		}
+		assertThat(startup.getRecordedSteps()).hasSize(2);
+		assertThat(startup.getDroppedCount()).isEqualTo(3);
+		startup.clear();
+		assertThat(startup.getRecordedSteps()).isEmpty();
+		assertThat(startup.getDroppedCount()).isEqualTo(0);
+		startup.start("step").end();
+		assertThat(startup.getRecordedSteps()).hasSize(1);
+	}
+
+	@Test
+	void collapsedStacks() throws Exception {
+		ProfilingApplicationStartup startup = new ProfilingApplicationStartup();
+		StartupStep outer = startup.start("outer").tag("beanName", "my bean;1");
+		StartupStep inner = startup.start("inner");
+		Thread.sleep(5);
+		inner.end();
+		Thread.sleep(5);
+		outer.end();
+
+		StringWriter writer = new StringWriter();
+		startup.writeCollapsedStacks(writer);
+		String[] lines = writer.toString().split("\n");
+		assertThat(lines).hasSize(2);
+		assertThat(lines[0]).startsWith("outer[my_bean:1];inner ");
+		assertThat(lines[1]).startsWith("outer[my_bean:1] ");
+		assertThat(Long.parseLong(lines[0].substring(lines[0].lastIndexOf(' ') + 1))).isGreaterThanOrEqualTo(5000);
+	}
+
+	@Test
+	void delegate() {
+		BufferingStartup delegate = new BufferingStartup();
+		ProfilingApplicationStartup startup = new ProfilingApplicationStartup(10, delegate);
+		StartupStep step = startup.start("step").tag("key", "value");
+		step.end();
+		assertThat(delegate.step.getName()).isEqualTo("step");
+		assertThat(delegate.step.getTags()).extracting(StartupStep.Tag::getValue).containsExactly("value");
+		assertThat(delegate.ended).isTrue();
+		assertThat(startup.getRecordedSteps()).hasSize(1);
+	}
+
+
+	private static class BufferingStartup implements ApplicationStartup {
+
+		StartupStep step;
+
+		boolean ended;
+
+		@Override
+		public StartupStep start(String name) {
+			List<StartupStep.Tag> tags = new ArrayList<>();
+			this.step = new StartupStep() {
+				@Override
+				public String getName() {
+					return name;
+				}
+				@Override
+				public long getId() {
+					return 0;
+				}
+				@Override
+				public Long getParentId() {
+					return null;
+				}
+				@Override
+				public StartupStep tag(String key, String value) {
+					tags.add(new StartupStep.Tag() {
+						@Override
+						public String getKey() {
+							return key;
+						}
+						@Override
+						public String getValue() {
+							return value;
+						}
+					});
+					return this;
+				}
+				@Override
+				public StartupStep tag(String key, Supplier<String> value) {
+					return tag(key, value.get());
+				}
+				@Override
+				public Tags getTags() {
+					return tags::iterator;
+				}
+				@Override
+				public void end() {
+					ended = true;
+				}
+			};
+			return this.step;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,13 +16,17 @@
 
 package org.springframework.expression.spel;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 
 import org.springframework.expression.EvaluationContext;
@@ -103,4 +107,120 @@ public class SpelBenchmark {
 		return data.expression.getValue(data.context);
 	}
 
+	@State(Scope.Benchmark)
+	public static class PolymorphicBenchmarkData {
+
+		public EvaluationContext context = new StandardEvaluationContext();
+
+		public Expression propertyExpression;
+
+		public Expression methodExpression;
+
+		public Object[] targets = {new Customer("c1"), new Supplier("s1"), new Customer("c2"), new Supplier("s2")};
+
+		public PolymorphicBenchmarkData() {
+			ExpressionParser parser = new SpelExpressionParser();
+			this.propertyExpression = parser.parseExpression("name");
+			this.methodExpression = parser.parseExpression("describe('id')");
+		}
+	}
+
+	@Benchmark
+	public Object polymorphicPropertyAccess(PolymorphicBenchmarkData data) {
+		Object result = null;
+		for (Object target : data.targets) {
+			result = data.propertyExpression.getValue(data.context, target);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public Object polymorphicMethodAccess(PolymorphicBenchmarkData data) {
+		Object result = null;
+		for (Object target : data.targets) {
+			result = data.methodExpression.getValue(data.context, target);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public Object propertyAccessWithContextPerEvaluation(PolymorphicBenchmarkData data) {
+		return data.propertyExpression.getValue(new StandardEvaluationContext(data.targets[0]));
+	}
+
+	@State(Scope.Benchmark)
+	public static class CollectionBenchmarkData {
+
+		@Param({"OFF", "IMMEDIATE"})
+		public SpelCompilerMode compilerMode;
+
+		public EvaluationContext context = new StandardEvaluationContext();
+
+		public List<Customer> customers = new ArrayList<>();
+
+		public Expression selectionExpression;
+
+		public Expression projectionExpression;
+
+		public Expression inlineMapExpression;
+
+		@Setup
+		public void setup() {
+			for (int i = 0; i < 20; i++) {
+				this.customers.add(new Customer("c" + i));
+			}
+			ExpressionParser parser = new SpelExpressionParser(new SpelParserConfiguration(this.compilerMode, null));
+			this.selectionExpression = parser.parseExpression("?[name.length() > 2]");
+			this.projectionExpression = parser.parseExpression("![describe('id')]");
+			this.inlineMapExpression = parser.parseExpression("{first: [0].name, last: [19].name, size: size()}");
+		}
+	}
+
+	@Benchmark
+	public Object selection(CollectionBenchmarkData data) {
+		return data.selectionExpression.getValue(data.context, data.customers);
+	}
+
+	@Benchmark
+	public Object projection(CollectionBenchmarkData data) {
+		return data.projectionExpression.getValue(data.context, data.customers);
+	}
+
+	@Benchmark
+	public Object inlineMap(CollectionBenchmarkData data) {
+		return data.inlineMapExpression.getValue(data.context, data.customers);
+	}
+
+
+	public static class Customer {
+
+		private final String name;
+
+		public Customer(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public String describe(String prefix) {
+			return prefix + ":" + this.name;
+		}
+	}
+
+
+	public static class Supplier {
+
+		public final String name;
+
+		public Supplier(String name) {
+			this.name = name;
+		}
+
+		public String describe(String prefix) {
+			return prefix + "/" + this.name;
+		}
+	}
+
 }
@@ -85,9 +85,17 @@ public class CodeFlow implements Opcodes {
 
 	/**
 	 * When code generation requires an intermediate variable within a method,
-	 * this method records the next available variable (variable 0 is 'this').
+	 * this method records the next available variable (variable 0 is 'this',
+	 * variables 1 and 2 are the target and the evaluation context).
 	 */
-	private int nextFreeVariableId = 1;
+	private int nextFreeVariableId = 3;
+
+	/**
+	 * Local variables holding the active context object for nested scopes, such as
+	 * the elements iterated over by a selection or projection. If empty, the target
+	 * passed into the compiled expression is the active context object.
+	 */
+	private final Deque<Integer> contextVariables = new ArrayDeque<>();
 
 
 	/**
@@ -105,11 +113,13 @@ public class CodeFlow implements Opcodes {
 
 	/**
 	 * Push the byte code to load the target (i.e. what was passed as the first argument
-	 * to CompiledExpression.getValue(target, context))
+	 * to CompiledExpression.getValue(target, context)), or the active context object
+	 * of the current {@linkplain #enterContextScope(int) context scope}
 	 * @param mv the visitor into which the load instruction should be inserted
 	 */
 	public void loadTarget(MethodVisitor mv) {
-		mv.visitVarInsn(ALOAD, 1);
+		Integer contextVariable = this.contextVariables.peek();
+		mv.visitVarInsn(ALOAD, (contextVariable != null ? contextVariable : 1));
 	}
 
 	/**
@@ -122,6 +132,37 @@ public class CodeFlow implements Opcodes {
 		mv.visitVarInsn(ALOAD, 2);
 	}
 
+	/**
+	 * Enter a new context scope in which the active context object (as loaded by
+	 * {@link #loadTarget}) is held in the given local variable, e.g. the current
+	 * element of a selection or projection.
+	 * @param variable the local variable holding the active context object
+	 * @since 5.3.11
+	 * @see #nextFreeVariableId()
+	 */
+	public void enterContextScope(int variable) {
+		this.contextVariables.push(variable);
+	}
+
+	/**
+	 * Enter a new context scope in which the root object (i.e. the target passed
+	 * into the compiled expression) is the active context object again, e.g.
+	 * for the evaluation of an indexer key.
+	 * @since 5.3.11
+	 */
+	public void enterRootContextScope() {
+		this.contextVariables.push(1);
+	}
+
+	/**
+	 * Exit the context scope entered last, reverting to the previous
+	 * active context object.
+	 * @since 5.3.11
+	 */
+	public void exitContextScope() {
+		this.contextVariables.pop();
+	}
+
 	/**
 	 * Record the descriptor for the most recently evaluated expression element.
 	 * @param descriptor type descriptor for most recently evaluated element
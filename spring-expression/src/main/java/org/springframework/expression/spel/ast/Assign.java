@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,10 @@
 
 package org.springframework.expression.spel.ast;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 
 /**
@@ -40,6 +42,9 @@ public class Assign extends SpelNodeImpl {
 	public TypedValue getValueInternal(ExpressionState state) throws EvaluationException {
 		TypedValue newValue = this.children[1].getValueInternal(state);
 		getChild(0).setValue(state, newValue.getValue());
+		String valueDesc = this.children[1].exitTypeDescriptor;
+		this.exitTypeDescriptor = (valueDesc != null && CodeFlow.isPrimitive(valueDesc) ?
+				CodeFlow.toBoxedDescriptor(valueDesc) : valueDesc);
 		return newValue;
 	}
 
@@ -48,4 +53,28 @@ public class Assign extends SpelNodeImpl {
 		return getChild(0).toStringAST() + "=" + getChild(1).toStringAST();
 	}
 
+	@Override
+	public boolean isCompilable() {
+		// Only assignments to variables in the evaluation context are compiled
+		SpelNodeImpl target = this.children[0];
+		SpelNodeImpl value = this.children[1];
+		return (target instanceof VariableReference && ((VariableReference) target).isContextVariable() &&
+				value.isCompilable() && this.exitTypeDescriptor != null && !"V".equals(this.exitTypeDescriptor));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		VariableReference target = (VariableReference) this.children[0];
+		generateCodeForArgument(mv, cf, this.children[1], "Ljava/lang/Object");
+		mv.visitInsn(DUP);
+		cf.loadEvaluationContext(mv);
+		mv.visitInsn(SWAP);
+		mv.visitLdcInsn(target.getName());
+		mv.visitInsn(SWAP);
+		mv.visitMethodInsn(INVOKEINTERFACE, "org/springframework/expression/EvaluationContext",
+				"setVariable", "(Ljava/lang/String;Ljava/lang/Object;)V", true);
+		CodeFlow.insertCheckCast(mv, this.exitTypeDescriptor);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 }
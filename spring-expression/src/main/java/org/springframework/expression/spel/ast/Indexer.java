@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -56,7 +56,7 @@ import org.springframework.util.ReflectionUtils;
 // TODO support correct syntax for multidimensional [][][] and not [,,,]
 public class Indexer extends SpelNodeImpl {
 
-	private enum IndexedType {ARRAY, LIST, MAP, STRING, OBJECT}
+	private enum IndexedType {ARRAY, LIST, COLLECTION, MAP, STRING, OBJECT}
 
 
 	// These fields are used when the indexer is being used as a property read accessor.
@@ -166,9 +166,7 @@ public class Indexer extends SpelNodeImpl {
 				return new ArrayIndexingValueRef(state.getTypeConverter(), target, idx, targetDescriptor);
 			}
 			else if (target instanceof Collection) {
-				if (target instanceof List) {
-					this.indexedType = IndexedType.LIST;
-				}
+				this.indexedType = (target instanceof List ? IndexedType.LIST : IndexedType.COLLECTION);
 				return new CollectionIndexingValueRef((Collection<?>) target, idx, targetDescriptor,
 						state.getTypeConverter(), state.getConfiguration().isAutoGrowCollections(),
 						state.getConfiguration().getMaximumAutoGrowSize());
@@ -200,6 +198,9 @@ public class Indexer extends SpelNodeImpl {
 		else if (this.indexedType == IndexedType.LIST) {
 			return this.children[0].isCompilable();
 		}
+		else if (this.indexedType == IndexedType.COLLECTION) {
+			return (this.exitTypeDescriptor != null && this.children[0].isCompilable());
+		}
 		else if (this.indexedType == IndexedType.MAP) {
 			return (this.children[0] instanceof PropertyOrFieldReference || this.children[0].isCompilable());
 		}
@@ -257,20 +258,34 @@ public class Indexer extends SpelNodeImpl {
 				insn = AALOAD;
 			}
 			SpelNodeImpl index = this.children[0];
+			cf.enterRootContextScope();
 			cf.enterCompilationScope();
 			index.generateCode(mv, cf);
 			cf.exitCompilationScope();
+			cf.exitContextScope();
 			mv.visitInsn(insn);
 		}
 
 		else if (this.indexedType == IndexedType.LIST) {
 			mv.visitTypeInsn(CHECKCAST, "java/util/List");
+			cf.enterRootContextScope();
 			cf.enterCompilationScope();
 			this.children[0].generateCode(mv, cf);
 			cf.exitCompilationScope();
+			cf.exitContextScope();
 			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "get", "(I)Ljava/lang/Object;", true);
 		}
 
+		else if (this.indexedType == IndexedType.COLLECTION) {
+			// Not randomly accessible: index into a snapshot of the elements in iteration order
+			mv.visitTypeInsn(CHECKCAST, "java/util/Collection");
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Collection", "toArray", "()[Ljava/lang/Object;", true);
+			cf.enterRootContextScope();
+			generateCodeForArgument(mv, cf, this.children[0], "I");
+			cf.exitContextScope();
+			mv.visitInsn(AALOAD);
+		}
+
 		else if (this.indexedType == IndexedType.MAP) {
 			mv.visitTypeInsn(CHECKCAST, "java/util/Map");
 			// Special case when the key is an unquoted string literal that will be parsed as
@@ -281,9 +296,11 @@ public class Indexer extends SpelNodeImpl {
 				mv.visitLdcInsn(mapKeyName);
 			}
 			else {
+				cf.enterRootContextScope();
 				cf.enterCompilationScope();
 				this.children[0].generateCode(mv, cf);
 				cf.exitCompilationScope();
+				cf.exitContextScope();
 			}
 			mv.visitMethodInsn(
 					INVOKEINTERFACE, "java/util/Map", "get", "(Ljava/lang/Object;)Ljava/lang/Object;", true);
@@ -673,6 +690,7 @@ public class Indexer extends SpelNodeImpl {
 			int pos = 0;
 			for (Object o : this.collection) {
 				if (pos == this.index) {
+					exitTypeDescriptor = CodeFlow.toDescriptor(Object.class);
 					return new TypedValue(o, this.collectionEntryDescriptor.elementTypeDescriptor(o));
 				}
 				pos++;
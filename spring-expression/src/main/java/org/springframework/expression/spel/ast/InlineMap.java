@@ -20,8 +20,10 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelNode;
 import org.springframework.lang.Nullable;
@@ -164,4 +166,107 @@ public class InlineMap extends SpelNodeImpl {
 		return (Map<Object, Object>) this.constant.getValue();
 	}
 
+	@Override
+	public boolean isCompilable() {
+		if (isConstant()) {
+			return true;
+		}
+		for (int c = 0; c < getChildCount(); c++) {
+			SpelNodeImpl child = this.children[c];
+			if (c % 2 == 0 && child instanceof PropertyOrFieldReference) {
+				continue;
+			}
+			if (!child.isCompilable() || "V".equals(child.exitTypeDescriptor)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow codeflow) {
+		if (isConstant()) {
+			final String constantFieldName = "inlineMap$" + codeflow.nextFieldId();
+			final String className = codeflow.getClassName();
+
+			codeflow.registerNewField((cw, cflow) ->
+					cw.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, constantFieldName, "Ljava/util/Map;", null, null));
+
+			codeflow.registerNewClinit((mVisitor, cflow) -> {
+				generateClinitCode(className, constantFieldName, mVisitor, cflow);
+				mVisitor.visitMethodInsn(INVOKESTATIC, "java/util/Collections", "unmodifiableMap",
+						"(Ljava/util/Map;)Ljava/util/Map;", false);
+				mVisitor.visitFieldInsn(PUTSTATIC, className, constantFieldName, "Ljava/util/Map;");
+			});
+
+			mv.visitFieldInsn(GETSTATIC, className, constantFieldName, "Ljava/util/Map;");
+		}
+		else {
+			mv.visitTypeInsn(NEW, "java/util/LinkedHashMap");
+			mv.visitInsn(DUP);
+			mv.visitMethodInsn(INVOKESPECIAL, "java/util/LinkedHashMap", "<init>", "()V", false);
+			for (int c = 0; c < getChildCount(); c++) {
+				mv.visitInsn(DUP);
+				SpelNodeImpl keyChild = this.children[c++];
+				if (keyChild instanceof PropertyOrFieldReference) {
+					mv.visitLdcInsn(((PropertyOrFieldReference) keyChild).getName());
+				}
+				else {
+					generateCodeForArgument(mv, codeflow, keyChild, "Ljava/lang/Object");
+				}
+				generateCodeForArgument(mv, codeflow, this.children[c], "Ljava/lang/Object");
+				mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "put",
+						"(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", true);
+				mv.visitInsn(POP);
+			}
+		}
+		codeflow.pushDescriptor("Ljava/util/Map");
+	}
+
+	/**
+	 * Generate the code for building a constant map in a static initializer,
+	 * leaving the (modifiable) map on the stack.
+	 */
+	private void generateClinitCode(String clazzname, String constantFieldName, MethodVisitor mv, CodeFlow codeflow) {
+		mv.visitTypeInsn(NEW, "java/util/LinkedHashMap");
+		mv.visitInsn(DUP);
+		mv.visitMethodInsn(INVOKESPECIAL, "java/util/LinkedHashMap", "<init>", "()V", false);
+		for (int c = 0; c < getChildCount(); c++) {
+			mv.visitInsn(DUP);
+			SpelNodeImpl keyChild = this.children[c++];
+			if (keyChild instanceof PropertyOrFieldReference) {
+				mv.visitLdcInsn(((PropertyOrFieldReference) keyChild).getName());
+			}
+			else {
+				generateConstantCode(clazzname, constantFieldName, mv, codeflow, keyChild);
+			}
+			generateConstantCode(clazzname, constantFieldName, mv, codeflow, this.children[c]);
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "put",
+					"(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", true);
+			mv.visitInsn(POP);
+		}
+	}
+
+	private void generateConstantCode(
+			String clazzname, String constantFieldName, MethodVisitor mv, CodeFlow codeflow, SpelNodeImpl child) {
+
+		// As for InlineList, nested lists and maps are built directly here rather
+		// than calling back into generateCode() which would register another clinit adder.
+		if (child instanceof InlineList) {
+			((InlineList) child).generateClinitCode(clazzname, constantFieldName, mv, codeflow, true);
+		}
+		else if (child instanceof InlineMap) {
+			((InlineMap) child).generateClinitCode(clazzname, constantFieldName, mv, codeflow);
+			mv.visitMethodInsn(INVOKESTATIC, "java/util/Collections", "unmodifiableMap",
+					"(Ljava/util/Map;)Ljava/util/Map;", false);
+		}
+		else {
+			child.generateCode(mv, codeflow);
+			String lastDesc = codeflow.lastDescriptor();
+			if (CodeFlow.isPrimitive(lastDesc)) {
+				CodeFlow.insertBoxIfNecessary(mv, lastDesc.charAt(0));
+			}
+		}
+	}
+
 }
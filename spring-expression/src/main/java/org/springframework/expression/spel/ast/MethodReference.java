@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -54,6 +54,12 @@ import org.springframework.util.ObjectUtils;
  */
 public class MethodReference extends SpelNodeImpl {
 
+	/**
+	 * Maximum number of executors to cache for different target and argument
+	 * types, beyond which a reference is considered megamorphic.
+	 */
+	private static final int INLINE_CACHE_LIMIT = 4;
+
 	private final String name;
 
 	private final boolean nullSafe;
@@ -64,6 +70,9 @@ public class MethodReference extends SpelNodeImpl {
 	@Nullable
 	private volatile CachedMethodExecutor cachedExecutor;
 
+	@Nullable
+	private volatile CachedMethodExecutor[] inlineExecutorCache;
+
 
 	public MethodReference(boolean nullSafe, String methodName, int startPos, int endPos, SpelNodeImpl... arguments) {
 		super(startPos, endPos, arguments);
@@ -80,7 +89,7 @@ public class MethodReference extends SpelNodeImpl {
 	protected ValueRef getValueRef(ExpressionState state) throws EvaluationException {
 		Object[] arguments = getArguments(state);
 		if (state.getActiveContextObject().getValue() == null) {
-			throwIfNotNullSafe(getArgumentTypes(arguments));
+			throwIfNotNullSafe(arguments);
 			return ValueRef.NullValueRef.INSTANCE;
 		}
 		return new MethodValueRef(state, arguments);
@@ -100,16 +109,15 @@ public class MethodReference extends SpelNodeImpl {
 	private TypedValue getValueInternal(EvaluationContext evaluationContext,
 			@Nullable Object value, @Nullable TypeDescriptor targetType, Object[] arguments) {
 
-		List<TypeDescriptor> argumentTypes = getArgumentTypes(arguments);
 		if (value == null) {
-			throwIfNotNullSafe(argumentTypes);
+			throwIfNotNullSafe(arguments);
 			return TypedValue.NULL;
 		}
 
-		MethodExecutor executorToUse = getCachedExecutor(evaluationContext, value, targetType, argumentTypes);
-		if (executorToUse != null) {
+		CachedMethodExecutor executorToCheck = getCachedExecutor(evaluationContext, value, targetType, arguments);
+		if (executorToCheck != null) {
 			try {
-				return executorToUse.execute(evaluationContext, value, arguments);
+				return executorToCheck.get().execute(evaluationContext, value, arguments);
 			}
 			catch (AccessException ex) {
 				// Two reasons this can occur:
@@ -128,13 +136,19 @@ public class MethodReference extends SpelNodeImpl {
 				// At this point we know it wasn't a user problem so worth a retry if a
 				// better candidate can be found.
 				this.cachedExecutor = null;
+				this.inlineExecutorCache = null;
 			}
 		}
 
-		// either there was no accessor or it no longer existed
-		executorToUse = findAccessorForMethod(argumentTypes, value, evaluationContext);
-		this.cachedExecutor = new CachedMethodExecutor(
+		// either there was no accessor or it no longer existed - the arguments may have been
+		// converted in place by now, so use the original types recorded for the cached executor
+		List<TypeDescriptor> argumentTypes =
+				(executorToCheck != null ? executorToCheck.getArgumentTypes() : getArgumentTypes(arguments));
+		MethodExecutor executorToUse = findAccessorForMethod(argumentTypes, value, evaluationContext);
+		CachedMethodExecutor cachedExecutor = new CachedMethodExecutor(
 				executorToUse, (value instanceof Class ? (Class<?>) value : null), targetType, argumentTypes);
+		this.cachedExecutor = cachedExecutor;
+		addInlineExecutor(cachedExecutor);
 		try {
 			return executorToUse.execute(evaluationContext, value, arguments);
 		}
@@ -147,11 +161,11 @@ public class MethodReference extends SpelNodeImpl {
 		}
 	}
 
-	private void throwIfNotNullSafe(List<TypeDescriptor> argumentTypes) {
+	private void throwIfNotNullSafe(Object[] arguments) {
 		if (!this.nullSafe) {
 			throw new SpelEvaluationException(getStartPosition(),
 					SpelMessage.METHOD_CALL_ON_NULL_OBJECT_NOT_ALLOWED,
-					FormatHelper.formatMethodForMessage(this.name, argumentTypes));
+					FormatHelper.formatMethodForMessage(this.name, getArgumentTypes(arguments)));
 		}
 	}
 
@@ -179,8 +193,8 @@ public class MethodReference extends SpelNodeImpl {
 	}
 
 	@Nullable
-	private MethodExecutor getCachedExecutor(EvaluationContext evaluationContext, Object value,
-			@Nullable TypeDescriptor target, List<TypeDescriptor> argumentTypes) {
+	private CachedMethodExecutor getCachedExecutor(EvaluationContext evaluationContext, Object value,
+			@Nullable TypeDescriptor target, Object[] arguments) {
 
 		List<MethodResolver> methodResolvers = evaluationContext.getMethodResolvers();
 		if (methodResolvers.size() != 1 || !(methodResolvers.get(0) instanceof ReflectiveMethodResolver)) {
@@ -189,13 +203,37 @@ public class MethodReference extends SpelNodeImpl {
 		}
 
 		CachedMethodExecutor executorToCheck = this.cachedExecutor;
-		if (executorToCheck != null && executorToCheck.isSuitable(value, target, argumentTypes)) {
-			return executorToCheck.get();
+		if (executorToCheck != null && executorToCheck.isSuitable(value, target, arguments)) {
+			return executorToCheck;
+		}
+
+		// Polymorphic call site: check the executors cached for other target/argument types
+		CachedMethodExecutor[] executorsToCheck = this.inlineExecutorCache;
+		if (executorsToCheck != null) {
+			for (CachedMethodExecutor candidate : executorsToCheck) {
+				if (candidate != executorToCheck && candidate.isSuitable(value, target, arguments)) {
+					this.cachedExecutor = candidate;
+					return candidate;
+				}
+			}
 		}
 		this.cachedExecutor = null;
 		return null;
 	}
 
+	private void addInlineExecutor(CachedMethodExecutor executor) {
+		CachedMethodExecutor[] executors = this.inlineExecutorCache;
+		int size = (executors != null ? executors.length : 0);
+		if (size < INLINE_CACHE_LIMIT) {
+			CachedMethodExecutor[] newExecutors = new CachedMethodExecutor[size + 1];
+			if (executors != null) {
+				System.arraycopy(executors, 0, newExecutors, 0, size);
+			}
+			newExecutors[size] = executor;
+			this.inlineExecutorCache = newExecutors;
+		}
+	}
+
 	private MethodExecutor findAccessorForMethod(List<TypeDescriptor> argumentTypes, Object targetObject,
 			EvaluationContext evaluationContext) throws SpelEvaluationException {
 
@@ -414,6 +452,8 @@ public class MethodReference extends SpelNodeImpl {
 
 		private final List<TypeDescriptor> argumentTypes;
 
+		private final Class<?>[] argumentClasses;
+
 		public CachedMethodExecutor(MethodExecutor methodExecutor, @Nullable Class<?> staticClass,
 				@Nullable TypeDescriptor target, List<TypeDescriptor> argumentTypes) {
 
@@ -421,11 +461,34 @@ public class MethodReference extends SpelNodeImpl {
 			this.staticClass = staticClass;
 			this.target = target;
 			this.argumentTypes = argumentTypes;
+			this.argumentClasses = new Class<?>[argumentTypes.size()];
+			for (int i = 0; i < this.argumentClasses.length; i++) {
+				TypeDescriptor argumentType = argumentTypes.get(i);
+				this.argumentClasses[i] = (argumentType != null ? argumentType.getType() : null);
+			}
+		}
+
+		/**
+		 * Determine whether this executor is suitable for the given target and arguments.
+		 * <p>Compares the argument classes directly which is equivalent to comparing
+		 * {@link TypeDescriptor#forObject} descriptors, without having to create those.
+		 */
+		public boolean isSuitable(Object value, @Nullable TypeDescriptor target, Object[] arguments) {
+			if ((this.staticClass != null && this.staticClass != value) ||
+					!ObjectUtils.nullSafeEquals(this.target, target) || this.argumentClasses.length != arguments.length) {
+				return false;
+			}
+			for (int i = 0; i < arguments.length; i++) {
+				Object argument = arguments[i];
+				if ((argument != null ? argument.getClass() : null) != this.argumentClasses[i]) {
+					return false;
+				}
+			}
+			return true;
 		}
 
-		public boolean isSuitable(Object value, @Nullable TypeDescriptor target, List<TypeDescriptor> argumentTypes) {
-			return ((this.staticClass == null || this.staticClass == value) &&
-					ObjectUtils.nullSafeEquals(this.target, target) && this.argumentTypes.equals(argumentTypes));
+		public List<TypeDescriptor> getArgumentTypes() {
+			return this.argumentTypes;
 		}
 
 		public boolean hasProxyTarget() {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -42,6 +42,12 @@ import java.util.Map;
  */
 public class PropertyOrFieldReference extends SpelNodeImpl {
 
+    /**
+     * Maximum number of receiver types to cache read accessors for, beyond
+     * which a reference is considered megamorphic and resolves accessors as usual.
+     */
+    private static final int INLINE_CACHE_LIMIT = 4;
+
     private final boolean nullSafe;
 
     private final String name;
@@ -55,6 +61,9 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
     @Nullable
     private volatile PropertyAccessor cachedWriteAccessor;
 
+    @Nullable
+    private volatile InlineCacheEntry[] inlineReadCache;
+
 
     public PropertyOrFieldReference(boolean nullSafe, String propertyOrFieldName, int startPos, int endPos) {
         super(startPos, endPos);
@@ -162,6 +171,21 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
             return TypedValue.NULL;
         }
 
+        // 按接收者类型缓存的 accessor，命中时无需再次解析
+        if (targetObject != null) {
+            PropertyAccessor inlineAccessor = getInlineReadAccessor(targetObject, evalContext.getPropertyAccessors());
+            if (inlineAccessor != null) {
+                if (this.cachedReadAccessor != inlineAccessor) {
+                    this.cachedReadAccessor = inlineAccessor;
+                }
+                try {
+                    return inlineAccessor.read(evalContext, targetObject, name);
+                } catch (Exception ex) {
+                    throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_DURING_PROPERTY_READ, name, ex.getMessage());
+                }
+            }
+        }
+
         // 缓存机制
         PropertyAccessor accessorToUse = this.cachedReadAccessor;
         if (accessorToUse != null) {
@@ -193,8 +217,13 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
                  * */
                 if (accessor.canRead(evalContext, contextObject.getValue(), name)) {
                     if (accessor instanceof ReflectivePropertyAccessor) {
+                        // Only the first candidate is known to win for every instance of the type
+                        boolean cacheable = (accessor == accessorsToTry.get(0));
                         accessor = ((ReflectivePropertyAccessor) accessor).createOptimalAccessor(
                                 evalContext, contextObject.getValue(), name);
+                        if (cacheable && accessor instanceof ReflectivePropertyAccessor.OptimalPropertyAccessor) {
+                            addInlineReadAccessor(contextObject.getValue(), accessor, evalContext.getPropertyAccessors());
+                        }
                     }
                     this.cachedReadAccessor = accessor;
                     /**
@@ -217,6 +246,40 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
         }
     }
 
+    /**
+     * Return the read accessor resolved before for the type of the given target,
+     * provided that the evaluation context uses the same kinds of accessors.
+     */
+    @Nullable
+    private PropertyAccessor getInlineReadAccessor(Object target, List<PropertyAccessor> propertyAccessors) {
+        InlineCacheEntry[] entries = this.inlineReadCache;
+        if (entries != null) {
+            boolean targetIsClass = (target instanceof Class);
+            Class<?> type = (targetIsClass ? (Class<?>) target : target.getClass());
+            for (InlineCacheEntry entry : entries) {
+                if (entry.isSuitable(type, targetIsClass, propertyAccessors)) {
+                    return entry.accessor;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void addInlineReadAccessor(Object target, PropertyAccessor accessor, List<PropertyAccessor> propertyAccessors) {
+        InlineCacheEntry[] entries = this.inlineReadCache;
+        int size = (entries != null ? entries.length : 0);
+        if (size < INLINE_CACHE_LIMIT) {
+            boolean targetIsClass = (target instanceof Class);
+            Class<?> type = (targetIsClass ? (Class<?>) target : target.getClass());
+            InlineCacheEntry[] newEntries = new InlineCacheEntry[size + 1];
+            if (entries != null) {
+                System.arraycopy(entries, 0, newEntries, 0, size);
+            }
+            newEntries[size] = new InlineCacheEntry(type, targetIsClass, accessor, propertyAccessors);
+            this.inlineReadCache = newEntries;
+        }
+    }
+
     private void writeProperty(
             TypedValue contextObject, EvaluationContext evalContext, String name, @Nullable Object newValue)
             throws EvaluationException {
@@ -374,6 +437,48 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
     }
 
 
+    /**
+     * Read accessor resolved for a specific receiver type. Entries may be reused
+     * across evaluation contexts as long as these declare accessors of the same
+     * types, e.g. for contexts created per method invocation.
+     */
+    private static class InlineCacheEntry {
+
+        private final Class<?> type;
+
+        private final boolean targetIsClass;
+
+        private final PropertyAccessor accessor;
+
+        private final Class<?>[] accessorTypes;
+
+        InlineCacheEntry(Class<?> type, boolean targetIsClass, PropertyAccessor accessor,
+                         List<PropertyAccessor> propertyAccessors) {
+
+            this.type = type;
+            this.targetIsClass = targetIsClass;
+            this.accessor = accessor;
+            this.accessorTypes = new Class<?>[propertyAccessors.size()];
+            for (int i = 0; i < this.accessorTypes.length; i++) {
+                this.accessorTypes[i] = propertyAccessors.get(i).getClass();
+            }
+        }
+
+        boolean isSuitable(Class<?> type, boolean targetIsClass, List<PropertyAccessor> propertyAccessors) {
+            if (this.type != type || this.targetIsClass != targetIsClass ||
+                    this.accessorTypes.length != propertyAccessors.size()) {
+                return false;
+            }
+            for (int i = 0; i < this.accessorTypes.length; i++) {
+                if (this.accessorTypes[i] != propertyAccessors.get(i).getClass()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+
     private static class AccessorLValue implements ValueRef {
 
         private final PropertyOrFieldReference ref;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -66,7 +66,11 @@ public class VariableReference extends SpelNodeImpl {
 	@Override
 	public TypedValue getValueInternal(ExpressionState state) throws SpelEvaluationException {
 		if (this.name.equals(THIS)) {
-			return state.getActiveContextObject();
+			TypedValue result = state.getActiveContextObject();
+			Object value = result.getValue();
+			this.exitTypeDescriptor = (value == null || !Modifier.isPublic(value.getClass().getModifiers()) ?
+					"Ljava/lang/Object" : CodeFlow.toDescriptorFromObject(value));
+			return result;
 		}
 		if (this.name.equals(ROOT)) {
 			TypedValue result = state.getRootContextObject();
@@ -101,9 +105,24 @@ public class VariableReference extends SpelNodeImpl {
 
 	@Override
 	public boolean isWritable(ExpressionState expressionState) throws SpelEvaluationException {
+		return isContextVariable();
+	}
+
+	/**
+	 * Return whether this reference denotes a variable in the evaluation context,
+	 * as opposed to {@code #this} or {@code #root}.
+	 */
+	boolean isContextVariable() {
 		return !(this.name.equals(THIS) || this.name.equals(ROOT));
 	}
 
+	/**
+	 * Return the name of the referenced variable.
+	 */
+	String getName() {
+		return this.name;
+	}
+
 	@Override
 	public boolean isCompilable() {
 		return (this.exitTypeDescriptor != null);
@@ -114,6 +133,12 @@ public class VariableReference extends SpelNodeImpl {
 		if (this.name.equals(ROOT)) {
 			mv.visitVarInsn(ALOAD,1);
 		}
+		else if (this.name.equals(THIS)) {
+			// The active context object is on the stack already within a compound expression
+			if (cf.lastDescriptor() == null) {
+				cf.loadTarget(mv);
+			}
+		}
 		else {
 			mv.visitVarInsn(ALOAD, 2);
 			mv.visitLdcInsn(this.name);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -372,6 +372,24 @@ public abstract class ReflectionHelper {
 		return args;
 	}
 
+	/**
+	 * Narrow the given declared type to the type of the given value, reusing the
+	 * declared descriptor as-is if the value is exactly of its non-generic type
+	 * (in which case {@link TypeDescriptor#narrow} would produce an equal one).
+	 * @param typeDescriptor the declared type of the value
+	 * @param value the value returned from a reflective invocation
+	 * @return the type descriptor for the value
+	 * @since 5.3.11
+	 */
+	static TypeDescriptor narrow(TypeDescriptor typeDescriptor, @Nullable Object value) {
+		if (value != null && value.getClass() == typeDescriptor.getType() &&
+				!typeDescriptor.isCollection() && !typeDescriptor.isMap() &&
+				!typeDescriptor.getResolvableType().hasGenerics()) {
+			return typeDescriptor;
+		}
+		return typeDescriptor.narrow(value);
+	}
+
 
 	/**
 	 * Arguments match kinds.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -42,6 +42,8 @@ public class ReflectiveMethodExecutor implements MethodExecutor {
 
 	private final Method methodToInvoke;
 
+	private final TypeDescriptor returnTypeDescriptor;
+
 	@Nullable
 	private final Integer varargsPosition;
 
@@ -60,6 +62,7 @@ public class ReflectiveMethodExecutor implements MethodExecutor {
 	public ReflectiveMethodExecutor(Method method) {
 		this.originalMethod = method;
 		this.methodToInvoke = ClassUtils.getInterfaceMethodIfPossible(method);
+		this.returnTypeDescriptor = new TypeDescriptor(new MethodParameter(method, -1));
 		if (method.isVarArgs()) {
 			this.varargsPosition = method.getParameterCount() - 1;
 		}
@@ -127,7 +130,7 @@ public class ReflectiveMethodExecutor implements MethodExecutor {
 			}
 			ReflectionUtils.makeAccessible(this.methodToInvoke);
 			Object value = this.methodToInvoke.invoke(target, arguments);
-			return new TypedValue(value, new TypeDescriptor(new MethodParameter(this.originalMethod, -1)).narrow(value));
+			return new TypedValue(value, ReflectionHelper.narrow(this.returnTypeDescriptor, value));
 		}
 		catch (Exception ex) {
 			throw new AccessException("Problem invoking method: " + this.methodToInvoke, ex);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,12 @@
 
 package org.springframework.expression.spel.support;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -192,7 +196,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				try {
 					ReflectionUtils.makeAccessible(method);
 					Object value = method.invoke(target);
-					return new TypedValue(value, invoker.typeDescriptor.narrow(value));
+					return new TypedValue(value, ReflectionHelper.narrow(invoker.typeDescriptor, value));
 				}
 				catch (Exception ex) {
 					throw new AccessException("Unable to access property '" + name + "' through getter method", ex);
@@ -214,7 +218,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				try {
 					ReflectionUtils.makeAccessible(field);
 					Object value = field.get(target);
-					return new TypedValue(value, invoker.typeDescriptor.narrow(value));
+					return new TypedValue(value, ReflectionHelper.narrow(invoker.typeDescriptor, value));
 				}
 				catch (Exception ex) {
 					throw new AccessException("Unable to access field '" + name + "'", ex);
@@ -583,14 +587,55 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 	 */
 	private static class InvokerPair {
 
+		private static final MethodType READ_TYPE = MethodType.methodType(Object.class, Object.class);
+
 		final Member member;
 
 		final TypeDescriptor typeDescriptor;
 
+		@Nullable
+		private volatile MethodHandle readHandle;
+
+		private volatile boolean readHandleUnavailable;
+
 		public InvokerPair(Member member, TypeDescriptor typeDescriptor) {
 			this.member = member;
 			this.typeDescriptor = typeDescriptor;
 		}
+
+		/**
+		 * Return a {@link MethodHandle} of type {@code (Object)Object} for reading
+		 * the member, or {@code null} if it cannot be obtained for the member,
+		 * in which case the caller should use regular reflection.
+		 */
+		@Nullable
+		MethodHandle getReadHandle() {
+			MethodHandle handle = this.readHandle;
+			if (handle == null && !this.readHandleUnavailable) {
+				try {
+					MethodHandles.Lookup lookup = MethodHandles.lookup();
+					if (this.member instanceof Method) {
+						Method method = (Method) this.member;
+						ReflectionUtils.makeAccessible(method);
+						handle = lookup.unreflect(method);
+					}
+					else {
+						Field field = (Field) this.member;
+						ReflectionUtils.makeAccessible(field);
+						handle = lookup.unreflectGetter(field);
+					}
+					if (Modifier.isStatic(this.member.getModifiers())) {
+						handle = MethodHandles.dropArguments(handle, 0, Object.class);
+					}
+					handle = handle.asType(READ_TYPE);
+					this.readHandle = handle;
+				}
+				catch (IllegalAccessException | RuntimeException ex) {
+					this.readHandleUnavailable = true;
+				}
+			}
+			return handle;
+		}
 	}
 
 
@@ -660,9 +705,12 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 
 		private final TypeDescriptor typeDescriptor;
 
+		private final InvokerPair invokerPair;
+
 		OptimalPropertyAccessor(InvokerPair target) {
 			this.member = target.member;
 			this.typeDescriptor = target.typeDescriptor;
+			this.invokerPair = target;
 		}
 
 		@Override
@@ -697,12 +745,29 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 
 		@Override
 		public TypedValue read(EvaluationContext context, @Nullable Object target, String name) throws AccessException {
+			// Use a MethodHandle if the target is known to be applicable, leaving
+			// error reporting for any other target to the reflective variant below.
+			MethodHandle handle = this.invokerPair.getReadHandle();
+			if (handle != null && (Modifier.isStatic(this.member.getModifiers()) ||
+					this.member.getDeclaringClass().isInstance(target))) {
+				Object value;
+				try {
+					value = handle.invokeExact(target);
+				}
+				catch (Throwable ex) {
+					throw new AccessException((this.member instanceof Method ?
+							"Unable to access property '" + name + "' through getter method" :
+							"Unable to access field '" + name + "'"), new InvocationTargetException(ex));
+				}
+				return new TypedValue(value, ReflectionHelper.narrow(this.typeDescriptor, value));
+			}
+
 			if (this.member instanceof Method) {
 				Method method = (Method) this.member;
 				try {
 					ReflectionUtils.makeAccessible(method);
 					Object value = method.invoke(target);
-					return new TypedValue(value, this.typeDescriptor.narrow(value));
+					return new TypedValue(value, ReflectionHelper.narrow(this.typeDescriptor, value));
 				}
 				catch (Exception ex) {
 					throw new AccessException("Unable to access property '" + name + "' through getter method", ex);
@@ -713,7 +778,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				try {
 					ReflectionUtils.makeAccessible(field);
 					Object value = field.get(target);
-					return new TypedValue(value, this.typeDescriptor.narrow(value));
+					return new TypedValue(value, ReflectionHelper.narrow(this.typeDescriptor, value));
 				}
 				catch (Exception ex) {
 					throw new AccessException("Unable to access field '" + name + "'", ex);
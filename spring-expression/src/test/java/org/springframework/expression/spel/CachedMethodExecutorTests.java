@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -58,6 +58,24 @@ public class CachedMethodExecutorTests {
 		assertMethodExecution(expression, new RootObject(), "int: 42");
 	}
 
+	@Test
+	public void testCachedExecutionForPolymorphicTargetAndParameters() {
+		Expression expression = this.parser.parseExpression("#var.echo(#arg)");
+
+		for (int i = 0; i < 3; i++) {
+			assertMethodExecution(expression, new RootObject(), 42, "int: 42");
+			assertMethodExecution(expression, new RootObject(), "Deep Thought", "String: Deep Thought");
+			assertMethodExecution(expression, new BaseObject(), "Deep Thought", "String: Deep Thought");
+			assertMethodExecution(expression, new BaseObject(), 42, "String: 42");
+			assertMethodExecution(expression, new RootObject(), null, "String: null");
+		}
+	}
+
+	private void assertMethodExecution(Expression expression, Object var, Object arg, String expected) {
+		this.context.setVariable("arg", arg);
+		assertMethodExecution(expression, var, expected);
+	}
+
 	private void assertMethodExecution(Expression expression, Object var, String expected) {
 		this.context.setVariable("var", var);
 		assertThat(expression.getValue(this.context)).isEqualTo(expected);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -280,6 +280,76 @@ public class PropertyAccessTests extends AbstractExpressionTests {
 			.satisfies(ex -> assertThat(ex.getMessageCode()).isEqualTo(SpelMessage.ARRAY_INDEX_OUT_OF_BOUNDS));
 	}
 
+	@Test
+	void propertyAccessWithPolymorphicTargets() {
+		Expression expression = parser.parseExpression("name");
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		for (int i = 0; i < 3; i++) {
+			assertThat(expression.getValue(context, new Person("p1"))).isEqualTo("p1");
+			assertThat(expression.getValue(context, new NameField("f1"))).isEqualTo("f1");
+			assertThat(expression.getValue(context, new SpecialNameField("f2"))).isEqualTo("special f2");
+			assertThat(expression.getValue(context, (Object) String.class)).isEqualTo("java.lang.String");
+			assertThat(expression.getValue(context, new Inventor("i1", null, "Serbian"))).isEqualTo("i1");
+		}
+	}
+
+	@Test
+	void propertyAccessWithContextPerEvaluation() {
+		Expression expression = parser.parseExpression("name");
+		assertThat(expression.getValue(new StandardEvaluationContext(), new Person("p1"))).isEqualTo("p1");
+		assertThat(expression.getValue(new StandardEvaluationContext(), new Person("p2"))).isEqualTo("p2");
+
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.addPropertyAccessor(new ConfigurablePropertyAccessor(Collections.singletonMap("name", "Ollie")));
+		assertThat(expression.getValue(context, new Person("p3"))).isEqualTo("Ollie");
+	}
+
+	@Test
+	void propertyAccessWithFailingGetter() {
+		Expression expression = parser.parseExpression("name");
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		FailingName target = new FailingName();
+		for (int i = 1; i <= 3; i++) {
+			assertThatExceptionOfType(SpelEvaluationException.class)
+				.isThrownBy(() -> expression.getValue(context, target))
+				.satisfies(ex -> assertThat(ex.getMessageCode()).isEqualTo(SpelMessage.EXCEPTION_DURING_PROPERTY_READ));
+			assertThat(target.invocationCount).isEqualTo(i);
+		}
+	}
+
+
+	public static class NameField {
+
+		public String name;
+
+		public NameField(String name) {
+			this.name = name;
+		}
+	}
+
+
+	public static class SpecialNameField extends NameField {
+
+		public SpecialNameField(String name) {
+			super(name);
+		}
+
+		public String getName() {
+			return "special " + this.name;
+		}
+	}
+
+
+	public static class FailingName {
+
+		int invocationCount;
+
+		public String getName() {
+			this.invocationCount++;
+			throw new IllegalStateException("No name");
+		}
+	}
+
 
 	// This can resolve the property 'flibbles' on any String (very useful...)
 	private static class StringyPropertyAccessor implements PropertyAccessor {
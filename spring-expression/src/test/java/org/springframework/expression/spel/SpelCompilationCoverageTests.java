@@ -20,9 +20,11 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -106,9 +108,12 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 	 * FunctionReference
 	 * InlineList
 	 * OpModulus
+	 * InlineMap
+	 * Selection (over collections)
+	 * Projection (over collections)
+	 * Assign (to variables)
 	 *
 	 * Not yet compiled (some may never need to be):
-	 * Assign
 	 * BeanReference
 	 * Identifier
 	 * OpDec
@@ -116,9 +121,7 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 	 * OpMatches
 	 * OpPower
 	 * OpInc
-	 * Projection
 	 * QualifiedId
-	 * Selection
 	 */
 
 
@@ -445,6 +448,167 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 		assertThat(o).isEqualTo("op");
 	}
 
+	@SuppressWarnings("unchecked")
+	@Test
+	void inlineMaps() {
+		expression = parser.parseExpression("{a:1, 'b':'two', 3:{4,5}, c:{d:true}}");
+		Object o = expression.getValue();
+		assertThat(o.toString()).isEqualTo("{a=1, b=two, 3=[4, 5], c={d=true}}");
+		assertCanCompile(expression);
+		o = expression.getValue();
+		assertThat(o.toString()).isEqualTo("{a=1, b=two, 3=[4, 5], c={d=true}}");
+		assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() ->
+				((Map<Object, Object>) expression.getValue()).put("e", 6));
+
+		expression = parser.parseExpression("{a:1, b:'two'}['b']");
+		assertThat(expression.getValue()).isEqualTo("two");
+		assertCanCompile(expression);
+		assertThat(expression.getValue()).isEqualTo("two");
+
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.setVariable("a", 42);
+		context.setVariable("b", "abc");
+		expression = parser.parseExpression("{name:#b, #b:#a, 'sub':#b.substring(1)}");
+		o = expression.getValue(context);
+		assertThat(o.toString()).isEqualTo("{name=abc, abc=42, sub=bc}");
+		assertCanCompile(expression);
+		context.setVariable("a", 43);
+		o = expression.getValue(context);
+		assertThat(o.toString()).isEqualTo("{name=abc, abc=43, sub=bc}");
+		assertThat(((Map<Object, Object>) expression.getValue(context)).put("x", 1)).isNull();
+	}
+
+	@Test
+	void selection() {
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.setVariable("list", Arrays.asList(1, 2, 3, 4, 5));
+
+		expression = parser.parseExpression("#list.?[#this > 2]");
+		assertThat(expression.getValue(context)).isEqualTo(Arrays.asList(3, 4, 5));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context)).isEqualTo(Arrays.asList(3, 4, 5));
+		context.setVariable("list", Arrays.asList(9, 1));
+		assertThat(expression.getValue(context)).isEqualTo(Collections.singletonList(9));
+
+		context.setVariable("list", Arrays.asList(1, 2, 3, 4, 5));
+		expression = parser.parseExpression("#list.^[#this > 2]");
+		assertThat(expression.getValue(context)).isEqualTo(3);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context)).isEqualTo(3);
+
+		expression = parser.parseExpression("#list.$[#this > 2]");
+		assertThat(expression.getValue(context)).isEqualTo(5);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context)).isEqualTo(5);
+
+		expression = parser.parseExpression("#list.^[#this > 10]");
+		assertThat(expression.getValue(context)).isNull();
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context)).isNull();
+
+		expression = parser.parseExpression("#list?.?[#this > 2]");
+		assertThat(expression.getValue(context)).isEqualTo(Arrays.asList(3, 4, 5));
+		assertCanCompile(expression);
+		context.setVariable("list", null);
+		assertThat(expression.getValue(context)).isNull();
+
+		// Properties of the element and of the root object
+		Set<String> names = new LinkedHashSet<>(Arrays.asList("abc", "de", "fghi"));
+		context = new StandardEvaluationContext(new TestClass1());
+		context.setVariable("names", names);
+		expression = parser.parseExpression("#names.?[length() > #root.index2 - 1]");
+		assertThat(expression.getValue(context)).isEqualTo(Arrays.asList("abc", "fghi"));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context)).isEqualTo(Arrays.asList("abc", "fghi"));
+
+		// Selection over a map is not compiled
+		context.setVariable("map", Collections.singletonMap("a", 1));
+		expression = parser.parseExpression("#map.?[value > 0]");
+		assertThat(expression.getValue(context)).isEqualTo(Collections.singletonMap("a", 1));
+		assertCantCompile(expression);
+	}
+
+	@Test
+	void projection() {
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.setVariable("list", Arrays.asList("a", "bc", "def"));
+
+		expression = parser.parseExpression("#list.![length()]");
+		assertThat(expression.getValue(context)).isEqualTo(Arrays.asList(1, 2, 3));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context)).isEqualTo(Arrays.asList(1, 2, 3));
+
+		expression = parser.parseExpression("#list.![#this.toUpperCase()].?[#this != 'BC']");
+		assertThat(expression.getValue(context)).isEqualTo(Arrays.asList("A", "DEF"));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context)).isEqualTo(Arrays.asList("A", "DEF"));
+
+		expression = parser.parseExpression("#list.![{name:#this, size:length()}][2]");
+		assertThat(expression.getValue(context).toString()).isEqualTo("{name=def, size=3}");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context).toString()).isEqualTo("{name=def, size=3}");
+
+		expression = parser.parseExpression("#list?.![length() * 2]");
+		assertThat(expression.getValue(context)).isEqualTo(Arrays.asList(2, 4, 6));
+		assertCanCompile(expression);
+		context.setVariable("list", null);
+		assertThat(expression.getValue(context)).isNull();
+
+		// Projection over an array is not compiled since it produces a typed array
+		context.setVariable("array", new String[] {"a", "bc"});
+		expression = parser.parseExpression("#array.![length()]");
+		assertThat(expression.getValue(context)).isEqualTo(new Integer[] {1, 2});
+		assertCantCompile(expression);
+	}
+
+	@Test
+	void assignToVariable() {
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		expression = parser.parseExpression("#a = 1 + 2");
+		assertThat(expression.getValue(context)).isEqualTo(3);
+		assertThat(context.lookupVariable("a")).isEqualTo(3);
+		assertCanCompile(expression);
+		context.setVariable("a", null);
+		assertThat(expression.getValue(context)).isEqualTo(3);
+		assertThat(context.lookupVariable("a")).isEqualTo(3);
+
+		expression = parser.parseExpression("(#b = 'abc').length()");
+		assertThat(expression.getValue(context)).isEqualTo(3);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context)).isEqualTo(3);
+		assertThat(context.lookupVariable("b")).isEqualTo("abc");
+
+		// Assignment to a property is not compiled
+		expression = parser.parseExpression("index1 = 5");
+		TestClass1 tc = new TestClass1();
+		assertThat(expression.getValue(tc)).isEqualTo(5);
+		assertCantCompile(expression);
+	}
+
+	@Test
+	void indexIntoCollection() {
+		StandardEvaluationContext context = new StandardEvaluationContext(new TestClass1());
+		context.setVariable("set", new LinkedHashSet<>(Arrays.asList("a", "b", "c")));
+
+		expression = parser.parseExpression("#set[1]");
+		assertThat(expression.getValue(context)).isEqualTo("b");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context)).isEqualTo("b");
+
+		// Index is evaluated against the root object
+		expression = parser.parseExpression("#set[index1 + 1]");
+		assertThat(expression.getValue(context)).isEqualTo("c");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context)).isEqualTo("c");
+
+		// Also within a selection, where the element is the active context object
+		context.setVariable("list", Arrays.asList("x", "y"));
+		expression = parser.parseExpression("#list.![#this + #set[index1]]");
+		assertThat(expression.getValue(context)).isEqualTo(Arrays.asList("xb", "yb"));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context)).isEqualTo(Arrays.asList("xb", "yb"));
+	}
+
 	@Test
 	void intLiteral() throws Exception {
 		expression = parser.parseExpression("42");
@@ -1028,7 +1192,7 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 
 		expression = parser.parseExpression("#negate(#ints.?[#this<2][0])");
 		assertThat(expression.getValue(context, Integer.class).toString()).isEqualTo("-1");
-		// Selection isn't compilable.
+		// Selection over an array isn't compilable.
 		assertThat(((SpelNodeImpl)((SpelExpression) expression).getAST()).isCompilable()).isFalse();
 	}
 
@@ -26,6 +26,7 @@ import org.apache.commons.logging.LogFactory;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.DirectMethodInvoker;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.core.annotation.SynthesizingMethodParameter;
@@ -74,6 +75,9 @@ public class HandlerMethod {
 	@Nullable
 	private HandlerMethod resolvedFromHandlerMethod;
 
+	@Nullable
+	private volatile DirectMethodInvoker methodInvoker;
+
 	protected Log logger = defaultLogger;
 
 
@@ -142,6 +146,7 @@ public class HandlerMethod {
 		this.bridgedMethod = handlerMethod.bridgedMethod;
 		this.parameters = handlerMethod.parameters;
 		this.resolvedFromHandlerMethod = handlerMethod.resolvedFromHandlerMethod;
+		this.methodInvoker = handlerMethod.getMethodInvoker();
 	}
 
 	/**
@@ -157,6 +162,7 @@ public class HandlerMethod {
 		this.bridgedMethod = handlerMethod.bridgedMethod;
 		this.parameters = handlerMethod.parameters;
 		this.resolvedFromHandlerMethod = handlerMethod;
+		this.methodInvoker = handlerMethod.getMethodInvoker();
 	}
 
 
@@ -218,6 +224,22 @@ public class HandlerMethod {
 		return this.bridgedMethod;
 	}
 
+	/**
+	 * Return the invoker for the {@linkplain #getBridgedMethod() bridged method},
+	 * resolved on first access and shared with the {@code HandlerMethod} instances
+	 * created from this one.
+	 * @since 5.3.11
+	 * @see #createWithResolvedBean()
+	 */
+	protected DirectMethodInvoker getMethodInvoker() {
+		DirectMethodInvoker invoker = this.methodInvoker;
+		if (invoker == null) {
+			invoker = DirectMethodInvoker.forMethod(this.bridgedMethod);
+			this.methodInvoker = invoker;
+		}
+		return invoker;
+	}
+
 	/**
 	 * Return the method parameters for this handler method.
 	 */
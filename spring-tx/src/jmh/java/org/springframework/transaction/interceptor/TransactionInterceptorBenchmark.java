@@ -0,0 +1,159 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.interceptor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionManager;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * Benchmark for the per-call overhead of {@link TransactionInterceptor} for
+ * {@code @Transactional} methods, using a no-op transaction manager.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class TransactionInterceptorBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		/**
+		 * Number of target classes sharing the interceptor for the same interface method.
+		 */
+		@Param({"1", "2"})
+		public int targetCount;
+
+		@Param({"true", "false"})
+		public boolean proxyTargetClass;
+
+		public Repository[] repositories;
+
+		public String value = "value";
+
+		@Setup(Level.Trial)
+		public void setup() {
+			TransactionInterceptor interceptor = new TransactionInterceptor(
+					(TransactionManager) new NoOpTransactionManager(), new AnnotationTransactionAttributeSource());
+			this.repositories = new Repository[this.targetCount];
+			for (int i = 0; i < this.targetCount; i++) {
+				ProxyFactory proxyFactory = new ProxyFactory(i % 2 == 0 ? new DefaultRepository() : new OtherRepository());
+				proxyFactory.setProxyTargetClass(this.proxyTargetClass);
+				proxyFactory.addAdvice(interceptor);
+				this.repositories[i] = (Repository) proxyFactory.getProxy();
+			}
+		}
+	}
+
+	@Benchmark
+	public Object transactionalMethod(BenchmarkState state) {
+		Object result = null;
+		for (Repository repository : state.repositories) {
+			result = repository.save(state.value);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public Object readOnlyTransactionalMethod(BenchmarkState state) {
+		Object result = null;
+		for (Repository repository : state.repositories) {
+			result = repository.find(state.value);
+		}
+		return result;
+	}
+
+	@Benchmark
+	public Object nonTransactionalMethod(BenchmarkState state) {
+		Object result = null;
+		for (Repository repository : state.repositories) {
+			result = repository.describe(state.value);
+		}
+		return result;
+	}
+
+
+	public interface Repository {
+
+		@Transactional
+		Object save(Object value);
+
+		@Transactional(readOnly = true)
+		Object find(Object key);
+
+		Object describe(Object value);
+	}
+
+
+	public static class DefaultRepository implements Repository {
+
+		@Override
+		public Object save(Object value) {
+			return value;
+		}
+
+		@Override
+		public Object find(Object key) {
+			return key;
+		}
+
+		@Override
+		public Object describe(Object value) {
+			return value;
+		}
+	}
+
+
+	public static class OtherRepository extends DefaultRepository {
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+	}
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+
+/**
+ * Benchmark for the overhead of transaction synchronization state management,
+ * both for direct {@link TransactionSynchronizationManager} access and for
+ * complete {@code @Transactional} calls against a no-op transaction manager.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class TransactionSynchronizationManagerBenchmark {
+
+	@State(Scope.Thread)
+	public static class BenchmarkState {
+
+		public final Object resourceKey = new Object();
+
+		public final Object resource = new Object();
+
+		public TransactionTemplate transactionTemplate;
+
+		public TransactionalService service;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			NoOpTransactionManager transactionManager = new NoOpTransactionManager();
+			this.transactionTemplate = new TransactionTemplate(transactionManager);
+			ProxyFactory proxyFactory = new ProxyFactory(new DefaultTransactionalService());
+			proxyFactory.addAdvice(new TransactionInterceptor(transactionManager, new AnnotationTransactionAttributeSource()));
+			this.service = (TransactionalService) proxyFactory.getProxy();
+		}
+	}
+
+	@Benchmark
+	public Object getResourceOutsideOfTransaction(BenchmarkState state) {
+		return TransactionSynchronizationManager.getResource(state.resourceKey);
+	}
+
+	@Benchmark
+	public Object bindAndUnbindResource(BenchmarkState state) {
+		TransactionSynchronizationManager.bindResource(state.resourceKey, state.resource);
+		return TransactionSynchronizationManager.unbindResource(state.resourceKey);
+	}
+
+	@Benchmark
+	public void synchronizationLifecycle(Blackhole bh) {
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setCurrentTransactionName("benchmark");
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		bh.consume(TransactionSynchronizationManager.isSynchronizationActive());
+		bh.consume(TransactionSynchronizationManager.getSynchronizations());
+		TransactionSynchronizationManager.clear();
+	}
+
+	@Benchmark
+	public Object transactionTemplate(BenchmarkState state) {
+		return state.transactionTemplate.execute(status -> state.resource);
+	}
+
+	@Benchmark
+	public Object transactionalMethod(BenchmarkState state) {
+		return state.service.find(state.resourceKey);
+	}
+
+
+	public interface TransactionalService {
+
+		@Transactional
+		Object find(Object key);
+	}
+
+
+	public static class DefaultTransactionalService implements TransactionalService {
+
+		@Override
+		public Object find(Object key) {
+			return TransactionSynchronizationManager.getResource(key);
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+	}
+
+}
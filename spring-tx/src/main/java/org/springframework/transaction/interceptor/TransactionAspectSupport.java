@@ -39,6 +39,7 @@ import org.springframework.transaction.support.DefaultTransactionStatus;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -177,6 +178,23 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
     private final ConcurrentMap<Method, ReactiveTransactionSupport> transactionSupportCache =
             new ConcurrentReferenceHashMap<>(1024);
 
+    /**
+     * 每个方法解析好的事务执行计划，key是方法，value记录了第一次调用时的targetClass
+     */
+    private final ConcurrentMap<Method, TransactionPlan> transactionPlanCache =
+            new ConcurrentReferenceHashMap<>(1024);
+
+    /**
+     * 同一个方法被多个targetClass调用时(比如接口方法)，就使用 MethodClassKey 作为key
+     */
+    private final ConcurrentMap<MethodClassKey, TransactionPlan> targetClassTransactionPlanCache =
+            new ConcurrentReferenceHashMap<>(256);
+
+    /**
+     * 子类重写了 determineTransactionManager 时，可能每次调用返回不同的事务管理器，就不能缓存事务管理器了
+     */
+    private final boolean transactionManagerCacheable;
+
 
     protected TransactionAspectSupport() {
         if (reactiveStreamsPresent) {
@@ -184,6 +202,10 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
         } else {
             this.reactiveAdapterRegistry = null;
         }
+        Method determineMethod = ReflectionUtils.findMethod(
+                getClass(), "determineTransactionManager", TransactionAttribute.class);
+        this.transactionManagerCacheable =
+                (determineMethod == null || determineMethod.getDeclaringClass() == TransactionAspectSupport.class);
     }
 
 
@@ -194,6 +216,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
      */
     public void setTransactionManagerBeanName(@Nullable String transactionManagerBeanName) {
         this.transactionManagerBeanName = transactionManagerBeanName;
+        clearTransactionPlanCache();
     }
 
     /**
@@ -215,6 +238,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
      */
     public void setTransactionManager(@Nullable TransactionManager transactionManager) {
         this.transactionManager = transactionManager;
+        clearTransactionPlanCache();
     }
 
     /**
@@ -243,6 +267,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
         NameMatchTransactionAttributeSource tas = new NameMatchTransactionAttributeSource();
         tas.setProperties(transactionAttributes);
         this.transactionAttributeSource = tas;
+        clearTransactionPlanCache();
     }
 
     /**
@@ -255,6 +280,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
      */
     public void setTransactionAttributeSources(TransactionAttributeSource... transactionAttributeSources) {
         this.transactionAttributeSource = new CompositeTransactionAttributeSource(transactionAttributeSources);
+        clearTransactionPlanCache();
     }
 
     /**
@@ -268,6 +294,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
      */
     public void setTransactionAttributeSource(@Nullable TransactionAttributeSource transactionAttributeSource) {
         this.transactionAttributeSource = transactionAttributeSource;
+        clearTransactionPlanCache();
     }
 
     /**
@@ -284,6 +311,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
     @Override
     public void setBeanFactory(@Nullable BeanFactory beanFactory) {
         this.beanFactory = beanFactory;
+        clearTransactionPlanCache();
     }
 
     /**
@@ -327,15 +355,19 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
     protected Object invokeWithinTransaction(Method method, @Nullable Class<?> targetClass,
                                              final InvocationCallback invocation) throws Throwable {
 
-        // 用来解析 方法、类上是否有@Transactional
-        // If the transaction attribute is null, the method is non-transactional.
-        TransactionAttributeSource tas = getTransactionAttributeSource();
+        /**
+         * 拿到预先解析好的事务执行计划，第一次调用时才解析，之后每次调用都不需要再解析
+         * {@link TransactionAspectSupport#getTransactionPlan(Method, Class)}
+         * */
+        TransactionPlan plan = getTransactionPlan(method, targetClass);
         // 拿到@Transactional注解，解析后的属性值
-        final TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
+        // If the transaction attribute is null, the method is non-transactional.
+        final TransactionAttribute txAttr = plan.transactionAttribute;
         /**
          * 推断出要用的事务管理器：@Transactional("tm1")  -> 默认的(通过TransactionManagementConfigurer来设置) -> BeanFactory中找TransactionManager
          * */
-        final TransactionManager tm = determineTransactionManager(txAttr);
+        final TransactionManager tm = (plan.transactionManagerResolved ?
+                plan.transactionManager : determineTransactionManager(txAttr));
 
         // 响应式编程的处理，没写过，不清楚是啥东东
         if (this.reactiveAdapterRegistry != null && tm instanceof ReactiveTransactionManager) {
@@ -376,7 +408,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
          * */
         PlatformTransactionManager ptm = asPlatformTransactionManager(tm);
         // 就是一个method的标识
-        final String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
+        final String joinpointIdentification = plan.joinpointIdentification;
 
         /**
          * 没有@Transactional注解  或者 事务管理器不是CallbackPreferringPlatformTransactionManager类型
@@ -387,7 +419,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
              * 就是使用DataSource创建Connection，然后设置为非自动提交 `Connection.setAutoCommit(false)`
              * */
             // Standard transaction demarcation with getTransaction and commit/rollback calls.
-            TransactionInfo txInfo = createTransactionIfNecessary(ptm, txAttr, joinpointIdentification);
+            TransactionInfo txInfo = createTransactionIfNecessary(ptm, plan.namedTransactionAttribute, joinpointIdentification);
 
             Object retVal;
             try {
@@ -494,6 +526,69 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
     protected void clearTransactionManagerCache() {
         this.transactionManagerCache.clear();
         this.beanFactory = null;
+        clearTransactionPlanCache();
+    }
+
+    /**
+     * Clear the cache of transaction plans, i.e. of the transaction attributes,
+     * transaction managers and method identifications resolved per method.
+     * <p>Called whenever the configuration of this aspect changes; to be called
+     * by subclasses if the outcome of {@link #getTransactionAttributeSource()}
+     * or {@link #methodIdentification(Method, Class)} changes otherwise.
+     * @since 5.3.11
+     */
+    protected void clearTransactionPlanCache() {
+        this.transactionPlanCache.clear();
+        this.targetClassTransactionPlanCache.clear();
+    }
+
+    /**
+     * 拿到方法的事务执行计划，没有就解析并缓存起来。
+     * 大部分方法只会有一个targetClass，这种情况直接用Method作为key，不需要创建 MethodClassKey
+     */
+    private TransactionPlan getTransactionPlan(Method method, @Nullable Class<?> targetClass) {
+        TransactionPlan plan = this.transactionPlanCache.get(method);
+        if (plan != null && plan.targetClass == targetClass) {
+            return plan;
+        }
+        if (plan == null) {
+            plan = createTransactionPlan(method, targetClass);
+            TransactionPlan existing = this.transactionPlanCache.putIfAbsent(method, plan);
+            if (existing == null || existing.targetClass == targetClass) {
+                return (existing != null ? existing : plan);
+            }
+        }
+        MethodClassKey cacheKey = new MethodClassKey(method, targetClass);
+        plan = this.targetClassTransactionPlanCache.get(cacheKey);
+        if (plan == null) {
+            plan = createTransactionPlan(method, targetClass);
+            this.targetClassTransactionPlanCache.put(cacheKey, plan);
+        }
+        return plan;
+    }
+
+    /**
+     * 解析事务属性、事务管理器和方法标识
+     */
+    @SuppressWarnings("serial")
+    private TransactionPlan createTransactionPlan(Method method, @Nullable Class<?> targetClass) {
+        // 用来解析 方法、类上是否有@Transactional
+        TransactionAttributeSource tas = getTransactionAttributeSource();
+        TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
+        TransactionManager tm = (this.transactionManagerCacheable ? determineTransactionManager(txAttr) : null);
+        String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
+        // If no name specified, apply method identification as transaction name.
+        TransactionAttribute namedTxAttr = txAttr;
+        if (txAttr != null && txAttr.getName() == null) {
+            namedTxAttr = new DelegatingTransactionAttribute(txAttr) {
+                @Override
+                public String getName() {
+                    return joinpointIdentification;
+                }
+            };
+        }
+        return new TransactionPlan(targetClass, txAttr, namedTxAttr, tm, this.transactionManagerCacheable,
+                joinpointIdentification);
     }
 
     /**
@@ -774,6 +869,43 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
     }
 
 
+    /**
+     * Transaction setup resolved once per method and target class, so that the
+     * invocation path does not need to look up transaction attributes, resolve
+     * the transaction manager or build a method identification on every call.
+     */
+    private static final class TransactionPlan {
+
+        @Nullable
+        final Class<?> targetClass;
+
+        @Nullable
+        final TransactionAttribute transactionAttribute;
+
+        @Nullable
+        final TransactionAttribute namedTransactionAttribute;
+
+        @Nullable
+        final TransactionManager transactionManager;
+
+        final boolean transactionManagerResolved;
+
+        final String joinpointIdentification;
+
+        TransactionPlan(@Nullable Class<?> targetClass, @Nullable TransactionAttribute transactionAttribute,
+                @Nullable TransactionAttribute namedTransactionAttribute, @Nullable TransactionManager transactionManager,
+                boolean transactionManagerResolved, String joinpointIdentification) {
+
+            this.targetClass = targetClass;
+            this.transactionAttribute = transactionAttribute;
+            this.namedTransactionAttribute = namedTransactionAttribute;
+            this.transactionManager = transactionManager;
+            this.transactionManagerResolved = transactionManagerResolved;
+            this.joinpointIdentification = joinpointIdentification;
+        }
+    }
+
+
     /**
      * Opaque object used to hold transaction information. Subclasses
      * must pass it back to methods on this class, but not see its internals.
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+
+/**
+ * Default {@link TransactionSynchronizationStateHolder}, binding the state
+ * to the current thread through a single {@link ThreadLocal}.
+ *
+ * @author agent
+ * @since 5.3.11
+ */
+public class ThreadLocalTransactionSynchronizationStateHolder implements TransactionSynchronizationStateHolder {
+
+	private final ThreadLocal<TransactionSynchronizationState> state =
+			new NamedThreadLocal<>("Transaction synchronization state");
+
+
+	@Override
+	@Nullable
+	public TransactionSynchronizationState getState() {
+		return this.state.get();
+	}
+
+	@Override
+	public void setState(TransactionSynchronizationState state) {
+		this.state.set(state);
+	}
+
+	@Override
+	public void removeState() {
+		this.state.remove();
+	}
+
+}
@@ -18,7 +18,6 @@ package org.springframework.transaction.support;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.springframework.context.ApplicationEvent;
-import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.OrderComparator;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -69,6 +68,11 @@ import java.util.*;
  * within a JTA transaction, e.g. a JDBC Connection or a Hibernate Session for
  * any given DataSource or SessionFactory, respectively.
  *
+ * <p>As of 5.3.11, all state for the current thread is kept in a single
+ * {@link TransactionSynchronizationState} that is obtained from a pluggable
+ * {@link TransactionSynchronizationStateHolder} (thread-bound by default), and
+ * which can be handed over to another thread via {@link #runWithState}.
+ *
  * @author Juergen Hoeller
  * @since 02.06.2003
  * @see #isSynchronizationActive
@@ -82,7 +86,9 @@ import java.util.*;
 public abstract class TransactionSynchronizationManager {
 
     /**
-     * 事务资源，就是当前事物内涉及到的所有资源（数据库连接）
+     * 保存事务同步状态的策略，默认是每个线程一个 {@link TransactionSynchronizationState}，只需一次 ThreadLocal 查找就能拿到全部状态：
+     *
+     * resources：事务资源，就是当前事物内涉及到的所有资源（数据库连接）
      *
      * 比如数据库连接：
      *      Key：DataSource 对象
@@ -98,12 +104,8 @@ public abstract class TransactionSynchronizationManager {
      *      - 暂停当前事务
      *      - 完成当前事务(rollback或者commit)
      *      Tips：{@link TransactionSynchronizationManager#doUnbindResource(Object)}
-     */
-    private static final ThreadLocal<Map<Object, Object>> resources =
-            new NamedThreadLocal<>("Transactional resources");
-
-    /**
-     * 事务同步资源，就是在事务中产生的 非事务管理器数据源生成的连接或者是用于在事务完成时(rollback或者commit)要触发事件，都算是事务同步资源
+     *
+     * synchronizations：事务同步资源，就是在事务中产生的 非事务管理器数据源生成的连接或者是用于在事务完成时(rollback或者commit)要触发事件，都算是事务同步资源
      *
      * 比如：
      *      - ConnectionSynchronization
@@ -119,32 +121,126 @@ public abstract class TransactionSynchronizationManager {
      *
      * 什么时候会设置值：简单来说就是Java虚拟机栈中存在@Transactional的方法(就是有{@link TransactionInterceptor#invoke(MethodInvocation)})
      *      具体一点就是执行完 {@link TransactionAspectSupport#createTransactionIfNecessary(PlatformTransactionManager, TransactionAttribute, String)}
-     *      该属性就会被初始化，在使用过程中会根据 `synchronizations.get() != null ` 来判断是激活了事务同步 {@link TransactionSynchronizationManager#isSynchronizationActive()}
+     *      就会激活事务同步 {@link TransactionSynchronizationManager#isSynchronizationActive()}，
+     *      但是 synchronizations 集合要等到第一次注册事务同步时才会创建
      *
      * 什么时候清空该属性值：
      *      1. 暂停当前事务
      *      2. 完成当前事务(rollback或者commit)
      *      Tips：{@link TransactionSynchronizationManager#clear()}
+     *
+     * 除此之外还有当前事务的名字、是否只读、隔离级别、是否实际激活了事务(当前线程的事务不是空事务 就是 true)。
+     * 状态为空时会从 stateHolder 中移除，避免线程池中的线程残留状态
+     */
+    private static volatile TransactionSynchronizationStateHolder stateHolder =
+            new ThreadLocalTransactionSynchronizationStateHolder();
+
+
+    //-------------------------------------------------------------------------
+    // Management of the transaction synchronization state holder
+    //-------------------------------------------------------------------------
+
+    /**
+     * Set the strategy for associating the transaction synchronization state
+     * with the current execution context.
+     * <p>Default is a {@link ThreadLocalTransactionSynchronizationStateHolder}.
+     * Must not be changed while transactions are in progress, since state held
+     * by the previous strategy is not carried over.
+     * @param holder the state holder to use
+     * @since 5.3.11
      */
-    private static final ThreadLocal<Set<TransactionSynchronization>> synchronizations =
-            new NamedThreadLocal<>("Transaction synchronizations");
+    public static void setStateHolder(TransactionSynchronizationStateHolder holder) {
+        Assert.notNull(holder, "TransactionSynchronizationStateHolder must not be null");
+        stateHolder = holder;
+    }
+
+    /**
+     * Return the strategy currently used for associating the transaction
+     * synchronization state with the current execution context.
+     * @since 5.3.11
+     */
+    public static TransactionSynchronizationStateHolder getStateHolder() {
+        return stateHolder;
+    }
+
+    /**
+     * Return the complete transaction synchronization state for the current
+     * thread, for handing it over to another thread via {@link #runWithState}.
+     * <p>An empty state is created and associated with the current thread if
+     * there is none yet, so that resources bound or synchronizations registered
+     * by the other thread become visible to the current thread as well.
+     * @return the current state
+     * @since 5.3.11
+     */
+    public static TransactionSynchronizationState getCurrentState() {
+        return obtainState();
+    }
+
+    /**
+     * Run the given task with the given transaction synchronization state
+     * associated with the current thread, restoring the previously associated
+     * state afterwards.
+     * <p>Allows a unit of work within a transaction to continue on another
+     * thread, e.g. a subtask forked from and joined by the transactional code.
+     * Since the state is shared rather than copied, it must not be accessed by
+     * several threads concurrently; changes made by the task, such as newly
+     * bound resources, are visible to the original thread once the task has
+     * completed. The given state remains associated with the current thread
+     * for the duration of the task even once it becomes empty, e.g. when the
+     * task unbinds the last resource before binding a new one.
+     * @param state the state to use, as obtained from {@link #getCurrentState()}
+     * on the original thread, or {@code null} to run the task without any state
+     * @param task the task to run
+     * @since 5.3.11
+     */
+    public static void runWithState(@Nullable TransactionSynchronizationState state, Runnable task) {
+        TransactionSynchronizationStateHolder holder = stateHolder;
+        TransactionSynchronizationState previous = holder.getState();
+        bindState(holder, state);
+        if (state != null) {
+            state.borrow();
+        }
+        try {
+            task.run();
+        } finally {
+            if (state != null) {
+                state.giveBack();
+            }
+            bindState(holder, previous);
+        }
+    }
 
-    private static final ThreadLocal<String> currentTransactionName =
-            new NamedThreadLocal<>("Current transaction name");
+    private static void bindState(TransactionSynchronizationStateHolder holder,
+            @Nullable TransactionSynchronizationState state) {
 
-    private static final ThreadLocal<Boolean> currentTransactionReadOnly =
-            new NamedThreadLocal<>("Current transaction read-only status");
+        if (state != null) {
+            holder.setState(state);
+        } else {
+            holder.removeState();
+        }
+    }
 
-    private static final ThreadLocal<Integer> currentTransactionIsolationLevel =
-            new NamedThreadLocal<>("Current transaction isolation level");
+    /**
+     * 获取当前状态，不存在就创建并保存到 stateHolder
+     */
+    private static TransactionSynchronizationState obtainState() {
+        TransactionSynchronizationStateHolder holder = stateHolder;
+        TransactionSynchronizationState state = holder.getState();
+        if (state == null) {
+            state = new TransactionSynchronizationState();
+            holder.setState(state);
+        }
+        return state;
+    }
 
     /**
-     * 实际激活的事务。
-     *  - 当前线程的事务不是空事务 就是 true
-     *  - 空事务 或者 执行非事务方法就是 false
+     * Remove entire state if empty, unless it is borrowed via runWithState...
      */
-    private static final ThreadLocal<Boolean> actualTransactionActive =
-            new NamedThreadLocal<>("Actual transaction active");
+    private static void releaseIfEmpty(TransactionSynchronizationState state) {
+        if (state.isEmpty() && !state.isBorrowed()) {
+            stateHolder.removeState();
+        }
+    }
 
 
     //-------------------------------------------------------------------------
@@ -161,7 +257,8 @@ public abstract class TransactionSynchronizationManager {
      * @see #hasResource
      */
     public static Map<Object, Object> getResourceMap() {
-        Map<Object, Object> map = resources.get();
+        TransactionSynchronizationState state = stateHolder.getState();
+        Map<Object, Object> map = (state != null ? state.resources : null);
         return (map != null ? Collections.unmodifiableMap(map) : Collections.emptyMap());
     }
 
@@ -203,7 +300,8 @@ public abstract class TransactionSynchronizationManager {
     @Nullable
     private static Object doGetResource(Object actualKey) {
         // 从ThreadLocal中获取
-        Map<Object, Object> map = resources.get();
+        TransactionSynchronizationState state = stateHolder.getState();
+        Map<Object, Object> map = (state != null ? state.resources : null);
         if (map == null) {
             return null;
         }
@@ -219,7 +317,8 @@ public abstract class TransactionSynchronizationManager {
             map.remove(actualKey);
             // Remove entire ThreadLocal if empty...
             if (map.isEmpty()) {
-                resources.remove();
+                state.resources = null;
+                releaseIfEmpty(state);
             }
             value = null;
         }
@@ -238,14 +337,8 @@ public abstract class TransactionSynchronizationManager {
         // 拿到key
         Object actualKey = TransactionSynchronizationUtils.unwrapResourceIfNecessary(key);
         Assert.notNull(value, "Value must not be null");
-        Map<Object, Object> map = resources.get();
         // set ThreadLocal Map if none found
-        if (map == null) {
-            // 初始化
-            map = new HashMap<>();
-            // 保存到 ThreadLocal
-            resources.set(map);
-        }
+        Map<Object, Object> map = obtainState().obtainResources();
         Object oldValue = map.put(actualKey, value);
         // Transparently suppress a ResourceHolder that was marked as void...
         if (oldValue instanceof ResourceHolder && ((ResourceHolder) oldValue).isVoid()) {
@@ -294,14 +387,16 @@ public abstract class TransactionSynchronizationManager {
      */
     @Nullable
     private static Object doUnbindResource(Object actualKey) {
-        Map<Object, Object> map = resources.get();
+        TransactionSynchronizationState state = stateHolder.getState();
+        Map<Object, Object> map = (state != null ? state.resources : null);
         if (map == null) {
             return null;
         }
         Object value = map.remove(actualKey);
         // Remove entire ThreadLocal if empty...
         if (map.isEmpty()) {
-            resources.remove();
+            state.resources = null;
+            releaseIfEmpty(state);
         }
         // Transparently suppress a ResourceHolder that was marked as void...
         if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
@@ -322,7 +417,8 @@ public abstract class TransactionSynchronizationManager {
      * @see #registerSynchronization
      */
     public static boolean isSynchronizationActive() {
-        return (synchronizations.get() != null);
+        TransactionSynchronizationState state = stateHolder.getState();
+        return (state != null && state.synchronizationActive);
     }
 
     /**
@@ -331,10 +427,12 @@ public abstract class TransactionSynchronizationManager {
      * @throws IllegalStateException if synchronization is already active
      */
     public static void initSynchronization() throws IllegalStateException {
-        if (isSynchronizationActive()) {
+        TransactionSynchronizationState state = obtainState();
+        if (state.synchronizationActive) {
             throw new IllegalStateException("Cannot activate transaction synchronization - already active");
         }
-        synchronizations.set(new LinkedHashSet<>());
+        // 集合延迟到第一次注册事务同步时才创建
+        state.synchronizationActive = true;
     }
 
     /**
@@ -351,11 +449,11 @@ public abstract class TransactionSynchronizationManager {
             throws IllegalStateException {
 
         Assert.notNull(synchronization, "TransactionSynchronization must not be null");
-        Set<TransactionSynchronization> synchs = synchronizations.get();
-        if (synchs == null) {
+        TransactionSynchronizationState state = stateHolder.getState();
+        if (state == null || !state.synchronizationActive) {
             throw new IllegalStateException("Transaction synchronization is not active");
         }
-        synchs.add(synchronization);
+        state.obtainSynchronizations().add(synchronization);
     }
 
     /**
@@ -366,14 +464,15 @@ public abstract class TransactionSynchronizationManager {
      * @see TransactionSynchronization
      */
     public static List<TransactionSynchronization> getSynchronizations() throws IllegalStateException {
-        Set<TransactionSynchronization> synchs = synchronizations.get();
-        if (synchs == null) {
+        TransactionSynchronizationState state = stateHolder.getState();
+        if (state == null || !state.synchronizationActive) {
             throw new IllegalStateException("Transaction synchronization is not active");
         }
+        Set<TransactionSynchronization> synchs = state.synchronizations;
         // Return unmodifiable snapshot, to avoid ConcurrentModificationExceptions
         // while iterating and invoking synchronization callbacks that in turn
         // might register further synchronizations.
-        if (synchs.isEmpty()) {
+        if (synchs == null || synchs.isEmpty()) {
             return Collections.emptyList();
         } else {
             // Sort lazily here, not in registerSynchronization.
@@ -389,10 +488,13 @@ public abstract class TransactionSynchronizationManager {
      * @throws IllegalStateException if synchronization is not active
      */
     public static void clearSynchronization() throws IllegalStateException {
-        if (!isSynchronizationActive()) {
+        TransactionSynchronizationState state = stateHolder.getState();
+        if (state == null || !state.synchronizationActive) {
             throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
         }
-        synchronizations.remove();
+        state.synchronizationActive = false;
+        state.synchronizations = null;
+        releaseIfEmpty(state);
     }
 
 
@@ -407,7 +509,15 @@ public abstract class TransactionSynchronizationManager {
      * @see org.springframework.transaction.TransactionDefinition#getName()
      */
     public static void setCurrentTransactionName(@Nullable String name) {
-        currentTransactionName.set(name);
+        if (name != null) {
+            obtainState().currentTransactionName = name;
+        } else {
+            TransactionSynchronizationState state = stateHolder.getState();
+            if (state != null) {
+                state.currentTransactionName = null;
+                releaseIfEmpty(state);
+            }
+        }
     }
 
     /**
@@ -418,7 +528,8 @@ public abstract class TransactionSynchronizationManager {
      */
     @Nullable
     public static String getCurrentTransactionName() {
-        return currentTransactionName.get();
+        TransactionSynchronizationState state = stateHolder.getState();
+        return (state != null ? state.currentTransactionName : null);
     }
 
     /**
@@ -429,7 +540,15 @@ public abstract class TransactionSynchronizationManager {
      * @see org.springframework.transaction.TransactionDefinition#isReadOnly()
      */
     public static void setCurrentTransactionReadOnly(boolean readOnly) {
-        currentTransactionReadOnly.set(readOnly ? Boolean.TRUE : null);
+        if (readOnly) {
+            obtainState().currentTransactionReadOnly = true;
+        } else {
+            TransactionSynchronizationState state = stateHolder.getState();
+            if (state != null) {
+                state.currentTransactionReadOnly = false;
+                releaseIfEmpty(state);
+            }
+        }
     }
 
     /**
@@ -445,7 +564,8 @@ public abstract class TransactionSynchronizationManager {
      * @see TransactionSynchronization#beforeCommit(boolean)
      */
     public static boolean isCurrentTransactionReadOnly() {
-        return (currentTransactionReadOnly.get() != null);
+        TransactionSynchronizationState state = stateHolder.getState();
+        return (state != null && state.currentTransactionReadOnly);
     }
 
     /**
@@ -465,7 +585,15 @@ public abstract class TransactionSynchronizationManager {
      * @see org.springframework.transaction.TransactionDefinition#getIsolationLevel()
      */
     public static void setCurrentTransactionIsolationLevel(@Nullable Integer isolationLevel) {
-        currentTransactionIsolationLevel.set(isolationLevel);
+        if (isolationLevel != null) {
+            obtainState().currentTransactionIsolationLevel = isolationLevel;
+        } else {
+            TransactionSynchronizationState state = stateHolder.getState();
+            if (state != null) {
+                state.currentTransactionIsolationLevel = null;
+                releaseIfEmpty(state);
+            }
+        }
     }
 
     /**
@@ -487,7 +615,8 @@ public abstract class TransactionSynchronizationManager {
      */
     @Nullable
     public static Integer getCurrentTransactionIsolationLevel() {
-        return currentTransactionIsolationLevel.get();
+        TransactionSynchronizationState state = stateHolder.getState();
+        return (state != null ? state.currentTransactionIsolationLevel : null);
     }
 
     /**
@@ -497,7 +626,15 @@ public abstract class TransactionSynchronizationManager {
      * with an actual transaction; {@code false} to reset that marker
      */
     public static void setActualTransactionActive(boolean active) {
-        actualTransactionActive.set(active ? Boolean.TRUE : null);
+        if (active) {
+            obtainState().actualTransactionActive = true;
+        } else {
+            TransactionSynchronizationState state = stateHolder.getState();
+            if (state != null) {
+                state.actualTransactionActive = false;
+                releaseIfEmpty(state);
+            }
+        }
     }
 
     /**
@@ -512,7 +649,8 @@ public abstract class TransactionSynchronizationManager {
      * @see #isSynchronizationActive()
      */
     public static boolean isActualTransactionActive() {
-        return (actualTransactionActive.get() != null);
+        TransactionSynchronizationState state = stateHolder.getState();
+        return (state != null && state.actualTransactionActive);
     }
 
 
@@ -526,11 +664,11 @@ public abstract class TransactionSynchronizationManager {
      * @see #setActualTransactionActive
      */
     public static void clear() {
-        synchronizations.remove();
-        currentTransactionName.remove();
-        currentTransactionReadOnly.remove();
-        currentTransactionIsolationLevel.remove();
-        actualTransactionActive.remove();
+        TransactionSynchronizationState state = stateHolder.getState();
+        if (state != null) {
+            state.clearSynchronizationState();
+            releaseIfEmpty(state);
+        }
     }
 
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Holder for the complete transaction synchronization state of an execution
+ * context: bound resources, registered synchronizations and the characteristics
+ * of the current transaction, as managed by {@link TransactionSynchronizationManager}.
+ *
+ * <p>Keeping all of this in a single object means that every access through
+ * {@link TransactionSynchronizationManager} requires a single lookup in its
+ * {@link TransactionSynchronizationStateHolder}, and that the state can be handed
+ * over to another thread as a whole through
+ * {@link TransactionSynchronizationManager#runWithState}. Collections are only
+ * allocated once a resource or synchronization is actually registered.
+ *
+ * <p>Instances are opaque to application code and not thread-safe: a state must
+ * only be used by one thread at a time.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see TransactionSynchronizationManager#getCurrentState()
+ * @see TransactionSynchronizationStateHolder
+ */
+public final class TransactionSynchronizationState {
+
+	@Nullable
+	Map<Object, Object> resources;
+
+	boolean synchronizationActive;
+
+	@Nullable
+	Set<TransactionSynchronization> synchronizations;
+
+	@Nullable
+	String currentTransactionName;
+
+	boolean currentTransactionReadOnly;
+
+	@Nullable
+	Integer currentTransactionIsolationLevel;
+
+	boolean actualTransactionActive;
+
+	/** Number of {@link TransactionSynchronizationManager#runWithState} calls using this state. */
+	private int borrowCount;
+
+
+	TransactionSynchronizationState() {
+	}
+
+
+	Map<Object, Object> obtainResources() {
+		Map<Object, Object> resources = this.resources;
+		if (resources == null) {
+			resources = new HashMap<>(4);
+			this.resources = resources;
+		}
+		return resources;
+	}
+
+	Set<TransactionSynchronization> obtainSynchronizations() {
+		Set<TransactionSynchronization> synchronizations = this.synchronizations;
+		if (synchronizations == null) {
+			synchronizations = new LinkedHashSet<>(4);
+			this.synchronizations = synchronizations;
+		}
+		return synchronizations;
+	}
+
+	/**
+	 * Reset synchronizations and transaction characteristics,
+	 * keeping bound resources.
+	 */
+	void clearSynchronizationState() {
+		this.synchronizationActive = false;
+		this.synchronizations = null;
+		this.currentTransactionName = null;
+		this.currentTransactionReadOnly = false;
+		this.currentTransactionIsolationLevel = null;
+		this.actualTransactionActive = false;
+	}
+
+	synchronized void borrow() {
+		this.borrowCount++;
+	}
+
+	synchronized void giveBack() {
+		this.borrowCount--;
+	}
+
+	/**
+	 * Whether this state is currently in use by a
+	 * {@link TransactionSynchronizationManager#runWithState} task,
+	 * i.e. must not be released even if empty.
+	 */
+	synchronized boolean isBorrowed() {
+		return (this.borrowCount > 0);
+	}
+
+	/**
+	 * Whether this state does not hold anything anymore,
+	 * i.e. may be released by its holder.
+	 */
+	boolean isEmpty() {
+		return ((this.resources == null || this.resources.isEmpty()) && !this.synchronizationActive &&
+				this.currentTransactionName == null && !this.currentTransactionReadOnly &&
+				this.currentTransactionIsolationLevel == null && !this.actualTransactionActive);
+	}
+
+
+	@Override
+	public String toString() {
+		return "TransactionSynchronizationState: resources=" +
+				(this.resources != null ? this.resources.keySet() : "[]") +
+				", synchronizationActive=" + this.synchronizationActive +
+				", transactionName=" + this.currentTransactionName +
+				", actualTransactionActive=" + this.actualTransactionActive;
+	}
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Strategy for associating the {@link TransactionSynchronizationState} used by
+ * {@link TransactionSynchronizationManager} with the current execution context.
+ *
+ * <p>The default is {@link ThreadLocalTransactionSynchronizationStateHolder},
+ * binding the state to the current thread. Alternative implementations may for
+ * example keep a mutable slot in a scoped context value that is bound once per
+ * unit of work, which avoids thread-local lookups on virtual threads and lets
+ * forked subtasks share the state of their parent scope.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see TransactionSynchronizationManager#setStateHolder
+ */
+public interface TransactionSynchronizationStateHolder {
+
+	/**
+	 * Return the state associated with the current execution context.
+	 * @return the current state, or {@code null} if none
+	 */
+	@Nullable
+	TransactionSynchronizationState getState();
+
+	/**
+	 * Associate the given state with the current execution context.
+	 * @param state the state to associate (never {@code null})
+	 */
+	void setState(TransactionSynchronizationState state);
+
+	/**
+	 * Remove the state associated with the current execution context, if any.
+	 */
+	void removeState();
+
+}
@@ -24,6 +24,9 @@ import org.junit.jupiter.api.Test;
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.testfixture.beans.DerivedTestBean;
+import org.springframework.beans.testfixture.beans.ITestBean;
+import org.springframework.beans.testfixture.beans.TestBean;
 import org.springframework.core.testfixture.io.SerializationTestUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -31,9 +34,11 @@ import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionManager;
 import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.testfixture.CallCountingTransactionManager;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -261,6 +266,61 @@ public class TransactionInterceptorTests extends AbstractTransactionAspectTests
 		verify(beanFactory, times(1)).getBean(TransactionManager.class);
 	}
 
+	@Test
+	public void transactionAttributeResolvedOncePerMethod() {
+		TransactionAttributeSource tas = mock(TransactionAttributeSource.class);
+		given(tas.getTransactionAttribute(any(), any())).willReturn(new DefaultTransactionAttribute());
+		CallCountingTransactionManager ptm = new CallCountingTransactionManager();
+		ITestBean proxy = (ITestBean) advised(new TestBean(), ptm, tas);
+
+		proxy.getAge();
+		proxy.getAge();
+		assertThat(ptm.commits).isEqualTo(2);
+		assertThat(ptm.lastDefinition.getName()).isEqualTo(TestBean.class.getName() + ".getAge");
+		verify(tas, times(1)).getTransactionAttribute(any(), any());
+	}
+
+	@Test
+	public void transactionManagerChangeAfterInvocation() {
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		tas.register(TestBean.class, new DefaultTransactionAttribute());
+		CallCountingTransactionManager ptm1 = new CallCountingTransactionManager();
+		CallCountingTransactionManager ptm2 = new CallCountingTransactionManager();
+		TransactionInterceptor ti = new TransactionInterceptor((TransactionManager) ptm1, tas);
+		ProxyFactory pf = new ProxyFactory(new TestBean());
+		pf.addAdvice(ti);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+
+		proxy.getAge();
+		ti.setTransactionManager(ptm2);
+		proxy.getAge();
+		assertThat(ptm1.commits).isEqualTo(1);
+		assertThat(ptm2.commits).isEqualTo(1);
+	}
+
+	@Test
+	public void sameMethodOnSeveralTargetClasses() {
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		tas.register(TestBean.class, new DefaultTransactionAttribute());
+		CallCountingTransactionManager ptm = new CallCountingTransactionManager();
+		TransactionInterceptor ti = new TransactionInterceptor((TransactionManager) ptm, tas);
+		ProxyFactory pf1 = new ProxyFactory(new TestBean());
+		pf1.addAdvice(ti);
+		ProxyFactory pf2 = new ProxyFactory(new DerivedTestBean());
+		pf2.addAdvice(ti);
+		ITestBean proxy1 = (ITestBean) pf1.getProxy();
+		ITestBean proxy2 = (ITestBean) pf2.getProxy();
+
+		for (int i = 0; i < 2; i++) {
+			proxy1.getAge();
+			assertThat(ptm.lastDefinition.getName()).isEqualTo(TestBean.class.getName() + ".getAge");
+			proxy2.getAge();
+			assertThat(ptm.lastDefinition.getName()).isEqualTo(DerivedTestBean.class.getName() + ".getAge");
+		}
+		assertThat(ptm.commits).isEqualTo(4);
+	}
+
+
 
 	private TransactionInterceptor createTransactionInterceptor(BeanFactory beanFactory,
 			String transactionManagerName, PlatformTransactionManager transactionManager) {
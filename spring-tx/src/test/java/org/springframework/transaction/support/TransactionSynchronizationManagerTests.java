@@ -0,0 +1,203 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link TransactionSynchronizationManager}.
+ *
+ * @author agent
+ */
+class TransactionSynchronizationManagerTests {
+
+	@AfterEach
+	void verifyClean() {
+		assertThat(TransactionSynchronizationManager.getStateHolder().getState()).isNull();
+	}
+
+
+	@Test
+	void bindAndUnbindResource() {
+		Object key = new Object();
+		TransactionSynchronizationManager.bindResource(key, "value");
+		assertThat(TransactionSynchronizationManager.getResource(key)).isEqualTo("value");
+		assertThat(TransactionSynchronizationManager.getResourceMap()).containsOnlyKeys(key);
+		assertThatIllegalStateException().isThrownBy(() ->
+				TransactionSynchronizationManager.bindResource(key, "other"));
+		assertThat(TransactionSynchronizationManager.unbindResource(key)).isEqualTo("value");
+		assertThat(TransactionSynchronizationManager.unbindResourceIfPossible(key)).isNull();
+	}
+
+	@Test
+	void voidResourceHolderIsRemoved() {
+		Object key = new Object();
+		ResourceHolderSupport holder = new ResourceHolderSupport() {};
+		TransactionSynchronizationManager.bindResource(key, holder);
+		holder.unbound();
+		assertThat(TransactionSynchronizationManager.hasResource(key)).isFalse();
+	}
+
+	@Test
+	void synchronizationLifecycle() {
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+		assertThatIllegalStateException().isThrownBy(TransactionSynchronizationManager::getSynchronizations);
+
+		TransactionSynchronizationManager.initSynchronization();
+		assertThatIllegalStateException().isThrownBy(TransactionSynchronizationManager::initSynchronization);
+		assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+		assertThat(TransactionSynchronizationManager.getCurrentState().synchronizations).isNull();
+
+		TransactionSynchronization synchronization = new TransactionSynchronization() {};
+		TransactionSynchronizationManager.registerSynchronization(synchronization);
+		assertThat(TransactionSynchronizationManager.getSynchronizations()).containsExactly(synchronization);
+
+		TransactionSynchronizationManager.clearSynchronization();
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+		assertThatIllegalStateException().isThrownBy(TransactionSynchronizationManager::clearSynchronization);
+	}
+
+	@Test
+	void transactionCharacteristics() {
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(2);
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionName()).isEqualTo("tx");
+		assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionIsolationLevel()).isEqualTo(2);
+		assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+
+		TransactionSynchronizationManager.setCurrentTransactionName(null);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(null);
+		assertThat(TransactionSynchronizationManager.getCurrentState()).isNotNull();
+		TransactionSynchronizationManager.setActualTransactionActive(false);
+	}
+
+	@Test
+	void clearKeepsResources() {
+		Object key = new Object();
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		TransactionSynchronizationManager.bindResource(key, "value");
+		TransactionSynchronizationManager.clear();
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+		assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+		assertThat(TransactionSynchronizationManager.getResource(key)).isEqualTo("value");
+		TransactionSynchronizationManager.unbindResource(key);
+	}
+
+	@Test
+	void runWithStateOnOtherThread() throws InterruptedException {
+		Object key = new Object();
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.bindResource(key, "value");
+		TransactionSynchronizationState state = TransactionSynchronizationManager.getCurrentState();
+
+		AtomicReference<Object> resource = new AtomicReference<>();
+		Thread thread = new Thread(() -> TransactionSynchronizationManager.runWithState(state, () -> {
+			resource.set(TransactionSynchronizationManager.getResource(key));
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {});
+		}));
+		thread.start();
+		thread.join();
+
+		assertThat(resource.get()).isEqualTo("value");
+		assertThat(TransactionSynchronizationManager.getSynchronizations()).hasSize(1);
+		TransactionSynchronizationManager.unbindResource(key);
+		TransactionSynchronizationManager.clear();
+	}
+
+	@Test
+	void runWithStateKeepsStateWhenEmptiedOnOtherThread() throws InterruptedException {
+		Object key = new Object();
+		Object otherKey = new Object();
+		TransactionSynchronizationManager.bindResource(key, "value");
+		TransactionSynchronizationState state = TransactionSynchronizationManager.getCurrentState();
+
+		Thread thread = new Thread(() -> TransactionSynchronizationManager.runWithState(state, () -> {
+			TransactionSynchronizationManager.unbindResource(key);
+			TransactionSynchronizationManager.bindResource(otherKey, "otherValue");
+		}));
+		thread.start();
+		thread.join();
+
+		assertThat(TransactionSynchronizationManager.getResource(key)).isNull();
+		assertThat(TransactionSynchronizationManager.getResource(otherKey)).isEqualTo("otherValue");
+		TransactionSynchronizationManager.unbindResource(otherKey);
+	}
+
+	@Test
+	void runWithStateOnOtherThreadWithoutInitialState() throws InterruptedException {
+		Object key = new Object();
+		TransactionSynchronizationState state = TransactionSynchronizationManager.getCurrentState();
+
+		Thread thread = new Thread(() -> TransactionSynchronizationManager.runWithState(state, () ->
+				TransactionSynchronizationManager.bindResource(key, "value")));
+		thread.start();
+		thread.join();
+
+		assertThat(TransactionSynchronizationManager.getResource(key)).isEqualTo("value");
+		TransactionSynchronizationManager.unbindResource(key);
+	}
+
+	@Test
+	void runWithStateRestoresPreviousState() {
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		TransactionSynchronizationManager.runWithState(null, () ->
+				assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse());
+		assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+		TransactionSynchronizationManager.clear();
+	}
+
+	@Test
+	void customStateHolder() {
+		TransactionSynchronizationStateHolder defaultHolder = TransactionSynchronizationManager.getStateHolder();
+		AtomicReference<TransactionSynchronizationState> slot = new AtomicReference<>();
+		TransactionSynchronizationManager.setStateHolder(new TransactionSynchronizationStateHolder() {
+			@Override
+			public TransactionSynchronizationState getState() {
+				return slot.get();
+			}
+			@Override
+			public void setState(TransactionSynchronizationState state) {
+				slot.set(state);
+			}
+			@Override
+			public void removeState() {
+				slot.set(null);
+			}
+		});
+		try {
+			TransactionSynchronizationManager.initSynchronization();
+			assertThat(slot.get()).isNotNull();
+			TransactionSynchronizationManager.clearSynchronization();
+			assertThat(slot.get()).isNull();
+		}
+		finally {
+			TransactionSynchronizationManager.setStateHolder(defaultHolder);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,9 +34,13 @@ import org.openjdk.jmh.infra.Blackhole;
 import org.springframework.util.MimeTypeUtils;
 
 /**
- * Benchmarks for parsing Media Types using {@link MediaType}.
+ * Benchmarks for parsing Media Types using {@link MediaType}, and for the
+ * content negotiation steps that are based on parsed Media Types.
  * <p>{@code MediaType is using }{@link MimeTypeUtils} has an internal parser only accessible through a package private method.
  * The publicly accessible method is backed by a LRUCache for better performance.
+ * {@code MediaType} itself returns its constants for their String values, and
+ * caches recently parsed media types as well as lists of media types, i.e.
+ * recurring {@code Accept} headers.
  *
  * @author Brian Clozel
  * @see MimeTypeUtils
@@ -58,6 +62,51 @@ public class MediaTypeBenchmark {
 		}
 	}
 
+	@Benchmark
+	public void parseAndSortAcceptHeader(BenchmarkData data, Blackhole bh) {
+		List<MediaType> mediaTypes = MediaType.parseMediaTypes(data.acceptHeader);
+		MediaType.sortBySpecificityAndQuality(mediaTypes);
+		bh.consume(mediaTypes);
+	}
+
+	@Benchmark
+	public void parseAndSortBrowserAcceptHeaders(BenchmarkData data, Blackhole bh) {
+		for (String acceptHeader : data.browserAcceptHeaders) {
+			List<MediaType> mediaTypes = MediaType.parseMediaTypes(acceptHeader);
+			MediaType.sortBySpecificityAndQuality(mediaTypes);
+			bh.consume(mediaTypes);
+		}
+	}
+
+	@Benchmark
+	public void parseAndSortApiClientAcceptHeaders(BenchmarkData data, Blackhole bh) {
+		for (String acceptHeader : data.apiClientAcceptHeaders) {
+			List<MediaType> mediaTypes = MediaType.parseMediaTypes(acceptHeader);
+			MediaType.sortBySpecificityAndQuality(mediaTypes);
+			bh.consume(mediaTypes);
+		}
+	}
+
+	@Benchmark
+	public void readHttpHeaders(BenchmarkData data, Blackhole bh) {
+		bh.consume(data.headers.getContentType());
+		bh.consume(data.headers.getAccept());
+	}
+
+	@Benchmark
+	public void selectCompatibleMediaType(BenchmarkData data, Blackhole bh) {
+		List<MediaType> compatibleTypes = new ArrayList<>();
+		for (MediaType acceptableType : data.acceptableTypes) {
+			for (MediaType producibleType : data.producibleTypes) {
+				if (acceptableType.isCompatibleWith(producibleType)) {
+					compatibleTypes.add(producibleType.copyQualityValue(acceptableType));
+				}
+			}
+		}
+		MediaType.sortBySpecificityAndQuality(compatibleTypes);
+		bh.consume(compatibleTypes.get(0).removeQualityValue());
+	}
+
 	/**
 	 * Benchmark data holding typical raw Media Types.
 	 * A {@code customTypesCount} parameter can be used to pad the list with artificial types.
@@ -77,6 +126,33 @@ public class MediaTypeBenchmark {
 
 		public List<String> requestedMediaTypes;
 
+		public String acceptHeader =
+				"text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8";
+
+		/** Accept headers sent by Chrome, Firefox, Safari, and for images and XHR requests. */
+		public List<String> browserAcceptHeaders = Arrays.asList(
+				"text/html,application/xhtml+xml,application/xml;q=0.9,image/avif,image/webp,image/apng,*/*;q=0.8,application/signed-exchange;v=b3;q=0.9",
+				"text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8",
+				"text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8",
+				"image/avif,image/webp,image/apng,image/svg+xml,image/*,*/*;q=0.8",
+				"application/json, text/plain, */*",
+				"*/*");
+
+		/** Accept headers sent by HTTP clients and API tools. */
+		public List<String> apiClientAcceptHeaders = Arrays.asList(
+				"application/json",
+				"application/json, text/plain, */*",
+				"application/json;charset=UTF-8",
+				"application/problem+json, application/json",
+				"text/plain, application/json, application/*+json, */*",
+				"application/x-ndjson");
+
+		public HttpHeaders headers;
+
+		public List<MediaType> acceptableTypes;
+
+		public List<MediaType> producibleTypes;
+
 		@Setup(Level.Trial)
 		public void fillCache() {
 			this.mediaTypes = new ArrayList<>();
@@ -114,6 +190,14 @@ public class MediaTypeBenchmark {
 
 			// ensure that all known MIME types are parsed once and cached
 			this.mediaTypes.forEach(MediaType::parseMediaType);
+
+			this.headers = new HttpHeaders();
+			this.headers.set(HttpHeaders.CONTENT_TYPE, "application/json;charset=UTF-8");
+			this.headers.set(HttpHeaders.ACCEPT, this.browserAcceptHeaders.get(0));
+
+			this.acceptableTypes = MediaType.parseMediaTypes(this.acceptHeader);
+			MediaType.sortBySpecificityAndQuality(this.acceptableTypes);
+			this.producibleTypes = Arrays.asList(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
 		}
 
 	}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.util.FileSystemUtils;
+
+/**
+ * Benchmarks for parsing multipart bodies into tokens with {@link MultipartParser},
+ * and for generating parts from those tokens with {@link PartGenerator}, keeping
+ * part content in memory or storing it on disk.
+ * <p>The multipart body consists of a form field and a file part with random
+ * content, which is split into buffers of the given size to mimic the network.
+ *
+ * @author agent
+ * @see DefaultPartHttpMessageReader
+ */
+@BenchmarkMode(Mode.Throughput)
+public class MultipartParserBenchmark {
+
+	@Benchmark
+	public void parse(BenchmarkData data, Blackhole bh) {
+		MultipartParser.parse(data.body(), data.boundary, 10 * 1024, StandardCharsets.UTF_8)
+				.doOnNext(bh::consume)
+				.blockLast();
+	}
+
+	@Benchmark
+	public void generatePartsInMemory(BenchmarkData data, Blackhole bh) {
+		Flux<MultipartParser.Token> tokens =
+				MultipartParser.parse(data.body(), data.boundary, 10 * 1024, StandardCharsets.UTF_8);
+		PartGenerator.createParts(tokens, -1, -1, -1, false, data.fileStorageDirectory(), data.scheduler)
+				.doOnNext(bh::consume)
+				.blockLast();
+	}
+
+	@Benchmark
+	public void generatePartsOnDisk(BenchmarkData data, Blackhole bh) {
+		Flux<MultipartParser.Token> tokens =
+				MultipartParser.parse(data.body(), data.boundary, 10 * 1024, StandardCharsets.UTF_8);
+		PartGenerator.createParts(tokens, -1, 256 * 1024, -1, false, data.fileStorageDirectory(), data.scheduler)
+				.doOnNext(bh::consume)
+				.blockLast();
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		private static final String BOUNDARY = "----WebKitFormBoundary7MA4YWxkTrZu0gW";
+
+		@Param({"8192", "65536"})
+		public int bufferSize;
+
+		@Param({"65536", "4194304"})
+		public int fileSize;
+
+		public byte[] boundary;
+
+		public byte[][] chunks;
+
+		public Scheduler scheduler;
+
+		public Path directory;
+
+		@Setup(Level.Trial)
+		public void setup() throws IOException {
+			this.boundary = BOUNDARY.getBytes(StandardCharsets.ISO_8859_1);
+
+			byte[] fileContent = new byte[this.fileSize];
+			new Random(42).nextBytes(fileContent);
+
+			ByteArrayOutputStream body = new ByteArrayOutputStream(this.fileSize + 512);
+			write(body, "--" + BOUNDARY + "\r\n" +
+					"Content-Disposition: form-data; name=\"text\"\r\n" +
+					"\r\n" +
+					"text value\r\n" +
+					"--" + BOUNDARY + "\r\n" +
+					"Content-Disposition: form-data; name=\"file\"; filename=\"file.bin\"\r\n" +
+					"Content-Type: application/octet-stream\r\n" +
+					"\r\n");
+			body.write(fileContent);
+			write(body, "\r\n--" + BOUNDARY + "--\r\n");
+
+			byte[] bytes = body.toByteArray();
+			int count = (bytes.length + this.bufferSize - 1) / this.bufferSize;
+			this.chunks = new byte[count][];
+			for (int i = 0; i < count; i++) {
+				int from = i * this.bufferSize;
+				this.chunks[i] = Arrays.copyOfRange(bytes, from, Math.min(from + this.bufferSize, bytes.length));
+			}
+
+			this.scheduler = Schedulers.newBoundedElastic(4, 1024, "multipart-benchmark");
+		}
+
+		@Setup(Level.Iteration)
+		public void createDirectory() throws IOException {
+			this.directory = Files.createTempDirectory("multipart-benchmark");
+		}
+
+		@TearDown(Level.Iteration)
+		public void deleteDirectory() throws IOException {
+			FileSystemUtils.deleteRecursively(this.directory);
+		}
+
+		@TearDown(Level.Trial)
+		public void disposeScheduler() {
+			this.scheduler.dispose();
+		}
+
+		public Flux<DataBuffer> body() {
+			return Flux.fromArray(this.chunks).map(DefaultDataBufferFactory.sharedInstance::wrap);
+		}
+
+		public Mono<Path> fileStorageDirectory() {
+			return Mono.fromSupplier(() -> this.directory);
+		}
+
+		private static void write(ByteArrayOutputStream out, String value) throws IOException {
+			out.write(value.getBytes(StandardCharsets.ISO_8859_1));
+		}
+	}
+
+}
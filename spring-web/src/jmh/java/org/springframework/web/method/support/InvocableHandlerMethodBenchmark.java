@@ -0,0 +1,119 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.method.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.DirectMethodInvoker;
+import org.springframework.core.SpringProperties;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+
+/**
+ * Benchmarks for {@link InvocableHandlerMethod#invokeForRequest} as called for
+ * every request: the registered {@link HandlerMethod} is re-created with its
+ * resolved bean and wrapped in an {@code InvocableHandlerMethod}, for a single
+ * handler method as well as for several methods invoked from the same call site.
+ * <p>The {@code generatedInvokers} parameter switches between generated invokers
+ * and reflection through the {@value DirectMethodInvoker#IGNORE_GENERATION_PROPERTY_NAME}
+ * property, which only takes effect within a fresh fork.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class InvocableHandlerMethodBenchmark {
+
+	@Benchmark
+	public void invokeForRequest(BenchmarkData data, Blackhole bh) throws Exception {
+		bh.consume(invoke(data.handlerMethods[0], data));
+	}
+
+	@Benchmark
+	public void invokeForRequestMultipleMethods(BenchmarkData data, Blackhole bh) throws Exception {
+		for (HandlerMethod handlerMethod : data.handlerMethods) {
+			bh.consume(invoke(handlerMethod, data));
+		}
+	}
+
+	private static Object invoke(HandlerMethod handlerMethod, BenchmarkData data) throws Exception {
+		InvocableHandlerMethod invocable = new InvocableHandlerMethod(handlerMethod.createWithResolvedBean());
+		invocable.setHandlerMethodArgumentResolvers(data.resolvers);
+		return invocable.invokeForRequest(data.request, data.mavContainer, data.id, data.name);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		@Param({"true", "false"})
+		public boolean generatedInvokers;
+
+		public HandlerMethod[] handlerMethods;
+
+		public HandlerMethodArgumentResolverComposite resolvers;
+
+		public NativeWebRequest request;
+
+		public ModelAndViewContainer mavContainer;
+
+		public Long id = 42L;
+
+		public String name = "name";
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			if (!this.generatedInvokers) {
+				SpringProperties.setFlag(DirectMethodInvoker.IGNORE_GENERATION_PROPERTY_NAME);
+			}
+			Handler handler = new Handler();
+			this.handlerMethods = new HandlerMethod[] {
+					new HandlerMethod(handler, "user", Long.class, String.class),
+					new HandlerMethod(handler, "order", Long.class, String.class),
+					new HandlerMethod(handler, "item", Long.class, String.class)};
+			this.resolvers = new HandlerMethodArgumentResolverComposite();
+			this.request = new ServletWebRequest(new MockHttpServletRequest("GET", "/"));
+			this.mavContainer = new ModelAndViewContainer();
+		}
+	}
+
+
+	public static class Handler {
+
+		public String user(Long id, String name) {
+			return name;
+		}
+
+		public String order(Long id, String name) {
+			return name;
+		}
+
+		public Object item(Long id, String name) {
+			return id;
+		}
+	}
+
+}
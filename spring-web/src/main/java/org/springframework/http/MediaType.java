@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.http;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
@@ -23,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +33,7 @@ import java.util.Map;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.InvalidMimeTypeException;
 import org.springframework.util.MimeType;
 import org.springframework.util.MimeTypeUtils;
@@ -389,6 +393,15 @@ public class MediaType extends MimeType implements Serializable {
 
 	private static final String PARAM_QUALITY_FACTOR = "q";
 
+	/** The public constants by their String value, returned as-is when parsed. */
+	private static final Map<String, MediaType> knownMediaTypes;
+
+	private static final ConcurrentLruCache<String, MediaType> cachedMediaTypes =
+			new ConcurrentLruCache<>(256, MediaType::parseMediaTypeInternal);
+
+	private static final ConcurrentLruCache<String, List<MediaType>> cachedMediaTypeLists =
+			new ConcurrentLruCache<>(64, MediaType::parseMediaTypesInternal);
+
 
 	static {
 		// Not using "valueOf' to avoid static init cost
@@ -419,9 +432,25 @@ public class MediaType extends MimeType implements Serializable {
 		TEXT_MARKDOWN = new MediaType("text", "markdown");
 		TEXT_PLAIN = new MediaType("text", "plain");
 		TEXT_XML = new MediaType("text", "xml");
+
+		MediaType[] constants = {ALL, APPLICATION_ATOM_XML, APPLICATION_CBOR, APPLICATION_FORM_URLENCODED,
+				APPLICATION_JSON, APPLICATION_JSON_UTF8, APPLICATION_NDJSON, APPLICATION_OCTET_STREAM,
+				APPLICATION_PDF, APPLICATION_PROBLEM_JSON, APPLICATION_PROBLEM_JSON_UTF8, APPLICATION_PROBLEM_XML,
+				APPLICATION_RSS_XML, APPLICATION_STREAM_JSON, APPLICATION_XHTML_XML, APPLICATION_XML,
+				IMAGE_GIF, IMAGE_JPEG, IMAGE_PNG, MULTIPART_FORM_DATA, MULTIPART_MIXED, MULTIPART_RELATED,
+				TEXT_EVENT_STREAM, TEXT_HTML, TEXT_MARKDOWN, TEXT_PLAIN, TEXT_XML};
+		Map<String, MediaType> map = new HashMap<>(64);
+		for (MediaType constant : constants) {
+			map.put(constant.toString(), constant);
+		}
+		knownMediaTypes = map;
 	}
 
 
+	/** The quality factor, resolved on first access. */
+	private transient volatile double qualityValue = -1D;
+
+
 	/**
 	 * Create a new {@code MediaType} for the given primary type.
 	 * <p>The {@linkplain #getSubtype() subtype} is set to "&#42;", parameters empty.
@@ -530,8 +559,13 @@ public class MediaType extends MimeType implements Serializable {
 	 * @return the quality factor as double value
 	 */
 	public double getQualityValue() {
-		String qualityFactor = getParameter(PARAM_QUALITY_FACTOR);
-		return (qualityFactor != null ? Double.parseDouble(unquote(qualityFactor)) : 1D);
+		double qualityValue = this.qualityValue;
+		if (qualityValue < 0D) {
+			String qualityFactor = getParameter(PARAM_QUALITY_FACTOR);
+			qualityValue = (qualityFactor != null ? Double.parseDouble(unquote(qualityFactor)) : 1D);
+			this.qualityValue = qualityValue;
+		}
+		return qualityValue;
 	}
 
 	/**
@@ -593,6 +627,15 @@ public class MediaType extends MimeType implements Serializable {
 	}
 
 
+	private void readObject(ObjectInputStream ois) throws IOException, ClassNotFoundException {
+		// Rely on default serialization, just initialize state after deserialization.
+		ois.defaultReadObject();
+
+		// Initialize transient fields.
+		this.qualityValue = -1D;
+	}
+
+
 	/**
 	 * Parse the given String value into a {@code MediaType} object,
 	 * with this method name following the 'valueOf' naming convention
@@ -607,11 +650,25 @@ public class MediaType extends MimeType implements Serializable {
 
 	/**
 	 * Parse the given String into a single {@code MediaType}.
+	 * <p>The public constants of this class are returned for their String
+	 * values, and recently parsed media types are cached for further retrieval.
 	 * @param mediaType the string to parse
 	 * @return the media type
 	 * @throws InvalidMediaTypeException if the media type value cannot be parsed
 	 */
 	public static MediaType parseMediaType(String mediaType) {
+		MediaType knownType = knownMediaTypes.get(mediaType);
+		if (knownType != null) {
+			return knownType;
+		}
+		// do not cache multipart media types with random boundaries
+		if (!StringUtils.hasLength(mediaType) || mediaType.startsWith("multipart")) {
+			return parseMediaTypeInternal(mediaType);
+		}
+		return cachedMediaTypes.get(mediaType);
+	}
+
+	private static MediaType parseMediaTypeInternal(String mediaType) {
 		MimeType type;
 		try {
 			type = MimeTypeUtils.parseMimeType(mediaType);
@@ -638,6 +695,14 @@ public class MediaType extends MimeType implements Serializable {
 		if (!StringUtils.hasLength(mediaTypes)) {
 			return Collections.emptyList();
 		}
+		if (mediaTypes.contains("multipart")) {
+			return parseMediaTypesInternal(mediaTypes);
+		}
+		// Typically a recurring Accept header: copy, since callers may sort the list
+		return new ArrayList<>(cachedMediaTypeLists.get(mediaTypes));
+	}
+
+	private static List<MediaType> parseMediaTypesInternal(String mediaTypes) {
 		// Avoid using java.util.stream.Stream in hot paths
 		List<String> tokenizedTypes = MimeTypeUtils.tokenize(mediaTypes);
 		List<MediaType> result = new ArrayList<>(tokenizedTypes.size());
@@ -777,7 +842,7 @@ public class MediaType extends MimeType implements Serializable {
 	public static void sortBySpecificityAndQuality(List<MediaType> mediaTypes) {
 		Assert.notNull(mediaTypes, "'mediaTypes' must not be null");
 		if (mediaTypes.size() > 1) {
-			mediaTypes.sort(MediaType.SPECIFICITY_COMPARATOR.thenComparing(MediaType.QUALITY_VALUE_COMPARATOR));
+			mediaTypes.sort(SPECIFICITY_AND_QUALITY_COMPARATOR);
 		}
 	}
 
@@ -837,4 +902,10 @@ public class MediaType extends MimeType implements Serializable {
 		}
 	};
 
+	/**
+	 * Comparator used by {@link #sortBySpecificityAndQuality(List)}.
+	 */
+	private static final Comparator<MediaType> SPECIFICITY_AND_QUALITY_COMPARATOR =
+			SPECIFICITY_COMPARATOR.thenComparing(QUALITY_VALUE_COMPARATOR);
+
 }
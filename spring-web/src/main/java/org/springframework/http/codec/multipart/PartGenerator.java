@@ -19,7 +19,7 @@ package org.springframework.http.codec.multipart;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.ByteBuffer;
-import java.nio.channels.WritableByteChannel;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -50,6 +50,8 @@ import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 import org.springframework.util.FastByteArrayOutputStream;
 
 /**
@@ -130,7 +132,9 @@ final class PartGenerator extends BaseSubscriber<MultipartParser.Token> {
 				return;
 			}
 
-			newPart(state, token.headers());
+			if (!state.deferNextPart(token.headers())) {
+				newPart(state, token.headers());
+			}
 		}
 		else {
 			state.body(token.buffer());
@@ -223,6 +227,7 @@ final class PartGenerator extends BaseSubscriber<MultipartParser.Token> {
 		if (upstream() != null &&
 				!this.sink.isCancelled() &&
 				this.sink.requestedFromDownstream() > 0 &&
+				this.state.get().canRequestToken() &&
 				this.requestOutstanding.compareAndSet(false, true)) {
 			request(1);
 		}
@@ -260,9 +265,8 @@ final class PartGenerator extends BaseSubscriber<MultipartParser.Token> {
 	 * <li>Otherwise, the creator will initially be in the
 	 * {@link InMemoryState}, but will switch over to {@link CreateFileState}
 	 * when the part byte count exceeds {@link #maxInMemorySize},
-	 * then to {@link WritingFileState} (to write the memory contents),
-	 * and finally {@link IdleFileState}, which switches back to
-	 * {@link WritingFileState} when more body data comes in.</li>
+	 * and then to {@link FileState}, which writes the memory contents and
+	 * all further body data to the file.</li>
 	 * </ol>
 	 */
 	private interface State {
@@ -279,6 +283,24 @@ final class PartGenerator extends BaseSubscriber<MultipartParser.Token> {
 		 */
 		void partComplete(boolean finalPart);
 
+		/**
+		 * Invoked with the headers of the next part, after
+		 * {@link #partComplete(boolean) partComplete(false)}.
+		 * @return {@code true} if this state is still completing its part,
+		 * and will create the next part itself once done; {@code false} if
+		 * the next part can be created right away
+		 */
+		default boolean deferNextPart(HttpHeaders headers) {
+			return false;
+		}
+
+		/**
+		 * Whether this state can receive another token.
+		 */
+		default boolean canRequestToken() {
+			return true;
+		}
+
 		/**
 		 * Invoked when an error has been received.
 		 */
@@ -534,7 +556,7 @@ final class PartGenerator extends BaseSubscriber<MultipartParser.Token> {
 	 * The creator state when waiting for a temporary file to be created.
 	 * {@link InMemoryState} initially switches to this state when the byte
 	 * count exceeds {@link #maxInMemorySize}, and then calls
-	 * {@link #createFile()} to switch to {@link WritingFileState}.
+	 * {@link #createFile()} to switch to {@link FileState}.
 	 */
 	private final class CreateFileState implements State {
 
@@ -576,21 +598,21 @@ final class PartGenerator extends BaseSubscriber<MultipartParser.Token> {
 					.subscribe(this::fileCreated, PartGenerator.this::emitError);
 		}
 
-		private WritingFileState createFileState(Path directory) {
+		private FileState createFileState(Path directory) {
 			try {
 				Path tempFile = Files.createTempFile(directory, null, ".multipart");
 				if (logger.isTraceEnabled()) {
 					logger.trace("Storing multipart data in file " + tempFile);
 				}
-				WritableByteChannel channel = Files.newByteChannel(tempFile, StandardOpenOption.WRITE);
-				return new WritingFileState(this, tempFile, channel);
+				FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE);
+				return new FileState(this, tempFile, channel);
 			}
 			catch (IOException ex) {
 				throw new UncheckedIOException("Could not create temp file in " + directory, ex);
 			}
 		}
 
-		private void fileCreated(WritingFileState newState) {
+		private void fileCreated(FileState newState) {
 			this.releaseOnDispose = false;
 
 			if (changeState(this, newState)) {
@@ -622,40 +644,58 @@ final class PartGenerator extends BaseSubscriber<MultipartParser.Token> {
 
 	}
 
-	private final class IdleFileState implements State {
+	/**
+	 * The creator state when storing the part content in a file.
+	 * Buffers are written on the {@link #blockingOperationScheduler}, and
+	 * buffers received while a write is in progress are queued, then written
+	 * together with a single gathering write. More tokens are requested while
+	 * fewer than {@link #maxInMemorySize} bytes are queued. Once the part is
+	 * complete and all content written, the part is emitted; if the headers
+	 * of the next part were received in the meantime, the next part is
+	 * created only after that.
+	 */
+	private final class FileState implements State {
 
 		private final HttpHeaders headers;
 
 		private final Path file;
 
-		private final WritableByteChannel channel;
+		private final FileChannel channel;
 
 		private final AtomicLong byteCount;
 
-		private volatile boolean closeOnDispose = true;
+		private final Queue<DataBuffer> queue = new ConcurrentLinkedQueue<>();
+
+		private final AtomicLong queuedByteCount = new AtomicLong();
+
+		private final AtomicBoolean writing = new AtomicBoolean();
 
+		private final AtomicBoolean nextPartHandedOver = new AtomicBoolean();
 
-		public IdleFileState(WritingFileState state) {
+		@Nullable
+		private volatile HttpHeaders nextPartHeaders;
+
+		private volatile boolean finalPart;
+
+		private volatile boolean completed;
+
+		private volatile boolean disposed;
+
+
+		public FileState(CreateFileState state, Path file, FileChannel channel) {
 			this.headers = state.headers;
-			this.file = state.file;
-			this.channel = state.channel;
-			this.byteCount = state.byteCount;
+			this.file = file;
+			this.channel = channel;
+			this.byteCount = new AtomicLong(state.byteCount);
 		}
 
 		@Override
 		public void body(DataBuffer dataBuffer) {
 			long count = this.byteCount.addAndGet(dataBuffer.readableByteCount());
 			if (PartGenerator.this.maxDiskUsagePerPart == -1 || count <= PartGenerator.this.maxDiskUsagePerPart) {
-
-				this.closeOnDispose = false;
-				WritingFileState newState = new WritingFileState(this);
-				if (changeState(this, newState)) {
-					newState.writeBuffer(dataBuffer);
-				}
-				else {
-					MultipartUtils.closeChannel(this.channel);
-					DataBufferUtils.release(dataBuffer);
-				}
+				enqueue(dataBuffer);
+				drain();
+				requestBody();
 			}
 			else {
 				DataBufferUtils.release(dataBuffer);
@@ -665,119 +705,110 @@ final class PartGenerator extends BaseSubscriber<MultipartParser.Token> {
 			}
 		}
 
-		@Override
-		public void partComplete(boolean finalPart) {
-			MultipartUtils.closeChannel(this.channel);
-			Flux<DataBuffer> content = partContent();
-			emitPart(DefaultParts.part(this.headers, content));
-			if (finalPart) {
-				emitComplete();
-			}
+		public void writeBuffers(Collection<DataBuffer> dataBuffers) {
+			dataBuffers.forEach(this::enqueue);
+			drain();
+			requestBody();
 		}
 
-		private Flux<DataBuffer> partContent() {
-			return DataBufferUtils
-					.readByteChannel(
-							() -> Files.newByteChannel(this.file, StandardOpenOption.READ),
-							DefaultDataBufferFactory.sharedInstance, 1024)
-					.subscribeOn(PartGenerator.this.blockingOperationScheduler);
+		private void enqueue(DataBuffer dataBuffer) {
+			this.queuedByteCount.addAndGet(dataBuffer.readableByteCount());
+			this.queue.add(dataBuffer);
+			if (this.disposed) {
+				releaseQueued();
+			}
 		}
 
-		@Override
-		public void dispose() {
-			if (this.closeOnDispose) {
-				MultipartUtils.closeChannel(this.channel);
+		private void requestBody() {
+			if (!this.completed && this.queuedByteCount.get() <= PartGenerator.this.maxInMemorySize) {
+				requestToken();
 			}
 		}
 
-
 		@Override
-		public String toString() {
-			return "IDLE-FILE";
+		public void partComplete(boolean finalPart) {
+			this.finalPart = finalPart;
+			this.completed = true;
+			drain();
 		}
 
-	}
-
-	private final class WritingFileState implements State {
-
-
-		private final HttpHeaders headers;
-
-		private final Path file;
-
-		private final WritableByteChannel channel;
-
-		private final AtomicLong byteCount;
-
-		private volatile boolean completed;
-
-		private volatile boolean finalPart;
-
-
-		public WritingFileState(CreateFileState state, Path file, WritableByteChannel channel) {
-			this.headers = state.headers;
-			this.file = file;
-			this.channel = channel;
-			this.byteCount = new AtomicLong(state.byteCount);
+		@Override
+		public boolean deferNextPart(HttpHeaders headers) {
+			this.nextPartHeaders = headers;
+			return this.nextPartHandedOver.compareAndSet(false, true);
 		}
 
-		public WritingFileState(IdleFileState state) {
-			this.headers = state.headers;
-			this.file = state.file;
-			this.channel = state.channel;
-			this.byteCount = state.byteCount;
+		@Override
+		public boolean canRequestToken() {
+			return !this.completed;
 		}
 
-		@Override
-		public void body(DataBuffer dataBuffer) {
-			DataBufferUtils.release(dataBuffer);
-			emitError(new IllegalStateException("Body token not expected"));
+		/**
+		 * Start writing the queued buffers, or emit the part if complete,
+		 * unless a write is in progress already.
+		 */
+		private void drain() {
+			while (!this.disposed && this.writing.compareAndSet(false, true)) {
+				// Read before polling: all body buffers are queued before the part completes
+				boolean completed = this.completed;
+				List<DataBuffer> dataBuffers = pollQueued();
+				if (!dataBuffers.isEmpty()) {
+					write(dataBuffers);
+					return;
+				}
+				if (completed) {
+					emitFilePart();
+					return;
+				}
+				this.writing.set(false);
+				if (this.queue.isEmpty() && !this.completed) {
+					return;
+				}
+			}
 		}
 
-		@Override
-		public void partComplete(boolean finalPart) {
-			this.completed = true;
-			this.finalPart = finalPart;
+		private List<DataBuffer> pollQueued() {
+			List<DataBuffer> dataBuffers = new ArrayList<>();
+			DataBuffer dataBuffer;
+			while ((dataBuffer = this.queue.poll()) != null) {
+				this.queuedByteCount.addAndGet(-dataBuffer.readableByteCount());
+				dataBuffers.add(dataBuffer);
+			}
+			return dataBuffers;
 		}
 
-		public void writeBuffer(DataBuffer dataBuffer) {
-			Mono.just(dataBuffer)
+		private void write(List<DataBuffer> dataBuffers) {
+			Mono.just(dataBuffers)
 					.flatMap(this::writeInternal)
 					.subscribeOn(PartGenerator.this.blockingOperationScheduler)
 					.subscribe(null,
-					PartGenerator.this::emitError,
-					this::writeComplete);
+							this::writeError,
+							this::writeComplete);
 		}
 
-		public void writeBuffers(Iterable<DataBuffer> dataBuffers) {
-			Flux.fromIterable(dataBuffers)
-					.concatMap(this::writeInternal)
-					.then()
-					.subscribeOn(PartGenerator.this.blockingOperationScheduler)
-					.subscribe(null,
-							PartGenerator.this::emitError,
-							this::writeComplete);
+		private void writeError(Throwable throwable) {
+			// dispose this state first, closing the channel and releasing queued buffers
+			changeStateInternal(DisposedState.INSTANCE);
+			emitError(throwable);
 		}
 
 		private void writeComplete() {
-			IdleFileState newState = new IdleFileState(this);
-			if (this.completed) {
-				newState.partComplete(this.finalPart);
-			}
-			else if (changeState(this, newState)) {
-				requestToken();
-			}
-			else {
-				MultipartUtils.closeChannel(this.channel);
-			}
+			this.writing.set(false);
+			drain();
+			requestBody();
 		}
 
 		@SuppressWarnings("BlockingMethodInNonBlockingContext")
-		private Mono<Void> writeInternal(DataBuffer dataBuffer) {
+		private Mono<Void> writeInternal(List<DataBuffer> dataBuffers) {
 			try {
-				ByteBuffer byteBuffer = dataBuffer.asByteBuffer();
-				while (byteBuffer.hasRemaining()) {
-					this.channel.write(byteBuffer);
+				ByteBuffer[] byteBuffers = new ByteBuffer[dataBuffers.size()];
+				long remaining = 0;
+				for (int i = 0; i < byteBuffers.length; i++) {
+					byteBuffers[i] = dataBuffers.get(i).asByteBuffer();
+					remaining += byteBuffers[i].remaining();
+				}
+				while (remaining > 0) {
+					remaining -= this.channel.write(byteBuffers);
 				}
 				return Mono.empty();
 			}
@@ -785,13 +816,48 @@ final class PartGenerator extends BaseSubscriber<MultipartParser.Token> {
 				return Mono.error(ex);
 			}
 			finally {
+				dataBuffers.forEach(DataBufferUtils::release);
+			}
+		}
+
+		private void emitFilePart() {
+			MultipartUtils.closeChannel(this.channel);
+			emitPart(DefaultParts.part(this.headers, partContent()));
+			if (this.finalPart) {
+				emitComplete();
+			}
+			else if (!this.nextPartHandedOver.compareAndSet(false, true)) {
+				HttpHeaders headers = this.nextPartHeaders;
+				Assert.state(headers != null, "No headers for next part");
+				newPart(this, headers);
+			}
+		}
+
+		private Flux<DataBuffer> partContent() {
+			return DataBufferUtils
+					.readByteChannel(
+							() -> Files.newByteChannel(this.file, StandardOpenOption.READ),
+							DefaultDataBufferFactory.sharedInstance, 1024)
+					.subscribeOn(PartGenerator.this.blockingOperationScheduler);
+		}
+
+		private void releaseQueued() {
+			DataBuffer dataBuffer;
+			while ((dataBuffer = this.queue.poll()) != null) {
 				DataBufferUtils.release(dataBuffer);
 			}
 		}
 
+		@Override
+		public void dispose() {
+			this.disposed = true;
+			releaseQueued();
+			MultipartUtils.closeChannel(this.channel);
+		}
+
 		@Override
 		public String toString() {
-			return "WRITE-FILE";
+			return "FILE";
 		}
 	}
 
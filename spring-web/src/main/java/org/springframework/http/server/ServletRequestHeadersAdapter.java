@@ -0,0 +1,306 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.server;
+
+import java.nio.charset.Charset;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@code MultiValueMap} implementation that reads through to the headers of
+ * an {@link HttpServletRequest}, including the content type, character encoding
+ * and content length exposed as request properties.
+ *
+ * <p>Individual headers are looked up in the request on demand. All headers
+ * are copied into a local map on the first modification, or when iterating
+ * over them.
+ *
+ * @author agent
+ * @since 5.3.11
+ */
+class ServletRequestHeadersAdapter implements MultiValueMap<String, String> {
+
+	private final HttpServletRequest request;
+
+	@Nullable
+	private String contentType;
+
+	private boolean contentTypeResolved;
+
+	@Nullable
+	private MultiValueMap<String, String> copy;
+
+
+	ServletRequestHeadersAdapter(HttpServletRequest request) {
+		this.request = request;
+	}
+
+
+	/**
+	 * Whether the headers have been copied from the request, after which they
+	 * may have been modified.
+	 */
+	boolean isCopied() {
+		return (this.copy != null);
+	}
+
+	@Override
+	@Nullable
+	public String getFirst(String key) {
+		if (this.copy != null) {
+			return this.copy.getFirst(key);
+		}
+		if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(key)) {
+			return getContentType();
+		}
+		if (HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(key)) {
+			return getContentLength();
+		}
+		return this.request.getHeader(key);
+	}
+
+	@Override
+	@Nullable
+	public List<String> get(Object key) {
+		if (this.copy != null) {
+			return this.copy.get(key);
+		}
+		if (!(key instanceof String)) {
+			return null;
+		}
+		String name = (String) key;
+		if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+			String value = getFirst(name);
+			return (value != null ? Collections.singletonList(value) : null);
+		}
+		Enumeration<String> values = this.request.getHeaders(name);
+		return (values != null && values.hasMoreElements() ? Collections.list(values) : null);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return (key instanceof String && getFirst((String) key) != null);
+	}
+
+	@Nullable
+	private String getContentType() {
+		if (!this.contentTypeResolved) {
+			this.contentType = resolveContentType();
+			this.contentTypeResolved = true;
+		}
+		return this.contentType;
+	}
+
+	/**
+	 * Return the {@code Content-Type} header, or the content type property of
+	 * the request, with the character encoding of the request applied if the
+	 * content type does not specify a charset.
+	 */
+	@Nullable
+	private String resolveContentType() {
+		String headerValue = this.request.getHeader(HttpHeaders.CONTENT_TYPE);
+		try {
+			String value = headerValue;
+			MediaType contentType = null;
+			if (StringUtils.hasLength(headerValue)) {
+				contentType = MediaType.parseMediaType(headerValue);
+			}
+			else {
+				String requestContentType = this.request.getContentType();
+				if (StringUtils.hasLength(requestContentType)) {
+					contentType = MediaType.parseMediaType(requestContentType);
+					value = contentType.toString();
+				}
+			}
+			if (contentType != null && contentType.getCharset() == null) {
+				String requestEncoding = this.request.getCharacterEncoding();
+				if (StringUtils.hasLength(requestEncoding)) {
+					Charset charSet = Charset.forName(requestEncoding);
+					Map<String, String> params = new LinkedCaseInsensitiveMap<>();
+					params.putAll(contentType.getParameters());
+					params.put("charset", charSet.toString());
+					value = new MediaType(contentType.getType(), contentType.getSubtype(), params).toString();
+				}
+			}
+			return value;
+		}
+		catch (InvalidMediaTypeException ex) {
+			// Ignore: simply not exposing an invalid content type in HttpHeaders...
+			return headerValue;
+		}
+	}
+
+	@Nullable
+	private String getContentLength() {
+		String headerValue = this.request.getHeader(HttpHeaders.CONTENT_LENGTH);
+		if (StringUtils.hasLength(headerValue)) {
+			return headerValue;
+		}
+		int requestContentLength = this.request.getContentLength();
+		return (requestContentLength != -1 ? Integer.toString(requestContentLength) : null);
+	}
+
+	/**
+	 * Copy all headers from the request into a local map, unless done already.
+	 */
+	private MultiValueMap<String, String> copy() {
+		if (this.copy == null) {
+			MultiValueMap<String, String> headers =
+					CollectionUtils.toMultiValueMap(new LinkedCaseInsensitiveMap<>(8, Locale.ENGLISH));
+			Enumeration<String> names = this.request.getHeaderNames();
+			if (names != null) {
+				while (names.hasMoreElements()) {
+					String name = names.nextElement();
+					Enumeration<String> values = this.request.getHeaders(name);
+					if (values != null) {
+						while (values.hasMoreElements()) {
+							headers.add(name, values.nextElement());
+						}
+					}
+				}
+			}
+			String contentType = getContentType();
+			if (contentType != null) {
+				headers.set(HttpHeaders.CONTENT_TYPE, contentType);
+			}
+			String contentLength = getContentLength();
+			if (contentLength != null) {
+				headers.set(HttpHeaders.CONTENT_LENGTH, contentLength);
+			}
+			this.copy = headers;
+		}
+		return this.copy;
+	}
+
+
+	// Operations on all headers, or modifications
+
+	@Override
+	public void add(String key, @Nullable String value) {
+		copy().add(key, value);
+	}
+
+	@Override
+	public void addAll(String key, List<? extends String> values) {
+		copy().addAll(key, values);
+	}
+
+	@Override
+	public void addAll(MultiValueMap<String, String> values) {
+		copy().addAll(values);
+	}
+
+	@Override
+	public void set(String key, @Nullable String value) {
+		copy().set(key, value);
+	}
+
+	@Override
+	public void setAll(Map<String, String> values) {
+		copy().setAll(values);
+	}
+
+	@Override
+	public Map<String, String> toSingleValueMap() {
+		return copy().toSingleValueMap();
+	}
+
+	@Override
+	public int size() {
+		return copy().size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return copy().isEmpty();
+	}
+
+	@Override
+	public boolean containsValue(Object value) {
+		return copy().containsValue(value);
+	}
+
+	@Override
+	@Nullable
+	public List<String> put(String key, List<String> value) {
+		return copy().put(key, value);
+	}
+
+	@Override
+	@Nullable
+	public List<String> remove(Object key) {
+		return copy().remove(key);
+	}
+
+	@Override
+	public void putAll(Map<? extends String, ? extends List<String>> map) {
+		copy().putAll(map);
+	}
+
+	@Override
+	public void clear() {
+		copy().clear();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return copy().keySet();
+	}
+
+	@Override
+	public Collection<List<String>> values() {
+		return copy().values();
+	}
+
+	@Override
+	public Set<Entry<String, List<String>>> entrySet() {
+		return copy().entrySet();
+	}
+
+
+	@Override
+	public boolean equals(@Nullable Object other) {
+		return (this == other || copy().equals(other));
+	}
+
+	@Override
+	public int hashCode() {
+		return copy().hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return HttpHeaders.formatHeaders(this);
+	}
+
+}
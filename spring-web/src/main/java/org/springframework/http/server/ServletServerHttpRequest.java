@@ -29,8 +29,8 @@ import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -39,11 +39,9 @@ import javax.servlet.http.HttpServletRequest;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
-import org.springframework.util.LinkedCaseInsensitiveMap;
 import org.springframework.util.StringUtils;
 
 /**
@@ -136,55 +134,16 @@ public class ServletServerHttpRequest implements ServerHttpRequest {
 		return this.uri;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>The returned headers read through to the {@code HttpServletRequest},
+	 * copying all headers only on the first modification or iteration.
+	 */
 	@Override
 	public HttpHeaders getHeaders() {
 		if (this.headers == null) {
-			this.headers = new HttpHeaders();
-
-			for (Enumeration<?> names = this.servletRequest.getHeaderNames(); names.hasMoreElements();) {
-				String headerName = (String) names.nextElement();
-				for (Enumeration<?> headerValues = this.servletRequest.getHeaders(headerName);
-						headerValues.hasMoreElements();) {
-					String headerValue = (String) headerValues.nextElement();
-					this.headers.add(headerName, headerValue);
-				}
-			}
-
-			// HttpServletRequest exposes some headers as properties:
-			// we should include those if not already present
-			try {
-				MediaType contentType = this.headers.getContentType();
-				if (contentType == null) {
-					String requestContentType = this.servletRequest.getContentType();
-					if (StringUtils.hasLength(requestContentType)) {
-						contentType = MediaType.parseMediaType(requestContentType);
-						this.headers.setContentType(contentType);
-					}
-				}
-				if (contentType != null && contentType.getCharset() == null) {
-					String requestEncoding = this.servletRequest.getCharacterEncoding();
-					if (StringUtils.hasLength(requestEncoding)) {
-						Charset charSet = Charset.forName(requestEncoding);
-						Map<String, String> params = new LinkedCaseInsensitiveMap<>();
-						params.putAll(contentType.getParameters());
-						params.put("charset", charSet.toString());
-						MediaType mediaType = new MediaType(contentType.getType(), contentType.getSubtype(), params);
-						this.headers.setContentType(mediaType);
-					}
-				}
-			}
-			catch (InvalidMediaTypeException ex) {
-				// Ignore: simply not exposing an invalid content type in HttpHeaders...
-			}
-
-			if (this.headers.getContentLength() < 0) {
-				int requestContentLength = this.servletRequest.getContentLength();
-				if (requestContentLength != -1) {
-					this.headers.setContentLength(requestContentLength);
-				}
-			}
+			this.headers = new ServletRequestHttpHeaders(new ServletRequestHeadersAdapter(this.servletRequest));
 		}
-
 		return this.headers;
 	}
 
@@ -268,4 +227,61 @@ public class ServletServerHttpRequest implements ServerHttpRequest {
 		return new ByteArrayInputStream(bos.toByteArray());
 	}
 
+
+	/**
+	 * {@link HttpHeaders} over the headers of the servlet request that keep the
+	 * parsed {@code Content-Type} and {@code Accept} values for as long as the
+	 * headers are read through to the request, i.e. have not been modified.
+	 */
+	private static final class ServletRequestHttpHeaders extends HttpHeaders {
+
+		private static final long serialVersionUID = -1457386914581536815L;
+
+		private final transient ServletRequestHeadersAdapter adapter;
+
+		@Nullable
+		private transient MediaType contentType;
+
+		private transient boolean contentTypeResolved;
+
+		@Nullable
+		private transient List<MediaType> accept;
+
+		ServletRequestHttpHeaders(ServletRequestHeadersAdapter adapter) {
+			super(adapter);
+			this.adapter = adapter;
+		}
+
+		@Override
+		@Nullable
+		public MediaType getContentType() {
+			if (this.adapter.isCopied()) {
+				return super.getContentType();
+			}
+			if (!this.contentTypeResolved) {
+				this.contentType = super.getContentType();
+				this.contentTypeResolved = true;
+			}
+			return this.contentType;
+		}
+
+		@Override
+		public List<MediaType> getAccept() {
+			if (this.adapter.isCopied()) {
+				return super.getAccept();
+			}
+			if (this.accept == null) {
+				this.accept = super.getAccept();
+			}
+			// Callers may sort the list in place
+			return new ArrayList<>(this.accept);
+		}
+
+		private Object writeReplace() {
+			HttpHeaders headers = new HttpHeaders();
+			headers.putAll(this);
+			return headers;
+		}
+	}
+
 }
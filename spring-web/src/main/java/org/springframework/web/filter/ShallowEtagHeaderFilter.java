@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,19 +18,27 @@ package org.springframework.web.filter;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.ServletRequest;
+import javax.servlet.WriteListener;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.DigestUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.util.ContentCachingResponseWrapper;
@@ -46,6 +54,11 @@ import org.springframework.web.util.WebUtils;
  * (e.g. a {@link org.springframework.web.servlet.View}) is still rendered.
  * As such, this filter only saves bandwidth, not server performance.
  *
+ * <p>By default the entire response content is buffered in order to calculate
+ * the ETag. A {@link #setContentCacheLimit content cache limit} bounds the
+ * memory used per response: the ETag is then calculated while the content is
+ * being written, and larger responses are streamed to the client without an ETag.
+ *
  * <p><b>NOTE:</b> As of Spring Framework 5.0, this filter uses request/response
  * decorators built on the Servlet 3.1 API.
  *
@@ -62,8 +75,16 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 	private static final String STREAMING_ATTRIBUTE = ShallowEtagHeaderFilter.class.getName() + ".STREAMING";
 
 
+	private static final char[] HEX_CHARS =
+			{'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+
 	private boolean writeWeakETag = false;
 
+	private int contentCacheLimit = 0;
+
+	private final boolean digestWhileWriting = isDefaultETagGeneration(getClass());
+
 
 	/**
 	 * Set whether the ETag value written to the response should be weak, as per RFC 7232.
@@ -84,6 +105,36 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		return this.writeWeakETag;
 	}
 
+	/**
+	 * Set the maximum number of bytes of response content to buffer for the
+	 * calculation of an ETag.
+	 * <p>Once a response exceeds the limit, the content buffered so far is
+	 * written to the response and the remaining content is streamed without
+	 * further buffering, and without an ETag. Responses within the limit get
+	 * an ETag as usual, with the MD5 hash calculated incrementally while the
+	 * content is written, unless {@link #generateETagHeaderValue} is overridden.
+	 * <p>By default there is no limit, i.e. the entire content of every
+	 * response is buffered. Should be configured using an {@code <init-param>}
+	 * for parameter name "contentCacheLimit" in the filter definition in
+	 * {@code web.xml}.
+	 * @param contentCacheLimit the maximum number of bytes to buffer per response,
+	 * or 0 for no limit
+	 * @since 5.3.11
+	 */
+	public void setContentCacheLimit(int contentCacheLimit) {
+		Assert.isTrue(contentCacheLimit >= 0, "Content cache limit must not be negative");
+		this.contentCacheLimit = contentCacheLimit;
+	}
+
+	/**
+	 * Return the maximum number of bytes of response content to buffer for
+	 * the calculation of an ETag, or 0 for no limit.
+	 * @since 5.3.11
+	 */
+	public int getContentCacheLimit() {
+		return this.contentCacheLimit;
+	}
+
 
 	/**
 	 * The default value is {@code false} so that the filter may delay the generation
@@ -100,7 +151,8 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 		HttpServletResponse responseToUse = response;
 		if (!isAsyncDispatch(request) && !(response instanceof ConditionalContentCachingResponseWrapper)) {
-			responseToUse = new ConditionalContentCachingResponseWrapper(response, request);
+			responseToUse = new ConditionalContentCachingResponseWrapper(
+					response, request, this.contentCacheLimit, this.digestWhileWriting);
 		}
 
 		filterChain.doFilter(request, responseToUse);
@@ -116,10 +168,17 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		Assert.notNull(wrapper, "ContentCachingResponseWrapper not found");
 		HttpServletResponse rawResponse = (HttpServletResponse) wrapper.getResponse();
 
+		if (wrapper.isContentCacheLimitExceeded()) {
+			wrapper.copyStreamedBodyToResponse();
+			return;
+		}
+
 		if (isEligibleForEtag(request, wrapper, wrapper.getStatus(), wrapper.getContentInputStream())) {
 			String eTag = wrapper.getHeader(HttpHeaders.ETAG);
 			if (!StringUtils.hasText(eTag)) {
-				eTag = generateETagHeaderValue(wrapper.getContentInputStream(), this.writeWeakETag);
+				byte[] digest = wrapper.getContentDigest();
+				eTag = (digest != null ? formatETagHeaderValue(digest, this.writeWeakETag) :
+						generateETagHeaderValue(wrapper.getContentInputStream(), this.writeWeakETag));
 				rawResponse.setHeader(HttpHeaders.ETAG, eTag);
 			}
 			if (new ServletWebRequest(request, rawResponse).checkNotModified(eTag)) {
@@ -179,6 +238,29 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 		return builder.toString();
 	}
 
+	/**
+	 * Format an ETag header value from an MD5 hash calculated incrementally,
+	 * in the same form as {@link #generateETagHeaderValue} does by default.
+	 */
+	private static String formatETagHeaderValue(byte[] digest, boolean isWeak) {
+		StringBuilder builder = new StringBuilder(37);
+		if (isWeak) {
+			builder.append("W/");
+		}
+		builder.append("\"0");
+		for (byte b : digest) {
+			builder.append(HEX_CHARS[(b >> 4) & 0xf]).append(HEX_CHARS[b & 0xf]);
+		}
+		builder.append('"');
+		return builder.toString();
+	}
+
+	private static boolean isDefaultETagGeneration(Class<?> filterClass) {
+		Method method = ReflectionUtils.findMethod(
+				filterClass, "generateETagHeaderValue", InputStream.class, boolean.class);
+		return (method != null && method.getDeclaringClass() == ShallowEtagHeaderFilter.class);
+	}
+
 
 	/**
 	 * This method can be used to suppress the content caching response wrapper
@@ -201,32 +283,245 @@ public class ShallowEtagHeaderFilter extends OncePerRequestFilter {
 
 	/**
 	 * Returns the raw OutputStream, instead of the one that does caching,
-	 * if {@link #isContentCachingDisabled}.
+	 * if {@link #isContentCachingDisabled}. With a content cache limit,
+	 * switches to the raw OutputStream once the limit is exceeded.
 	 */
 	private static class ConditionalContentCachingResponseWrapper extends ContentCachingResponseWrapper {
 
 		private final HttpServletRequest request;
 
-		ConditionalContentCachingResponseWrapper(HttpServletResponse response, HttpServletRequest request) {
+		private final int contentCacheLimit;
+
+		@Nullable
+		private final MessageDigest digest;
+
+		@Nullable
+		private ServletOutputStream limitedOutputStream;
+
+		@Nullable
+		private PrintWriter limitedWriter;
+
+		private boolean contentLengthExceedsLimit;
+
+		private boolean streaming;
+
+		ConditionalContentCachingResponseWrapper(HttpServletResponse response, HttpServletRequest request,
+				int contentCacheLimit, boolean digestWhileWriting) {
+
 			super(response);
 			this.request = request;
+			this.contentCacheLimit = contentCacheLimit;
+			this.digest = (contentCacheLimit > 0 && digestWhileWriting ? createMd5Digest() : null);
+		}
+
+		@Nullable
+		private static MessageDigest createMd5Digest() {
+			try {
+				return MessageDigest.getInstance("MD5");
+			}
+			catch (NoSuchAlgorithmException ex) {
+				return null;
+			}
 		}
 
 		@Override
 		public ServletOutputStream getOutputStream() throws IOException {
-			return (isContentCachingDisabled(this.request) || hasETag() ?
-					getResponse().getOutputStream() : super.getOutputStream());
+			if (this.limitedOutputStream != null) {
+				return this.limitedOutputStream;
+			}
+			if (isContentCachingDisabled(this.request) || hasETag()) {
+				return getResponse().getOutputStream();
+			}
+			if (this.contentCacheLimit > 0) {
+				this.limitedOutputStream = new LimitedContentCachingOutputStream(super.getOutputStream());
+				return this.limitedOutputStream;
+			}
+			return super.getOutputStream();
 		}
 
 		@Override
 		public PrintWriter getWriter() throws IOException {
-			return (isContentCachingDisabled(this.request) || hasETag()?
-					getResponse().getWriter() : super.getWriter());
+			if (this.limitedWriter != null) {
+				return this.limitedWriter;
+			}
+			if (isContentCachingDisabled(this.request) || hasETag()) {
+				return getResponse().getWriter();
+			}
+			if (this.contentCacheLimit > 0) {
+				String characterEncoding = getCharacterEncoding();
+				this.limitedWriter = new ResponsePrintWriter(getOutputStream(), (characterEncoding != null ?
+						characterEncoding : WebUtils.DEFAULT_CHARACTER_ENCODING));
+				return this.limitedWriter;
+			}
+			return super.getWriter();
+		}
+
+		@Override
+		public void setContentLength(int len) {
+			setContentLengthLong(len);
+		}
+
+		@Override
+		public void setContentLengthLong(long len) {
+			if (this.contentCacheLimit > 0 && (this.streaming || len > this.contentCacheLimit)) {
+				// Known to exceed the limit: pass through instead of pre-sizing the buffer
+				this.contentLengthExceedsLimit = true;
+				getResponse().setContentLengthLong(len);
+			}
+			else {
+				super.setContentLengthLong(len);
+			}
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			if (this.streaming) {
+				getResponse().flushBuffer();
+			}
+		}
+
+		@Override
+		public void resetBuffer() {
+			super.resetBuffer();
+			resetDigest();
+		}
+
+		@Override
+		public void reset() {
+			super.reset();
+			resetDigest();
+		}
+
+		private void resetDigest() {
+			if (this.digest != null && !this.streaming) {
+				this.digest.reset();
+			}
 		}
 
 		private boolean hasETag() {
 			return StringUtils.hasText(getHeader(HttpHeaders.ETAG));
 		}
+
+		/**
+		 * Whether the content cache limit has been exceeded, in which case
+		 * the content is streamed to the response without an ETag.
+		 */
+		boolean isContentCacheLimitExceeded() {
+			return (this.streaming || this.contentLengthExceedsLimit);
+		}
+
+		/**
+		 * Return the MD5 hash of the cached content, if calculated while writing.
+		 */
+		@Nullable
+		byte[] getContentDigest() {
+			return (this.digest != null ? this.digest.digest() : null);
+		}
+
+		/**
+		 * Copy remaining cached content, if any, after exceeding the content cache limit.
+		 */
+		void copyStreamedBodyToResponse() throws IOException {
+			copyBodyToResponse(false);
+			getResponse().flushBuffer();
+		}
+
+		private void startStreaming() throws IOException {
+			this.streaming = true;
+			copyBodyToResponse(false);
+		}
+
+
+		private class LimitedContentCachingOutputStream extends ServletOutputStream {
+
+			private final ServletOutputStream cachingStream;
+
+			LimitedContentCachingOutputStream(ServletOutputStream cachingStream) {
+				this.cachingStream = cachingStream;
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				if (isCaching(1)) {
+					this.cachingStream.write(b);
+					if (digest != null) {
+						digest.update((byte) b);
+					}
+				}
+				else {
+					getResponse().getOutputStream().write(b);
+				}
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				if (isCaching(len)) {
+					this.cachingStream.write(b, off, len);
+					if (digest != null) {
+						digest.update(b, off, len);
+					}
+				}
+				else {
+					getResponse().getOutputStream().write(b, off, len);
+				}
+			}
+
+			private boolean isCaching(int len) throws IOException {
+				if (streaming) {
+					return false;
+				}
+				if (!contentLengthExceedsLimit && getContentSize() + len <= contentCacheLimit) {
+					return true;
+				}
+				startStreaming();
+				return false;
+			}
+
+			@Override
+			public void flush() throws IOException {
+				if (streaming) {
+					getResponse().getOutputStream().flush();
+				}
+			}
+
+			@Override
+			public boolean isReady() {
+				return this.cachingStream.isReady();
+			}
+
+			@Override
+			public void setWriteListener(WriteListener writeListener) {
+				this.cachingStream.setWriteListener(writeListener);
+			}
+		}
+
+
+		private static class ResponsePrintWriter extends PrintWriter {
+
+			ResponsePrintWriter(ServletOutputStream outputStream, String characterEncoding)
+					throws UnsupportedEncodingException {
+
+				super(new OutputStreamWriter(outputStream, characterEncoding));
+			}
+
+			@Override
+			public void write(char[] buf, int off, int len) {
+				super.write(buf, off, len);
+				super.flush();
+			}
+
+			@Override
+			public void write(String s, int off, int len) {
+				super.write(s, off, len);
+				super.flush();
+			}
+
+			@Override
+			public void write(int c) {
+				super.write(c);
+				super.flush();
+			}
+		}
 	}
 
 }
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter.reactive;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.PooledDataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+/**
+ * {@link WebFilter} that generates an {@code ETag} value based on the content
+ * of the response. This ETag is compared to the {@code If-None-Match} header
+ * of the request. If these headers are equal, the response content is not
+ * sent, but rather a {@code 304 "Not Modified"} status instead.
+ *
+ * <p>The MD5 hash of the content is calculated while it is written, and the
+ * content is buffered up to the {@link #setContentCacheLimit content cache limit}
+ * only, since the ETag header must be known before any content is sent.
+ * Responses exceeding the limit are written without an ETag, as are responses
+ * written with {@link ServerHttpResponse#writeAndFlushWith}, e.g. streams of
+ * server-sent events.
+ *
+ * <p>Since the ETag is based on the response content, the response is still
+ * rendered. As such, this filter only saves bandwidth, not server performance.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see org.springframework.web.filter.ShallowEtagHeaderFilter
+ */
+public class ShallowEtagHeaderFilter implements WebFilter {
+
+	/**
+	 * The default maximum number of bytes of response content to buffer.
+	 */
+	public static final int DEFAULT_CONTENT_CACHE_LIMIT = 256 * 1024;
+
+	private static final String DIRECTIVE_NO_STORE = "no-store";
+
+	private static final char[] HEX_CHARS =
+			{'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+
+	private int contentCacheLimit = DEFAULT_CONTENT_CACHE_LIMIT;
+
+	private boolean writeWeakETag = false;
+
+
+	/**
+	 * Set the maximum number of bytes of response content to buffer for the
+	 * calculation of an ETag. Once a response exceeds the limit, the content
+	 * buffered so far is written and the rest of the content is passed through
+	 * without an ETag.
+	 * <p>By default this is set to {@link #DEFAULT_CONTENT_CACHE_LIMIT}.
+	 */
+	public void setContentCacheLimit(int contentCacheLimit) {
+		Assert.isTrue(contentCacheLimit >= 0, "Content cache limit must not be negative");
+		this.contentCacheLimit = contentCacheLimit;
+	}
+
+	/**
+	 * Return the maximum number of bytes of response content to buffer.
+	 */
+	public int getContentCacheLimit() {
+		return this.contentCacheLimit;
+	}
+
+	/**
+	 * Set whether the ETag value written to the response should be weak, as per RFC 7232.
+	 * <p>The default is {@code false}, i.e. strong ETags.
+	 * @see <a href="https://tools.ietf.org/html/rfc7232#section-2.3">RFC 7232 section 2.3</a>
+	 */
+	public void setWriteWeakETag(boolean writeWeakETag) {
+		this.writeWeakETag = writeWeakETag;
+	}
+
+	/**
+	 * Return whether the ETag value written to the response should be weak.
+	 */
+	public boolean isWriteWeakETag() {
+		return this.writeWeakETag;
+	}
+
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		if (!HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+			return chain.filter(exchange);
+		}
+		return chain.filter(exchange.mutate().response(new ETagResponseDecorator(exchange)).build());
+	}
+
+	/**
+	 * Whether an ETag should be calculated for the response, based on the
+	 * status and headers at the time the content is first written.
+	 */
+	private static boolean isEligibleForEtag(ServerHttpResponse response) {
+		HttpStatus status = response.getStatusCode();
+		if (status != null && !status.is2xxSuccessful()) {
+			return false;
+		}
+		HttpHeaders headers = response.getHeaders();
+		if (StringUtils.hasText(headers.getETag())) {
+			return false;
+		}
+		String cacheControl = headers.getCacheControl();
+		return (cacheControl == null || !cacheControl.contains(DIRECTIVE_NO_STORE));
+	}
+
+	private static void releaseBuffers(List<?> buffers) {
+		for (Object buffer : buffers) {
+			if (buffer instanceof DataBuffer) {
+				DataBufferUtils.release((DataBuffer) buffer);
+			}
+		}
+	}
+
+	private static MessageDigest createMd5Digest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		}
+		catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("Could not find MessageDigest with algorithm \"MD5\"", ex);
+		}
+	}
+
+
+	private class ETagResponseDecorator extends ServerHttpResponseDecorator {
+
+		private final ServerWebExchange exchange;
+
+		ETagResponseDecorator(ServerWebExchange exchange) {
+			super(exchange.getResponse());
+			this.exchange = exchange;
+		}
+
+		@Override
+		public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+			if (!isEligibleForEtag(getDelegate())) {
+				return super.writeWith(body);
+			}
+			ContentDigest contentDigest = new ContentDigest(contentCacheLimit);
+			return Flux.from(body)
+					.bufferUntil(contentDigest::update)
+					.switchOnFirst((signal, lists) -> {
+						Flux<DataBuffer> buffers = lists.flatMapIterable(list -> list);
+						if (!signal.hasValue() || contentDigest.isLimitExceeded()) {
+							return super.writeWith(buffers);
+						}
+						// Complete content within the limit
+						String eTag = contentDigest.getETag(writeWeakETag);
+						if (this.exchange.checkNotModified(eTag)) {
+							getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+							return lists.doOnNext(ShallowEtagHeaderFilter::releaseBuffers)
+									.then(getDelegate().setComplete());
+						}
+						return super.writeWith(buffers);
+					})
+					// Release buffers collected but not written, e.g. on error or cancellation
+					.doOnDiscard(List.class, ShallowEtagHeaderFilter::releaseBuffers)
+					.doOnDiscard(PooledDataBuffer.class, DataBufferUtils::release)
+					.then();
+		}
+	}
+
+
+	/**
+	 * Calculates the MD5 hash of content up to a limit, and keeps track of
+	 * whether the limit was exceeded.
+	 */
+	private static class ContentDigest {
+
+		private final int limit;
+
+		private final MessageDigest digest = createMd5Digest();
+
+		private long size;
+
+		ContentDigest(int limit) {
+			this.limit = limit;
+		}
+
+		/**
+		 * Update with the given content.
+		 * @return {@code true} if the limit is exceeded, at which point
+		 * buffered content should be written without an ETag
+		 */
+		boolean update(DataBuffer buffer) {
+			if (isLimitExceeded()) {
+				return true;
+			}
+			this.size += buffer.readableByteCount();
+			if (isLimitExceeded()) {
+				return true;
+			}
+			this.digest.update(buffer.asByteBuffer());
+			return false;
+		}
+
+		boolean isLimitExceeded() {
+			return (this.size > this.limit);
+		}
+
+		String getETag(boolean isWeak) {
+			StringBuilder builder = new StringBuilder(37);
+			if (isWeak) {
+				builder.append("W/");
+			}
+			builder.append("\"0");
+			for (byte b : this.digest.digest()) {
+				builder.append(HEX_CHARS[(b >> 4) & 0xf]).append(HEX_CHARS[b & 0xf]);
+			}
+			builder.append('"');
+			return builder.toString();
+		}
+	}
+
+}
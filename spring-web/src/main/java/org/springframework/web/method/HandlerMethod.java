@@ -22,6 +22,7 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.DirectMethodInvoker;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotatedElementUtils;
@@ -90,6 +91,9 @@ public class HandlerMethod {
     @Nullable
     private HandlerMethod resolvedFromHandlerMethod;
 
+    @Nullable
+    private volatile DirectMethodInvoker methodInvoker;
+
     @Nullable
     private volatile List<Annotation[][]> interfaceParameterAnnotations;
 
@@ -196,6 +200,7 @@ public class HandlerMethod {
         this.responseStatusReason = handlerMethod.responseStatusReason;
         this.description = handlerMethod.description;
         this.resolvedFromHandlerMethod = handlerMethod.resolvedFromHandlerMethod;
+        this.methodInvoker = handlerMethod.getMethodInvoker();
     }
 
     /**
@@ -215,6 +220,8 @@ public class HandlerMethod {
         this.responseStatusReason = handlerMethod.responseStatusReason;
         this.resolvedFromHandlerMethod = handlerMethod;
         this.description = handlerMethod.description;
+        // 复用注册时的 HandlerMethod 上解析好的 invoker，而不是每次请求重新查找
+        this.methodInvoker = handlerMethod.getMethodInvoker();
     }
 
     private MethodParameter[] initMethodParameters() {
@@ -282,6 +289,23 @@ public class HandlerMethod {
         return this.bridgedMethod;
     }
 
+    /**
+     * Return the invoker for the {@linkplain #getBridgedMethod() bridged method},
+     * resolved on first access and shared with the {@code HandlerMethod} instances
+     * created from this one.
+     *
+     * @since 5.3.11
+     * @see #createWithResolvedBean()
+     */
+    protected DirectMethodInvoker getMethodInvoker() {
+        DirectMethodInvoker invoker = this.methodInvoker;
+        if (invoker == null) {
+            invoker = DirectMethodInvoker.forMethod(this.bridgedMethod);
+            this.methodInvoker = invoker;
+        }
+        return invoker;
+    }
+
     /**
      * Return the method parameters for this handler method.
      */
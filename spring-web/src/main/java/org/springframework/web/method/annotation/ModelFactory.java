@@ -84,7 +84,7 @@ public final class ModelFactory {
         if (handlerMethods != null) {
             /**
              * 遍历，这些方法都是有@ModelAttribute的
-             * {@link org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter#getModelFactory(HandlerMethod, WebDataBinderFactory)}
+             * {@link org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter#getModelFactory(HandlerMethod, InvocationPlan, WebDataBinderFactory)}
              * */
             for (InvocableHandlerMethod handlerMethod : handlerMethods) {
                 /**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -126,6 +126,24 @@ public class HandlerMethodArgumentResolverComposite implements HandlerMethodArgu
         return resolver.resolveArgument(parameter, mavContainer, webRequest, binderFactory);
     }
 
+    /**
+     * Determine the {@link HandlerMethodArgumentResolver} for each of the given
+     * method parameters upfront, for use with
+     * {@link InvocableHandlerMethod#setBoundArgumentResolvers}.
+     *
+     * @param parameters the method parameters to bind
+     * @return the resolver for each parameter, with {@code null} elements
+     * for parameters that no registered resolver supports
+     * @since 5.3.11
+     */
+    public HandlerMethodArgumentResolver[] bindResolvers(MethodParameter[] parameters) {
+        HandlerMethodArgumentResolver[] result = new HandlerMethodArgumentResolver[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            result[i] = getArgumentResolver(parameters[i]);
+        }
+        return result;
+    }
+
     /**
      * Find a registered {@link HandlerMethodArgumentResolver} that supports
      * the given method parameter.
@@ -19,6 +19,7 @@ package org.springframework.web.method.support;
 import org.springframework.context.MessageSource;
 import org.springframework.core.*;
 import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.support.SessionStatus;
@@ -48,6 +49,9 @@ public class InvocableHandlerMethod extends HandlerMethod {
 
     private HandlerMethodArgumentResolverComposite resolvers = new HandlerMethodArgumentResolverComposite();
 
+    @Nullable
+    private HandlerMethodArgumentResolver[] boundResolvers;
+
     private ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
     @Nullable
@@ -101,6 +105,22 @@ public class InvocableHandlerMethod extends HandlerMethod {
         this.resolvers = argumentResolvers;
     }
 
+    /**
+     * Set the {@link HandlerMethodArgumentResolver} to use for each method parameter,
+     * as determined upfront via {@link HandlerMethodArgumentResolverComposite#bindResolvers},
+     * saving the resolver lookup for every invocation.
+     * <p>{@code null} elements fall back to the
+     * {@linkplain #setHandlerMethodArgumentResolvers configured resolvers}.
+     *
+     * @param boundResolvers the resolvers, indexed like the {@link #getMethodParameters() method parameters}
+     * @since 5.3.11
+     */
+    public void setBoundArgumentResolvers(@Nullable HandlerMethodArgumentResolver[] boundResolvers) {
+        Assert.isTrue(boundResolvers == null || boundResolvers.length == getMethodParameters().length,
+                "Bound argument resolvers must match the method parameters");
+        this.boundResolvers = boundResolvers;
+    }
+
     /**
      * Set the ParameterNameDiscoverer for resolving parameter names when needed
      * (e.g. default request attribute name).
@@ -179,12 +199,16 @@ public class InvocableHandlerMethod extends HandlerMethod {
                 // 匹配了就跳过本轮循环
                 continue;
             }
-            /**
-             * 遍历参数解析器，查看是否支持该参数的解析
-             * {@link org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter#afterPropertiesSet()}
-             * */
-            if (!this.resolvers.supportsParameter(parameter)) {
-                throw new IllegalStateException(formatArgumentError(parameter, "No suitable resolver"));
+            HandlerMethodArgumentResolver resolver = (this.boundResolvers != null ? this.boundResolvers[i] : null);
+            if (resolver == null) {
+                /**
+                 * 遍历参数解析器，查看是否支持该参数的解析
+                 * {@link org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter#afterPropertiesSet()}
+                 * */
+                if (!this.resolvers.supportsParameter(parameter)) {
+                    throw new IllegalStateException(formatArgumentError(parameter, "No suitable resolver"));
+                }
+                resolver = this.resolvers;
             }
             try {
                 /**
@@ -192,7 +216,7 @@ public class InvocableHandlerMethod extends HandlerMethod {
                  *
                  * 比如: 解析 @RequestParam + 解析常见数据类型的 {@link RequestParamMethodArgumentResolver}
                  * */
-                args[i] = this.resolvers.resolveArgument(parameter, mavContainer, request, this.dataBinderFactory);
+                args[i] = resolver.resolveArgument(parameter, mavContainer, request, this.dataBinderFactory);
             } catch (Exception ex) {
                 // Leave stack trace for later, exception may actually be resolved and handled...
                 if (logger.isDebugEnabled()) {
@@ -218,7 +242,7 @@ public class InvocableHandlerMethod extends HandlerMethod {
             if (KotlinDetector.isSuspendingFunction(method)) {
                 return CoroutinesUtils.invokeSuspendingFunction(method, getBean(), args);
             }
-            return method.invoke(getBean(), args);
+            return getMethodInvoker().invoke(getBean(), args);
         } catch (IllegalArgumentException ex) {
             assertTargetBean(method, getBean(), args);
             String text = (ex.getMessage() != null ? ex.getMessage() : "Illegal argument");
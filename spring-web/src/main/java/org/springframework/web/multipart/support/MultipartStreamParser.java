@@ -0,0 +1,566 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.multipart.support;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+
+/**
+ * Parses a multipart stream into a sequence of {@link StreamPart StreamParts},
+ * each exposing its headers and a stream of its content that is read directly
+ * from the underlying input, without buffering the part in memory or on disk.
+ *
+ * <p>Like the reactive parser used by
+ * {@link org.springframework.http.codec.multipart.DefaultPartHttpMessageReader},
+ * this parser goes through a preamble, headers, and body state for each part,
+ * scanning for the boundary in a fixed-size buffer. Parts must be consumed in
+ * order: {@link #nextPart()} skips any remaining content of the previous part.
+ *
+ * <p>Typical use in a handler, with a
+ * {@link StreamingMultipartResolver#setResolveLazily lazily resolving}
+ * multipart resolver or without a multipart resolver:
+ * <pre class="code">
+ * MultipartStreamParser parser = MultipartStreamParser.forRequest(request);
+ * MultipartStreamParser.StreamPart part;
+ * while ((part = parser.nextPart()) != null) {
+ *     if (part.getFilename() != null) {
+ *         part.transferTo(uploadDir.resolve(UUID.randomUUID().toString()));
+ *     }
+ * }
+ * </pre>
+ *
+ * <p>Not thread-safe: a parser is meant to be used for a single request.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see StreamingMultipartResolver
+ */
+public class MultipartStreamParser {
+
+	private static final byte CR = '\r';
+
+	private static final byte LF = '\n';
+
+	private static final byte HYPHEN = '-';
+
+	private static final int BUFFER_SIZE = 8192;
+
+
+	private final InputStream inputStream;
+
+	/** The boundary preceded by two hyphens, as found at the start of a stream. */
+	private final byte[] dashBoundary;
+
+	/** The boundary preceded by CR LF and two hyphens, as found after a part. */
+	private final byte[] delimiter;
+
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+
+	private int position;
+
+	private int limit;
+
+	private boolean endOfInput;
+
+	private State state = State.PREAMBLE;
+
+	@Nullable
+	private PartInputStream currentBody;
+
+	private int partCount;
+
+	private int maxHeadersSize = 10 * 1024;
+
+	private long maxPartSize = -1;
+
+	private int maxParts = -1;
+
+	private Charset headersCharset = StandardCharsets.UTF_8;
+
+
+	/**
+	 * Create a parser for the given multipart stream.
+	 * @param inputStream the stream to parse
+	 * @param boundary the multipart boundary, as found in the {@code Content-Type} header
+	 */
+	public MultipartStreamParser(InputStream inputStream, byte[] boundary) {
+		Assert.notNull(inputStream, "InputStream must not be null");
+		Assert.isTrue(boundary.length > 0 && boundary.length <= 70, "Boundary must be 1 to 70 bytes long");
+		this.inputStream = inputStream;
+		this.dashBoundary = new byte[boundary.length + 2];
+		this.dashBoundary[0] = HYPHEN;
+		this.dashBoundary[1] = HYPHEN;
+		System.arraycopy(boundary, 0, this.dashBoundary, 2, boundary.length);
+		this.delimiter = new byte[this.dashBoundary.length + 2];
+		this.delimiter[0] = CR;
+		this.delimiter[1] = LF;
+		System.arraycopy(this.dashBoundary, 0, this.delimiter, 2, this.dashBoundary.length);
+	}
+
+	/**
+	 * Create a parser for the body of the given multipart request.
+	 * @param request the current request
+	 * @throws MultipartException if the request has no multipart boundary
+	 * @throws IOException in case of I/O errors
+	 */
+	public static MultipartStreamParser forRequest(HttpServletRequest request) throws IOException {
+		byte[] boundary = boundary(request.getContentType());
+		if (boundary == null) {
+			throw new MultipartException("No multipart boundary found in Content-Type: " + request.getContentType());
+		}
+		return new MultipartStreamParser(request.getInputStream(), boundary);
+	}
+
+	/**
+	 * Return the boundary parameter of the given content type, if any.
+	 */
+	@Nullable
+	static byte[] boundary(@Nullable String contentType) {
+		if (!StringUtils.hasLength(contentType)) {
+			return null;
+		}
+		try {
+			String boundary = MediaType.parseMediaType(contentType).getParameter("boundary");
+			if (boundary != null && boundary.length() > 1 && boundary.startsWith("\"") && boundary.endsWith("\"")) {
+				boundary = boundary.substring(1, boundary.length() - 1);
+			}
+			return (StringUtils.hasLength(boundary) ? boundary.getBytes(StandardCharsets.ISO_8859_1) : null);
+		}
+		catch (InvalidMediaTypeException ex) {
+			return null;
+		}
+	}
+
+
+	/**
+	 * Set the maximum number of bytes of the headers of each part.
+	 * <p>By default this is set to 10K.
+	 */
+	public void setMaxHeadersSize(int maxHeadersSize) {
+		this.maxHeadersSize = maxHeadersSize;
+	}
+
+	/**
+	 * Set the maximum size of the content of each part. A
+	 * {@link MaxUploadSizeExceededException} is raised as soon as the limit is
+	 * exceeded while reading the content of a part.
+	 * <p>By default this is set to -1, meaning that there is no maximum.
+	 */
+	public void setMaxPartSize(long maxPartSize) {
+		this.maxPartSize = maxPartSize;
+	}
+
+	/**
+	 * Set the maximum number of parts in the stream.
+	 * <p>By default this is set to -1, meaning that there is no maximum.
+	 */
+	public void setMaxParts(int maxParts) {
+		this.maxParts = maxParts;
+	}
+
+	/**
+	 * Set the character set used to decode part headers.
+	 * <p>By default this is set to UTF-8.
+	 */
+	public void setHeadersCharset(Charset headersCharset) {
+		Assert.notNull(headersCharset, "HeadersCharset must not be null");
+		this.headersCharset = headersCharset;
+	}
+
+
+	/**
+	 * Return the next part of the stream, skipping any content of the
+	 * previous part that has not been read.
+	 * @return the next part, or {@code null} after the last part
+	 * @throws MultipartException if the stream is malformed or exceeds a limit
+	 * @throws IOException in case of I/O errors
+	 */
+	@Nullable
+	public StreamPart nextPart() throws IOException {
+		if (this.state == State.BODY) {
+			Assert.state(this.currentBody != null, "No current part");
+			this.currentBody.skipRemaining();
+		}
+		if (this.state == State.PREAMBLE) {
+			skipPreamble();
+		}
+		if (this.state == State.COMPLETE) {
+			return null;
+		}
+		// Right after a boundary: either the last one, or the start of a part
+		if (fill(2) >= 2 && this.buffer[this.position] == HYPHEN && this.buffer[this.position + 1] == HYPHEN) {
+			this.state = State.COMPLETE;
+			this.currentBody = null;
+			return null;
+		}
+		skipLine();
+		if (this.maxParts != -1 && this.partCount >= this.maxParts) {
+			throw new MultipartException("Maximum number of parts exceeded (" + this.maxParts + ")");
+		}
+		this.partCount++;
+		HttpHeaders headers = readHeaders();
+		this.state = State.BODY;
+		this.currentBody = new PartInputStream();
+		return new StreamPart(headers, this.currentBody);
+	}
+
+	/**
+	 * Skip content up to and including the first boundary, which is not
+	 * necessarily preceded by CR LF.
+	 */
+	private void skipPreamble() throws IOException {
+		fill(this.dashBoundary.length);
+		if (startsWith(this.dashBoundary)) {
+			this.position += this.dashBoundary.length;
+			this.state = State.HEADERS;
+			return;
+		}
+		while (true) {
+			fill(this.delimiter.length);
+			int index = indexOfDelimiter();
+			if (index != -1) {
+				this.position = index + this.delimiter.length;
+				this.state = State.HEADERS;
+				return;
+			}
+			if (this.endOfInput) {
+				this.state = State.COMPLETE;
+				throw new MultipartException("Could not find first boundary");
+			}
+			this.position = this.limit - this.delimiter.length + 1;
+		}
+	}
+
+	/**
+	 * Skip the remainder of the current line, i.e. transport padding after a boundary.
+	 */
+	private void skipLine() throws IOException {
+		while (true) {
+			fill(2);
+			int index = indexOfLineEnd();
+			if (index != -1) {
+				this.position = index + 2;
+				return;
+			}
+			if (this.endOfInput) {
+				throw unexpectedEndOfInput();
+			}
+			this.position = this.limit - 1;
+		}
+	}
+
+	private HttpHeaders readHeaders() throws IOException {
+		HttpHeaders headers = new HttpHeaders();
+		ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+		int size = 0;
+		while (true) {
+			fill(2);
+			int index = indexOfLineEnd();
+			int end = (index != -1 ? index : (this.endOfInput ? this.limit : this.limit - 1));
+			size += end - this.position + (index != -1 ? 2 : 0);
+			if (size > this.maxHeadersSize) {
+				throw new MultipartException("Part headers exceeded the limit of " + this.maxHeadersSize + " bytes");
+			}
+			line.write(this.buffer, this.position, end - this.position);
+			this.position = end;
+			if (index != -1) {
+				this.position += 2;
+				if (line.size() == 0) {
+					return headers;
+				}
+				String header = new String(line.toByteArray(), this.headersCharset);
+				int colonIndex = header.indexOf(':');
+				if (colonIndex != -1) {
+					headers.add(header.substring(0, colonIndex).trim(), header.substring(colonIndex + 1).trim());
+				}
+				line.reset();
+			}
+			else if (this.endOfInput) {
+				throw unexpectedEndOfInput();
+			}
+		}
+	}
+
+	/**
+	 * Return the number of bytes of part content available at the current
+	 * position, or 0 at the end of the part, after consuming the delimiter.
+	 */
+	private int bodyChunk() throws IOException {
+		fill(this.delimiter.length);
+		int index = indexOfDelimiter();
+		if (index == this.position) {
+			this.position += this.delimiter.length;
+			this.state = State.HEADERS;
+			return 0;
+		}
+		if (index != -1) {
+			return index - this.position;
+		}
+		if (this.endOfInput) {
+			this.state = State.COMPLETE;
+			throw unexpectedEndOfInput();
+		}
+		// The end of the buffer may hold the start of a delimiter
+		return this.limit - this.delimiter.length + 1 - this.position;
+	}
+
+	/**
+	 * Ensure that at least the given number of bytes is buffered, unless the
+	 * end of the input has been reached.
+	 * @return the number of buffered bytes
+	 */
+	private int fill(int count) throws IOException {
+		if (this.limit - this.position >= count || this.endOfInput) {
+			return this.limit - this.position;
+		}
+		if (this.position > 0) {
+			System.arraycopy(this.buffer, this.position, this.buffer, 0, this.limit - this.position);
+			this.limit -= this.position;
+			this.position = 0;
+		}
+		while (this.limit < count) {
+			int read = this.inputStream.read(this.buffer, this.limit, this.buffer.length - this.limit);
+			if (read == -1) {
+				this.endOfInput = true;
+				break;
+			}
+			this.limit += read;
+		}
+		return this.limit;
+	}
+
+	private boolean startsWith(byte[] prefix) {
+		if (this.limit - this.position < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (this.buffer[this.position + i] != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private int indexOfDelimiter() {
+		byte[] delimiter = this.delimiter;
+		int last = this.limit - delimiter.length;
+		for (int i = this.position; i <= last; i++) {
+			if (this.buffer[i] == CR) {
+				int j = 1;
+				while (j < delimiter.length && this.buffer[i + j] == delimiter[j]) {
+					j++;
+				}
+				if (j == delimiter.length) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	private int indexOfLineEnd() {
+		for (int i = this.position; i < this.limit - 1; i++) {
+			if (this.buffer[i] == CR && this.buffer[i + 1] == LF) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static MultipartException unexpectedEndOfInput() {
+		return new MultipartException("Unexpected end of multipart stream");
+	}
+
+
+	/**
+	 * A part of a multipart stream, with its content to be read before
+	 * moving on to the next part.
+	 */
+	public static final class StreamPart {
+
+		private final HttpHeaders headers;
+
+		private final PartInputStream body;
+
+		StreamPart(HttpHeaders headers, PartInputStream body) {
+			this.headers = headers;
+			this.body = body;
+		}
+
+		/**
+		 * Return the headers of this part.
+		 */
+		public HttpHeaders getHeaders() {
+			return this.headers;
+		}
+
+		/**
+		 * Return the name of this part, as found in its {@code Content-Disposition} header.
+		 */
+		@Nullable
+		public String getName() {
+			return this.headers.getContentDisposition().getName();
+		}
+
+		/**
+		 * Return the original filename of a file part, as found in its
+		 * {@code Content-Disposition} header, or {@code null} for a form field.
+		 */
+		@Nullable
+		public String getFilename() {
+			return this.headers.getContentDisposition().getFilename();
+		}
+
+		/**
+		 * Return the content of this part, read directly from the multipart stream.
+		 */
+		public InputStream getInputStream() {
+			return this.body;
+		}
+
+		/**
+		 * Write the remaining content of this part to the given channel.
+		 * @return the number of bytes written
+		 */
+		public long transferTo(WritableByteChannel channel) throws IOException {
+			return this.body.transferTo(channel);
+		}
+
+		/**
+		 * Write the remaining content of this part to the given file, using a
+		 * {@link FileChannel}.
+		 * @return the number of bytes written
+		 */
+		public long transferTo(Path file) throws IOException {
+			try (FileChannel channel = FileChannel.open(file,
+					StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				return this.body.transferTo(channel);
+			}
+		}
+	}
+
+
+	/**
+	 * The content of the current part, read from the buffer of the parser
+	 * up to the next delimiter.
+	 */
+	private class PartInputStream extends InputStream {
+
+		private boolean finished;
+
+		private long size;
+
+		@Override
+		public int read() throws IOException {
+			byte[] bytes = new byte[1];
+			return (read(bytes, 0, 1) == -1 ? -1 : bytes[0] & 0xFF);
+		}
+
+		@Override
+		public int read(byte[] bytes, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			int count = nextChunk();
+			if (count == 0) {
+				return -1;
+			}
+			count = Math.min(count, len);
+			System.arraycopy(buffer, position, bytes, off, count);
+			consume(count);
+			return count;
+		}
+
+		long transferTo(WritableByteChannel channel) throws IOException {
+			long transferred = 0;
+			int count;
+			while ((count = nextChunk()) != 0) {
+				ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, position, count);
+				while (byteBuffer.hasRemaining()) {
+					channel.write(byteBuffer);
+				}
+				consume(count);
+				transferred += count;
+			}
+			return transferred;
+		}
+
+		void skipRemaining() throws IOException {
+			int count;
+			while ((count = nextChunk()) != 0) {
+				position += count;
+			}
+		}
+
+		private int nextChunk() throws IOException {
+			if (this.finished) {
+				return 0;
+			}
+			int count = bodyChunk();
+			if (count == 0) {
+				this.finished = true;
+			}
+			return count;
+		}
+
+		private void consume(int count) {
+			position += count;
+			this.size += count;
+			if (maxPartSize != -1 && this.size > maxPartSize) {
+				this.finished = true;
+				state = State.COMPLETE;
+				throw new MaxUploadSizeExceededException(maxPartSize);
+			}
+		}
+	}
+
+
+	private enum State {
+
+		/** Before the first boundary. */
+		PREAMBLE,
+
+		/** After a boundary, before the headers of a part or the end of the stream. */
+		HEADERS,
+
+		/** Within the content of a part. */
+		BODY,
+
+		/** After the last boundary, or after an error. */
+		COMPLETE
+	}
+
+}
@@ -0,0 +1,476 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.multipart.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.multipart.MultipartResolver;
+
+/**
+ * {@link MultipartResolver} implementation that parses the multipart request
+ * body itself, with a {@link MultipartStreamParser}, instead of relying on the
+ * Servlet container or Commons FileUpload.
+ *
+ * <p>Parts are read from the request input stream as they arrive. Form fields
+ * and file parts up to {@link #setMaxInMemorySize maxInMemorySize} are kept in
+ * memory; larger file parts are written to the
+ * {@link #setFileStorageDirectory file storage directory} through a
+ * {@link FileChannel}, straight from the parse buffer. The
+ * {@link #setMaxPartSize part} and {@link #setMaxParts parts count} limits are
+ * enforced while parsing, so that an oversized upload fails at the point where
+ * the limit is exceeded rather than after it has been stored.
+ *
+ * <p>With {@link #setResolveLazily resolveLazily} enabled, the request is only
+ * parsed once files or parameters are accessed. Until then, handlers can
+ * consume the parts of very large uploads sequentially, without storing them,
+ * through {@link MultipartStreamParser#forRequest}.
+ *
+ * <p>Note that Servlet container multipart support must not be enabled
+ * for the {@code DispatcherServlet}, since the container would consume the
+ * request body before this resolver.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see MultipartStreamParser
+ * @see StandardServletMultipartResolver
+ */
+public class StreamingMultipartResolver implements MultipartResolver {
+
+	private static final Log logger = LogFactory.getLog(StreamingMultipartResolver.class);
+
+
+	private boolean resolveLazily = false;
+
+	private int maxInMemorySize = 256 * 1024;
+
+	private int maxHeadersSize = 10 * 1024;
+
+	private long maxPartSize = -1;
+
+	private int maxParts = -1;
+
+	@Nullable
+	private Path fileStorageDirectory;
+
+	private Charset headersCharset = StandardCharsets.UTF_8;
+
+	private Charset defaultCharset = StandardCharsets.UTF_8;
+
+
+	/**
+	 * Set whether to resolve the multipart request lazily at the time of
+	 * file or parameter access.
+	 * <p>Default is "false", resolving the multipart elements immediately, throwing
+	 * corresponding exceptions at the time of the {@link #resolveMultipart} call.
+	 * Switch this to "true" for lazy multipart parsing, throwing parse exceptions
+	 * once the application attempts to obtain multipart files or parameters,
+	 * or to consume the parts in the handler with a {@link MultipartStreamParser}.
+	 */
+	public void setResolveLazily(boolean resolveLazily) {
+		this.resolveLazily = resolveLazily;
+	}
+
+	/**
+	 * Configure the maximum amount of memory allowed per part.
+	 * File parts exceeding the limit are stored in the
+	 * {@link #setFileStorageDirectory file storage directory}, while form
+	 * fields exceeding the limit are rejected.
+	 * <p>By default this is set to 256K.
+	 */
+	public void setMaxInMemorySize(int maxInMemorySize) {
+		this.maxInMemorySize = maxInMemorySize;
+	}
+
+	/**
+	 * Configure the maximum amount of memory that is allowed per headers section of each part.
+	 * <p>By default this is set to 10K.
+	 */
+	public void setMaxHeadersSize(int maxHeadersSize) {
+		this.maxHeadersSize = maxHeadersSize;
+	}
+
+	/**
+	 * Configure the maximum size of each part, in memory or on disk.
+	 * A {@link MaxUploadSizeExceededException} is raised as soon as a part
+	 * exceeds the limit.
+	 * <p>By default this is set to -1, meaning that there is no maximum.
+	 */
+	public void setMaxPartSize(long maxPartSize) {
+		this.maxPartSize = maxPartSize;
+	}
+
+	/**
+	 * Specify the maximum number of parts allowed in a given multipart request.
+	 * <p>By default this is set to -1, meaning that there is no maximum.
+	 */
+	public void setMaxParts(int maxParts) {
+		this.maxParts = maxParts;
+	}
+
+	/**
+	 * Set the directory used to store file parts larger than
+	 * {@link #setMaxInMemorySize maxInMemorySize}.
+	 * <p>By default, a directory named {@code spring-multipart} is created
+	 * under the system temporary directory.
+	 */
+	public void setFileStorageDirectory(Path fileStorageDirectory) {
+		Assert.notNull(fileStorageDirectory, "FileStorageDirectory must not be null");
+		this.fileStorageDirectory = fileStorageDirectory;
+	}
+
+	/**
+	 * Set the character set used to decode part headers.
+	 * <p>By default this is set to UTF-8.
+	 */
+	public void setHeadersCharset(Charset headersCharset) {
+		Assert.notNull(headersCharset, "HeadersCharset must not be null");
+		this.headersCharset = headersCharset;
+	}
+
+	/**
+	 * Set the character set used to decode form fields that do not specify
+	 * a charset in their {@code Content-Type}, if the request does not specify
+	 * a character encoding either.
+	 * <p>By default this is set to UTF-8.
+	 */
+	public void setDefaultCharset(Charset defaultCharset) {
+		Assert.notNull(defaultCharset, "DefaultCharset must not be null");
+		this.defaultCharset = defaultCharset;
+	}
+
+
+	@Override
+	public boolean isMultipart(HttpServletRequest request) {
+		return StringUtils.startsWithIgnoreCase(request.getContentType(), "multipart/");
+	}
+
+	@Override
+	public MultipartHttpServletRequest resolveMultipart(HttpServletRequest request) throws MultipartException {
+		Assert.notNull(request, "Request must not be null");
+		if (this.resolveLazily) {
+			return new DefaultMultipartHttpServletRequest(request) {
+				@Override
+				protected void initializeMultipart() {
+					parseRequest(request, this);
+				}
+			};
+		}
+		else {
+			DefaultMultipartHttpServletRequest multipartRequest = new DefaultMultipartHttpServletRequest(request);
+			parseRequest(request, multipartRequest);
+			return multipartRequest;
+		}
+	}
+
+	/**
+	 * Parse the given servlet request, exposing its files and parameters
+	 * through the given multipart request.
+	 */
+	private void parseRequest(HttpServletRequest request, DefaultMultipartHttpServletRequest multipartRequest) {
+		MultiValueMap<String, MultipartFile> files = new LinkedMultiValueMap<>();
+		MultiValueMap<String, String> parameters = new LinkedMultiValueMap<>();
+		Map<String, String> parameterContentTypes = new HashMap<>();
+		try {
+			MultipartStreamParser parser = MultipartStreamParser.forRequest(request);
+			parser.setMaxHeadersSize(this.maxHeadersSize);
+			parser.setMaxPartSize(this.maxPartSize);
+			parser.setMaxParts(this.maxParts);
+			parser.setHeadersCharset(this.headersCharset);
+			MultipartStreamParser.StreamPart part;
+			while ((part = parser.nextPart()) != null) {
+				String name = part.getName();
+				if (name == null) {
+					continue;
+				}
+				String filename = part.getFilename();
+				if (filename != null) {
+					files.add(name, storeFile(part, name, filename));
+				}
+				else {
+					String contentType = part.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+					parameters.add(name, readFormField(part, contentType, request));
+					if (contentType != null) {
+						parameterContentTypes.put(name, contentType);
+					}
+				}
+			}
+		}
+		catch (IOException ex) {
+			cleanupFiles(files);
+			throw new MultipartException("Failed to parse multipart servlet request", ex);
+		}
+		catch (MultipartException ex) {
+			cleanupFiles(files);
+			throw ex;
+		}
+
+		Map<String, String[]> parameterArrays = new LinkedHashMap<>(parameters.size());
+		parameters.forEach((name, values) -> parameterArrays.put(name, StringUtils.toStringArray(values)));
+		multipartRequest.setMultipartFiles(files);
+		multipartRequest.setMultipartParameters(parameterArrays);
+		multipartRequest.setMultipartParameterContentTypes(parameterContentTypes);
+	}
+
+	private String readFormField(MultipartStreamParser.StreamPart part, @Nullable String contentType,
+			HttpServletRequest request) throws IOException {
+
+		byte[] content = readUpTo(part.getInputStream(), this.maxInMemorySize);
+		if (content.length > this.maxInMemorySize) {
+			throw new MultipartException(
+					"Form field value exceeded the memory usage limit of " + this.maxInMemorySize + " bytes");
+		}
+		Charset charset = null;
+		if (contentType != null) {
+			try {
+				charset = MediaType.parseMediaType(contentType).getCharset();
+			}
+			catch (IllegalArgumentException ex) {
+				// Ignore: fall back to the request encoding
+			}
+		}
+		if (charset == null) {
+			String encoding = request.getCharacterEncoding();
+			charset = (encoding != null ? Charset.forName(encoding) : this.defaultCharset);
+		}
+		return new String(content, charset);
+	}
+
+	private MultipartFile storeFile(MultipartStreamParser.StreamPart part, String name, String filename)
+			throws IOException {
+
+		String contentType = part.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+		byte[] content = readUpTo(part.getInputStream(), this.maxInMemorySize);
+		if (content.length <= this.maxInMemorySize) {
+			return new StreamingMultipartFile(name, filename, contentType, content, null, content.length);
+		}
+		Path file = Files.createTempFile(getFileStorageDirectory(), null, ".multipart");
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			ByteBuffer byteBuffer = ByteBuffer.wrap(content);
+			while (byteBuffer.hasRemaining()) {
+				channel.write(byteBuffer);
+			}
+			long size = content.length + part.transferTo(channel);
+			return new StreamingMultipartFile(name, filename, contentType, null, file, size);
+		}
+		catch (IOException | RuntimeException ex) {
+			deleteFile(file);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Read the given stream up to one byte past the given limit, so that
+	 * callers can tell whether the limit was exceeded.
+	 */
+	private static byte[] readUpTo(InputStream inputStream, int limit) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(limit + 1, StreamUtils.BUFFER_SIZE));
+		byte[] buffer = new byte[StreamUtils.BUFFER_SIZE];
+		int remaining = limit + 1;
+		int read;
+		while (remaining > 0 && (read = inputStream.read(buffer, 0, Math.min(buffer.length, remaining))) != -1) {
+			out.write(buffer, 0, read);
+			remaining -= read;
+		}
+		return out.toByteArray();
+	}
+
+	private synchronized Path getFileStorageDirectory() throws IOException {
+		if (this.fileStorageDirectory == null) {
+			Path directory = new File(System.getProperty("java.io.tmpdir"), "spring-multipart").toPath();
+			this.fileStorageDirectory = Files.createDirectories(directory);
+		}
+		return this.fileStorageDirectory;
+	}
+
+	@Override
+	public void cleanupMultipart(MultipartHttpServletRequest request) {
+		if (!(request instanceof AbstractMultipartHttpServletRequest) ||
+				((AbstractMultipartHttpServletRequest) request).isResolved()) {
+			try {
+				cleanupFiles(request.getMultiFileMap());
+			}
+			catch (Throwable ex) {
+				logger.warn("Failed to perform multipart cleanup for servlet request", ex);
+			}
+		}
+	}
+
+	private static void cleanupFiles(MultiValueMap<String, MultipartFile> files) {
+		for (List<MultipartFile> values : files.values()) {
+			for (MultipartFile file : values) {
+				if (file instanceof StreamingMultipartFile) {
+					((StreamingMultipartFile) file).delete();
+				}
+			}
+		}
+	}
+
+	private static void deleteFile(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Could not delete multipart file " + file, ex);
+			}
+		}
+	}
+
+
+	/**
+	 * {@link MultipartFile} kept in memory or stored in a file by
+	 * {@link StreamingMultipartResolver}.
+	 */
+	private static class StreamingMultipartFile implements MultipartFile {
+
+		private final String name;
+
+		private final String filename;
+
+		@Nullable
+		private final String contentType;
+
+		@Nullable
+		private final byte[] content;
+
+		@Nullable
+		private final Path file;
+
+		private final long size;
+
+		private volatile boolean moved;
+
+		StreamingMultipartFile(String name, String filename, @Nullable String contentType,
+				@Nullable byte[] content, @Nullable Path file, long size) {
+
+			this.name = name;
+			this.filename = filename;
+			this.contentType = contentType;
+			this.content = content;
+			this.file = file;
+			this.size = size;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public String getOriginalFilename() {
+			return this.filename;
+		}
+
+		@Override
+		@Nullable
+		public String getContentType() {
+			return this.contentType;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return (this.size == 0);
+		}
+
+		@Override
+		public long getSize() {
+			return this.size;
+		}
+
+		@Override
+		public byte[] getBytes() throws IOException {
+			if (this.content != null) {
+				return this.content;
+			}
+			return Files.readAllBytes(getStoredFile());
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			if (this.content != null) {
+				return new ByteArrayInputStream(this.content);
+			}
+			return Files.newInputStream(getStoredFile());
+		}
+
+		@Override
+		public void transferTo(File dest) throws IOException, IllegalStateException {
+			transferTo(dest.toPath());
+		}
+
+		@Override
+		public void transferTo(Path dest) throws IOException, IllegalStateException {
+			if (this.content != null) {
+				FileCopyUtils.copy(this.content, Files.newOutputStream(dest));
+			}
+			else {
+				// Move the stored file rather than copying its content
+				Files.move(getStoredFile(), dest, StandardCopyOption.REPLACE_EXISTING);
+				this.moved = true;
+			}
+		}
+
+		private Path getStoredFile() {
+			Assert.state(this.file != null, "No stored file");
+			if (this.moved) {
+				throw new IllegalStateException("File has already been moved - cannot be read again");
+			}
+			return this.file;
+		}
+
+		void delete() {
+			if (this.file != null && !this.moved) {
+				deleteFile(this.file);
+			}
+		}
+	}
+
+}
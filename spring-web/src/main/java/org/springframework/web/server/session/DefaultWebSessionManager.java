@@ -16,6 +16,8 @@
 
 package org.springframework.web.server.session;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
@@ -45,6 +47,8 @@ public class DefaultWebSessionManager implements WebSessionManager {
 
 	private WebSessionStore sessionStore = new InMemoryWebSessionStore();
 
+	private Duration lastAccessTimeGranularity = Duration.ZERO;
+
 
 	/**
 	 * Configure the id resolution strategy.
@@ -80,6 +84,32 @@ public class DefaultWebSessionManager implements WebSessionManager {
 		return this.sessionStore;
 	}
 
+	/**
+	 * Configure the granularity at which the last access time of an otherwise
+	 * unmodified {@link DeltaWebSession} is persisted: saving such a session is
+	 * skipped as long as its last access time has advanced by less than the
+	 * given duration since it was last saved.
+	 * <p>This may considerably reduce writes to an external store, at the
+	 * expense of the persisted last access time lagging behind by up to the
+	 * given duration, which should therefore be well below the max idle time.
+	 * <p>By default this is {@link Duration#ZERO}, always saving sessions.
+	 * @param lastAccessTimeGranularity the granularity to use
+	 * @since 5.3.11
+	 */
+	public void setLastAccessTimeGranularity(Duration lastAccessTimeGranularity) {
+		Assert.notNull(lastAccessTimeGranularity, "Duration is required");
+		Assert.isTrue(!lastAccessTimeGranularity.isNegative(), "Duration must not be negative");
+		this.lastAccessTimeGranularity = lastAccessTimeGranularity;
+	}
+
+	/**
+	 * Return the configured last access time granularity.
+	 * @since 5.3.11
+	 */
+	public Duration getLastAccessTimeGranularity() {
+		return this.lastAccessTimeGranularity;
+	}
+
 
 	@Override
 	public Mono<WebSession> getSession(ServerWebExchange exchange) {
@@ -120,7 +150,24 @@ public class DefaultWebSessionManager implements WebSessionManager {
 			this.sessionIdResolver.setSessionId(exchange, session.getId());
 		}
 
+		if (isSaveSkippable(session)) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("WebSession unmodified within last access time granularity - skipping save");
+			}
+			return Mono.empty();
+		}
+
 		return session.save();
 	}
 
+	private boolean isSaveSkippable(WebSession session) {
+		if (this.lastAccessTimeGranularity.isZero() || !(session instanceof DeltaWebSession)) {
+			return false;
+		}
+		DeltaWebSession deltaSession = (DeltaWebSession) session;
+		Instant savedLastAccessTime = deltaSession.getSavedLastAccessTime();
+		return (savedLastAccessTime != null && !deltaSession.isModified() &&
+				savedLastAccessTime.plus(this.lastAccessTimeGranularity).isAfter(session.getLastAccessTime()));
+	}
+
 }
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.server.session;
+
+import java.time.Instant;
+
+import org.springframework.lang.Nullable;
+import org.springframework.web.server.WebSession;
+
+/**
+ * Extension of {@link WebSession} for sessions that track their changes since
+ * they were last persisted, allowing a {@link WebSessionStore} to write only
+ * deltas and a {@link DefaultWebSessionManager} to skip saving altogether.
+ *
+ * <p>Implementations typically hold their attributes in a
+ * {@link TrackingSessionAttributes} map, like the sessions of an
+ * {@link InMemoryWebSessionStore} do.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see TrackingSessionAttributes
+ * @see DefaultWebSessionManager#setLastAccessTimeGranularity
+ */
+public interface DeltaWebSession extends WebSession {
+
+	/**
+	 * Whether this session has changes to persist other than its last access
+	 * time: e.g. because it has never been saved, attributes have been changed,
+	 * or its id or max idle time have been changed.
+	 */
+	boolean isModified();
+
+	/**
+	 * Return the last access time as of the last time this session was
+	 * persisted, or {@code null} if it has never been persisted.
+	 */
+	@Nullable
+	Instant getSavedLastAccessTime();
+
+}
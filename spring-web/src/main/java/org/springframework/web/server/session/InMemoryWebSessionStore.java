@@ -31,6 +31,7 @@ import java.util.concurrent.locks.ReentrantLock;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
+import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.IdGenerator;
 import org.springframework.util.JdkIdGenerator;
@@ -39,6 +40,10 @@ import org.springframework.web.server.WebSession;
 /**
  * Simple Map-based storage for {@link WebSession} instances.
  *
+ * <p>Sessions are {@link DeltaWebSession DeltaWebSessions}, so that
+ * {@link DefaultWebSessionManager#setLastAccessTimeGranularity} also applies
+ * to sessions held by this store.
+ *
  * @author Rossen Stoyanchev
  * @author Rob Winch
  * @since 5.0
@@ -167,11 +172,11 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 	}
 
 
-	private class InMemoryWebSession implements WebSession {
+	private class InMemoryWebSession implements DeltaWebSession {
 
 		private final AtomicReference<String> id = new AtomicReference<>(String.valueOf(idGenerator.generateId()));
 
-		private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+		private final TrackingSessionAttributes attributes = new TrackingSessionAttributes();
 
 		private final Instant creationTime;
 
@@ -181,6 +186,11 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 
 		private final AtomicReference<State> state = new AtomicReference<>(State.NEW);
 
+		private volatile boolean maxIdleTimeChanged;
+
+		@Nullable
+		private volatile Instant savedLastAccessTime;
+
 
 		public InMemoryWebSession(Instant creationTime) {
 			this.creationTime = creationTime;
@@ -210,6 +220,7 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 		@Override
 		public void setMaxIdleTime(Duration maxIdleTime) {
 			this.maxIdleTime = maxIdleTime;
+			this.maxIdleTimeChanged = true;
 		}
 
 		@Override
@@ -264,11 +275,27 @@ public class InMemoryWebSessionStore implements WebSessionStore {
 					InMemoryWebSessionStore.this.sessions.remove(this.getId());
 					return Mono.error(new IllegalStateException("Session was invalidated"));
 				}
+
+				this.attributes.clearChanges();
+				this.maxIdleTimeChanged = false;
+				this.savedLastAccessTime = this.lastAccessTime;
 			}
 
 			return Mono.empty();
 		}
 
+		@Override
+		public boolean isModified() {
+			return (this.savedLastAccessTime == null || !this.state.get().equals(State.STARTED) ||
+					this.maxIdleTimeChanged || this.attributes.hasChanges());
+		}
+
+		@Override
+		@Nullable
+		public Instant getSavedLastAccessTime() {
+			return this.savedLastAccessTime;
+		}
+
 		private void checkMaxSessionsLimit() {
 			if (sessions.size() >= maxSessions) {
 				expiredSessionChecker.removeExpiredSessions(clock.instant());
@@ -0,0 +1,686 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.server.session;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.IdGenerator;
+import org.springframework.util.JdkIdGenerator;
+import org.springframework.web.server.WebSession;
+
+/**
+ * In-memory {@link WebSessionStore} designed for large numbers of concurrent
+ * sessions, as an alternative to {@link InMemoryWebSessionStore}.
+ *
+ * <p>Sessions are spread across a fixed number of shards, each guarded by its
+ * own lock. Within a shard, sessions are kept in least-recently-used order:
+ * once the {@linkplain #setMaxSessions maximum number of sessions} is reached,
+ * saving a new session evicts the least recently used session of its shard
+ * rather than failing.
+ *
+ * <p>Session expiration is tracked by a hierarchical timing wheel per shard,
+ * so that each store operation only processes the sessions whose idle timeout
+ * falls into the elapsed ticks instead of scanning all sessions. An access to
+ * a session does not touch the timing wheel: a session found to have been
+ * accessed in the meantime is simply rescheduled when its slot comes due.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see InMemoryWebSessionStore
+ */
+public class ShardedInMemoryWebSessionStore implements WebSessionStore {
+
+	private static final IdGenerator idGenerator = new JdkIdGenerator();
+
+	private static final int DEFAULT_SHARD_COUNT = 64;
+
+	private static final Duration DEFAULT_TICK_DURATION = Duration.ofSeconds(1);
+
+
+	private final Shard[] shards;
+
+	private final long tickMillis;
+
+	private volatile int maxSessions = 10000;
+
+	private volatile Clock clock = Clock.system(ZoneId.of("GMT"));
+
+	private final AtomicLong expiredSessionCount = new AtomicLong();
+
+	private final AtomicLong evictedSessionCount = new AtomicLong();
+
+
+	/**
+	 * Create a store with 64 shards and a timing wheel tick of one second.
+	 */
+	public ShardedInMemoryWebSessionStore() {
+		this(DEFAULT_SHARD_COUNT, DEFAULT_TICK_DURATION);
+	}
+
+	/**
+	 * Create a store with the given number of shards and timing wheel tick.
+	 * @param shardCount the number of shards, rounded up to a power of two
+	 * @param tickDuration the resolution of the timing wheel, i.e. the maximum
+	 * delay after which an idle session gets removed proactively
+	 */
+	public ShardedInMemoryWebSessionStore(int shardCount, Duration tickDuration) {
+		Assert.isTrue(shardCount > 0, "Shard count must be greater than 0");
+		Assert.isTrue(shardCount <= (1 << 16), "Shard count must not exceed 65536");
+		Assert.isTrue(tickDuration.toMillis() > 0, "Tick duration must be at least 1 millisecond");
+		this.tickMillis = tickDuration.toMillis();
+		int size = 1;
+		while (size < shardCount) {
+			size <<= 1;
+		}
+		long nowMillis = this.clock.millis();
+		this.shards = new Shard[size];
+		for (int i = 0; i < size; i++) {
+			this.shards[i] = new Shard(nowMillis);
+		}
+	}
+
+
+	/**
+	 * Set the maximum number of sessions that can be stored. Once the limit
+	 * is reached, storing an additional session evicts the least recently
+	 * used session of the same shard.
+	 * <p>The limit is applied per shard, as the maximum number of sessions
+	 * divided by the number of shards, rounded up.
+	 * <p>By default set to 10000.
+	 * @param maxSessions the maximum number of sessions
+	 */
+	public void setMaxSessions(int maxSessions) {
+		Assert.isTrue(maxSessions > 0, "Max sessions must be greater than 0");
+		this.maxSessions = maxSessions;
+	}
+
+	/**
+	 * Return the maximum number of sessions that can be stored.
+	 */
+	public int getMaxSessions() {
+		return this.maxSessions;
+	}
+
+	/**
+	 * Configure the {@link Clock} to use to set lastAccessTime on every created
+	 * session and to calculate if it is expired.
+	 * <p>Sessions that are expired according to the new clock are removed
+	 * right away, and the timing wheels are realigned to the new clock.
+	 * <p>By default this is {@code Clock.system(ZoneId.of("GMT"))}.
+	 * @param clock the clock to use
+	 */
+	public void setClock(Clock clock) {
+		Assert.notNull(clock, "Clock is required");
+		this.clock = clock;
+		long nowMillis = clock.millis();
+		Instant now = Instant.ofEpochMilli(nowMillis);
+		for (Shard shard : this.shards) {
+			shard.reset(now);
+		}
+	}
+
+	/**
+	 * Return the configured clock for session lastAccessTime calculations.
+	 */
+	public Clock getClock() {
+		return this.clock;
+	}
+
+	/**
+	 * Return a snapshot of the stored sessions. This could be used for
+	 * management purposes, to list active sessions, invalidate expired ones, etc.
+	 * <p>Note that this copies all sessions and should not be called frequently.
+	 */
+	public Map<String, WebSession> getSessions() {
+		Map<String, WebSession> result = new LinkedHashMap<>();
+		for (Shard shard : this.shards) {
+			shard.copyTo(result);
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * Return the number of currently stored sessions.
+	 */
+	public int getSessionCount() {
+		int count = 0;
+		for (Shard shard : this.shards) {
+			count += shard.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Return the number of shards that sessions are spread across.
+	 */
+	public int getShardCount() {
+		return this.shards.length;
+	}
+
+	/**
+	 * Return the total number of sessions removed due to expiration so far.
+	 */
+	public long getExpiredSessionCount() {
+		return this.expiredSessionCount.get();
+	}
+
+	/**
+	 * Return the total number of sessions evicted due to the
+	 * {@linkplain #setMaxSessions maximum number of sessions} so far.
+	 */
+	public long getEvictedSessionCount() {
+		return this.evictedSessionCount.get();
+	}
+
+
+	@Override
+	public Mono<WebSession> createWebSession() {
+		Instant now = this.clock.instant();
+		return Mono.<WebSession>fromSupplier(() -> new ShardedWebSession(now))
+				.subscribeOn(Schedulers.boundedElastic())
+				.publishOn(Schedulers.parallel());
+	}
+
+	@Override
+	public Mono<WebSession> retrieveSession(String id) {
+		Instant now = this.clock.instant();
+		Shard shard = getShard(id);
+		ShardedWebSession session = shard.get(id, now);
+		if (session == null) {
+			return Mono.empty();
+		}
+		else if (session.isExpired(now)) {
+			if (shard.remove(id, session)) {
+				this.expiredSessionCount.incrementAndGet();
+			}
+			return Mono.empty();
+		}
+		else {
+			session.updateLastAccessTime(now);
+			return Mono.just(session);
+		}
+	}
+
+	@Override
+	public Mono<Void> removeSession(String id) {
+		Shard shard = getShard(id);
+		shard.remove(id, null);
+		return Mono.empty();
+	}
+
+	@Override
+	public Mono<WebSession> updateLastAccessTime(WebSession session) {
+		return Mono.fromSupplier(() -> {
+			Assert.isInstanceOf(ShardedWebSession.class, session);
+			((ShardedWebSession) session).updateLastAccessTime(this.clock.instant());
+			return session;
+		});
+	}
+
+	/**
+	 * Remove the sessions whose idle timeout has elapsed from all shards.
+	 * Such checks otherwise happen per shard, for the elapsed ticks of its
+	 * timing wheel, whenever a session of the shard is accessed.
+	 */
+	public void removeExpiredSessions() {
+		Instant now = this.clock.instant();
+		for (Shard shard : this.shards) {
+			shard.expire(now);
+		}
+	}
+
+	private Shard getShard(String id) {
+		int hash = id.hashCode();
+		return this.shards[(hash ^ (hash >>> 16)) & (this.shards.length - 1)];
+	}
+
+
+	/**
+	 * A partition of the sessions with its own lock, LRU order and timing wheel.
+	 */
+	private final class Shard {
+
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private final LinkedHashMap<String, ShardedWebSession> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+		private ExpirationWheel wheel;
+
+		private final Consumer<ShardedWebSession> expirationHandler = session -> {
+			if (this.sessions.remove(session.getId(), session)) {
+				session.expire();
+				expiredSessionCount.incrementAndGet();
+			}
+		};
+
+		Shard(long nowMillis) {
+			this.wheel = new ExpirationWheel(tickMillis, nowMillis);
+		}
+
+		@Nullable
+		public ShardedWebSession get(String id, Instant now) {
+			this.lock.lock();
+			try {
+				this.wheel.advance(now, this.expirationHandler);
+				return this.sessions.get(id);
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		public void save(ShardedWebSession session, Instant now) {
+			this.lock.lock();
+			try {
+				this.wheel.advance(now, this.expirationHandler);
+				this.sessions.put(session.getId(), session);
+				long expirationMillis = session.getExpirationMillis();
+				if (!session.isScheduled() || expirationMillis < session.scheduledExpirationMillis) {
+					this.wheel.schedule(session, expirationMillis, false);
+				}
+				int capacity = (maxSessions + shards.length - 1) / shards.length;
+				if (this.sessions.size() > capacity) {
+					Iterator<ShardedWebSession> it = this.sessions.values().iterator();
+					while (this.sessions.size() > capacity && it.hasNext()) {
+						ShardedWebSession eldest = it.next();
+						if (eldest != session) {
+							it.remove();
+							this.wheel.remove(eldest);
+							eldest.expire();
+							evictedSessionCount.incrementAndGet();
+						}
+					}
+				}
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		public boolean remove(String id, @Nullable ShardedWebSession session) {
+			this.lock.lock();
+			try {
+				ShardedWebSession removed = this.sessions.get(id);
+				if (removed == null || (session != null && removed != session)) {
+					return false;
+				}
+				this.sessions.remove(id);
+				this.wheel.remove(removed);
+				return true;
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		public void expire(Instant now) {
+			this.lock.lock();
+			try {
+				this.wheel.advance(now, this.expirationHandler);
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		public void reset(Instant now) {
+			this.lock.lock();
+			try {
+				this.wheel = new ExpirationWheel(tickMillis, now.toEpochMilli());
+				Iterator<ShardedWebSession> it = this.sessions.values().iterator();
+				while (it.hasNext()) {
+					ShardedWebSession session = it.next();
+					session.wheelBucket = null;
+					if (session.isExpired(now)) {
+						it.remove();
+						session.expire();
+						expiredSessionCount.incrementAndGet();
+					}
+					else {
+						this.wheel.schedule(session, session.getExpirationMillis(), false);
+					}
+				}
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		public void copyTo(Map<String, WebSession> target) {
+			this.lock.lock();
+			try {
+				target.putAll(this.sessions);
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+
+		public int size() {
+			this.lock.lock();
+			try {
+				return this.sessions.size();
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+	}
+
+
+	/**
+	 * Hierarchical timing wheel with 4 levels of 64 slots each, covering
+	 * 64^4 ticks (about 194 days with the default tick of one second).
+	 * Sessions further out are parked in the outermost slot and rescheduled
+	 * once it comes due. Not thread-safe: guarded by the lock of its shard.
+	 */
+	private static final class ExpirationWheel {
+
+		private static final int SLOT_BITS = 6;
+
+		private static final int SLOTS = 1 << SLOT_BITS;
+
+		private static final int LEVELS = 4;
+
+		private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+		private final long tickMillis;
+
+		private final Set<ShardedWebSession>[][] buckets;
+
+		private long currentTick;
+
+		private int size;
+
+		@SuppressWarnings("unchecked")
+		ExpirationWheel(long tickMillis, long nowMillis) {
+			this.tickMillis = tickMillis;
+			this.buckets = new Set[LEVELS][SLOTS];
+			for (int level = 0; level < LEVELS; level++) {
+				for (int slot = 0; slot < SLOTS; slot++) {
+					this.buckets[level][slot] = new HashSet<>();
+				}
+			}
+			this.currentTick = nowMillis / tickMillis;
+		}
+
+		/**
+		 * Schedule the given session for its expiration time.
+		 * @param includeCurrentTick whether an already elapsed expiration may go
+		 * into the slot of the current tick, which is only processed if we are
+		 * in the middle of advancing to that tick
+		 */
+		public void schedule(ShardedWebSession session, long expirationMillis, boolean includeCurrentTick) {
+			remove(session);
+			long minTick = (includeCurrentTick ? this.currentTick : this.currentTick + 1);
+			long deadlineTick = (expirationMillis > Long.MAX_VALUE - this.tickMillis ? Long.MAX_VALUE :
+					(expirationMillis + this.tickMillis - 1) / this.tickMillis);
+			long delta = Math.max(deadlineTick, minTick) - this.currentTick;
+			if (delta > MAX_DELTA) {
+				delta = MAX_DELTA;
+			}
+			deadlineTick = this.currentTick + delta;
+			int level = 0;
+			while (level < LEVELS - 1 && delta >= (1L << (SLOT_BITS * (level + 1)))) {
+				level++;
+			}
+			int slot = (int) ((deadlineTick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+			Set<ShardedWebSession> bucket = this.buckets[level][slot];
+			bucket.add(session);
+			session.wheelBucket = bucket;
+			session.scheduledExpirationMillis = expirationMillis;
+			this.size++;
+		}
+
+		public void remove(ShardedWebSession session) {
+			Set<ShardedWebSession> bucket = session.wheelBucket;
+			if (bucket != null) {
+				bucket.remove(session);
+				session.wheelBucket = null;
+				this.size--;
+			}
+		}
+
+		/**
+		 * Advance to the tick of the given time, cascading sessions from outer
+		 * levels and handing over the ones whose idle timeout has elapsed.
+		 */
+		public void advance(Instant now, Consumer<ShardedWebSession> expirationHandler) {
+			long targetTick = now.toEpochMilli() / this.tickMillis;
+			while (this.currentTick < targetTick) {
+				if (this.size == 0) {
+					this.currentTick = targetTick;
+					return;
+				}
+				this.currentTick++;
+				for (int level = LEVELS - 1; level > 0; level--) {
+					int shift = SLOT_BITS * level;
+					if ((this.currentTick & ((1L << shift) - 1)) == 0) {
+						int slot = (int) ((this.currentTick >>> shift) & (SLOTS - 1));
+						for (ShardedWebSession session : detach(level, slot)) {
+							schedule(session, session.getExpirationMillis(), true);
+						}
+					}
+				}
+				for (ShardedWebSession session : detach(0, (int) (this.currentTick & (SLOTS - 1)))) {
+					if (session.isExpired(now)) {
+						expirationHandler.accept(session);
+					}
+					else {
+						schedule(session, session.getExpirationMillis(), false);
+					}
+				}
+			}
+		}
+
+		private Set<ShardedWebSession> detach(int level, int slot) {
+			Set<ShardedWebSession> bucket = this.buckets[level][slot];
+			if (bucket.isEmpty()) {
+				return Collections.emptySet();
+			}
+			this.buckets[level][slot] = new HashSet<>();
+			for (ShardedWebSession session : bucket) {
+				session.wheelBucket = null;
+			}
+			this.size -= bucket.size();
+			return bucket;
+		}
+	}
+
+
+	private class ShardedWebSession implements WebSession {
+
+		private final AtomicReference<String> id = new AtomicReference<>(String.valueOf(idGenerator.generateId()));
+
+		private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+		private final Instant creationTime;
+
+		private volatile Instant lastAccessTime;
+
+		private volatile Duration maxIdleTime = Duration.ofMinutes(30);
+
+		private final AtomicReference<State> state = new AtomicReference<>(State.NEW);
+
+		/** The timing wheel bucket this session is scheduled in: guarded by the shard lock. */
+		@Nullable
+		Set<ShardedWebSession> wheelBucket;
+
+		/** The expiration time this session was scheduled for: guarded by the shard lock. */
+		long scheduledExpirationMillis;
+
+
+		public ShardedWebSession(Instant creationTime) {
+			this.creationTime = creationTime;
+			this.lastAccessTime = this.creationTime;
+		}
+
+		@Override
+		public String getId() {
+			return this.id.get();
+		}
+
+		@Override
+		public Map<String, Object> getAttributes() {
+			return this.attributes;
+		}
+
+		@Override
+		public Instant getCreationTime() {
+			return this.creationTime;
+		}
+
+		@Override
+		public Instant getLastAccessTime() {
+			return this.lastAccessTime;
+		}
+
+		@Override
+		public void setMaxIdleTime(Duration maxIdleTime) {
+			this.maxIdleTime = maxIdleTime;
+		}
+
+		@Override
+		public Duration getMaxIdleTime() {
+			return this.maxIdleTime;
+		}
+
+		@Override
+		public void start() {
+			this.state.compareAndSet(State.NEW, State.STARTED);
+		}
+
+		@Override
+		public boolean isStarted() {
+			return this.state.get().equals(State.STARTED) || !getAttributes().isEmpty();
+		}
+
+		@Override
+		public Mono<Void> changeSessionId() {
+			String currentId = this.id.get();
+			getShard(currentId).remove(currentId, this);
+			String newId = String.valueOf(idGenerator.generateId());
+			this.id.set(newId);
+			getShard(newId).save(this, clock.instant());
+			return Mono.empty();
+		}
+
+		@Override
+		public Mono<Void> invalidate() {
+			this.state.set(State.EXPIRED);
+			getAttributes().clear();
+			String currentId = this.id.get();
+			getShard(currentId).remove(currentId, this);
+			return Mono.empty();
+		}
+
+		@Override
+		public Mono<Void> save() {
+
+			// Implicitly started session..
+			if (!getAttributes().isEmpty()) {
+				this.state.compareAndSet(State.NEW, State.STARTED);
+			}
+
+			if (isStarted()) {
+				// Save
+				String currentId = getId();
+				getShard(currentId).save(this, clock.instant());
+
+				// Unless it was invalidated
+				if (this.state.get().equals(State.EXPIRED)) {
+					getShard(currentId).remove(currentId, this);
+					return Mono.error(new IllegalStateException("Session was invalidated"));
+				}
+			}
+
+			return Mono.empty();
+		}
+
+		@Override
+		public boolean isExpired() {
+			return isExpired(clock.instant());
+		}
+
+		private boolean isExpired(Instant now) {
+			if (this.state.get().equals(State.EXPIRED)) {
+				return true;
+			}
+			if (checkExpired(now)) {
+				this.state.set(State.EXPIRED);
+				return true;
+			}
+			return false;
+		}
+
+		private boolean checkExpired(Instant currentTime) {
+			return isStarted() && !this.maxIdleTime.isNegative() &&
+					currentTime.minus(this.maxIdleTime).isAfter(this.lastAccessTime);
+		}
+
+		private void updateLastAccessTime(Instant currentTime) {
+			this.lastAccessTime = currentTime;
+		}
+
+		/**
+		 * Return the time at which this session expires unless accessed again,
+		 * or {@link Long#MAX_VALUE} if it does not expire.
+		 */
+		long getExpirationMillis() {
+			Duration maxIdleTime = this.maxIdleTime;
+			if (maxIdleTime.isNegative()) {
+				return Long.MAX_VALUE;
+			}
+			return this.lastAccessTime.toEpochMilli() + maxIdleTime.toMillis();
+		}
+
+		boolean isScheduled() {
+			return (this.wheelBucket != null);
+		}
+
+		/**
+		 * Mark this session as expired after it has been removed from its shard.
+		 */
+		void expire() {
+			this.state.set(State.EXPIRED);
+			getAttributes().clear();
+		}
+	}
+
+
+	private enum State { NEW, STARTED, EXPIRED }
+
+}
@@ -0,0 +1,542 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.server.session;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Session attributes {@link Map} for use in {@link DeltaWebSession}
+ * implementations, tracking which attributes have been changed or removed
+ * and optionally loading attribute values lazily on first access.
+ *
+ * <p>A {@link WebSessionStore} backed by external storage can retrieve only the
+ * attribute names of a session, loading each value through the given loader
+ * function once it is actually accessed, and on save persist only the
+ * {@linkplain #getChangedAttributes() changed} and
+ * {@linkplain #getRemovedAttributeNames() removed} attributes before calling
+ * {@link #clearChanges()}.
+ *
+ * <p>Changes to mutable attribute values cannot be detected. Depending on the
+ * {@link SaveMode}, attributes are therefore also considered as changed when
+ * merely read, or on every save.
+ *
+ * <p>Like the {@link ConcurrentHashMap} it is backed by,
+ * this map does not support {@code null} keys or values, and performs
+ * {@link #putIfAbsent}, {@link #computeIfAbsent}, {@link #compute},
+ * {@link #merge} and the like atomically, loading the attribute first if
+ * necessary. It is therefore also used for the sessions of
+ * {@link InMemoryWebSessionStore}. Note that {@link #put} and {@link #remove}
+ * return {@code null} rather than an attribute value that has not been loaded yet.
+ *
+ * @author agent
+ * @since 5.3.11
+ * @see DeltaWebSession
+ */
+public class TrackingSessionAttributes extends AbstractMap<String, Object> {
+
+	private static final Object NOT_LOADED = new Object();
+
+
+	private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+
+	@Nullable
+	private final Function<String, Object> loader;
+
+	private final SaveMode saveMode;
+
+	private final Set<String> changedNames = ConcurrentHashMap.newKeySet();
+
+	private final Set<String> removedNames = ConcurrentHashMap.newKeySet();
+
+	@Nullable
+	private Set<Entry<String, Object>> entrySet;
+
+
+	/**
+	 * Create an empty instance for a new session.
+	 */
+	public TrackingSessionAttributes() {
+		this.loader = null;
+		this.saveMode = SaveMode.ON_SET_ATTRIBUTE;
+	}
+
+	/**
+	 * Create an instance for the given, fully loaded attributes of a
+	 * persisted session.
+	 * @param attributes the persisted attributes
+	 * @param saveMode the mode for tracking changes
+	 */
+	public TrackingSessionAttributes(Map<String, Object> attributes, SaveMode saveMode) {
+		Assert.notNull(attributes, "Attributes must not be null");
+		Assert.notNull(saveMode, "SaveMode must not be null");
+		this.attributes.putAll(attributes);
+		this.loader = null;
+		this.saveMode = saveMode;
+	}
+
+	/**
+	 * Create an instance for a persisted session whose attribute values are
+	 * loaded lazily on first access.
+	 * @param attributeNames the names of the persisted attributes
+	 * @param loader the function to load the value of a persisted attribute with,
+	 * returning {@code null} if the attribute no longer exists
+	 * @param saveMode the mode for tracking changes
+	 */
+	public TrackingSessionAttributes(
+			Collection<String> attributeNames, Function<String, Object> loader, SaveMode saveMode) {
+
+		Assert.notNull(attributeNames, "Attribute names must not be null");
+		Assert.notNull(loader, "Loader must not be null");
+		Assert.notNull(saveMode, "SaveMode must not be null");
+		for (String name : attributeNames) {
+			this.attributes.put(name, NOT_LOADED);
+		}
+		this.loader = loader;
+		this.saveMode = saveMode;
+	}
+
+
+	@Override
+	@Nullable
+	public Object get(Object key) {
+		Object value = this.attributes.get(key);
+		if (value == NOT_LOADED) {
+			value = load((String) key);
+		}
+		if (value != null) {
+			trackRead((String) key);
+		}
+		return value;
+	}
+
+	@Nullable
+	private Object load(String name) {
+		Assert.state(this.loader != null, "No attribute loader");
+		Object value = this.loader.apply(name);
+		if (value == null) {
+			this.attributes.remove(name, NOT_LOADED);
+			return null;
+		}
+		this.attributes.replace(name, NOT_LOADED, value);
+		Object current = this.attributes.get(name);
+		return (current != NOT_LOADED ? current : value);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		Object value = this.attributes.get(key);
+		if (value == NOT_LOADED) {
+			// The attribute may have been removed from the store in the meantime
+			value = load((String) key);
+		}
+		return (value != null);
+	}
+
+	@Override
+	@Nullable
+	public Object put(String key, Object value) {
+		Object previous = this.attributes.put(key, value);
+		trackChange(key, previous, value);
+		return (previous != NOT_LOADED ? previous : null);
+	}
+
+	@Override
+	@Nullable
+	public Object remove(Object key) {
+		Object previous = this.attributes.remove(key);
+		if (previous != null) {
+			trackChange((String) key, previous, null);
+		}
+		return (previous != NOT_LOADED ? previous : null);
+	}
+
+	@Override
+	@Nullable
+	public Object putIfAbsent(String key, Object value) {
+		ensureLoaded(key);
+		Object previous = this.attributes.putIfAbsent(key, value);
+		if (previous == null) {
+			trackChange(key, null, value);
+		}
+		else {
+			trackRead(key);
+		}
+		return previous;
+	}
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		ensureLoaded(key);
+		if (this.attributes.remove(key, value)) {
+			trackChange((String) key, value, null);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	public boolean replace(String key, Object oldValue, Object newValue) {
+		ensureLoaded(key);
+		if (this.attributes.replace(key, oldValue, newValue)) {
+			trackChange(key, oldValue, newValue);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	@Nullable
+	public Object replace(String key, Object value) {
+		ensureLoaded(key);
+		Object previous = this.attributes.replace(key, value);
+		if (previous != null) {
+			trackChange(key, previous, value);
+		}
+		return previous;
+	}
+
+	@Override
+	public Object computeIfAbsent(String key, Function<? super String, ?> mappingFunction) {
+		ensureLoaded(key);
+		Object value = this.attributes.computeIfAbsent(key, name -> {
+			Object newValue = mappingFunction.apply(name);
+			trackChange(name, null, newValue);
+			return newValue;
+		});
+		if (value != null) {
+			trackRead(key);
+		}
+		return value;
+	}
+
+	@Override
+	@Nullable
+	public Object computeIfPresent(
+			String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+
+		ensureLoaded(key);
+		return this.attributes.computeIfPresent(key, (name, previous) -> {
+			Object newValue = remappingFunction.apply(name, previous);
+			trackChange(name, previous, newValue);
+			return newValue;
+		});
+	}
+
+	@Override
+	@Nullable
+	public Object compute(String key, BiFunction<? super String, ? super Object, ?> remappingFunction) {
+		ensureLoaded(key);
+		return this.attributes.compute(key, (name, previous) -> {
+			Object newValue = remappingFunction.apply(name, previous);
+			trackChange(name, previous, newValue);
+			return newValue;
+		});
+	}
+
+	@Override
+	@Nullable
+	public Object merge(String key, Object value, BiFunction<? super Object, ? super Object, ?> remappingFunction) {
+		Assert.notNull(value, "Value must not be null");
+		ensureLoaded(key);
+		return this.attributes.compute(key, (name, previous) -> {
+			Object newValue = (previous != null ? remappingFunction.apply(previous, value) : value);
+			trackChange(name, previous, newValue);
+			return newValue;
+		});
+	}
+
+	/**
+	 * Load the given attribute if not loaded yet, so that atomic operations on
+	 * the backing map see its actual value. Once loaded or removed, an
+	 * attribute never returns to the not-loaded state.
+	 */
+	private void ensureLoaded(Object key) {
+		if (this.attributes.get(key) == NOT_LOADED) {
+			load((String) key);
+		}
+	}
+
+	private void trackChange(String name, @Nullable Object previous, @Nullable Object value) {
+		if (value != null) {
+			this.changedNames.add(name);
+			this.removedNames.remove(name);
+		}
+		else if (previous != null) {
+			this.changedNames.remove(name);
+			this.removedNames.add(name);
+		}
+	}
+
+	private void trackRead(String name) {
+		if (this.saveMode == SaveMode.ON_GET_ATTRIBUTE) {
+			this.changedNames.add(name);
+		}
+	}
+
+	@Override
+	public void clear() {
+		for (String name : this.attributes.keySet()) {
+			remove(name);
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.attributes.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return this.attributes.isEmpty();
+	}
+
+	@Override
+	public Set<String> keySet() {
+		return new AttributeNames();
+	}
+
+	@Override
+	public Set<Entry<String, Object>> entrySet() {
+		Set<Entry<String, Object>> entrySet = this.entrySet;
+		if (entrySet == null) {
+			entrySet = new AttributeEntries();
+			this.entrySet = entrySet;
+		}
+		return entrySet;
+	}
+
+
+	/**
+	 * Whether the given attribute has been loaded already, or was added
+	 * since this instance was created.
+	 * @param name the attribute name
+	 */
+	public boolean isLoaded(String name) {
+		Object value = this.attributes.get(name);
+		return (value != null && value != NOT_LOADED);
+	}
+
+	/**
+	 * Whether there are changes to persist according to the {@link SaveMode}.
+	 */
+	public boolean hasChanges() {
+		return (this.saveMode == SaveMode.ALWAYS ? !this.attributes.isEmpty() || !this.removedNames.isEmpty() :
+				!this.changedNames.isEmpty() || !this.removedNames.isEmpty());
+	}
+
+	/**
+	 * Return the attributes to persist: all attributes with {@link SaveMode#ALWAYS},
+	 * otherwise the ones added, replaced or, with {@link SaveMode#ON_GET_ATTRIBUTE},
+	 * read since the last {@link #clearChanges()}.
+	 */
+	public Map<String, Object> getChangedAttributes() {
+		Collection<String> names = (this.saveMode == SaveMode.ALWAYS ? this.attributes.keySet() : this.changedNames);
+		Map<String, Object> result = new LinkedHashMap<>(names.size());
+		for (String name : names) {
+			Object value = this.attributes.get(name);
+			if (value == NOT_LOADED) {
+				value = load(name);
+			}
+			if (value != null) {
+				result.put(name, value);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Return the names of the attributes removed since the last {@link #clearChanges()}.
+	 */
+	public Set<String> getRemovedAttributeNames() {
+		return Collections.unmodifiableSet(new LinkedHashSet<>(this.removedNames));
+	}
+
+	/**
+	 * Reset the change tracking, typically after the changes have been persisted.
+	 */
+	public void clearChanges() {
+		this.changedNames.clear();
+		this.removedNames.clear();
+	}
+
+
+	/**
+	 * Enumeration of the modes for tracking changes to session attributes.
+	 */
+	public enum SaveMode {
+
+		/**
+		 * Consider attributes as changed only when put into the map.
+		 * Changes to mutable attribute values are not detected.
+		 */
+		ON_SET_ATTRIBUTE,
+
+		/**
+		 * Consider attributes as changed when put into or read from the map,
+		 * covering changes to mutable attribute values after reading them.
+		 */
+		ON_GET_ATTRIBUTE,
+
+		/**
+		 * Consider all attributes as changed on every save, loading any
+		 * attribute that has not been accessed yet.
+		 */
+		ALWAYS
+	}
+
+
+	private class AttributeNames extends AbstractSet<String> {
+
+		@Override
+		public Iterator<String> iterator() {
+			Iterator<String> it = attributes.keySet().iterator();
+			return new Iterator<String>() {
+				@Nullable
+				private String current;
+				@Override
+				public boolean hasNext() {
+					return it.hasNext();
+				}
+				@Override
+				public String next() {
+					this.current = it.next();
+					return this.current;
+				}
+				@Override
+				public void remove() {
+					Assert.state(this.current != null, "No current attribute");
+					TrackingSessionAttributes.this.remove(this.current);
+					this.current = null;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return attributes.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!attributes.containsKey(o)) {
+				return false;
+			}
+			TrackingSessionAttributes.this.remove(o);
+			return true;
+		}
+	}
+
+
+	private class AttributeEntries extends AbstractSet<Entry<String, Object>> {
+
+		@Override
+		public Iterator<Entry<String, Object>> iterator() {
+			Iterator<String> names = keySet().iterator();
+			return new Iterator<Entry<String, Object>>() {
+				@Override
+				public boolean hasNext() {
+					return names.hasNext();
+				}
+				@Override
+				public Entry<String, Object> next() {
+					return new AttributeEntry(names.next());
+				}
+				@Override
+				public void remove() {
+					names.remove();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return attributes.size();
+		}
+	}
+
+
+	private class AttributeEntry implements Entry<String, Object> {
+
+		private final String name;
+
+		AttributeEntry(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getKey() {
+			return this.name;
+		}
+
+		@Override
+		@Nullable
+		public Object getValue() {
+			return get(this.name);
+		}
+
+		@Override
+		@Nullable
+		public Object setValue(Object value) {
+			return put(this.name, value);
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> otherEntry = (Entry<?, ?>) other;
+			return (this.name.equals(otherEntry.getKey()) &&
+					ObjectUtils.nullSafeEquals(getValue(), otherEntry.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			Object value = getValue();
+			return this.name.hashCode() ^ (value != null ? value.hashCode() : 0);
+		}
+
+		@Override
+		public String toString() {
+			return this.name + "=" + getValue();
+		}
+	}
+
+}
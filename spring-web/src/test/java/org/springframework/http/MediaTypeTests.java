@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -162,6 +162,27 @@ public class MediaTypeTests {
 		assertThat(mediaTypes.size()).as("Invalid amount of media types").isEqualTo(0);
 	}
 
+	@Test
+	public void parseMediaTypeReturnsConstant() {
+		assertThat(MediaType.parseMediaType("application/json")).isSameAs(MediaType.APPLICATION_JSON);
+		assertThat(MediaType.parseMediaType("*/*")).isSameAs(MediaType.ALL);
+		assertThat(MediaType.parseMediaType("text/html")).isSameAs(MediaType.TEXT_HTML);
+		assertThat(MediaType.parseMediaType("text/html; charset=UTF-8"))
+				.isEqualTo(new MediaType("text", "html", StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void parseMediaTypesReturnsMutableList() {
+		String s = "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,*/*;q=0.8";
+		List<MediaType> mediaTypes = MediaType.parseMediaTypes(s);
+		MediaType.sortBySpecificityAndQuality(mediaTypes);
+		mediaTypes.add(MediaType.TEXT_PLAIN);
+
+		assertThat(MediaType.parseMediaTypes(s)).containsExactly(MediaType.TEXT_HTML, MediaType.APPLICATION_XHTML_XML,
+				MediaType.parseMediaType("application/xml;q=0.9"), MediaType.parseMediaType("image/webp"),
+				MediaType.parseMediaType("*/*;q=0.8"));
+	}
+
 	@Test  // gh-23241
 	public void parseMediaTypesWithTrailingComma() {
 		List<MediaType> mediaTypes = MediaType.parseMediaTypes("text/plain, text/html, ");
@@ -470,4 +491,12 @@ public class MediaTypeTests {
 		assertThat(original).isEqualTo(deserialized);
 	}
 
+	@Test
+	void serializeWithQualityValue() throws Exception {
+		MediaType original = MediaType.parseMediaType("text/plain;q=0.5");
+		assertThat(original.getQualityValue()).isCloseTo(0.5D, within(0D));
+		MediaType deserialized = SerializationTestUtils.serializeAndDeserialize(original);
+		assertThat(deserialized.getQualityValue()).isCloseTo(0.5D, within(0D));
+	}
+
 }
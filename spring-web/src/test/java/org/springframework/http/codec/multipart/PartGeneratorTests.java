@@ -0,0 +1,214 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.codec.multipart;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.publisher.TestPublisher;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DataBufferWrapper;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.testfixture.io.buffer.LeakAwareDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link PartGenerator}, storing file parts on disk. Blocking
+ * operations are queued and run one at a time, to control when file writes
+ * complete relative to incoming tokens.
+ *
+ * @author agent
+ */
+public class PartGeneratorTests {
+
+	private final LeakAwareDataBufferFactory bufferFactory = new LeakAwareDataBufferFactory();
+
+	private final TestPublisher<MultipartParser.Token> tokens = TestPublisher.create();
+
+	private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+	private final Scheduler scheduler = Schedulers.fromExecutor(this.tasks::add);
+
+	private final List<Part> parts = new ArrayList<>();
+
+	private final AtomicReference<Throwable> error = new AtomicReference<>();
+
+	private final AtomicBoolean completed = new AtomicBoolean();
+
+
+	@AfterEach
+	public void checkForLeaks() {
+		this.bufferFactory.checkForLeaks();
+	}
+
+
+	@Test
+	public void nextPartHeadersDuringFileWrite(@TempDir Path tempDir) {
+		createParts(tempDir);
+
+		this.tokens.next(headers(fileHeaders()), body("0123"), body("4567"));
+		runTask(); // create file, and start writing
+		assertThat(this.tasks).hasSize(1);
+
+		this.tokens.next(body("89ab"), headers(formFieldHeaders()));
+		assertThat(this.parts).isEmpty();
+		this.tokens.assertMaxRequested(0);
+
+		runTask(); // first write completes, and the next one starts
+		assertThat(this.parts).isEmpty();
+		assertThat(this.tasks).hasSize(1);
+
+		runTask(); // second write completes
+		assertThat(this.parts).hasSize(1);
+		this.tokens.assertMinRequested(1);
+
+		this.tokens.next(body("text value"));
+		this.tokens.complete();
+
+		assertThat(this.error.get()).isNull();
+		assertThat(this.completed).isTrue();
+		assertThat(this.parts).hasSize(2);
+		Part filePart = this.parts.get(0);
+		assertThat(filePart.name()).isEqualTo("file");
+		assertThat(content(filePart)).isEqualTo("0123456789ab");
+		Part formFieldPart = this.parts.get(1);
+		assertThat(formFieldPart).isInstanceOf(FormFieldPart.class);
+		assertThat(((FormFieldPart) formFieldPart).value()).isEqualTo("text value");
+	}
+
+	@Test
+	public void fileWriteBackpressure(@TempDir Path tempDir) {
+		createParts(tempDir);
+
+		this.tokens.next(headers(fileHeaders()), body("0123"), body("4567"));
+		runTask(); // create file, and start writing
+		this.tokens.assertMinRequested(1);
+
+		this.tokens.next(body("89ab"));
+		this.tokens.assertMinRequested(1);
+
+		this.tokens.next(body("cdef"));
+		this.tokens.assertMaxRequested(0);
+
+		runTask(); // first write completes, and queued buffers are written together
+		this.tokens.assertMinRequested(1);
+		assertThat(this.tasks).hasSize(1);
+
+		this.tokens.complete();
+		assertThat(this.completed).isFalse();
+
+		runTask();
+		assertThat(this.error.get()).isNull();
+		assertThat(this.completed).isTrue();
+		assertThat(this.parts).hasSize(1);
+		assertThat(content(this.parts.get(0))).isEqualTo("0123456789abcdef");
+	}
+
+	@Test
+	public void fileWriteError(@TempDir Path tempDir) {
+		createParts(tempDir);
+
+		DataBuffer failing = new DataBufferWrapper(DefaultDataBufferFactory.sharedInstance.wrap(bytes("4567"))) {
+			@Override
+			public ByteBuffer asByteBuffer() {
+				throw new UncheckedIOException(new IOException("No space left on device"));
+			}
+		};
+		this.tokens.next(headers(fileHeaders()), body("0123"), new MultipartParser.BodyToken(failing));
+		runTask(); // create file, and start writing
+		this.tokens.next(body("89ab"));
+
+		runTask(); // write fails, queued buffers are released
+		assertThat(this.error.get()).isInstanceOf(UncheckedIOException.class);
+		assertThat(this.parts).isEmpty();
+		this.tokens.assertCancelled();
+	}
+
+
+	private void createParts(Path tempDir) {
+		PartGenerator.createParts(this.tokens.flux(), -1, 4, -1, false, Mono.just(tempDir), this.scheduler)
+				.subscribe(this.parts::add, this.error::set, () -> this.completed.set(true));
+	}
+
+	private void runTask() {
+		Runnable task = this.tasks.poll();
+		assertThat(task).isNotNull();
+		task.run();
+	}
+
+	private String content(Part part) {
+		AtomicReference<String> content = new AtomicReference<>();
+		DataBufferUtils.join(part.content())
+				.map(buffer -> {
+					String value = buffer.toString(UTF_8);
+					DataBufferUtils.release(buffer);
+					return value;
+				})
+				.subscribe(content::set);
+		Runnable task;
+		while ((task = this.tasks.poll()) != null) {
+			task.run();
+		}
+		return content.get();
+	}
+
+	private MultipartParser.Token body(String value) {
+		return new MultipartParser.BodyToken(this.bufferFactory.allocateBuffer().write(bytes(value)));
+	}
+
+	private static MultipartParser.Token headers(HttpHeaders headers) {
+		return new MultipartParser.HeadersToken(headers);
+	}
+
+	private static HttpHeaders fileHeaders() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentDispositionFormData("file", "file.bin");
+		headers.setContentType(MediaType.APPLICATION_OCTET_STREAM);
+		return headers;
+	}
+
+	private static HttpHeaders formFieldHeaders() {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentDispositionFormData("text", null);
+		return headers;
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(UTF_8);
+	}
+
+}
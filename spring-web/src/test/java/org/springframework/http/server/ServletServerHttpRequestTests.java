@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -151,6 +152,37 @@ public class ServletServerHttpRequestTests {
 		assertThat(headers.getContentType()).isNull();
 	}
 
+	@Test
+	void getHeadersWithContentLengthAndInvalidContentType() {
+		mockRequest.addHeader("Content-Type", "invalid");
+		mockRequest.setContent(new byte[] {1, 2, 3});
+
+		HttpHeaders headers = request.getHeaders();
+		assertThat(headers.getFirst("content-type")).isEqualTo("invalid");
+		assertThat(headers.getContentLength()).isEqualTo(3);
+		assertThat(headers.keySet()).contains("Content-Type", "Content-Length");
+	}
+
+	@Test
+	void getHeadersModified() {
+		mockRequest.addHeader("Accept", "text/plain, application/json");
+		mockRequest.setContentType("text/plain");
+
+		HttpHeaders headers = request.getHeaders();
+		assertThat(headers.getAccept()).containsExactly(MediaType.TEXT_PLAIN, MediaType.APPLICATION_JSON);
+		assertThat(headers.getContentType()).isEqualTo(MediaType.TEXT_PLAIN);
+
+		headers.setContentType(MediaType.APPLICATION_JSON);
+		headers.setAccept(Collections.singletonList(MediaType.TEXT_HTML));
+		headers.add("MyHeader", "value");
+
+		assertThat(headers.getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(headers.getAccept()).containsExactly(MediaType.TEXT_HTML);
+		assertThat(headers.getFirst("myheader")).isEqualTo("value");
+		assertThat(mockRequest.getHeader("MyHeader")).isNull();
+		assertThat(request.getHeaders()).isSameAs(headers);
+	}
+
 	@Test
 	void getBody() throws IOException {
 		byte[] content = "Hello World".getBytes(StandardCharsets.UTF_8);
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.filter.reactive;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.core.testfixture.io.buffer.LeakAwareDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest;
+import org.springframework.web.testfixture.server.MockServerWebExchange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link ShallowEtagHeaderFilter}.
+ *
+ * @author agent
+ */
+public class ShallowEtagHeaderFilterTests {
+
+	private static final String ETAG = "\"0b10a8db164e0754105b7a99be72e3fe5\"";
+
+
+	private final ShallowEtagHeaderFilter filter = new ShallowEtagHeaderFilter();
+
+	private final WebFilterChain filterChain = exchange ->
+			exchange.getResponse().writeWith(Flux.just(buffer("Hello "), buffer("World")));
+
+
+	@Test
+	public void filterNoMatch() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/hotels"));
+		this.filter.filter(exchange, this.filterChain).block(Duration.ofSeconds(5));
+
+		assertThat(exchange.getResponse().getHeaders().getETag()).isEqualTo(ETAG);
+		assertThat(exchange.getResponse().getBodyAsString().block(Duration.ofSeconds(5))).isEqualTo("Hello World");
+	}
+
+	@Test
+	public void filterNoMatchWeakETag() {
+		this.filter.setWriteWeakETag(true);
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/hotels"));
+		this.filter.filter(exchange, this.filterChain).block(Duration.ofSeconds(5));
+
+		assertThat(exchange.getResponse().getHeaders().getETag()).isEqualTo("W/" + ETAG);
+	}
+
+	@Test
+	public void filterMatch() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.get("/hotels").ifNoneMatch(ETAG));
+		this.filter.filter(exchange, this.filterChain).block(Duration.ofSeconds(5));
+
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(exchange.getResponse().getHeaders().getETag()).isEqualTo(ETAG);
+		assertThat(exchange.getResponse().getBodyAsString().block(Duration.ofSeconds(5))).isEmpty();
+	}
+
+	@Test
+	public void filterContentCacheLimitExceeded() {
+		this.filter.setContentCacheLimit(8);
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/hotels"));
+		this.filter.filter(exchange, this.filterChain).block(Duration.ofSeconds(5));
+
+		assertThat(exchange.getResponse().getHeaders().getETag()).isNull();
+		assertThat(exchange.getResponse().getBodyAsString().block(Duration.ofSeconds(5))).isEqualTo("Hello World");
+	}
+
+	@Test
+	public void filterPost() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/hotels"));
+		this.filter.filter(exchange, this.filterChain).block(Duration.ofSeconds(5));
+
+		assertThat(exchange.getResponse().getHeaders().getETag()).isNull();
+		assertThat(exchange.getResponse().getBodyAsString().block(Duration.ofSeconds(5))).isEqualTo("Hello World");
+	}
+
+
+	@Test
+	public void filterMatchReleasesBuffers() {
+		LeakAwareDataBufferFactory bufferFactory = new LeakAwareDataBufferFactory();
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.get("/hotels").ifNoneMatch(ETAG));
+		WebFilterChain chain = ex -> ex.getResponse().writeWith(
+				Flux.just(buffer(bufferFactory, "Hello "), buffer(bufferFactory, "World")));
+		this.filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		bufferFactory.checkForLeaks();
+	}
+
+	@Test
+	public void filterErrorReleasesCollectedBuffers() {
+		LeakAwareDataBufferFactory bufferFactory = new LeakAwareDataBufferFactory();
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/hotels"));
+		WebFilterChain chain = ex -> ex.getResponse().writeWith(
+				Flux.just(buffer(bufferFactory, "Hello "), buffer(bufferFactory, "World"))
+						.concatWith(Flux.error(new IllegalStateException("boo"))));
+
+		assertThatIllegalStateException().isThrownBy(() ->
+				this.filter.filter(exchange, chain).block(Duration.ofSeconds(5)));
+		bufferFactory.checkForLeaks();
+	}
+
+	@Test
+	public void filterCancelReleasesCollectedBuffers() {
+		LeakAwareDataBufferFactory bufferFactory = new LeakAwareDataBufferFactory();
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/hotels"));
+		WebFilterChain chain = ex -> ex.getResponse().writeWith(
+				Flux.just(buffer(bufferFactory, "Hello "), buffer(bufferFactory, "World"))
+						.concatWith(Flux.never()));
+
+		this.filter.filter(exchange, chain).subscribe().dispose();
+		bufferFactory.checkForLeaks();
+	}
+
+
+	private static DataBuffer buffer(String value) {
+		return DefaultDataBufferFactory.sharedInstance.wrap(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static DataBuffer buffer(DataBufferFactory bufferFactory, String value) {
+		return bufferFactory.allocateBuffer().write(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.multipart.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Unit tests for {@link MultipartStreamParser}.
+ *
+ * @author agent
+ */
+public class MultipartStreamParserTests {
+
+	private static final String BOUNDARY = "simple-boundary";
+
+
+	@Test
+	public void parts() throws IOException {
+		String body = "preamble\r\n" +
+				"--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"text\"\r\n" +
+				"\r\n" +
+				"text value\r\n" +
+				"--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"file\"; filename=\"foo.txt\"\r\n" +
+				"Content-Type: text/plain\r\n" +
+				"\r\n" +
+				"line 1\r\nline 2\r\n-- not a boundary\r\n" +
+				"--" + BOUNDARY + "--\r\n" +
+				"epilogue";
+		MultipartStreamParser parser = parser(body);
+
+		MultipartStreamParser.StreamPart part = parser.nextPart();
+		assertThat(part).isNotNull();
+		assertThat(part.getName()).isEqualTo("text");
+		assertThat(part.getFilename()).isNull();
+		assertThat(copyToString(part.getInputStream())).isEqualTo("text value");
+
+		part = parser.nextPart();
+		assertThat(part).isNotNull();
+		assertThat(part.getName()).isEqualTo("file");
+		assertThat(part.getFilename()).isEqualTo("foo.txt");
+		assertThat(part.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE)).isEqualTo("text/plain");
+		assertThat(copyToString(part.getInputStream())).isEqualTo("line 1\r\nline 2\r\n-- not a boundary");
+
+		assertThat(parser.nextPart()).isNull();
+	}
+
+	@Test
+	public void unreadPartsAreSkipped() throws IOException {
+		String body = "--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"first\"\r\n" +
+				"\r\n" +
+				"first value\r\n" +
+				"--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"second\"\r\n" +
+				"\r\n" +
+				"second value\r\n" +
+				"--" + BOUNDARY + "--\r\n";
+		MultipartStreamParser parser = parser(body);
+
+		assertThat(parser.nextPart().getName()).isEqualTo("first");
+		MultipartStreamParser.StreamPart part = parser.nextPart();
+		assertThat(part.getName()).isEqualTo("second");
+		assertThat(copyToString(part.getInputStream())).isEqualTo("second value");
+		assertThat(parser.nextPart()).isNull();
+	}
+
+	@Test
+	public void largePartTransferredToFile(@TempDir Path tempDir) throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 10000; i++) {
+			content.append("line ").append(i).append("\r\n");
+		}
+		String body = "--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"file\"; filename=\"large.txt\"\r\n" +
+				"\r\n" +
+				content + "\r\n" +
+				"--" + BOUNDARY + "--\r\n";
+		MultipartStreamParser parser = parser(body);
+
+		Path file = tempDir.resolve("large.txt");
+		long size = parser.nextPart().transferTo(file);
+		assertThat(size).isEqualTo(content.length());
+		assertThat(new String(Files.readAllBytes(file), StandardCharsets.UTF_8)).isEqualTo(content.toString());
+		assertThat(parser.nextPart()).isNull();
+	}
+
+	@Test
+	public void maxPartSizeExceeded() throws IOException {
+		String body = "--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"text\"\r\n" +
+				"\r\n" +
+				"0123456789\r\n" +
+				"--" + BOUNDARY + "--\r\n";
+		MultipartStreamParser parser = parser(body);
+		parser.setMaxPartSize(5);
+
+		InputStream inputStream = parser.nextPart().getInputStream();
+		assertThatExceptionOfType(MaxUploadSizeExceededException.class).isThrownBy(() -> copyToString(inputStream));
+	}
+
+	@Test
+	public void maxPartsExceeded() throws IOException {
+		String body = "--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"first\"\r\n" +
+				"\r\n" +
+				"first value\r\n" +
+				"--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"second\"\r\n" +
+				"\r\n" +
+				"second value\r\n" +
+				"--" + BOUNDARY + "--\r\n";
+		MultipartStreamParser parser = parser(body);
+		parser.setMaxParts(1);
+
+		assertThat(parser.nextPart()).isNotNull();
+		assertThatExceptionOfType(MultipartException.class).isThrownBy(parser::nextPart);
+	}
+
+	@Test
+	public void maxHeadersSizeExceeded() throws IOException {
+		String body = "--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"text\"\r\n" +
+				"\r\n" +
+				"value\r\n" +
+				"--" + BOUNDARY + "--\r\n";
+		MultipartStreamParser parser = parser(body);
+		parser.setMaxHeadersSize(20);
+
+		assertThatExceptionOfType(MultipartException.class).isThrownBy(parser::nextPart);
+	}
+
+	@Test
+	public void unexpectedEndOfInput() throws IOException {
+		String body = "--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"text\"\r\n" +
+				"\r\n" +
+				"value";
+		MultipartStreamParser parser = parser(body);
+
+		InputStream inputStream = parser.nextPart().getInputStream();
+		assertThatExceptionOfType(MultipartException.class).isThrownBy(() -> copyToString(inputStream));
+	}
+
+	@Test
+	public void forRequest() throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+		request.setContentType("multipart/form-data; boundary=\"" + BOUNDARY + "\"");
+		request.setContent(("--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"text\"\r\n" +
+				"\r\n" +
+				"value\r\n" +
+				"--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+		MultipartStreamParser parser = MultipartStreamParser.forRequest(request);
+
+		assertThat(copyToString(parser.nextPart().getInputStream())).isEqualTo("value");
+		assertThat(parser.nextPart()).isNull();
+	}
+
+	@Test
+	public void forRequestWithoutBoundary() {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+		request.setContentType("multipart/form-data");
+		assertThatExceptionOfType(MultipartException.class).isThrownBy(() -> MultipartStreamParser.forRequest(request));
+	}
+
+
+	private static MultipartStreamParser parser(String body) {
+		return new MultipartStreamParser(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+				BOUNDARY.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String copyToString(InputStream inputStream) throws IOException {
+		return StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8);
+	}
+
+}
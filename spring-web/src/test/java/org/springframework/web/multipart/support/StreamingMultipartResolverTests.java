@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.multipart.support;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartException;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.multipart.MultipartHttpServletRequest;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Unit tests for {@link StreamingMultipartResolver}.
+ *
+ * @author agent
+ */
+public class StreamingMultipartResolverTests {
+
+	private static final String BOUNDARY = "simple-boundary";
+
+
+	private final StreamingMultipartResolver resolver = new StreamingMultipartResolver();
+
+
+	@Test
+	public void isMultipart() {
+		assertThat(this.resolver.isMultipart(request("text"))).isTrue();
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+		request.setContentType("application/x-www-form-urlencoded");
+		assertThat(this.resolver.isMultipart(request)).isFalse();
+	}
+
+	@Test
+	public void resolveInMemory() throws Exception {
+		MultipartHttpServletRequest request = this.resolver.resolveMultipart(request("file content"));
+
+		assertThat(request.getParameter("text")).isEqualTo("text value");
+		assertThat(request.getMultipartContentType("text")).isEqualTo("text/plain;charset=UTF-8");
+		MultipartFile file = request.getFile("file");
+		assertThat(file).isNotNull();
+		assertThat(file.getOriginalFilename()).isEqualTo("foo.txt");
+		assertThat(file.getContentType()).isEqualTo("text/plain");
+		assertThat(new String(file.getBytes(), StandardCharsets.UTF_8)).isEqualTo("file content");
+	}
+
+	@Test
+	public void resolveToFile(@TempDir Path tempDir) throws Exception {
+		this.resolver.setMaxInMemorySize(10);
+		this.resolver.setFileStorageDirectory(tempDir);
+		MultipartHttpServletRequest request = this.resolver.resolveMultipart(request("file content"));
+
+		MultipartFile file = request.getFile("file");
+		assertThat(file).isNotNull();
+		assertThat(file.getSize()).isEqualTo(12);
+		assertThat(new String(file.getBytes(), StandardCharsets.UTF_8)).isEqualTo("file content");
+		assertThat(Files.list(tempDir)).hasSize(1);
+
+		Path dest = tempDir.resolve("dest.txt");
+		file.transferTo(dest);
+		assertThat(new String(Files.readAllBytes(dest), StandardCharsets.UTF_8)).isEqualTo("file content");
+
+		this.resolver.cleanupMultipart(request);
+		assertThat(Files.list(tempDir)).containsExactly(dest);
+	}
+
+	@Test
+	public void cleanupDeletesStoredFiles(@TempDir Path tempDir) throws Exception {
+		this.resolver.setMaxInMemorySize(10);
+		this.resolver.setFileStorageDirectory(tempDir);
+		MultipartHttpServletRequest request = this.resolver.resolveMultipart(request("file content"));
+		assertThat(Files.list(tempDir)).hasSize(1);
+
+		this.resolver.cleanupMultipart(request);
+		assertThat(Files.list(tempDir)).isEmpty();
+	}
+
+	@Test
+	public void resolveLazily() {
+		this.resolver.setResolveLazily(true);
+		MockHttpServletRequest servletRequest = request("file content");
+		MultipartHttpServletRequest request = this.resolver.resolveMultipart(servletRequest);
+		assertThat(((AbstractMultipartHttpServletRequest) request).isResolved()).isFalse();
+
+		assertThat(request.getParameter("text")).isEqualTo("text value");
+		assertThat(((AbstractMultipartHttpServletRequest) request).isResolved()).isTrue();
+	}
+
+	@Test
+	public void formFieldExceedsMaxInMemorySize() {
+		this.resolver.setMaxInMemorySize(4);
+		assertThatExceptionOfType(MultipartException.class).isThrownBy(() ->
+				this.resolver.resolveMultipart(request("file content")));
+	}
+
+	@Test
+	public void maxPartSizeExceeded(@TempDir Path tempDir) throws Exception {
+		this.resolver.setMaxPartSize(20);
+		this.resolver.setMaxInMemorySize(10);
+		this.resolver.setFileStorageDirectory(tempDir);
+
+		assertThatExceptionOfType(MaxUploadSizeExceededException.class).isThrownBy(() ->
+				this.resolver.resolveMultipart(request("file content exceeding the limit")));
+		assertThat(Files.list(tempDir)).isEmpty();
+	}
+
+
+	private static MockHttpServletRequest request(String fileContent) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+		request.setContentType("multipart/form-data; boundary=" + BOUNDARY);
+		request.setContent(("--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"text\"\r\n" +
+				"Content-Type: text/plain;charset=UTF-8\r\n" +
+				"\r\n" +
+				"text value\r\n" +
+				"--" + BOUNDARY + "\r\n" +
+				"Content-Disposition: form-data; name=\"file\"; filename=\"foo.txt\"\r\n" +
+				"Content-Type: text/plain\r\n" +
+				"\r\n" +
+				fileContent + "\r\n" +
+				"--" + BOUNDARY + "--\r\n").getBytes(StandardCharsets.UTF_8));
+		return request;
+	}
+
+}
@@ -16,6 +16,8 @@
 
 package org.springframework.web.server.session;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -39,6 +41,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
@@ -136,4 +139,49 @@ class DefaultWebSessionManagerTests {
 		assertThat(actual.getId()).isEqualTo(this.updateSession.getId());
 	}
 
+	@Test
+	void deltaSessionNotSavedWithinLastAccessTimeGranularity() {
+		DeltaWebSession session = retrieveDeltaSession(false, Duration.ofSeconds(30));
+		this.sessionManager.setLastAccessTimeGranularity(Duration.ofMinutes(1));
+		this.sessionManager.getSession(this.exchange).block();
+		this.exchange.getResponse().setComplete().block();
+
+		verify(session, never()).save();
+	}
+
+	@Test
+	void deltaSessionSavedBeyondLastAccessTimeGranularity() {
+		DeltaWebSession session = retrieveDeltaSession(false, Duration.ofMinutes(2));
+		this.sessionManager.setLastAccessTimeGranularity(Duration.ofMinutes(1));
+		this.sessionManager.getSession(this.exchange).block();
+		this.exchange.getResponse().setComplete().block();
+
+		verify(session).save();
+	}
+
+	@Test
+	void modifiedDeltaSessionSavedWithinLastAccessTimeGranularity() {
+		DeltaWebSession session = retrieveDeltaSession(true, Duration.ofSeconds(30));
+		this.sessionManager.setLastAccessTimeGranularity(Duration.ofMinutes(1));
+		this.sessionManager.getSession(this.exchange).block();
+		this.exchange.getResponse().setComplete().block();
+
+		verify(session).save();
+	}
+
+	private DeltaWebSession retrieveDeltaSession(boolean modified, Duration sinceLastSave) {
+		Instant savedLastAccessTime = Instant.now().minus(Duration.ofMinutes(5));
+		DeltaWebSession session = mock(DeltaWebSession.class);
+		given(session.getId()).willReturn("delta-session-id");
+		given(session.isStarted()).willReturn(true);
+		given(session.isModified()).willReturn(modified);
+		given(session.getSavedLastAccessTime()).willReturn(savedLastAccessTime);
+		given(session.getLastAccessTime()).willReturn(savedLastAccessTime.plus(sinceLastSave));
+		given(session.save()).willReturn(Mono.empty());
+		given(this.sessionStore.retrieveSession("delta-session-id")).willReturn(Mono.just(session));
+		given(this.sessionIdResolver.resolveSessionIds(this.exchange))
+				.willReturn(Collections.singletonList("delta-session-id"));
+		return session;
+	}
+
 }
@@ -19,7 +19,15 @@ package org.springframework.web.server.session;
 import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Test;
@@ -101,6 +109,63 @@ public class InMemoryWebSessionStoreTests {
 		assertThat(time1.isBefore(time2)).isTrue();
 	}
 
+	@Test
+	public void modificationsAreTrackedUntilSave() {
+		DeltaWebSession session = (DeltaWebSession) this.store.createWebSession().block();
+		assertThat(session).isNotNull();
+		assertThat(session.isModified()).isTrue();
+		assertThat(session.getSavedLastAccessTime()).isNull();
+
+		session.getAttributes().put("foo", "bar");
+		session.save().block();
+		assertThat(session.isModified()).isFalse();
+		assertThat(session.getSavedLastAccessTime()).isEqualTo(session.getLastAccessTime());
+
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofSeconds(5)));
+		this.store.retrieveSession(session.getId()).block();
+		assertThat(session.isModified()).isFalse();
+		assertThat(session.getSavedLastAccessTime()).isBefore(session.getLastAccessTime());
+
+		session.getAttributes().remove("foo");
+		assertThat(session.isModified()).isTrue();
+		session.save().block();
+		assertThat(session.isModified()).isFalse();
+
+		session.setMaxIdleTime(Duration.ofMinutes(5));
+		assertThat(session.isModified()).isTrue();
+	}
+
+	@Test
+	public void concurrentComputeIfAbsent() throws Exception {
+		WebSession session = this.store.createWebSession().block();
+		assertThat(session).isNotNull();
+		AtomicInteger count = new AtomicInteger();
+		CountDownLatch latch = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Object>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(() -> {
+					latch.await();
+					return session.getAttributes().computeIfAbsent("foo", name -> {
+						count.incrementAndGet();
+						return new Object();
+					});
+				}));
+			}
+			latch.countDown();
+			List<Object> results = new ArrayList<>();
+			for (Future<Object> future : futures) {
+				results.add(future.get(5, TimeUnit.SECONDS));
+			}
+			assertThat(results).containsOnly(session.getAttributes().get("foo"));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(count.get()).isEqualTo(1);
+	}
+
 	@Test // SPR-17051
 	public void sessionInvalidatedBeforeSave() {
 		// Request 1 creates session
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.server.session;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.web.server.WebSession;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link ShardedInMemoryWebSessionStore}.
+ *
+ * @author agent
+ */
+public class ShardedInMemoryWebSessionStoreTests {
+
+	private ShardedInMemoryWebSessionStore store = new ShardedInMemoryWebSessionStore();
+
+
+	@Test
+	public void retrieveSavedSession() {
+		WebSession session = insertSession();
+		WebSession retrieved = this.store.retrieveSession(session.getId()).block();
+		assertThat(retrieved).isSameAs(session);
+		assertThat(this.store.getSessionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void sessionNotSavedUnlessStarted() {
+		WebSession session = this.store.createWebSession().block();
+		assertThat(session).isNotNull();
+		session.save().block();
+		assertThat(this.store.retrieveSession(session.getId()).block()).isNull();
+	}
+
+	@Test
+	public void retrieveExpiredSession() {
+		WebSession session = insertSession();
+		String id = session.getId();
+
+		// Fast-forward 31 minutes
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofMinutes(31)));
+		assertThat(this.store.retrieveSession(id).block()).isNull();
+		assertThat(session.isExpired()).isTrue();
+		assertThat(this.store.getExpiredSessionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void lastAccessTimeIsUpdatedOnRetrieve() {
+		WebSession session1 = insertSession();
+		Instant time1 = session1.getLastAccessTime();
+
+		// Fast-forward a few seconds
+		this.store.setClock(Clock.offset(this.store.getClock(), Duration.ofSeconds(5)));
+
+		WebSession session2 = this.store.retrieveSession(session1.getId()).block();
+		assertThat(session2).isSameAs(session1);
+		assertThat(time1.isBefore(session2.getLastAccessTime())).isTrue();
+	}
+
+	@Test
+	public void sessionInvalidatedBeforeSave() {
+		WebSession session1 = insertSession();
+		String id = session1.getId();
+
+		WebSession session2 = this.store.retrieveSession(id).block();
+		assertThat(session2).isSameAs(session1);
+		session2.invalidate().block();
+
+		session1.save().block();
+		assertThat(this.store.retrieveSession(id).block()).isNull();
+	}
+
+	@Test
+	public void changeSessionId() {
+		WebSession session = insertSession();
+		String oldId = session.getId();
+		session.changeSessionId().block();
+		assertThat(this.store.retrieveSession(oldId).block()).isNull();
+		assertThat(this.store.retrieveSession(session.getId()).block()).isSameAs(session);
+	}
+
+	@Test
+	public void timingWheelExpiresIdleSessions() {
+		IntStream.range(0, 100).forEach(i -> insertSession());
+		WebSession active = insertSession();
+		assertThat(this.store.getSessionCount()).isEqualTo(101);
+
+		// Keep one session active while the others become idle
+		Clock clock = this.store.getClock();
+		DirectFieldAccessor accessor = new DirectFieldAccessor(this.store);
+		accessor.setPropertyValue("clock", Clock.offset(clock, Duration.ofMinutes(20)));
+		assertThat(this.store.retrieveSession(active.getId()).block()).isSameAs(active);
+		assertThat(this.store.getSessionCount()).isEqualTo(101);
+
+		// Don't use setter which would check all sessions
+		accessor.setPropertyValue("clock", Clock.offset(clock, Duration.ofMinutes(31)));
+		this.store.removeExpiredSessions();
+		assertThat(this.store.getSessionCount()).isEqualTo(1);
+		assertThat(this.store.getExpiredSessionCount()).isEqualTo(100);
+
+		accessor.setPropertyValue("clock", Clock.offset(clock, Duration.ofMinutes(51)));
+		this.store.removeExpiredSessions();
+		assertThat(this.store.getSessionCount()).isZero();
+		assertThat(active.isExpired()).isTrue();
+	}
+
+	@Test
+	public void sessionsWithNegativeMaxIdleTimeDoNotExpire() {
+		WebSession session = this.store.createWebSession().block();
+		assertThat(session).isNotNull();
+		session.setMaxIdleTime(Duration.ofSeconds(-1));
+		session.start();
+		session.save().block();
+
+		new DirectFieldAccessor(this.store).setPropertyValue(
+				"clock", Clock.offset(this.store.getClock(), Duration.ofDays(400)));
+		this.store.removeExpiredSessions();
+		assertThat(this.store.retrieveSession(session.getId()).block()).isSameAs(session);
+	}
+
+	@Test
+	public void maxSessionsEvictsLeastRecentlyUsed() {
+		this.store = new ShardedInMemoryWebSessionStore(1, Duration.ofSeconds(1));
+		this.store.setMaxSessions(10);
+		WebSession first = insertSession();
+		WebSession second = insertSession();
+		IntStream.range(0, 8).forEach(i -> insertSession());
+
+		// Access the first session so that the second one is least recently used
+		assertThat(this.store.retrieveSession(first.getId()).block()).isSameAs(first);
+		insertSession();
+
+		assertThat(this.store.getSessionCount()).isEqualTo(10);
+		assertThat(this.store.getEvictedSessionCount()).isEqualTo(1);
+		assertThat(this.store.retrieveSession(first.getId()).block()).isSameAs(first);
+		assertThat(this.store.retrieveSession(second.getId()).block()).isNull();
+		assertThat(second.isExpired()).isTrue();
+	}
+
+	private WebSession insertSession() {
+		WebSession session = this.store.createWebSession().block();
+		assertThat(session).isNotNull();
+		session.start();
+		session.save().block();
+		return session;
+	}
+
+}
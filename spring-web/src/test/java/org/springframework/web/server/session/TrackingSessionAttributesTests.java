@@ -0,0 +1,169 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.server.session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.web.server.session.TrackingSessionAttributes.SaveMode;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+/**
+ * Unit tests for {@link TrackingSessionAttributes}.
+ *
+ * @author agent
+ */
+class TrackingSessionAttributesTests {
+
+	private final Map<String, Object> persisted = new HashMap<>();
+
+	private final List<String> loaded = new ArrayList<>();
+
+
+	@Test
+	void newSessionTracksAddedAttributes() {
+		TrackingSessionAttributes attributes = new TrackingSessionAttributes();
+		assertThat(attributes.hasChanges()).isFalse();
+
+		attributes.put("foo", "bar");
+		assertThat(attributes.hasChanges()).isTrue();
+		assertThat(attributes.getChangedAttributes()).containsOnly(entry("foo", "bar"));
+
+		attributes.clearChanges();
+		assertThat(attributes.hasChanges()).isFalse();
+		assertThat(attributes).containsOnly(entry("foo", "bar"));
+	}
+
+	@Test
+	void lazyLoadingOnFirstAccess() {
+		TrackingSessionAttributes attributes = lazyAttributes(SaveMode.ON_SET_ATTRIBUTE);
+		assertThat(attributes).hasSize(2);
+		assertThat(this.loaded).isEmpty();
+
+		assertThat(attributes.get("a")).isEqualTo("A");
+		assertThat(attributes.get("a")).isEqualTo("A");
+		assertThat(this.loaded).containsExactly("a");
+		assertThat(attributes.isLoaded("a")).isTrue();
+		assertThat(attributes.isLoaded("b")).isFalse();
+		assertThat(attributes.hasChanges()).isFalse();
+	}
+
+	@Test
+	void putAndRemoveWithoutLoading() {
+		TrackingSessionAttributes attributes = lazyAttributes(SaveMode.ON_SET_ATTRIBUTE);
+		assertThat(attributes.put("a", "AA")).isNull();
+		assertThat(attributes.remove("b")).isNull();
+		assertThat(this.loaded).isEmpty();
+
+		assertThat(attributes.getChangedAttributes()).containsOnly(entry("a", "AA"));
+		assertThat(attributes.getRemovedAttributeNames()).containsExactly("b");
+		assertThat(attributes).containsOnly(entry("a", "AA"));
+	}
+
+	@Test
+	void readAttributesAreChangedWithSaveModeOnGet() {
+		TrackingSessionAttributes attributes = lazyAttributes(SaveMode.ON_GET_ATTRIBUTE);
+		attributes.get("b");
+		assertThat(attributes.getChangedAttributes()).containsOnly(entry("b", "B"));
+	}
+
+	@Test
+	void allAttributesAreChangedWithSaveModeAlways() {
+		TrackingSessionAttributes attributes = lazyAttributes(SaveMode.ALWAYS);
+		assertThat(attributes.hasChanges()).isTrue();
+		assertThat(attributes.getChangedAttributes()).containsOnly(entry("a", "A"), entry("b", "B"));
+	}
+
+	@Test
+	void attributeRemovedFromStorageIsDropped() {
+		TrackingSessionAttributes attributes = lazyAttributes(SaveMode.ON_SET_ATTRIBUTE);
+		this.persisted.remove("a");
+		assertThat(attributes.get("a")).isNull();
+		assertThat(attributes.containsKey("a")).isFalse();
+		assertThat(attributes.hasChanges()).isFalse();
+	}
+
+	@Test
+	void containsKeyLoadsAttribute() {
+		TrackingSessionAttributes attributes = lazyAttributes(SaveMode.ON_SET_ATTRIBUTE);
+		this.persisted.remove("a");
+		assertThat(attributes.containsKey("a")).isFalse();
+		assertThat(attributes.containsKey("b")).isTrue();
+		assertThat(attributes.keySet()).containsOnly("b");
+		assertThat(this.loaded).containsExactly("a", "b");
+		assertThat(attributes.isLoaded("b")).isTrue();
+	}
+
+	@Test
+	void clearTracksAllAttributesAsRemoved() {
+		TrackingSessionAttributes attributes = lazyAttributes(SaveMode.ON_SET_ATTRIBUTE);
+		attributes.clear();
+		assertThat(attributes).isEmpty();
+		assertThat(attributes.getRemovedAttributeNames()).containsOnly("a", "b");
+		assertThat(this.loaded).isEmpty();
+	}
+
+	@Test
+	void nullValueIsRejected() {
+		TrackingSessionAttributes attributes = lazyAttributes(SaveMode.ON_SET_ATTRIBUTE);
+		assertThatNullPointerException().isThrownBy(() -> attributes.put("a", null));
+		assertThat(attributes.hasChanges()).isFalse();
+	}
+
+	@Test
+	void computeIfAbsentLoadsAttributeFirst() {
+		TrackingSessionAttributes attributes = lazyAttributes(SaveMode.ON_SET_ATTRIBUTE);
+		assertThat(attributes.computeIfAbsent("a", name -> "AA")).isEqualTo("A");
+		assertThat(attributes.computeIfAbsent("c", name -> "C")).isEqualTo("C");
+		assertThat(this.loaded).containsExactly("a");
+		assertThat(attributes.getChangedAttributes()).containsOnly(entry("c", "C"));
+	}
+
+	@Test
+	void computeAndMergeTrackChanges() {
+		TrackingSessionAttributes attributes = lazyAttributes(SaveMode.ON_SET_ATTRIBUTE);
+		assertThat(attributes.merge("a", "A", (previous, value) -> previous + "+" + value)).isEqualTo("A+A");
+		assertThat(attributes.compute("b", (name, previous) -> null)).isNull();
+		assertThat(attributes.putIfAbsent("a", "AA")).isEqualTo("A+A");
+
+		assertThat(attributes.getChangedAttributes()).containsOnly(entry("a", "A+A"));
+		assertThat(attributes.getRemovedAttributeNames()).containsExactly("b");
+		assertThat(attributes).containsOnly(entry("a", "A+A"));
+	}
+
+	private TrackingSessionAttributes lazyAttributes(SaveMode saveMode) {
+		this.persisted.put("a", "A");
+		this.persisted.put("b", "B");
+		return new TrackingSessionAttributes(Arrays.asList("a", "b"), name -> {
+			this.loaded.add(name);
+			return this.persisted.get(name);
+		}, saveMode);
+	}
+
+	private static Map.Entry<String, Object> entry(String key, Object value) {
+		return Collections.singletonMap(key, value).entrySet().iterator().next();
+	}
+
+}
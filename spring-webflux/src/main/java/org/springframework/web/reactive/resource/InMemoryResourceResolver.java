@@ -0,0 +1,353 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.resource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.GZIPOutputStream;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * A {@link ResourceResolver} that keeps the content of small resources in
+ * memory, so that frequently requested static assets are served without
+ * accessing the file system or class path.
+ *
+ * <p>Resources resolved through the rest of the chain are replaced with an
+ * in-memory copy if their content length does not exceed the
+ * {@linkplain #InMemoryResourceResolver(int, long) configured maximum}. The
+ * copy exposes the last-modified timestamp and a strong {@code ETag} computed
+ * from the content once, when the resource is first loaded, unless the
+ * resolved resource already contributes an {@code ETag} (e.g. a versioned
+ * resource from {@link VersionResourceResolver}). Larger resources are passed
+ * through as-is and can be written with zero-copy transfer if supported by
+ * the server, see {@link org.springframework.http.ZeroCopyHttpOutputMessage}.
+ *
+ * <p>Content is stored by its hash, so resources with the same content share
+ * the same bytes in memory. With {@link #setCompressContent compression}
+ * enabled, a gzip-encoded variant is created once along with the content and
+ * served to clients that accept it, with its own strong {@code ETag}.
+ *
+ * <p>Cached content is not checked for modifications. This resolver is meant
+ * for assets that do not change while the application is running, and should
+ * typically be configured after a {@link CachingResourceResolver} and before
+ * any resolvers that locate the actual resources, such as
+ * {@link PathResourceResolver}.
+ *
+ * @author agent
+ * @since 5.3.11
+ */
+public class InMemoryResourceResolver extends AbstractResourceResolver {
+
+	/**
+	 * The default maximum number of resources kept in memory.
+	 */
+	public static final int DEFAULT_CACHE_LIMIT = 256;
+
+	/**
+	 * The default maximum content length of resources kept in memory.
+	 */
+	public static final long DEFAULT_MAX_CONTENT_LENGTH = 64 * 1024;
+
+	private static final Entry NO_ENTRY = new Entry(-1, new Content("", new byte[0], "", null));
+
+
+	private final long maxContentLength;
+
+	private final ConcurrentLruCache<Resource, Entry> entryCache;
+
+	/** Content by hash, for as long as it is used by any cached resource. */
+	private final Map<String, WeakReference<Content>> contentByHash = new WeakHashMap<>(64);
+
+	private boolean compressContent = false;
+
+
+	/**
+	 * Create a resolver with the default cache limit and maximum content length.
+	 * @see #DEFAULT_CACHE_LIMIT
+	 * @see #DEFAULT_MAX_CONTENT_LENGTH
+	 */
+	public InMemoryResourceResolver() {
+		this(DEFAULT_CACHE_LIMIT, DEFAULT_MAX_CONTENT_LENGTH);
+	}
+
+	/**
+	 * Create a resolver with the given limits.
+	 * @param cacheLimit the maximum number of resources to keep track of,
+	 * with the least recently used ones being evicted first
+	 * @param maxContentLength the maximum content length of a resource
+	 * to be kept in memory
+	 */
+	public InMemoryResourceResolver(int cacheLimit, long maxContentLength) {
+		Assert.isTrue(maxContentLength >= 0, "Max content length must not be negative");
+		this.maxContentLength = maxContentLength;
+		this.entryCache = new ConcurrentLruCache<>(cacheLimit, this::loadEntry);
+	}
+
+
+	/**
+	 * Return the maximum content length of resources kept in memory.
+	 */
+	public long getMaxContentLength() {
+		return this.maxContentLength;
+	}
+
+	/**
+	 * Whether to create a gzip-encoded variant of resources kept in memory,
+	 * to be served to clients that accept the "gzip" content coding.
+	 * <p>Content is compressed once, when it is loaded, and the encoded
+	 * variant is only kept if it is significantly smaller, which is typically
+	 * not the case for images, fonts and other already compressed formats.
+	 * Resources that have an encoding already, e.g. as resolved from a
+	 * pre-compressed file by {@link EncodedResourceResolver}, are not compressed.
+	 * <p>By default this is set to {@code false}. This property should be
+	 * set before the first resource is resolved.
+	 */
+	public void setCompressContent(boolean compressContent) {
+		this.compressContent = compressContent;
+	}
+
+	/**
+	 * Return whether a gzip-encoded variant of resources is created.
+	 */
+	public boolean isCompressContent() {
+		return this.compressContent;
+	}
+
+
+	@Override
+	protected Mono<Resource> resolveResourceInternal(@Nullable ServerWebExchange exchange,
+			String requestPath, List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		return chain.resolveResource(exchange, requestPath, locations).map(resource -> {
+			if (resource instanceof ByteArrayResource || resource instanceof InMemoryResource) {
+				return resource;
+			}
+			Entry entry = this.entryCache.get(resource);
+			if (entry == NO_ENTRY) {
+				return resource;
+			}
+			Content gzipped = entry.content.gzipped;
+			if (gzipped != null && exchange != null && acceptsGzip(exchange)) {
+				return new InMemoryResource(resource, gzipped, entry.lastModified, "gzip");
+			}
+			return new InMemoryResource(resource, entry.content, entry.lastModified, null);
+		});
+	}
+
+	private boolean acceptsGzip(ServerWebExchange exchange) {
+		String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+		return (header != null && header.toLowerCase().contains("gzip"));
+	}
+
+	@Override
+	protected Mono<String> resolveUrlPathInternal(String resourceUrlPath,
+			List<? extends Resource> locations, ResourceResolverChain chain) {
+
+		return chain.resolveUrlPath(resourceUrlPath, locations);
+	}
+
+	private Entry loadEntry(Resource resource) {
+		try {
+			long contentLength = resource.contentLength();
+			if (contentLength > this.maxContentLength) {
+				return NO_ENTRY;
+			}
+			long lastModified = resource.lastModified();
+			byte[] bytes;
+			try (InputStream in = resource.getInputStream()) {
+				bytes = StreamUtils.copyToByteArray(in);
+			}
+			if (bytes.length > this.maxContentLength) {
+				return NO_ENTRY;
+			}
+			boolean compress = (this.compressContent && !(resource instanceof HttpResource &&
+					((HttpResource) resource).getResponseHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)));
+			String hash = DigestUtils.md5DigestAsHex(bytes);
+			String key = (compress ? hash + "+gzip" : hash);
+			synchronized (this.contentByHash) {
+				WeakReference<Content> ref = this.contentByHash.get(key);
+				Content content = (ref != null ? ref.get() : null);
+				if (content == null) {
+					content = new Content(key, bytes, hash, (compress ? gzip(bytes, hash) : null));
+					this.contentByHash.put(content.key, new WeakReference<>(content));
+				}
+				return new Entry(lastModified, content);
+			}
+		}
+		catch (IOException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to load content of " + resource + " into memory", ex);
+			}
+			return NO_ENTRY;
+		}
+	}
+
+	@Nullable
+	private static Content gzip(byte[] bytes, String hash) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 32);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(bytes);
+		}
+		// Not worth it for content that is compressed already, e.g. images and fonts
+		if (out.size() > bytes.length - bytes.length / 10) {
+			return null;
+		}
+		return new Content("", out.toByteArray(), hash + "-gzip", null);
+	}
+
+
+	/**
+	 * Content kept in memory, shared by all resources with the same content,
+	 * along with its gzip-encoded variant if any.
+	 */
+	private static final class Content {
+
+		/** The key in the content map, also keeping the map entry alive. */
+		final String key;
+
+		final byte[] bytes;
+
+		final String eTag;
+
+		@Nullable
+		final Content gzipped;
+
+		Content(String key, byte[] bytes, String hash, @Nullable Content gzipped) {
+			this.key = key;
+			this.bytes = bytes;
+			this.eTag = "\"" + hash + "\"";
+			this.gzipped = gzipped;
+		}
+	}
+
+
+	/**
+	 * Content of a resource kept in memory, along with its last-modified timestamp.
+	 */
+	private static final class Entry {
+
+		final long lastModified;
+
+		final Content content;
+
+		Entry(long lastModified, Content content) {
+			this.lastModified = lastModified;
+			this.content = content;
+		}
+	}
+
+
+	/**
+	 * An in-memory copy of a resolved {@link Resource}.
+	 */
+	static final class InMemoryResource extends AbstractResource implements HttpResource {
+
+		private final Resource original;
+
+		private final Content content;
+
+		private final long lastModified;
+
+		@Nullable
+		private final String coding;
+
+		InMemoryResource(Resource original, Content content,
+				long lastModified, @Nullable String coding) {
+
+			this.original = original;
+			this.content = content;
+			this.lastModified = lastModified;
+			this.coding = coding;
+		}
+
+
+		@Override
+		public InputStream getInputStream() {
+			return new ByteArrayInputStream(this.content.bytes);
+		}
+
+		@Override
+		public boolean exists() {
+			return true;
+		}
+
+		@Override
+		public long contentLength() {
+			return this.content.bytes.length;
+		}
+
+		@Override
+		public long lastModified() {
+			return this.lastModified;
+		}
+
+		@Override
+		public Resource createRelative(String relativePath) throws IOException {
+			return this.original.createRelative(relativePath);
+		}
+
+		@Override
+		@Nullable
+		public String getFilename() {
+			return this.original.getFilename();
+		}
+
+		@Override
+		public String getDescription() {
+			return "In-memory copy of " + this.original.getDescription() +
+					(this.coding != null ? " (" + this.coding + ")" : "");
+		}
+
+		@Override
+		public HttpHeaders getResponseHeaders() {
+			HttpHeaders headers;
+			if (this.original instanceof HttpResource) {
+				headers = ((HttpResource) this.original).getResponseHeaders();
+			}
+			else {
+				headers = new HttpHeaders();
+			}
+			if (headers.getETag() == null) {
+				headers.setETag(this.content.eTag);
+			}
+			if (this.coding != null) {
+				headers.add(HttpHeaders.CONTENT_ENCODING, this.coding);
+				headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			}
+			return headers;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -81,7 +81,7 @@ import org.springframework.web.server.WebHandler;
  * <p>This handler also properly evaluates the {@code Last-Modified} header (if
  * present) so that a {@code 304} status code will be returned as appropriate,
  * avoiding unnecessary overhead for resources that are already cached by the
- * client.
+ * client. The same applies to an {@code ETag} contributed by an {@link HttpResource}.
  *
  * @author Rossen Stoyanchev
  * @author Brian Clozel
@@ -392,7 +392,7 @@ public class ResourceWebHandler implements WebHandler, InitializingBean {
 						}
 
 						// Header phase
-						if (isUseLastModified() && exchange.checkNotModified(Instant.ofEpochMilli(resource.lastModified()))) {
+						if (checkNotModified(exchange, resource)) {
 							logger.trace(exchange.getLogPrefix() + "Resource not modified");
 							return Mono.empty();
 						}
@@ -421,6 +421,15 @@ public class ResourceWebHandler implements WebHandler, InitializingBean {
 				});
 	}
 
+	private boolean checkNotModified(ServerWebExchange exchange, Resource resource) throws IOException {
+		String eTag = (resource instanceof HttpResource ?
+				((HttpResource) resource).getResponseHeaders().getETag() : null);
+		if (isUseLastModified()) {
+			return exchange.checkNotModified(eTag, Instant.ofEpochMilli(resource.lastModified()));
+		}
+		return (eTag != null && exchange.checkNotModified(eTag));
+	}
+
 	protected Mono<Resource> getResource(ServerWebExchange exchange) {
 		String name = HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE;
 		PathContainer pathWithinHandler = exchange.getRequiredAttribute(name);
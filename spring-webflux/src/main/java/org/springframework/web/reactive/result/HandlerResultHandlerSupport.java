@@ -127,8 +127,23 @@ public abstract class HandlerResultHandlerSupport implements Ordered {
 			}
 			return contentType;
 		}
+		return selectMediaType(exchange, producibleTypesSupplier, getAcceptableTypes(exchange));
+	}
+
+	/**
+	 * Variant of {@link #selectMediaType(ServerWebExchange, Supplier)} for a
+	 * response without a preset Content-Type, with the acceptable media types
+	 * already resolved through the {@link #getContentTypeResolver() resolver}.
+	 * @param exchange the current request
+	 * @param producibleTypesSupplier the media types that can be produced for the current request
+	 * @param acceptableTypes the media types acceptable for the current request
+	 * @return the selected media type, or {@code null} if none
+	 * @since 5.3.11
+	 */
+	@Nullable
+	protected final MediaType selectMediaType(ServerWebExchange exchange,
+			Supplier<List<MediaType>> producibleTypesSupplier, List<MediaType> acceptableTypes) {
 
-		List<MediaType> acceptableTypes = getAcceptableTypes(exchange);
 		List<MediaType> producibleTypes = getProducibleTypes(exchange, producibleTypesSupplier);
 
 		Set<MediaType> compatibleMediaTypes = new LinkedHashSet<>();
@@ -141,7 +141,7 @@ public class InvocableHandlerMethod extends HandlerMethod {
 					value = CoroutinesUtils.invokeSuspendingFunction(method, getBean(), args);
 				}
 				else {
-					value = method.invoke(getBean(), args);
+					value = getMethodInvoker().invoke(getBean(), args);
 				}
 			}
 			catch (IllegalArgumentException ex) {
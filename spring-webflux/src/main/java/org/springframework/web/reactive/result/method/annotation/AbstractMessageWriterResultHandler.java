@@ -16,9 +16,13 @@
 
 package org.springframework.web.reactive.result.method.annotation;
 
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import org.reactivestreams.Publisher;
 import reactor.core.publisher.Mono;
@@ -36,6 +40,8 @@ import org.springframework.http.converter.HttpMessageNotWritableException;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.web.reactive.HandlerMapping;
 import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
 import org.springframework.web.reactive.result.HandlerResultHandlerSupport;
@@ -54,8 +60,15 @@ public abstract class AbstractMessageWriterResultHandler extends HandlerResultHa
 
 	private static final String COROUTINES_FLOW_CLASS_NAME = "kotlinx.coroutines.flow.Flow";
 
+	private static final int SELECTION_CACHE_LIMIT = 256;
+
+
 	private final List<HttpMessageWriter<?>> messageWriters;
 
+	private final Map<SelectionKey, Selection> selectionCache = new ConcurrentHashMap<>(64);
+
+	private final boolean selectionCacheable;
+
 
 	/**
 	 * Constructor with {@link HttpMessageWriter HttpMessageWriters} and a
@@ -82,6 +95,11 @@ public abstract class AbstractMessageWriterResultHandler extends HandlerResultHa
 		super(contentTypeResolver, adapterRegistry);
 		Assert.notEmpty(messageWriters, "At least one message writer is required");
 		this.messageWriters = messageWriters;
+		// A custom selectMediaType implementation may vary per request
+		Method method = ReflectionUtils.findMethod(getClass(), "selectMediaType",
+				ServerWebExchange.class, Supplier.class);
+		this.selectionCacheable = (method != null &&
+				method.getDeclaringClass() == HandlerResultHandlerSupport.class);
 	}
 
 
@@ -146,8 +164,26 @@ public abstract class AbstractMessageWriterResultHandler extends HandlerResultHa
 		}
 
 		MediaType bestMediaType;
+		HttpMessageWriter<?> bestWriter = null;
+		SelectionKey selectionKey = null;
 		try {
-			bestMediaType = selectMediaType(exchange, () -> getMediaTypesFor(elementType));
+			selectionKey = getSelectionKey(exchange, elementType, actualElementType);
+			Selection selection = (selectionKey != null ? this.selectionCache.get(selectionKey) : null);
+			if (selection != null) {
+				bestMediaType = selection.mediaType;
+				bestWriter = selection.writer;
+				if (logger.isDebugEnabled()) {
+					logger.debug(exchange.getLogPrefix() + "Using '" + bestMediaType + "' given " +
+							selectionKey.acceptableTypes + " (cached)");
+				}
+			}
+			else if (selectionKey != null) {
+				bestMediaType = selectMediaType(exchange, () -> getMediaTypesFor(elementType),
+						selectionKey.acceptableTypes);
+			}
+			else {
+				bestMediaType = selectMediaType(exchange, () -> getMediaTypesFor(elementType));
+			}
 		}
 		catch (NotAcceptableStatusException ex) {
 			HttpStatus statusCode = exchange.getResponse().getStatusCode();
@@ -165,13 +201,20 @@ public abstract class AbstractMessageWriterResultHandler extends HandlerResultHa
 				logger.debug(logPrefix +
 						(publisher instanceof Mono ? "0..1" : "0..N") + " [" + elementType + "]");
 			}
-			for (HttpMessageWriter<?> writer : getMessageWriters()) {
-				if (writer.canWrite(actualElementType, bestMediaType)) {
-					return writer.write((Publisher) publisher, actualType, elementType,
-							bestMediaType, exchange.getRequest(), exchange.getResponse(),
-							Hints.from(Hints.LOG_PREFIX_HINT, logPrefix));
+			if (bestWriter == null) {
+				bestWriter = findWriter(actualElementType, bestMediaType);
+				if (bestWriter != null && selectionKey != null) {
+					if (this.selectionCache.size() >= SELECTION_CACHE_LIMIT) {
+						this.selectionCache.clear();
+					}
+					this.selectionCache.put(selectionKey, new Selection(bestMediaType, bestWriter));
 				}
 			}
+			if (bestWriter != null) {
+				return bestWriter.write((Publisher) publisher, actualType, elementType,
+						bestMediaType, exchange.getRequest(), exchange.getResponse(),
+						Hints.from(Hints.LOG_PREFIX_HINT, logPrefix));
+			}
 		}
 
 		MediaType contentType = exchange.getResponse().getHeaders().getContentType();
@@ -202,6 +245,37 @@ public abstract class AbstractMessageWriterResultHandler extends HandlerResultHa
 		}
 	}
 
+	/**
+	 * Return the key for caching the outcome of content negotiation, or
+	 * {@code null} if the response has a preset Content-Type or if
+	 * {@link #selectMediaType(ServerWebExchange, Supplier)} is overridden.
+	 */
+	@Nullable
+	private SelectionKey getSelectionKey(ServerWebExchange exchange,
+			ResolvableType elementType, ResolvableType actualElementType) {
+
+		if (!this.selectionCacheable) {
+			return null;
+		}
+		MediaType contentType = exchange.getResponse().getHeaders().getContentType();
+		if (contentType != null && contentType.isConcrete()) {
+			return null;
+		}
+		List<MediaType> acceptableTypes = getContentTypeResolver().resolveMediaTypes(exchange);
+		Set<MediaType> producibleTypes = exchange.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE);
+		return new SelectionKey(acceptableTypes, producibleTypes, elementType, actualElementType);
+	}
+
+	@Nullable
+	private HttpMessageWriter<?> findWriter(ResolvableType elementType, MediaType mediaType) {
+		for (HttpMessageWriter<?> writer : getMessageWriters()) {
+			if (writer.canWrite(elementType, mediaType)) {
+				return writer;
+			}
+		}
+		return null;
+	}
+
 	private List<MediaType> getMediaTypesFor(ResolvableType elementType) {
 		List<MediaType> writableMediaTypes = new ArrayList<>();
 		for (HttpMessageWriter<?> converter : getMessageWriters()) {
@@ -212,4 +286,73 @@ public abstract class AbstractMessageWriterResultHandler extends HandlerResultHa
 		return writableMediaTypes;
 	}
 
+
+	/**
+	 * Key for the cached outcome of content negotiation: the acceptable media
+	 * types, the producible media types of the request mapping and the type
+	 * of the elements to write.
+	 */
+	private static final class SelectionKey {
+
+		private final List<MediaType> acceptableTypes;
+
+		@Nullable
+		private final Set<MediaType> producibleTypes;
+
+		private final ResolvableType elementType;
+
+		private final ResolvableType actualElementType;
+
+		private final int hashCode;
+
+		SelectionKey(List<MediaType> acceptableTypes, @Nullable Set<MediaType> producibleTypes,
+				ResolvableType elementType, ResolvableType actualElementType) {
+
+			this.acceptableTypes = acceptableTypes;
+			this.producibleTypes = producibleTypes;
+			this.elementType = elementType;
+			this.actualElementType = actualElementType;
+			int hashCode = acceptableTypes.hashCode();
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(producibleTypes);
+			hashCode = 31 * hashCode + elementType.hashCode();
+			this.hashCode = 31 * hashCode + actualElementType.hashCode();
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof SelectionKey)) {
+				return false;
+			}
+			SelectionKey otherKey = (SelectionKey) other;
+			return (this.elementType.equals(otherKey.elementType) &&
+					this.actualElementType.equals(otherKey.actualElementType) &&
+					this.acceptableTypes.equals(otherKey.acceptableTypes) &&
+					ObjectUtils.nullSafeEquals(this.producibleTypes, otherKey.producibleTypes));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+
+	/**
+	 * The selected media type and the writer to write with.
+	 */
+	private static final class Selection {
+
+		final MediaType mediaType;
+
+		final HttpMessageWriter<?> writer;
+
+		Selection(MediaType mediaType, HttpMessageWriter<?> writer) {
+			this.mediaType = mediaType;
+			this.writer = writer;
+		}
+	}
+
 }
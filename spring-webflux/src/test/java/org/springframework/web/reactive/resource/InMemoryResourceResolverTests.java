@@ -0,0 +1,133 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.reactive.resource;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.testfixture.server.MockServerWebExchange;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest.get;
+
+/**
+ * Unit tests for {@link InMemoryResourceResolver}.
+ *
+ * @author agent
+ */
+public class InMemoryResourceResolverTests {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+
+	private final List<Resource> locations = Collections.singletonList(new ClassPathResource("test/", getClass()));
+
+	private final MockServerWebExchange exchange = MockServerWebExchange.from(get(""));
+
+
+	@Test
+	public void resolveResource() throws Exception {
+		ResourceResolverChain chain = createChain(new InMemoryResourceResolver());
+		Resource original = new ClassPathResource("test/foo.css", getClass());
+		Resource resource = chain.resolveResource(this.exchange, "foo.css", this.locations).block(TIMEOUT);
+
+		assertThat(resource).isInstanceOf(InMemoryResourceResolver.InMemoryResource.class);
+		assertThat(resource.isFile()).isFalse();
+		assertThat(resource.getFilename()).isEqualTo("foo.css");
+		assertThat(resource.contentLength()).isEqualTo(original.contentLength());
+		assertThat(resource.lastModified()).isEqualTo(original.lastModified());
+		assertThat(FileCopyUtils.copyToByteArray(resource.getInputStream()))
+				.isEqualTo(FileCopyUtils.copyToByteArray(original.getInputStream()));
+		assertThat(((HttpResource) resource).getResponseHeaders().getETag()).isEqualTo(
+				"\"" + DigestUtils.md5DigestAsHex(original.getInputStream()) + "\"");
+	}
+
+	@Test
+	public void resolveResourceNotFound() {
+		ResourceResolverChain chain = createChain(new InMemoryResourceResolver());
+		assertThat(chain.resolveResource(this.exchange, "invalid.css", this.locations).block(TIMEOUT)).isNull();
+	}
+
+	@Test
+	public void resolveResourceAboveMaxContentLength() {
+		ResourceResolverChain chain = createChain(new InMemoryResourceResolver(16, 4));
+		Resource resource = chain.resolveResource(this.exchange, "foo.css", this.locations).block(TIMEOUT);
+
+		assertThat(resource).isEqualTo(new ClassPathResource("test/foo.css", getClass()));
+	}
+
+	@Test
+	public void resolveCompressedResource(@TempDir Path tempDir) throws Exception {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			builder.append("body { color: red; }\n");
+		}
+		String text = builder.toString();
+		FileCopyUtils.copy(text.getBytes(StandardCharsets.UTF_8), tempDir.resolve("app.css").toFile());
+		List<Resource> locations = Collections.singletonList(new FileSystemResource(tempDir.toFile().getPath() + "/"));
+		InMemoryResourceResolver resolver = new InMemoryResourceResolver();
+		resolver.setCompressContent(true);
+		ResourceResolverChain chain = createChain(resolver);
+
+		MockServerWebExchange exchange = MockServerWebExchange.from(get("").header("Accept-Encoding", "gzip"));
+		Resource gzipped = chain.resolveResource(exchange, "app.css", locations).block(TIMEOUT);
+		Resource plain = chain.resolveResource(this.exchange, "app.css", locations).block(TIMEOUT);
+
+		HttpHeaders headers = ((HttpResource) gzipped).getResponseHeaders();
+		assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(headers.getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+		assertThat(headers.getETag()).isNotEqualTo(((HttpResource) plain).getResponseHeaders().getETag());
+		try (InputStream in = new GZIPInputStream(gzipped.getInputStream())) {
+			assertThat(StreamUtils.copyToString(in, StandardCharsets.UTF_8)).isEqualTo(text);
+		}
+		assertThat(StreamUtils.copyToString(plain.getInputStream(), StandardCharsets.UTF_8)).isEqualTo(text);
+	}
+
+	@Test
+	public void resolveVersionedResourceKeepsETag() {
+		VersionResourceResolver versionResolver = new VersionResourceResolver()
+				.addFixedVersionStrategy("versionString", "/**");
+		ResourceResolverChain chain = new DefaultResourceResolverChain(
+				Arrays.asList(new InMemoryResourceResolver(), versionResolver, new PathResourceResolver()));
+		Resource resource = chain.resolveResource(this.exchange, "versionString/foo.css", this.locations).block(TIMEOUT);
+
+		assertThat(resource).isInstanceOf(InMemoryResourceResolver.InMemoryResource.class);
+		assertThat(((HttpResource) resource).getResponseHeaders().getETag()).isEqualTo("W/\"versionString\"");
+	}
+
+
+	private static ResourceResolverChain createChain(InMemoryResourceResolver resolver) {
+		return new DefaultResourceResolverChain(Arrays.asList(resolver, new PathResourceResolver()));
+	}
+
+}
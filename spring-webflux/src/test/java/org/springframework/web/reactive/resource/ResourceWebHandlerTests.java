@@ -444,6 +444,25 @@ public class ResourceWebHandlerTests {
 		assertResponseBody(exchange, "h1 { color:red; }");
 	}
 
+	@Test
+	public void notModifiedWithETag() throws Exception {
+		this.handler.setResourceResolvers(Arrays.asList(new InMemoryResourceResolver(), new PathResourceResolver()));
+		this.handler.afterPropertiesSet();
+
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(""));
+		setPathWithinHandlerMapping(exchange, "foo.css");
+		this.handler.handle(exchange).block(TIMEOUT);
+
+		String eTag = exchange.getResponse().getHeaders().getETag();
+		assertThat(eTag).isNotNull();
+		assertResponseBody(exchange, "h1 { color:red; }");
+
+		exchange = MockServerWebExchange.from(MockServerHttpRequest.get("").ifNoneMatch(eTag));
+		setPathWithinHandlerMapping(exchange, "foo.css");
+		this.handler.handle(exchange).block(TIMEOUT);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+	}
+
 	@Test
 	public void directory() {
 		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(""));
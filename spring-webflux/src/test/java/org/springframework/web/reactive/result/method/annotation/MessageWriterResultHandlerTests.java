@@ -24,6 +24,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeName;
@@ -36,6 +38,7 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
 import org.springframework.core.codec.ByteBufferEncoder;
 import org.springframework.core.codec.CharSequenceEncoder;
 import org.springframework.core.io.ClassPathResource;
@@ -46,9 +49,11 @@ import org.springframework.http.codec.HttpMessageWriter;
 import org.springframework.http.codec.ResourceHttpMessageWriter;
 import org.springframework.http.codec.json.Jackson2JsonEncoder;
 import org.springframework.http.codec.xml.Jaxb2XmlEncoder;
+import org.springframework.lang.Nullable;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.reactive.accept.RequestedContentTypeResolver;
 import org.springframework.web.reactive.accept.RequestedContentTypeResolverBuilder;
+import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.testfixture.http.server.reactive.MockServerHttpRequest;
 import org.springframework.web.testfixture.server.MockServerWebExchange;
 
@@ -180,6 +185,77 @@ public class MessageWriterResultHandlerTests {
 		assertResponseBody("[{\"id\":123,\"name\":\"foo\"},{\"id\":456,\"name\":\"bar\"}]");
 	}
 
+	@Test
+	public void cachedWriterSelection() throws Exception {
+		AtomicInteger canWriteCount = new AtomicInteger();
+		HttpMessageWriter<?> writer = new EncoderHttpMessageWriter<CharSequence>(CharSequenceEncoder.textPlainOnly()) {
+			@Override
+			public boolean canWrite(ResolvableType elementType, @Nullable MediaType mediaType) {
+				canWriteCount.incrementAndGet();
+				return super.canWrite(elementType, mediaType);
+			}
+		};
+		AbstractMessageWriterResultHandler handler = initResultHandler(writer);
+		MethodParameter type = on(TestController.class).resolveReturnType(String.class);
+
+		for (int i = 0; i < 3; i++) {
+			MockServerWebExchange exchange = MockServerWebExchange.from(
+					MockServerHttpRequest.get("/path").accept(MediaType.TEXT_PLAIN));
+			handler.writeBody("foo", type, exchange).block(Duration.ofSeconds(5));
+			assertThat(exchange.getResponse().getHeaders().getContentType().isCompatibleWith(MediaType.TEXT_PLAIN)).isTrue();
+		}
+		assertThat(canWriteCount.get()).isEqualTo(2);
+
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.get("/path").accept(MediaType.ALL));
+		handler.writeBody("foo", type, exchange).block(Duration.ofSeconds(5));
+		assertThat(canWriteCount.get()).isEqualTo(4);
+	}
+
+	@Test
+	public void writerSelectionResolvesMediaTypesOncePerRequest() throws Exception {
+		AtomicInteger resolveCount = new AtomicInteger();
+		RequestedContentTypeResolver resolver = exchange -> {
+			resolveCount.incrementAndGet();
+			return Collections.singletonList(MediaType.TEXT_PLAIN);
+		};
+		AbstractMessageWriterResultHandler handler = new AbstractMessageWriterResultHandler(
+				Collections.singletonList(new EncoderHttpMessageWriter<>(CharSequenceEncoder.allMimeTypes())), resolver) {};
+		MethodParameter type = on(TestController.class).resolveReturnType(String.class);
+
+		for (int i = 1; i <= 3; i++) {
+			MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/path"));
+			handler.writeBody("foo", type, exchange).block(Duration.ofSeconds(5));
+			assertThat(exchange.getResponse().getHeaders().getContentType().isCompatibleWith(MediaType.TEXT_PLAIN)).isTrue();
+			assertThat(resolveCount.get()).isEqualTo(i);
+		}
+	}
+
+	@Test
+	public void noCachedWriterSelectionWithCustomSelectMediaType() throws Exception {
+		AtomicInteger selectCount = new AtomicInteger();
+		List<HttpMessageWriter<?>> writers =
+				Collections.singletonList(new EncoderHttpMessageWriter<>(CharSequenceEncoder.allMimeTypes()));
+		AbstractMessageWriterResultHandler handler = new AbstractMessageWriterResultHandler(
+				writers, new RequestedContentTypeResolverBuilder().build()) {
+			@Override
+			@Nullable
+			protected MediaType selectMediaType(
+					ServerWebExchange exchange, Supplier<List<MediaType>> producibleTypesSupplier) {
+				selectCount.incrementAndGet();
+				return super.selectMediaType(exchange, producibleTypesSupplier);
+			}
+		};
+		MethodParameter type = on(TestController.class).resolveReturnType(String.class);
+
+		for (int i = 1; i <= 3; i++) {
+			MockServerWebExchange exchange = MockServerWebExchange.from(
+					MockServerHttpRequest.get("/path").accept(MediaType.TEXT_PLAIN));
+			handler.writeBody("foo", type, exchange).block(Duration.ofSeconds(5));
+			assertThat(selectCount.get()).isEqualTo(i);
+		}
+	}
+
 
 	private void assertResponseBody(String responseBody) {
 		StepVerifier.create(this.exchange.getResponse().getBody())
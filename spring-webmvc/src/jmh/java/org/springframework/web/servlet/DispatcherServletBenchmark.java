@@ -0,0 +1,159 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet;
+
+import java.util.Locale;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
+import org.springframework.web.testfixture.servlet.MockServletConfig;
+import org.springframework.web.testfixture.servlet.MockServletContext;
+
+/**
+ * Benchmarks for the full dispatch of {@code @RequestMapping} handler methods
+ * through the {@link DispatcherServlet}, using the mock Servlet API.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DispatcherServletBenchmark {
+
+	@Benchmark
+	public void responseBody(BenchmarkState state, Blackhole bh) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(state.servletContext, "GET", "/api/users/42");
+		request.setParameter("format", "short");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		state.servlet.service(request, response);
+		bh.consume(response.getContentAsByteArray());
+	}
+
+	@Benchmark
+	public void responseBodyWithoutArguments(BenchmarkState state, Blackhole bh) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(state.servletContext, "GET", "/api/status");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		state.servlet.service(request, response);
+		bh.consume(response.getContentAsByteArray());
+	}
+
+	@Benchmark
+	public void viewWithModelAttributes(BenchmarkState state, Blackhole bh) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest(state.servletContext, "GET", "/pages/42");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		state.servlet.service(request, response);
+		bh.consume(response.getStatus());
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public MockServletContext servletContext;
+
+		public DispatcherServlet servlet;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.servletContext = new MockServletContext();
+			StaticWebApplicationContext context = new StaticWebApplicationContext();
+			context.setServletContext(this.servletContext);
+			context.registerSingleton("handlerMapping", RequestMappingHandlerMapping.class);
+			context.registerSingleton("handlerAdapter", RequestMappingHandlerAdapter.class);
+			context.registerSingleton("viewResolver", NoOpViewResolver.class);
+			context.registerSingleton("apiController", ApiController.class);
+			context.registerSingleton("pageController", PageController.class);
+			this.servlet = new DispatcherServlet(context);
+			this.servlet.init(new MockServletConfig(this.servletContext));
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			this.servlet.destroy();
+		}
+	}
+
+
+	@Controller
+	@ResponseBody
+	public static class ApiController {
+
+		@GetMapping("/api/users/{id}")
+		public String user(@PathVariable("id") long id, @RequestParam(name = "format", defaultValue = "full") String format) {
+			return "user-" + id + "-" + format;
+		}
+
+		@GetMapping("/api/status")
+		public String status() {
+			return "ok";
+		}
+	}
+
+
+	@Controller
+	public static class PageController {
+
+		@ModelAttribute
+		public void addTitle(Model model) {
+			model.addAttribute("title", "Users");
+		}
+
+		@GetMapping("/pages/{id}")
+		public String page(@PathVariable("id") long id, Model model) {
+			model.addAttribute("id", id);
+			return "page";
+		}
+	}
+
+
+	public static class NoOpViewResolver implements ViewResolver {
+
+		private final View view = new View() {
+			@Override
+			public void render(Map<String, ?> model, HttpServletRequest request, HttpServletResponse response) {
+			}
+		};
+
+		@Override
+		public View resolveViewName(String viewName, Locale locale) {
+			return this.view;
+		}
+	}
+
+}
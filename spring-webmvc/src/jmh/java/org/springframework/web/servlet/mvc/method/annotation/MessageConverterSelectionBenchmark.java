@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.mvc.method.annotation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.http.converter.ResourceRegionHttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.support.AllEncompassingFormHttpMessageConverter;
+import org.springframework.http.converter.xml.SourceHttpMessageConverter;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+import org.springframework.web.testfixture.servlet.MockHttpServletResponse;
+
+/**
+ * Benchmarks for writing {@code @ResponseBody} return values, including the
+ * selection of the {@link HttpMessageConverter} and media type to write with,
+ * given typical {@code Accept} headers of browsers and API clients.
+ *
+ * @author agent
+ * @see org.springframework.http.MediaTypeBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+public class MessageConverterSelectionBenchmark {
+
+	@Benchmark
+	public void writeBeanForBrowser(BenchmarkState state, Blackhole bh) throws Exception {
+		bh.consume(write(state, state.bean, state.returnTypeBean, state.browserAccept));
+	}
+
+	@Benchmark
+	public void writeBeanForApiClient(BenchmarkState state, Blackhole bh) throws Exception {
+		bh.consume(write(state, state.bean, state.returnTypeBean, "application/json"));
+	}
+
+	@Benchmark
+	public void writeStringForBrowser(BenchmarkState state, Blackhole bh) throws Exception {
+		bh.consume(write(state, "text", state.returnTypeString, state.browserAccept));
+	}
+
+	private static MockHttpServletResponse write(BenchmarkState state, Object value,
+			MethodParameter returnType, String accept) throws Exception {
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+		request.addHeader("Accept", accept);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		state.processor.handleReturnValue(value, returnType, new ModelAndViewContainer(),
+				new ServletWebRequest(request, response));
+		return response;
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public String browserAccept =
+				"text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8";
+
+		public SimpleBean bean = new SimpleBean();
+
+		public RequestResponseBodyMethodProcessor processor;
+
+		public MethodParameter returnTypeBean;
+
+		public MethodParameter returnTypeString;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			List<HttpMessageConverter<?>> converters = new ArrayList<>();
+			converters.add(new ByteArrayHttpMessageConverter());
+			converters.add(new StringHttpMessageConverter());
+			converters.add(new ResourceHttpMessageConverter());
+			converters.add(new ResourceRegionHttpMessageConverter());
+			converters.add(new SourceHttpMessageConverter<>());
+			converters.add(new AllEncompassingFormHttpMessageConverter());
+			converters.add(new MappingJackson2HttpMessageConverter());
+			this.processor = new RequestResponseBodyMethodProcessor(converters);
+			this.returnTypeBean = new MethodParameter(Handler.class.getMethod("bean"), -1);
+			this.returnTypeString = new MethodParameter(Handler.class.getMethod("string"), -1);
+		}
+	}
+
+
+	public static class Handler {
+
+		public SimpleBean bean() {
+			return new SimpleBean();
+		}
+
+		public String string() {
+			return "text";
+		}
+	}
+
+
+	public static class SimpleBean {
+
+		private final long id = 42;
+
+		private final String name = "name";
+
+		public long getId() {
+			return this.id;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+	}
+
+}
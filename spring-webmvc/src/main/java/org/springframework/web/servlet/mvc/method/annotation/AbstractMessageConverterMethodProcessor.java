@@ -33,6 +33,8 @@ import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.accept.ContentNegotiationManager;
@@ -46,8 +48,10 @@ import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Extends {@link AbstractMessageConverterMethodArgumentResolver} with the ability to handle method
@@ -74,11 +78,20 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
 
     private static final Type RESOURCE_REGION_LIST_TYPE = new ParameterizedTypeReference<List<ResourceRegion>>() {}.getType();
 
+    private static final int SELECTION_CACHE_LIMIT = 256;
+
 
     private final ContentNegotiationManager contentNegotiationManager;
 
     private final Set<String> safeExtensions = new HashSet<>();
 
+    /**
+     * 缓存 内容协商的结果：选中的 MediaType 和 HttpMessageConverter
+     */
+    private final Map<SelectionKey, Selection> selectionCache = new ConcurrentHashMap<>(64);
+
+    private final boolean selectionCacheable;
+
 
     /**
      * Constructor with list of converters only.
@@ -109,6 +122,11 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
         this.contentNegotiationManager = (manager != null ? manager : new ContentNegotiationManager());
         this.safeExtensions.addAll(this.contentNegotiationManager.getAllFileExtensions());
         this.safeExtensions.addAll(SAFE_EXTENSIONS);
+        // A custom getProducibleMediaTypes implementation may vary per request
+        Method method = ReflectionUtils.findMethod(getClass(), "getProducibleMediaTypes",
+                HttpServletRequest.class, Class.class, Type.class);
+        this.selectionCacheable = (method != null &&
+                method.getDeclaringClass() == AbstractMessageConverterMethodProcessor.class);
     }
 
 
@@ -198,6 +216,8 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
         }
 
         MediaType selectedMediaType = null;
+        HttpMessageConverter<?> selectedConverter = null;
+        SelectionKey selectionKey = null;
         MediaType contentType = outputMessage.getHeaders()
                 .getContentType();
         boolean isContentTypePreset = contentType != null && contentType.isConcrete();
@@ -227,84 +247,65 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
                 }
                 throw ex;
             }
-            List<MediaType> producibleTypes = getProducibleMediaTypes(request, valueType, targetType);
-
-            if (body != null && producibleTypes.isEmpty()) {
-                throw new HttpMessageNotWritableException("No converter found for return value of type: " + valueType);
-            }
-            List<MediaType> mediaTypesToUse = new ArrayList<>();
-            for (MediaType requestedType : acceptableTypes) {
-                for (MediaType producibleType : producibleTypes) {
-                    if (requestedType.isCompatibleWith(producibleType)) {
-                        mediaTypesToUse.add(getMostSpecificMediaType(requestedType, producibleType));
-                    }
+            if (this.selectionCacheable) {
+                selectionKey = new SelectionKey(acceptableTypes,
+                        request.getAttribute(HandlerMapping.PRODUCIBLE_MEDIA_TYPES_ATTRIBUTE), valueType, targetType);
+                Selection selection = this.selectionCache.get(selectionKey);
+                if (selection != null) {
+                    // 相同的 Accept、produces 和返回值类型，直接使用缓存的协商结果
+                    selectedMediaType = selection.mediaType;
+                    selectedConverter = selection.converter;
                 }
             }
-            if (mediaTypesToUse.isEmpty()) {
-                if (body != null) {
-                    throw new HttpMediaTypeNotAcceptableException(producibleTypes);
-                }
-                if (logger.isDebugEnabled()) {
-                    logger.debug("No match for " + acceptableTypes + ", supported: " + producibleTypes);
-                }
-                return;
-            }
-
-            MediaType.sortBySpecificityAndQuality(mediaTypesToUse);
-
-            for (MediaType mediaType : mediaTypesToUse) {
-                if (mediaType.isConcrete()) {
-                    selectedMediaType = mediaType;
-                    break;
-                } else if (mediaType.isPresentIn(ALL_APPLICATION_MEDIA_TYPES)) {
-                    selectedMediaType = MediaType.APPLICATION_OCTET_STREAM;
-                    break;
-                }
-            }
-
-            if (logger.isDebugEnabled()) {
-                logger.debug(
-                        "Using '" + selectedMediaType + "', given " + acceptableTypes + " and supported " + producibleTypes);
+            if (selectedMediaType == null) {
+                selectedMediaType = selectMediaType(request, body, valueType, targetType, acceptableTypes);
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Using '" + selectedMediaType + "', given " + acceptableTypes + " (cached)");
             }
         }
 
         // 将返回值内容 写入 到 HttpResponse
         if (selectedMediaType != null) {
             selectedMediaType = selectedMediaType.removeQualityValue();
-            // 遍历 HttpMessageConverter
-            for (HttpMessageConverter<?> converter : this.messageConverters) {
-                GenericHttpMessageConverter genericConverter = (converter instanceof GenericHttpMessageConverter ? (GenericHttpMessageConverter<?>) converter : null);
-                // 可写
-                if (genericConverter != null ? ((GenericHttpMessageConverter) converter).canWrite(
-                        targetType, valueType, selectedMediaType) : converter.canWrite(valueType, selectedMediaType)) {
-                    /**
-                     * 回调 beforeBodyWrite。可以在这个环节修改最终输出到response的内容
-                     * {@link RequestResponseBodyAdviceChain}
-                     *
-                     * 是在这个地方初始化的
-                     *  {@link ExceptionHandlerExceptionResolver#getDefaultReturnValueHandlers()}
-                     * */
-                    body = getAdvice().beforeBodyWrite(body, returnType, selectedMediaType,
-                            (Class<? extends HttpMessageConverter<?>>) converter.getClass(), inputMessage, outputMessage
-                    );
-                    if (body != null) {
-                        Object theBody = body;
-                        LogFormatUtils.traceDebug(
-                                logger, traceOn -> "Writing [" + LogFormatUtils.formatValue(theBody, !traceOn) + "]");
-                        addContentDispositionHeader(inputMessage, outputMessage);
-                        // 将返回值内容写到 outputMessage 中
-                        if (genericConverter != null) {
-                            genericConverter.write(body, targetType, selectedMediaType, outputMessage);
-                        } else {
-                            ((HttpMessageConverter) converter).write(body, selectedMediaType, outputMessage);
-                        }
+            if (selectedConverter == null) {
+                // 遍历 HttpMessageConverter，找到可写的
+                selectedConverter = findConverter(valueType, targetType, selectedMediaType);
+                if (selectedConverter != null && selectionKey != null) {
+                    if (this.selectionCache.size() >= SELECTION_CACHE_LIMIT) {
+                        // 防止不断变化的 Accept 撑爆缓存
+                        this.selectionCache.clear();
+                    }
+                    this.selectionCache.put(selectionKey, new Selection(selectedMediaType, selectedConverter));
+                }
+            }
+            if (selectedConverter != null) {
+                /**
+                 * 回调 beforeBodyWrite。可以在这个环节修改最终输出到response的内容
+                 * {@link RequestResponseBodyAdviceChain}
+                 *
+                 * 是在这个地方初始化的
+                 *  {@link ExceptionHandlerExceptionResolver#getDefaultReturnValueHandlers()}
+                 * */
+                body = getAdvice().beforeBodyWrite(body, returnType, selectedMediaType,
+                        (Class<? extends HttpMessageConverter<?>>) selectedConverter.getClass(), inputMessage, outputMessage
+                );
+                if (body != null) {
+                    Object theBody = body;
+                    LogFormatUtils.traceDebug(
+                            logger, traceOn -> "Writing [" + LogFormatUtils.formatValue(theBody, !traceOn) + "]");
+                    addContentDispositionHeader(inputMessage, outputMessage);
+                    // 将返回值内容写到 outputMessage 中
+                    if (selectedConverter instanceof GenericHttpMessageConverter) {
+                        ((GenericHttpMessageConverter) selectedConverter).write(body, targetType, selectedMediaType, outputMessage);
                     } else {
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("Nothing to write: null body");
-                        }
+                        ((HttpMessageConverter) selectedConverter).write(body, selectedMediaType, outputMessage);
+                    }
+                } else {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("Nothing to write: null body");
                     }
-                    return;
                 }
+                return;
             }
         }
 
@@ -320,6 +321,75 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
         }
     }
 
+    /**
+     * Select the media type to write with, given the acceptable media types
+     * and the media types that can be produced for the value type.
+     *
+     * @return the selected media type, or {@code null} if there is nothing to write
+     */
+    @Nullable
+    private MediaType selectMediaType(HttpServletRequest request, @Nullable Object body, Class<?> valueType,
+                                      Type targetType, List<MediaType> acceptableTypes)
+            throws HttpMediaTypeNotAcceptableException {
+
+        List<MediaType> producibleTypes = getProducibleMediaTypes(request, valueType, targetType);
+
+        if (body != null && producibleTypes.isEmpty()) {
+            throw new HttpMessageNotWritableException("No converter found for return value of type: " + valueType);
+        }
+        List<MediaType> mediaTypesToUse = new ArrayList<>();
+        for (MediaType requestedType : acceptableTypes) {
+            for (MediaType producibleType : producibleTypes) {
+                if (requestedType.isCompatibleWith(producibleType)) {
+                    mediaTypesToUse.add(getMostSpecificMediaType(requestedType, producibleType));
+                }
+            }
+        }
+        if (mediaTypesToUse.isEmpty()) {
+            if (body != null) {
+                throw new HttpMediaTypeNotAcceptableException(producibleTypes);
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("No match for " + acceptableTypes + ", supported: " + producibleTypes);
+            }
+            return null;
+        }
+
+        MediaType.sortBySpecificityAndQuality(mediaTypesToUse);
+
+        MediaType selectedMediaType = null;
+        for (MediaType mediaType : mediaTypesToUse) {
+            if (mediaType.isConcrete()) {
+                selectedMediaType = mediaType;
+                break;
+            } else if (mediaType.isPresentIn(ALL_APPLICATION_MEDIA_TYPES)) {
+                selectedMediaType = MediaType.APPLICATION_OCTET_STREAM;
+                break;
+            }
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                    "Using '" + selectedMediaType + "', given " + acceptableTypes + " and supported " + producibleTypes);
+        }
+        return selectedMediaType;
+    }
+
+    /**
+     * Find the first converter that can write the value type with the given media type.
+     */
+    @Nullable
+    private HttpMessageConverter<?> findConverter(Class<?> valueType, Type targetType, MediaType mediaType) {
+        for (HttpMessageConverter<?> converter : this.messageConverters) {
+            if (converter instanceof GenericHttpMessageConverter ?
+                    ((GenericHttpMessageConverter<?>) converter).canWrite(targetType, valueType, mediaType) :
+                    converter.canWrite(valueType, mediaType)) {
+                return converter;
+            }
+        }
+        return null;
+    }
+
     /**
      * Return the type of the value to be written to the response. Typically this is
      * a simple check via getClass on the value but if the value is null, then the
@@ -502,4 +572,72 @@ public abstract class AbstractMessageConverterMethodProcessor extends AbstractMe
                 .endsWith("+xml"));
     }
 
+
+    /**
+     * Key for the cached outcome of content negotiation: the acceptable media
+     * types, the producible media types of the request mapping and the type
+     * of the value to write.
+     */
+    private static final class SelectionKey {
+
+        private final List<MediaType> acceptableTypes;
+
+        @Nullable
+        private final Object producibleTypes;
+
+        private final Class<?> valueType;
+
+        private final Type targetType;
+
+        private final int hashCode;
+
+        SelectionKey(List<MediaType> acceptableTypes, @Nullable Object producibleTypes,
+                     Class<?> valueType, Type targetType) {
+
+            this.acceptableTypes = acceptableTypes;
+            this.producibleTypes = producibleTypes;
+            this.valueType = valueType;
+            this.targetType = targetType;
+            int hashCode = acceptableTypes.hashCode();
+            hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(producibleTypes);
+            hashCode = 31 * hashCode + valueType.hashCode();
+            this.hashCode = 31 * hashCode + targetType.hashCode();
+        }
+
+        @Override
+        public boolean equals(@Nullable Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof SelectionKey)) {
+                return false;
+            }
+            SelectionKey otherKey = (SelectionKey) other;
+            return (this.valueType == otherKey.valueType && this.targetType.equals(otherKey.targetType) &&
+                    this.acceptableTypes.equals(otherKey.acceptableTypes) &&
+                    ObjectUtils.nullSafeEquals(this.producibleTypes, otherKey.producibleTypes));
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+    }
+
+
+    /**
+     * The selected media type and the converter to write with.
+     */
+    private static final class Selection {
+
+        final MediaType mediaType;
+
+        final HttpMessageConverter<?> converter;
+
+        Selection(MediaType mediaType, HttpMessageConverter<?> converter) {
+            this.mediaType = mediaType;
+            this.converter = converter;
+        }
+    }
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,7 @@ import org.springframework.http.converter.xml.SourceHttpMessageConverter;
 import org.springframework.lang.Nullable;
 import org.springframework.ui.ModelMap;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ReflectionUtils.MethodFilter;
 import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.InitBinder;
@@ -179,6 +180,12 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
      */
     private final Map<ControllerAdviceBean, Set<Method>> modelAttributeAdviceCache = new LinkedHashMap<>();
 
+    /**
+     * Soft references: the plans of unregistered handler methods may be reclaimed,
+     * whereas a plan reclaimed for a registered method simply gets created again.
+     */
+    private final Map<HandlerMethod, InvocationPlan> invocationPlanCache = new ConcurrentReferenceHashMap<>(256);
+
 
     public RequestMappingHandlerAdapter() {
         this.messageConverters = new ArrayList<>(4);
@@ -875,14 +882,16 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
              *     - ServletRequestDataBinderFactory 实现了 WebDataBinderFactory 接口，其生成 WebDataBinder 的生命周期会使用 WebBindingInitializer 对 WebDataBinder 进行初始化，
              *         并且执行模板方法 initBinder(dataBinder, webRequest) 对 dataBinder 进行加工，逻辑就是回调 @InitBinder 标注的方法
              * */
-            WebDataBinderFactory binderFactory = getDataBinderFactory(handlerMethod);
+            InvocationPlan plan = getInvocationPlan(handlerMethod);
+            WebDataBinderFactory binderFactory = (plan.binderFactory != null ? plan.binderFactory :
+                    getDataBinderFactory(handlerMethod, plan));
             /**
              * 根据 InvocableHandlerMethod + SessionAttributesHandler +  binderFactory 装饰成 ModelFactory
              *
              * 将 @ModelAttribute标注的方法 装饰成 InvocableHandlerMethod
              * SessionAttributesHandler 是解析 handlerMethod 所在类上的 @SessionAttributes
              * */
-            ModelFactory modelFactory = getModelFactory(handlerMethod, binderFactory);
+            ModelFactory modelFactory = (plan.modelFree ? null : getModelFactory(handlerMethod, plan, binderFactory));
 
             // 将 handlerMethod 装饰成 ServletInvocableHandlerMethod
             ServletInvocableHandlerMethod invocableMethod = createInvocableHandlerMethod(handlerMethod);
@@ -892,6 +901,7 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
                  * {@link RequestMappingHandlerAdapter#afterPropertiesSet()}
                  * */
                 invocableMethod.setHandlerMethodArgumentResolvers(this.argumentResolvers);
+                invocableMethod.setBoundArgumentResolvers(plan.argumentResolvers);
             }
             if (this.returnValueHandlers != null) {
                 // 返回值处理器。就是用来将返回值 copy 到 mavContainer 中的
@@ -919,7 +929,9 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
              *
              * Tips: 所以可以通过 @SessionAttributes 和 @ModelAttribute 将我们需要的属性 从 request、session 中取出来，放到 mavContainer 中
              * */
-            modelFactory.initModel(webRequest, mavContainer, invocableMethod);
+            if (modelFactory != null) {
+                modelFactory.initModel(webRequest, mavContainer, invocableMethod);
+            }
 
             /**
              * 重定向时忽略默认的 Model
@@ -954,6 +966,10 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
                 return null;
             }
 
+            if (modelFactory == null && !mavContainer.isRequestHandled()) {
+                // Model-free handler rendering a view: still expose binding results for the model
+                modelFactory = new ModelFactory(null, binderFactory, plan.sessionAttributesHandler);
+            }
             // 构造出 ModelAndView
             return getModelAndView(mavContainer, modelFactory, webRequest);
         } finally {
@@ -972,17 +988,74 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
         return new ServletInvocableHandlerMethod(handlerMethod);
     }
 
-    private ModelFactory getModelFactory(HandlerMethod handlerMethod, WebDataBinderFactory binderFactory) {
+    /**
+     * Return the {@link InvocationPlan} for the given handler method,
+     * creating it on the first invocation of the method.
+     */
+    private InvocationPlan getInvocationPlan(HandlerMethod handlerMethod) throws Exception {
+        // A new HandlerMethod gets created for every request: key by the registered one
+        HandlerMethod key = handlerMethod.getResolvedFromHandlerMethod();
+        if (key == null) {
+            key = handlerMethod;
+        }
+        InvocationPlan plan = this.invocationPlanCache.get(key);
+        if (plan == null) {
+            plan = createInvocationPlan(handlerMethod);
+            this.invocationPlanCache.put(key, plan);
+        }
+        return plan;
+    }
+
+    private InvocationPlan createInvocationPlan(HandlerMethod handlerMethod) throws Exception {
         // 用来读取 @SessionAttributes
         SessionAttributesHandler sessionAttrHandler = getSessionAttributesHandler(handlerMethod);
         Class<?> handlerType = handlerMethod.getBeanType();
 
-        Set<Method> methods = this.modelAttributeCache.get(handlerType);
-        if (methods == null) {
+        Set<Method> attrMethods = this.modelAttributeCache.get(handlerType);
+        if (attrMethods == null) {
             // 拿到类中只标注了 @ModelAttribute 的方法列表
-            methods = MethodIntrospector.selectMethods(handlerType, MODEL_ATTRIBUTE_METHODS);
-            this.modelAttributeCache.put(handlerType, methods);
+            attrMethods = MethodIntrospector.selectMethods(handlerType, MODEL_ATTRIBUTE_METHODS);
+            this.modelAttributeCache.put(handlerType, attrMethods);
+        }
+        Set<Method> binderMethods = this.initBinderCache.get(handlerType);
+        if (binderMethods == null) {
+            binderMethods = MethodIntrospector.selectMethods(handlerType, INIT_BINDER_METHODS);
+            this.initBinderCache.put(handlerType, binderMethods);
+        }
+        Map<ControllerAdviceBean, Set<Method>> attrAdvice = getApplicableAdvice(this.modelAttributeAdviceCache, handlerType);
+        Map<ControllerAdviceBean, Set<Method>> binderAdvice = getApplicableAdvice(this.initBinderAdviceCache, handlerType);
+
+        // Without @InitBinder methods, the binder factory holds no per-request state
+        WebDataBinderFactory binderFactory = (binderMethods.isEmpty() && binderAdvice.isEmpty() ?
+                createDataBinderFactory(Collections.emptyList()) : null);
+
+        HandlerMethodArgumentResolver[] argumentResolvers = null;
+        if (this.argumentResolvers != null) {
+            MethodParameter[] parameters = handlerMethod.getMethodParameters();
+            for (MethodParameter parameter : parameters) {
+                parameter.initParameterNameDiscovery(this.parameterNameDiscoverer);
+            }
+            argumentResolvers = this.argumentResolvers.bindResolvers(parameters);
         }
+        return new InvocationPlan(sessionAttrHandler, attrAdvice, attrMethods, binderAdvice, binderMethods,
+                binderFactory, argumentResolvers);
+    }
+
+    private static Map<ControllerAdviceBean, Set<Method>> getApplicableAdvice(
+            Map<ControllerAdviceBean, Set<Method>> adviceCache, Class<?> handlerType) {
+
+        Map<ControllerAdviceBean, Set<Method>> result = new LinkedHashMap<>();
+        adviceCache.forEach((controllerAdviceBean, methodSet) -> {
+            if (controllerAdviceBean.isApplicableToBeanType(handlerType)) {
+                result.put(controllerAdviceBean, methodSet);
+            }
+        });
+        return (result.isEmpty() ? Collections.emptyMap() : result);
+    }
+
+    private ModelFactory getModelFactory(HandlerMethod handlerMethod, InvocationPlan plan,
+                                         WebDataBinderFactory binderFactory) {
+
         List<InvocableHandlerMethod> attrMethods = new ArrayList<>();
         /**
          * 先添加全局的 @ModelAttribute
@@ -990,22 +1063,20 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
          * {@link RequestMappingHandlerAdapter#afterPropertiesSet()}
          * */
         // Global methods first
-        this.modelAttributeAdviceCache.forEach((controllerAdviceBean, methodSet) -> {
-            if (controllerAdviceBean.isApplicableToBeanType(handlerType)) {
-                Object bean = controllerAdviceBean.resolveBean();
-                for (Method method : methodSet) {
-                    // 生成 InvocableHandlerMethod 然后记录起来
-                    attrMethods.add(createModelAttributeMethod(binderFactory, bean, method));
-                }
+        plan.modelAttributeAdvice.forEach((controllerAdviceBean, methodSet) -> {
+            Object bean = controllerAdviceBean.resolveBean();
+            for (Method method : methodSet) {
+                // 生成 InvocableHandlerMethod 然后记录起来
+                attrMethods.add(createModelAttributeMethod(binderFactory, bean, method));
             }
         });
-        for (Method method : methods) {
+        for (Method method : plan.modelAttributeMethods) {
             Object bean = handlerMethod.getBean();
             // 生成 InvocableHandlerMethod 然后记录起来
             attrMethods.add(createModelAttributeMethod(binderFactory, bean, method));
         }
         // 生成 ModelFactory
-        return new ModelFactory(attrMethods, binderFactory, sessionAttrHandler);
+        return new ModelFactory(attrMethods, binderFactory, plan.sessionAttributesHandler);
     }
 
     private InvocableHandlerMethod createModelAttributeMethod(WebDataBinderFactory factory, Object bean,
@@ -1019,32 +1090,25 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
         return attrMethod;
     }
 
-    private WebDataBinderFactory getDataBinderFactory(HandlerMethod handlerMethod) throws Exception {
-        Class<?> handlerType = handlerMethod.getBeanType();
-        Set<Method> methods = this.initBinderCache.get(handlerType);
-        if (methods == null) {
-            methods = MethodIntrospector.selectMethods(handlerType, INIT_BINDER_METHODS);
-            this.initBinderCache.put(handlerType, methods);
-        }
+    private WebDataBinderFactory getDataBinderFactory(HandlerMethod handlerMethod, InvocationPlan plan)
+            throws Exception {
+
         List<InvocableHandlerMethod> initBinderMethods = new ArrayList<>();
         /**
          * 先添加全局的 @InitBinder
          * 注：通过 @ControllerAdvice 注册的
          * {@link RequestMappingHandlerAdapter#afterPropertiesSet()}
          * */
-        // Global methods first
-        this.initBinderAdviceCache.forEach((controllerAdviceBean, methodSet) -> {
-            // 当前类 符合 @ControllerAdvice 的规则，才可使用
-            if (controllerAdviceBean.isApplicableToBeanType(handlerType)) {
-                Object bean = controllerAdviceBean.resolveBean();
-                for (Method method : methodSet) {
-                    // 构造成 InvocableHandlerMethod 记录起来
-                    initBinderMethods.add(createInitBinderMethod(bean, method));
-                }
+        // Global methods first (only those applicable to the handler type)
+        plan.initBinderAdvice.forEach((controllerAdviceBean, methodSet) -> {
+            Object bean = controllerAdviceBean.resolveBean();
+            for (Method method : methodSet) {
+                // 构造成 InvocableHandlerMethod 记录起来
+                initBinderMethods.add(createInitBinderMethod(bean, method));
             }
         });
         // 再添加当前类中的 @InitBinder
-        for (Method method : methods) {
+        for (Method method : plan.initBinderMethods) {
             Object bean = handlerMethod.getBean();
             // 构造成 InvocableHandlerMethod 记录起来
             initBinderMethods.add(createInitBinderMethod(bean, method));
@@ -1081,7 +1145,7 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
     }
 
     @Nullable
-    private ModelAndView getModelAndView(ModelAndViewContainer mavContainer, ModelFactory modelFactory,
+    private ModelAndView getModelAndView(ModelAndViewContainer mavContainer, @Nullable ModelFactory modelFactory,
                                          NativeWebRequest webRequest) throws Exception {
 
         /**
@@ -1091,7 +1155,9 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
          * 2. mavContainer 中 特殊属性值( 是@SessionAttributes中的  或者 不是常见的数据类型 )的装饰，然后将装饰的结果存入 mavContainer 中
          *      装饰逻辑 `WebDataBinder dataBinder = this.dataBinderFactory.createBinder(request, value, name);`
          * */
-        modelFactory.updateModel(webRequest, mavContainer);
+        if (modelFactory != null) {
+            modelFactory.updateModel(webRequest, mavContainer);
+        }
         /**
          * 说明不需要转发或者重定向，输出的内容已经写到 response 里面了
          *
@@ -1125,4 +1191,56 @@ public class RequestMappingHandlerAdapter extends AbstractHandlerMethodAdapter i
         return mav;
     }
 
+
+    /**
+     * The state for invoking a handler method that does not vary per request,
+     * determined on the first invocation of the method.
+     */
+    private static final class InvocationPlan {
+
+        final SessionAttributesHandler sessionAttributesHandler;
+
+        final Map<ControllerAdviceBean, Set<Method>> modelAttributeAdvice;
+
+        final Set<Method> modelAttributeMethods;
+
+        final Map<ControllerAdviceBean, Set<Method>> initBinderAdvice;
+
+        final Set<Method> initBinderMethods;
+
+        /**
+         * Shared binder factory, or {@code null} if {@code @InitBinder} methods
+         * need to be bound to the handler instance for each request.
+         */
+        @Nullable
+        final WebDataBinderFactory binderFactory;
+
+        @Nullable
+        final HandlerMethodArgumentResolver[] argumentResolvers;
+
+        /**
+         * Whether there are neither {@code @ModelAttribute} methods nor
+         * {@code @SessionAttributes}, so that no {@link ModelFactory} is needed,
+         * e.g. for {@code @ResponseBody} methods.
+         */
+        final boolean modelFree;
+
+        InvocationPlan(SessionAttributesHandler sessionAttributesHandler,
+                       Map<ControllerAdviceBean, Set<Method>> modelAttributeAdvice, Set<Method> modelAttributeMethods,
+                       Map<ControllerAdviceBean, Set<Method>> initBinderAdvice, Set<Method> initBinderMethods,
+                       @Nullable WebDataBinderFactory binderFactory,
+                       @Nullable HandlerMethodArgumentResolver[] argumentResolvers) {
+
+            this.sessionAttributesHandler = sessionAttributesHandler;
+            this.modelAttributeAdvice = modelAttributeAdvice;
+            this.modelAttributeMethods = modelAttributeMethods;
+            this.initBinderAdvice = initBinderAdvice;
+            this.initBinderMethods = initBinderMethods;
+            this.binderFactory = binderFactory;
+            this.argumentResolvers = argumentResolvers;
+            this.modelFree = (modelAttributeAdvice.isEmpty() && modelAttributeMethods.isEmpty() &&
+                    !sessionAttributesHandler.hasSessionAttributes());
+        }
+    }
+
 }
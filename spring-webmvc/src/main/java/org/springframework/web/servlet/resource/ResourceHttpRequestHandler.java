@@ -16,6 +16,7 @@
 
 package org.springframework.web.servlet.resource;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
@@ -27,6 +28,7 @@ import java.util.Locale;
 import java.util.Map;
 
 import javax.servlet.ServletException;
+import javax.servlet.ServletResponseWrapper;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -38,6 +40,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.EmbeddedValueResolverAware;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
+import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpRange;
@@ -87,6 +90,11 @@ import org.springframework.web.util.UrlPathHelper;
  * <p>This handler also properly evaluates the {@code Last-Modified} header
  * (if present) so that a {@code 304} status code will be returned as appropriate,
  * avoiding unnecessary overhead for resources that are already cached by the client.
+ * The same applies to an {@code ETag} contributed by an {@link HttpResource}.
+ *
+ * <p>On containers that support it, file-based resources above a size
+ * threshold are handed over to the container for zero-copy transfer
+ * ("sendfile"), see {@link #setUseSendfile(boolean)}.
  *
  * @author Keith Donald
  * @author Jeremy Grelle
@@ -103,6 +111,21 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 
 	private static final String URL_RESOURCE_CHARSET_PREFIX = "[charset=";
 
+	private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+
+	private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+
+	private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+
+	private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
+	/**
+	 * Minimum content length for using sendfile, in line with the default
+	 * of Tomcat's own {@code DefaultServlet}: smaller content is more
+	 * efficiently written through the response buffer.
+	 */
+	private static final long SENDFILE_MIN_CONTENT_LENGTH = 48 * 1024;
+
 
 	private final List<String> locationValues = new ArrayList<>(4);
 
@@ -144,6 +167,8 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 
 	private boolean useLastModified = true;
 
+	private boolean useSendfile = true;
+
 
 	public ResourceHttpRequestHandler() {
 		super(HttpMethod.GET.name(), HttpMethod.HEAD.name());
@@ -384,6 +409,31 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		this.useLastModified = useLastModified;
 	}
 
+	/**
+	 * Return whether file-based resources may be handed over to the
+	 * container for zero-copy transfer.
+	 * @since 5.3.11
+	 */
+	public boolean isUseSendfile() {
+		return this.useSendfile;
+	}
+
+	/**
+	 * Set whether file-based resources may be handed over to the container
+	 * for zero-copy transfer ("sendfile") instead of being copied through the
+	 * response output stream. This applies to full content as well as to
+	 * single byte ranges of at least 48 KB, on containers that advertise
+	 * support for it through the {@code "org.apache.tomcat.sendfile.support"}
+	 * request attribute (i.e. Tomcat with a connector that supports sendfile),
+	 * and only as long as the response has not been wrapped, e.g. by a filter.
+	 * <p>This option is enabled by default.
+	 * @param useSendfile whether to use container sendfile support
+	 * @since 5.3.11
+	 */
+	public void setUseSendfile(boolean useSendfile) {
+		this.useSendfile = useSendfile;
+	}
+
 	@Override
 	public void afterPropertiesSet() throws Exception {
 		resolveResourceLocations();
@@ -536,7 +586,7 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		checkRequest(request);
 
 		// Header phase
-		if (isUseLastModified() && new ServletWebRequest(request, response).checkNotModified(resource.lastModified())) {
+		if (checkNotModified(new ServletWebRequest(request, response), resource)) {
 			logger.trace("Resource not modified");
 			return;
 		}
@@ -552,16 +602,22 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		ServletServerHttpResponse outputMessage = new ServletServerHttpResponse(response);
 		if (request.getHeader(HttpHeaders.RANGE) == null) {
 			Assert.state(this.resourceHttpMessageConverter != null, "Not initialized");
-			this.resourceHttpMessageConverter.write(resource, mediaType, outputMessage);
+			if (!isSendfileCandidate(request, response, resource) ||
+					!sendfile(request, response, new ResourceRegion(resource, 0, resource.contentLength()), false)) {
+				this.resourceHttpMessageConverter.write(resource, mediaType, outputMessage);
+			}
 		}
 		else {
 			Assert.state(this.resourceRegionHttpMessageConverter != null, "Not initialized");
 			ServletServerHttpRequest inputMessage = new ServletServerHttpRequest(request);
 			try {
 				List<HttpRange> httpRanges = inputMessage.getHeaders().getRange();
+				List<ResourceRegion> regions = HttpRange.toResourceRegions(httpRanges, resource);
 				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-				this.resourceRegionHttpMessageConverter.write(
-						HttpRange.toResourceRegions(httpRanges, resource), mediaType, outputMessage);
+				if (regions.size() != 1 || !isSendfileCandidate(request, response, resource) ||
+						!sendfile(request, response, regions.get(0), true)) {
+					this.resourceRegionHttpMessageConverter.write(regions, mediaType, outputMessage);
+				}
 			}
 			catch (IllegalArgumentException ex) {
 				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + resource.contentLength());
@@ -570,6 +626,50 @@ public class ResourceHttpRequestHandler extends WebContentGenerator
 		}
 	}
 
+	private boolean checkNotModified(ServletWebRequest webRequest, Resource resource) throws IOException {
+		String eTag = (resource instanceof HttpResource ?
+				((HttpResource) resource).getResponseHeaders().getETag() : null);
+		if (isUseLastModified()) {
+			return webRequest.checkNotModified(eTag, resource.lastModified());
+		}
+		return (eTag != null && webRequest.checkNotModified(eTag));
+	}
+
+	private boolean isSendfileCandidate(HttpServletRequest request, HttpServletResponse response, Resource resource) {
+		return (this.useSendfile && HttpMethod.GET.matches(request.getMethod()) && resource.isFile() &&
+				!(response instanceof ServletResponseWrapper) &&
+				Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE)));
+	}
+
+	/**
+	 * Hand the given region of a file-based resource over to the container
+	 * for zero-copy transfer, once the response headers have been set.
+	 * @return {@code true} if the container takes care of writing the content,
+	 * or {@code false} if it needs to be written through the response instead
+	 */
+	private boolean sendfile(HttpServletRequest request, HttpServletResponse response,
+			ResourceRegion region, boolean partial) throws IOException {
+
+		if (region.getCount() < SENDFILE_MIN_CONTENT_LENGTH) {
+			return false;
+		}
+		File file = region.getResource().getFile();
+		long start = region.getPosition();
+		long end = start + region.getCount();
+		if (partial) {
+			response.setHeader(HttpHeaders.CONTENT_RANGE,
+					"bytes " + start + '-' + (end - 1) + '/' + region.getResource().contentLength());
+		}
+		response.setContentLengthLong(region.getCount());
+		request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, file.getAbsolutePath());
+		request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+		request.setAttribute(SENDFILE_END_ATTRIBUTE, end);
+		if (logger.isTraceEnabled()) {
+			logger.trace("Sending " + region.getCount() + " bytes of " + file + " via sendfile");
+		}
+		return true;
+	}
+
 	@Nullable
 	protected Resource getResource(HttpServletRequest request) throws IOException {
 		String path = (String) request.getAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE);
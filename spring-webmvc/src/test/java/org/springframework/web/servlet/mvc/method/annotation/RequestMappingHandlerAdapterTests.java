@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.beans.propertyeditors.StringTrimmerEditor;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpInputMessage;
 import org.springframework.http.HttpStatus;
@@ -43,8 +44,13 @@ import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.lang.Nullable;
 import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.WebDataBinder;
 import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.InitBinder;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.SessionAttributes;
 import org.springframework.web.context.support.StaticWebApplicationContext;
 import org.springframework.web.method.HandlerMethod;
@@ -272,6 +278,46 @@ public class RequestMappingHandlerAdapterTests {
 		assertThat(this.response.getContentAsString()).isEqualTo("{\"status\":400,\"message\":\"body\"}");
 	}
 
+	@Test
+	public void modelFreeHandlerWithView() throws Exception {
+		HandlerMethod handlerMethod = handlerMethod(new ModelFreeController(), "handle", Model.class);
+		this.handlerAdapter.afterPropertiesSet();
+		ModelAndView mav = this.handlerAdapter.handle(this.request, this.response, handlerMethod);
+
+		assertThat(mav.getViewName()).isEqualTo("view");
+		assertThat(mav.getModel().get("attr")).isEqualTo("value");
+		assertThat(mav.getModel()).containsKey(BindingResult.MODEL_KEY_PREFIX + "attr");
+	}
+
+	@Test
+	public void modelFreeHandlerWithResponseBody() throws Exception {
+		HandlerMethod handlerMethod = handlerMethod(new ModelFreeController(), "handleBody", String.class);
+		this.handlerAdapter.afterPropertiesSet();
+
+		this.request.setParameter("name", "first");
+		assertThat(this.handlerAdapter.handle(this.request, this.response, handlerMethod)).isNull();
+		assertThat(this.response.getContentAsString()).isEqualTo("first");
+
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.request.setParameter("name", "second");
+		assertThat(this.handlerAdapter.handle(this.request, response, handlerMethod)).isNull();
+		assertThat(response.getContentAsString()).isEqualTo("second");
+	}
+
+	@Test
+	public void initBinderWithRepeatedInvocations() throws Exception {
+		this.handlerAdapter.afterPropertiesSet();
+
+		for (String name : Arrays.asList("first", "second")) {
+			InitBinderController handler = new InitBinderController();
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			this.request.setParameter("name", "  " + name + "  ");
+			this.handlerAdapter.handle(this.request, response, handlerMethod(handler, "handleBody", String.class));
+			assertThat(response.getContentAsString()).isEqualTo("[" + name + "]");
+			assertThat(handler.initBinderCount).isEqualTo(1);
+		}
+	}
+
 	private HandlerMethod handlerMethod(Object handler, String methodName, Class<?>... paramTypes) throws Exception {
 		Method method = handler.getClass().getDeclaredMethod(methodName, paramTypes);
 		return new InvocableHandlerMethod(handler, method);
@@ -308,6 +354,39 @@ public class RequestMappingHandlerAdapterTests {
 	}
 
 
+	@SuppressWarnings("unused")
+	private static class ModelFreeController {
+
+		public String handle(Model model) {
+			model.addAttribute("attr", "value");
+			return "view";
+		}
+
+		@ResponseBody
+		public String handleBody(@RequestParam("name") String name) {
+			return name;
+		}
+	}
+
+
+	@SuppressWarnings("unused")
+	private static class InitBinderController {
+
+		int initBinderCount;
+
+		@InitBinder
+		public void initBinder(WebDataBinder binder) {
+			this.initBinderCount++;
+			binder.registerCustomEditor(String.class, new StringTrimmerEditor(true));
+		}
+
+		@ResponseBody
+		public String handleBody(@RequestParam("name") String name) {
+			return "[" + name + "]";
+		}
+	}
+
+
 	@SessionAttributes("attr1")
 	private static class SessionAttributeController {
 
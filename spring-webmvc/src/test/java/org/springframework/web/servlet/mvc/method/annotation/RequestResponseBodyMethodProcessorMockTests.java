@@ -323,6 +323,31 @@ public class RequestResponseBodyMethodProcessorMockTests {
 		verify(stringMessageConverter).write(eq(body), eq(accepted), isA(HttpOutputMessage.class));
 	}
 
+	@Test
+	public void handleReturnValueWithCachedSelection() throws Exception {
+		MediaType accepted = MediaType.TEXT_PLAIN;
+		given(stringMessageConverter.canWrite(String.class, null)).willReturn(true);
+		given(stringMessageConverter.canWrite(String.class, accepted)).willReturn(true);
+
+		for (int i = 0; i < 3; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+			request.addHeader("Accept", accepted.toString());
+			webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+			processor.handleReturnValue("Foo" + i, returnTypeString, new ModelAndViewContainer(), webRequest);
+		}
+
+		verify(stringMessageConverter, times(1)).canWrite(String.class, null);
+		verify(stringMessageConverter, times(1)).canWrite(String.class, accepted);
+		verify(stringMessageConverter, times(3)).write(any(String.class), eq(accepted), isA(HttpOutputMessage.class));
+
+		// Different Accept header: negotiate again
+		servletRequest.addHeader("Accept", "text/*");
+		webRequest = new ServletWebRequest(servletRequest, servletResponse);
+		processor.handleReturnValue("Bar", returnTypeString, mavContainer, webRequest);
+		verify(stringMessageConverter, times(2)).canWrite(String.class, null);
+		verify(stringMessageConverter, times(2)).canWrite(String.class, accepted);
+	}
+
 	@Test
 	public void handleReturnValueProduces() throws Exception {
 		String body = "Foo";
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.resource;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.testfixture.servlet.MockHttpServletRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link InMemoryResourceResolver}.
+ *
+ * @author agent
+ */
+public class InMemoryResourceResolverTests {
+
+	private final List<Resource> locations = Collections.singletonList(new ClassPathResource("test/", getClass()));
+
+
+	@Test
+	public void resolveResource() throws Exception {
+		ResourceResolverChain chain = createChain(new InMemoryResourceResolver());
+		Resource original = new ClassPathResource("test/foo.css", getClass());
+		Resource resource = chain.resolveResource(null, "foo.css", this.locations);
+
+		assertThat(resource).isInstanceOf(InMemoryResourceResolver.InMemoryResource.class);
+		assertThat(resource.isFile()).isFalse();
+		assertThat(resource.getFilename()).isEqualTo("foo.css");
+		assertThat(resource.contentLength()).isEqualTo(original.contentLength());
+		assertThat(resource.lastModified()).isEqualTo(original.lastModified());
+		assertThat(FileCopyUtils.copyToByteArray(resource.getInputStream()))
+				.isEqualTo(FileCopyUtils.copyToByteArray(original.getInputStream()));
+		assertThat(((HttpResource) resource).getResponseHeaders().getETag()).isEqualTo(
+				"\"" + DigestUtils.md5DigestAsHex(original.getInputStream()) + "\"");
+	}
+
+	@Test
+	public void resolveResourceNotFound() {
+		ResourceResolverChain chain = createChain(new InMemoryResourceResolver());
+		assertThat(chain.resolveResource(null, "invalid.css", this.locations)).isNull();
+	}
+
+	@Test
+	public void resolveResourceAboveMaxContentLength() {
+		ResourceResolverChain chain = createChain(new InMemoryResourceResolver(16, 4));
+		Resource resource = chain.resolveResource(null, "foo.css", this.locations);
+
+		assertThat(resource).isEqualTo(new ClassPathResource("test/foo.css", getClass()));
+	}
+
+	@Test
+	public void resolveResourceKeepsContentInMemory(@TempDir Path tempDir) throws Exception {
+		File file = tempDir.resolve("app.js").toFile();
+		FileCopyUtils.copy("alert('1');".getBytes(StandardCharsets.UTF_8), file);
+		List<Resource> locations = Collections.singletonList(new FileSystemResource(tempDir.toFile().getPath() + "/"));
+		ResourceResolverChain chain = createChain(new InMemoryResourceResolver());
+
+		Resource resource = chain.resolveResource(null, "app.js", locations);
+		FileCopyUtils.copy("alert('2');".getBytes(StandardCharsets.UTF_8), file);
+
+		Resource cached = chain.resolveResource(null, "app.js", locations);
+		assertThat(StreamUtils.copyToString(cached.getInputStream(), StandardCharsets.UTF_8)).isEqualTo("alert('1');");
+		assertThat(((HttpResource) cached).getResponseHeaders().getETag())
+				.isEqualTo(((HttpResource) resource).getResponseHeaders().getETag());
+
+		Files.delete(file.toPath());
+		assertThat(chain.resolveResource(null, "app.js", locations)).isNull();
+	}
+
+	@Test
+	public void resolveCompressedResource(@TempDir Path tempDir) throws Exception {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			builder.append("body { color: red; }\n");
+		}
+		String text = builder.toString();
+		FileCopyUtils.copy(text.getBytes(StandardCharsets.UTF_8), tempDir.resolve("app.css").toFile());
+		List<Resource> locations = Collections.singletonList(new FileSystemResource(tempDir.toFile().getPath() + "/"));
+		InMemoryResourceResolver resolver = new InMemoryResourceResolver();
+		resolver.setCompressContent(true);
+		ResourceResolverChain chain = createChain(resolver);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app.css");
+		request.addHeader("Accept-Encoding", "gzip, deflate, br");
+		Resource gzipped = chain.resolveResource(request, "app.css", locations);
+		Resource plain = chain.resolveResource(new MockHttpServletRequest("GET", "/app.css"), "app.css", locations);
+
+		HttpHeaders headers = ((HttpResource) gzipped).getResponseHeaders();
+		assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(headers.getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+		assertThat(headers.getETag()).isNotEqualTo(((HttpResource) plain).getResponseHeaders().getETag());
+		assertThat(gzipped.contentLength()).isLessThan(plain.contentLength());
+		try (InputStream in = new GZIPInputStream(gzipped.getInputStream())) {
+			assertThat(StreamUtils.copyToString(in, StandardCharsets.UTF_8)).isEqualTo(text);
+		}
+
+		assertThat(((HttpResource) plain).getResponseHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+		assertThat(StreamUtils.copyToString(plain.getInputStream(), StandardCharsets.UTF_8)).isEqualTo(text);
+	}
+
+	@Test
+	public void resolveCompressedResourceNotWorthCompressing() {
+		InMemoryResourceResolver resolver = new InMemoryResourceResolver();
+		resolver.setCompressContent(true);
+		ResourceResolverChain chain = createChain(resolver);
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/foo.css");
+		request.addHeader("Accept-Encoding", "gzip");
+		Resource resource = chain.resolveResource(request, "foo.css", this.locations);
+
+		assertThat(resource).isInstanceOf(InMemoryResourceResolver.InMemoryResource.class);
+		assertThat(((HttpResource) resource).getResponseHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)).isFalse();
+	}
+
+	@Test
+	public void resolveVersionedResourceKeepsETag() {
+		VersionResourceResolver versionResolver = new VersionResourceResolver()
+				.addFixedVersionStrategy("versionString", "/**");
+		ResourceResolverChain chain = new DefaultResourceResolverChain(
+				Arrays.asList(new InMemoryResourceResolver(), versionResolver, new PathResourceResolver()));
+		Resource resource = chain.resolveResource(null, "versionString/foo.css", this.locations);
+
+		assertThat(resource).isInstanceOf(InMemoryResourceResolver.InMemoryResource.class);
+		assertThat(((HttpResource) resource).getResponseHeaders().getETag()).isEqualTo("W/\"versionString\"");
+	}
+
+
+	private static ResourceResolverChain createChain(InMemoryResourceResolver resolver) {
+		return new DefaultResourceResolverChain(Arrays.asList(resolver, new PathResourceResolver()));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,17 +16,21 @@
 
 package org.springframework.web.servlet.resource;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
 import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.FileSystemResource;
@@ -35,6 +39,7 @@ import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.util.FileCopyUtils;
 import org.springframework.util.StringUtils;
 import org.springframework.web.HttpRequestMethodNotSupportedException;
 import org.springframework.web.accept.ContentNegotiationManager;
@@ -725,6 +730,84 @@ public class ResourceHttpRequestHandlerTests {
 		assertThat(this.response.getContentAsString()).isEqualTo("h1 { color:red; }");
 	}
 
+	@Test
+	public void notModifiedWithETag() throws Exception {
+		this.handler.setResourceResolvers(Arrays.asList(new InMemoryResourceResolver(), new PathResourceResolver()));
+		this.handler.afterPropertiesSet();
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.css");
+		this.handler.handleRequest(this.request, this.response);
+
+		String eTag = this.response.getHeader("ETag");
+		assertThat(eTag).isNotNull();
+		assertThat(this.response.getContentAsString()).isEqualTo("h1 { color:red; }");
+
+		MockHttpServletRequest request = new MockHttpServletRequest(this.request.getServletContext(), "GET", "");
+		request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "foo.css");
+		request.addHeader("If-None-Match", eTag);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		this.handler.handleRequest(request, response);
+		assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_NOT_MODIFIED);
+		assertThat(response.getContentAsByteArray()).isEmpty();
+	}
+
+	@Test
+	public void sendfile(@TempDir Path tempDir) throws Exception {
+		File file = initSendfile(tempDir);
+		this.handler.handleRequest(this.request, this.response);
+
+		assertThat(this.response.getStatus()).isEqualTo(200);
+		assertThat(this.response.getContentType()).isEqualTo("text/plain");
+		assertThat(this.response.getContentLengthLong()).isEqualTo(64 * 1024);
+		assertThat(this.response.getContentAsByteArray()).isEmpty();
+		assertThat(this.request.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(file.getAbsolutePath());
+		assertThat(this.request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(0L);
+		assertThat(this.request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(64 * 1024L);
+	}
+
+	@Test
+	public void sendfileByteRange(@TempDir Path tempDir) throws Exception {
+		initSendfile(tempDir);
+		this.request.addHeader("Range", "bytes=1024-");
+		this.handler.handleRequest(this.request, this.response);
+
+		assertThat(this.response.getStatus()).isEqualTo(206);
+		assertThat(this.response.getContentLengthLong()).isEqualTo(63 * 1024);
+		assertThat(this.response.getHeader("Content-Range")).isEqualTo("bytes 1024-65535/65536");
+		assertThat(this.response.getContentAsByteArray()).isEmpty();
+		assertThat(this.request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(1024L);
+		assertThat(this.request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(64 * 1024L);
+	}
+
+	@Test
+	public void sendfileNotUsedForSmallByteRange(@TempDir Path tempDir) throws Exception {
+		initSendfile(tempDir);
+		this.request.addHeader("Range", "bytes=0-1");
+		this.handler.handleRequest(this.request, this.response);
+
+		assertThat(this.response.getStatus()).isEqualTo(206);
+		assertThat(this.response.getContentAsString()).isEqualTo("aa");
+		assertThat(this.request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+	}
+
+	@Test
+	public void sendfileNotUsedForWrappedResponse(@TempDir Path tempDir) throws Exception {
+		initSendfile(tempDir);
+		this.handler.handleRequest(this.request, new HttpServletResponseWrapper(this.response));
+
+		assertThat(this.response.getContentAsByteArray()).hasSize(64 * 1024);
+		assertThat(this.request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+	}
+
+	@Test
+	public void sendfileDisabled(@TempDir Path tempDir) throws Exception {
+		initSendfile(tempDir);
+		this.handler.setUseSendfile(false);
+		this.handler.handleRequest(this.request, this.response);
+
+		assertThat(this.response.getContentAsByteArray()).hasSize(64 * 1024);
+		assertThat(this.request.getAttribute("org.apache.tomcat.sendfile.filename")).isNull();
+	}
+
 	@Test
 	public void servletContextRootValidation() {
 		StaticWebApplicationContext context = new StaticWebApplicationContext() {
@@ -745,6 +828,21 @@ public class ResourceHttpRequestHandlerTests {
 	}
 
 
+	private File initSendfile(Path tempDir) throws Exception {
+		File file = tempDir.resolve("large.txt").toFile();
+		byte[] content = new byte[64 * 1024];
+		Arrays.fill(content, (byte) 'a');
+		FileCopyUtils.copy(content, file);
+
+		this.handler = new ResourceHttpRequestHandler();
+		this.handler.setLocations(Collections.singletonList(new FileSystemResource(tempDir.toFile().getPath() + "/")));
+		this.handler.setServletContext(new TestServletContext());
+		this.handler.afterPropertiesSet();
+		this.request.setAttribute(HandlerMapping.PATH_WITHIN_HANDLER_MAPPING_ATTRIBUTE, "large.txt");
+		this.request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+		return file;
+	}
+
 	private long resourceLastModified(String resourceName) throws IOException {
 		return new ClassPathResource(resourceName, getClass()).getFile().lastModified();
 	}